@@ -190,6 +190,7 @@ public interface AgentExecutor {
                     .schema( State.SCHEMA )
                     .callModelAction( new CallModel<>( this ) )
                     .executeToolsAction( executeTool( toolService ) )
+                    .messagesWindowAction( messagesWindow != null && messagesWindow.archive().isPresent() ? messagesWindow.action() : null )
                     .build();
 
         }
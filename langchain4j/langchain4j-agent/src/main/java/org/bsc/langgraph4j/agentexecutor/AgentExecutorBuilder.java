@@ -7,6 +7,7 @@ import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.request.ResponseFormat;
 import org.bsc.langgraph4j.langchain4j.tool.LC4jToolMapBuilder;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesWindow;
 import org.bsc.langgraph4j.serializer.StateSerializer;
 
 public abstract class AgentExecutorBuilder<State extends MessagesState<ChatMessage>, B extends AgentExecutorBuilder<State,B> > extends LC4jToolMapBuilder<B> {
@@ -16,6 +17,7 @@ public abstract class AgentExecutorBuilder<State extends MessagesState<ChatMessa
     StreamingChatModel streamingChatModel;
     SystemMessage systemMessage;
     ResponseFormat responseFormat;
+    MessagesWindow<ChatMessage> messagesWindow;
 
     @SuppressWarnings("unchecked")
     protected B result() {
@@ -53,4 +55,18 @@ public abstract class AgentExecutorBuilder<State extends MessagesState<ChatMessa
         return result();
     }
 
+    /**
+     * Sets the token-budgeted window of messages sent to the model.
+     * Use {@code windowStart( m -> m.type() != ChatMessageType.TOOL_EXECUTION_RESULT )} to avoid
+     * a window starting with a tool result detached from its request.
+     * If the window has an archive, older messages are also moved out of the state before each model call.
+     *
+     * @param messagesWindow the messages window
+     * @return this builder
+     */
+    public B messagesWindow(MessagesWindow<ChatMessage> messagesWindow ) {
+        this.messagesWindow = messagesWindow;
+        return result();
+    }
+
 }
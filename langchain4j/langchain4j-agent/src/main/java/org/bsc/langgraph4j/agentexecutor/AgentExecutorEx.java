@@ -291,6 +291,7 @@ public interface AgentExecutorEx {
                     .schema( State.SCHEMA )
                     .toolName(ToolSpecification::name)
                     .callModelAction( new CallModel<>(this) )
+                    .messagesWindowAction( messagesWindow != null && messagesWindow.archive().isPresent() ? messagesWindow.action() : null )
                     .dispatchToolsAction( dispatchTools( approvals.keySet() ) )
                     .executeToolFactory( ( toolName ) -> executeTool( toolService, toolName ) )
                     .shouldContinueEdge( shouldContinue() )
@@ -12,6 +12,7 @@ import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
 import org.bsc.langgraph4j.langchain4j.generators.StreamingChatGenerator;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesWindow;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,6 +28,7 @@ public class CallModel<State extends MessagesState<ChatMessage>> implements Asyn
     private final ChatModel chatModel;
     private final StreamingChatModel streamingChatModel;
     private final SystemMessage systemMessage;
+    private final MessagesWindow<ChatMessage> messagesWindow;
     final ChatRequestParameters parameters;
 
     /**
@@ -38,6 +40,7 @@ public class CallModel<State extends MessagesState<ChatMessage>> implements Asyn
         this.chatModel = builder.chatModel;
         this.streamingChatModel = builder.streamingChatModel;
         this.systemMessage = ofNullable( builder.systemMessage ).orElseGet( () -> SystemMessage.from("You are a helpful assistant") );
+        this.messagesWindow = builder.messagesWindow;
 
         var parametersBuilder = ChatRequestParameters.builder()
                 .toolSpecifications( builder.toolMap().keySet().stream().toList() );
@@ -85,7 +88,7 @@ public class CallModel<State extends MessagesState<ChatMessage>> implements Asyn
 
         var reqMessages = new ArrayList<ChatMessage>() {{
             add(systemMessage);
-            addAll(messages);
+            addAll( messagesWindow != null ? messagesWindow.apply(messages) : messages );
         }};
 
         return ChatRequest.builder()
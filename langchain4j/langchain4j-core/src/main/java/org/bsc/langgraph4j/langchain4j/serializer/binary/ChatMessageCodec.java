@@ -0,0 +1,95 @@
+package org.bsc.langgraph4j.langchain4j.serializer.binary;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.*;
+import org.bsc.langgraph4j.serializer.binary.BinaryCodec;
+import org.bsc.langgraph4j.serializer.binary.BinaryInput;
+import org.bsc.langgraph4j.serializer.binary.BinaryOutput;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Codec of langchain4j {@link ChatMessage}: the message type ordinal followed by its fields
+ */
+class ChatMessageCodec implements BinaryCodec<ChatMessage> {
+
+    private static final int SYSTEM = 0;
+    private static final int USER = 1;
+    private static final int AI = 2;
+    private static final int TOOL_EXECUTION_RESULT = 3;
+
+    private final ToolExecutionRequestCodec toolExecutionRequestCodec = new ToolExecutionRequestCodec();
+
+    @Override
+    public void write(ChatMessage value, BinaryOutput out) throws IOException {
+        switch (value.type()) {
+            case SYSTEM -> {
+                out.writeVarInt( SYSTEM );
+                out.writeString( ((SystemMessage) value).text() );
+            }
+            case USER -> {
+                var message = (UserMessage) value;
+                if( !message.hasSingleText() ) {
+                    throw new IllegalArgumentException( "Unsupported content type: " + message.type() );
+                }
+                out.writeVarInt( USER );
+                out.writeString( message.singleText() );
+                out.writeNullableString( message.name() );
+            }
+            case AI -> {
+                var message = (AiMessage) value;
+                out.writeVarInt( AI );
+                out.writeNullableString( message.text() );
+                var requests = message.hasToolExecutionRequests() ? message.toolExecutionRequests() : List.<ToolExecutionRequest>of();
+                out.writeVarInt( requests.size() );
+                for( var request : requests ) {
+                    toolExecutionRequestCodec.write( request, out );
+                }
+            }
+            case TOOL_EXECUTION_RESULT -> {
+                var message = (ToolExecutionResultMessage) value;
+                out.writeVarInt( TOOL_EXECUTION_RESULT );
+                out.writeNullableString( message.id() );
+                out.writeKey( message.toolName() );
+                out.writeString( message.text() );
+            }
+            default -> throw new IllegalArgumentException( "Unsupported chat message type: " + value.type() );
+        }
+    }
+
+    @Override
+    public ChatMessage read(BinaryInput in) throws IOException {
+        final int type = in.readVarInt();
+        return switch (type) {
+            case SYSTEM -> SystemMessage.from( in.readString() );
+            case USER -> {
+                var text = in.readString();
+                var name = in.readNullableString();
+                yield ( name != null ) ? UserMessage.from( name, text ) : UserMessage.from( text );
+            }
+            case AI -> {
+                var text = in.readNullableString();
+                int size = in.readVarInt();
+                var requests = new ArrayList<ToolExecutionRequest>( size );
+                for( int i = 0; i < size; ++i ) {
+                    requests.add( toolExecutionRequestCodec.read( in ) );
+                }
+                yield AiMessage.builder()
+                        .text( text )
+                        .toolExecutionRequests( requests )
+                        .build();
+            }
+            case TOOL_EXECUTION_RESULT -> {
+                var id = in.readNullableString();
+                var toolName = in.readKey();
+                yield new ToolExecutionResultMessage( id, toolName, in.readString() );
+            }
+            default -> throw new StreamCorruptedException( format("Unsupported chat message type: %d", type) );
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package org.bsc.langgraph4j.langchain4j.serializer.binary;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.ChatMessage;
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.AgentStateFactory;
+
+/**
+ * Compact binary serializer of states holding langchain4j messages
+ *
+ * @param <State> the type of the agent state
+ */
+public class LC4jBinaryStateSerializer<State extends AgentState> extends BinaryStateSerializer<State> {
+
+    public static final int CHAT_MESSAGE_TAG = 32;
+    public static final int TOOL_EXECUTION_REQUEST_TAG = 33;
+
+    public LC4jBinaryStateSerializer( AgentStateFactory<State> stateFactory ) {
+        super(stateFactory);
+
+        registry().register( CHAT_MESSAGE_TAG, ChatMessage.class, new ChatMessageCodec() );
+        registry().register( TOOL_EXECUTION_REQUEST_TAG, ToolExecutionRequest.class, new ToolExecutionRequestCodec() );
+        copiers().registerImmutable( ChatMessage.class, ToolExecutionRequest.class );
+    }
+}
@@ -0,0 +1,27 @@
+package org.bsc.langgraph4j.langchain4j.serializer.binary;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import org.bsc.langgraph4j.serializer.binary.BinaryCodec;
+import org.bsc.langgraph4j.serializer.binary.BinaryInput;
+import org.bsc.langgraph4j.serializer.binary.BinaryOutput;
+
+import java.io.IOException;
+
+class ToolExecutionRequestCodec implements BinaryCodec<ToolExecutionRequest> {
+
+    @Override
+    public void write(ToolExecutionRequest value, BinaryOutput out) throws IOException {
+        out.writeNullableString( value.id() );
+        out.writeKey( value.name() );
+        out.writeNullableString( value.arguments() );
+    }
+
+    @Override
+    public ToolExecutionRequest read(BinaryInput in) throws IOException {
+        return ToolExecutionRequest.builder()
+                .id( in.readNullableString() )
+                .name( in.readKey() )
+                .arguments( in.readNullableString() )
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.data.message.*;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
 import org.bsc.langgraph4j.state.AgentState;
@@ -49,7 +50,17 @@ public class LC4jJacksonStateSerializer <State extends AgentState>  extends Jack
     }
 
     public LC4jJacksonStateSerializer(AgentStateFactory<State> stateFactory) {
-        super(stateFactory);
+        this(stateFactory, JacksonFormat.JSON);
+    }
+
+    /**
+     * Creates a serializer writing the given data format ( e.g. Smile or CBOR ) with the same message handlers
+     *
+     * @param stateFactory the state factory
+     * @param format the data format
+     */
+    public LC4jJacksonStateSerializer(AgentStateFactory<State> stateFactory, JacksonFormat format) {
+        super(stateFactory, format);
 
         var module = new SimpleModule();
 
@@ -66,6 +77,7 @@ public class LC4jJacksonStateSerializer <State extends AgentState>  extends Jack
         module.addDeserializer( ToolExecutionRequest.class, new ToolExecutionRequestDeserializer() );
         module.addSerializer( ToolExecutionRequest.class, new ToolExecutionRequestSerializer() );
         objectMapper.registerModule( module );
+        copiers().registerImmutable( ChatMessage.class, ToolExecutionRequest.class );
         //objectMapper.setDefaultSetterInfo(JsonSetter.Value.forContentNulls(Nulls.SKIP));
     }
 }
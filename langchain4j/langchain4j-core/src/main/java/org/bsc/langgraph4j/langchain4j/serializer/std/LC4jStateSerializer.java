@@ -13,5 +13,6 @@ public class LC4jStateSerializer<State extends AgentState> extends ObjectStreamS
 
         mapper().register(ToolExecutionRequest.class, new ToolExecutionRequestSerializer());
         mapper().register(ChatMessage.class, new ChatMesssageSerializer());
+        copiers().registerImmutable(ChatMessage.class, ToolExecutionRequest.class);
     }
 }
@@ -0,0 +1,53 @@
+package org.bsc.langgraph4j.langchain4j.serializer.binary;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySerializationTest {
+
+    public static class State extends MessagesState<ChatMessage> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    @Test
+    public void MessagesStateSerializerTest() throws Exception {
+
+        var serializer = new LC4jBinaryStateSerializer<>( State::new );
+
+        var request = ToolExecutionRequest.builder()
+                .id("call_1")
+                .name("weather")
+                .arguments("{ \"city\": \"Naples\" }")
+                .build();
+
+        var messages = List.<ChatMessage>of(
+                SystemMessage.from("Buddy"),
+                UserMessage.from( "Hello"),
+                AiMessage.from( request ),
+                ToolExecutionResultMessage.from( request, "sunny" ),
+                AiMessage.from( "It's sunny" ) );
+
+        var state = serializer.cloneObject( Map.of(
+                "messages", messages,
+                "request", request,
+                "intent", "myIntent") );
+
+        assertEquals( 3, state.data().size() );
+        assertEquals( messages, state.messages() );
+        assertEquals( request, state.value("request").orElseThrow() );
+        assertEquals( "myIntent", state.value("intent").orElseThrow() );
+    }
+}
@@ -6,6 +6,7 @@ import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
@@ -173,4 +174,26 @@ public class JacksonSerializationTest {
         assertFalse( lastMessage.hasToolExecutionRequests());
     }
 
+
+    @Test
+    public void SmileStateSerializerTest() throws Exception {
+
+        var serializer = new LC4jJacksonStateSerializer<>( State::new, JacksonFormat.SMILE );
+
+        assertEquals( "application/x-jackson-smile", serializer.contentType() );
+
+        var request = ToolExecutionRequest.builder()
+                .id("1")
+                .name("tool")
+                .arguments("{}")
+                .build();
+        var messages = List.of( SystemMessage.from("Buddy"),
+                UserMessage.from( "Hello"),
+                AiMessage.from( "Calling tool", List.of( request ) ),
+                AiMessage.from( "Bye" ) );
+
+        var state = serializer.cloneObject( Map.of( "messages", messages ) );
+
+        assertEquals( messages, state.messages() );
+    }
 }
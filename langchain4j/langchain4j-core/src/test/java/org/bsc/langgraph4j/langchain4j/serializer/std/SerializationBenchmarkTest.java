@@ -0,0 +1,165 @@
+package org.bsc.langgraph4j.langchain4j.serializer.std;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the serialization of a long polymorphic messages history, where each message class is
+ * resolved to the serializer registered for {@link ChatMessage}.
+ * The timings are tagged {@code benchmark} and run only with {@code -Pbenchmark}
+ */
+public class SerializationBenchmarkTest {
+
+    public static class State extends MessagesState<ChatMessage> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    private static List<ChatMessage> history( int size ) {
+        var result = new ArrayList<ChatMessage>( size );
+        for( int i = 0; result.size() < size; ++i ) {
+            var request = ToolExecutionRequest.builder()
+                    .id( "call_" + i )
+                    .name( "tool" )
+                    .arguments( "{ \"index\": " + i + " }" )
+                    .build();
+            result.add( UserMessage.from( "question " + i ) );
+            result.add( AiMessage.from( request ) );
+            result.add( ToolExecutionResultMessage.from( request, "result " + i ) );
+            result.add( AiMessage.from( "answer " + i ) );
+        }
+        return result.subList( 0, size );
+    }
+
+    @Test
+    public void serializeMessagesHistory() throws Exception {
+        var serializer = new LC4jStateSerializer<>( State::new );
+
+        var messages = history( 1_000 );
+        var data = Map.<String,Object>of( "messages", messages );
+
+        var result = serializer.dataFromBytes( serializer.dataToBytes( data ) );
+
+        assertEquals( messages, result.get("messages") );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void serializeMessagesHistoryBenchmark() throws Exception {
+        var serializer = new LC4jStateSerializer<>( State::new );
+
+        var data = Map.<String,Object>of( "messages", history( 1_000 ) );
+
+        for( int i = 0; i < 10; ++i ) { // warm up
+            serializer.dataFromBytes( serializer.dataToBytes( data ) );
+        }
+
+        final int iterations = 50;
+        byte[] bytes = null;
+        long start = System.nanoTime();
+        for( int i = 0; i < iterations; ++i ) {
+            bytes = serializer.dataToBytes( data );
+        }
+        long writeElapsed = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for( int i = 0; i < iterations; ++i ) {
+            serializer.dataFromBytes( bytes );
+        }
+        long readElapsed = System.nanoTime() - start;
+
+        System.out.printf( "1,000 messages: %d bytes, write: %.2f ms, read: %.2f ms%n",
+                bytes.length,
+                writeElapsed / 1_000_000.0 / iterations,
+                readElapsed / 1_000_000.0 / iterations );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void cloneMessagesHistoryBenchmark() throws Exception {
+        var serializer = new LC4jStateSerializer<>( State::new );
+
+        var messages = history( 1_000 );
+        var data = Map.<String,Object>of( "messages", messages );
+
+        for( int i = 0; i < 10; ++i ) { // warm up
+            serializer.cloneObject( data );
+            serializer.dataFromBytes( serializer.dataToBytes( data ) );
+        }
+
+        final int iterations = 50;
+        long start = System.nanoTime();
+        for( int i = 0; i < iterations; ++i ) {
+            serializer.dataFromBytes( serializer.dataToBytes( data ) );
+        }
+        long roundTripElapsed = System.nanoTime() - start;
+
+        State result = null;
+        start = System.nanoTime();
+        for( int i = 0; i < iterations; ++i ) {
+            result = serializer.cloneObject( data );
+        }
+        long copyElapsed = System.nanoTime() - start;
+
+        System.out.printf( "clone 1,000 messages: serialization round trip: %.3f ms, copiers: %.3f ms%n",
+                roundTripElapsed / 1_000_000.0 / iterations,
+                copyElapsed / 1_000_000.0 / iterations );
+
+        assertEquals( messages, result.messages() );
+    }
+
+    @Test
+    public void cloneUsesRegisteredCopiers() throws Exception {
+        var serializer = new LC4jStateSerializer<>( State::new );
+
+        var messages = new ArrayList<>( history( 100 ) );
+        var metadata = new java.util.HashMap<String,Object>( Map.of( "tags", new ArrayList<>( List.of( "a", "b" ) ) ) );
+        var data = Map.<String,Object>of( "messages", messages, "metadata", metadata );
+
+        // messages are registered as immutable, no serialization round trip
+        assertTrue( serializer.copiers().getCopier( UserMessage.class ).isPresent() );
+        assertTrue( serializer.copiers().getCopier( ToolExecutionResultMessage.class ).isPresent() );
+
+        var result = serializer.cloneObject( data );
+
+        // structurally equal
+        assertEquals( messages, result.messages() );
+        assertEquals( metadata, result.data().get( "metadata" ) );
+        // the containers are copied, the immutable messages are shared
+        assertNotSame( messages, result.messages() );
+        assertNotSame( metadata, result.data().get( "metadata" ) );
+        for( int i = 0; i < messages.size(); ++i ) {
+            assertSame( messages.get(i), result.messages().get(i) );
+        }
+
+        // independent copies
+        messages.add( UserMessage.from( "added after the copy" ) );
+        @SuppressWarnings("unchecked")
+        var tags = (List<String>) metadata.get( "tags" );
+        tags.add( "c" );
+        assertEquals( 100, result.messages().size() );
+        assertEquals( List.of( "a", "b" ), ((Map<?,?>) result.data().get( "metadata" )).get( "tags" ) );
+
+        // a copier registered for the messages is called for each one of them
+        var copied = new java.util.concurrent.atomic.AtomicInteger();
+        serializer.copiers().register( ChatMessage.class, ( message, registry ) -> {
+            copied.incrementAndGet();
+            return message;
+        } );
+        serializer.cloneObject( Map.of( "messages", history( 100 ) ) );
+        assertEquals( 100, copied.get() );
+    }
+}
@@ -22,6 +22,8 @@ public class CompileConfig {
     private boolean releaseThread = false;
     private boolean interruptBeforeEdge = false;
     private int recursionLimit = 25;
+    private boolean readOnlyState = false;
+    private Set<String> mutableStateNodes = Set.of();
 
 
     public int recursionLimit() {
@@ -69,6 +71,25 @@ public class CompileConfig {
         return interruptBeforeEdge;
     }
 
+    /**
+     * return the current state of option concerning whether to pass to node actions a read-only view of the state
+     * instead of a copy
+     *
+     * @return true if option is enabled, false otherwise
+     */
+    public boolean readOnlyState() {
+        return readOnlyState;
+    }
+
+    /**
+     * Returns the nodes whose actions receive a mutable copy of the state when {@link #readOnlyState()} is enabled.
+     *
+     * @return an unmodifiable {@link Set} of node ids.
+     */
+    public Set<String> mutableStateNodes() {
+        return mutableStateNodes;
+    }
+
     /**
      * Returns a new {@link Builder} instance with the default {@link CompileConfig}.
      *
@@ -190,6 +211,44 @@ public class CompileConfig {
             return this;
         }
 
+        /**
+         * Sets whether node actions receive a deeply read-only view of the current state instead of a copy.
+         * <p>
+         * By default, each action receives a copy of the state made by the state serializer, so that it cannot
+         * change the state held by the engine. A read-only view avoids that copy and fails on any mutation of the
+         * state collections, that is a cheaper option for read-mostly nodes ( e.g. routers, validators ).
+         * Nodes that mutate their input can still receive a copy using {@link #mutableStateNodes(String...)}.
+         *
+         * @param readOnlyState if {@code true}, pass a read-only view of the state to node actions
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder readOnlyState( boolean readOnlyState ) {
+            this.config.readOnlyState = readOnlyState;
+            return this;
+        }
+
+        /**
+         * Sets the nodes whose actions receive a mutable copy of the state when read-only state is enabled.
+         *
+         * @param mutableStateNodes the node ids
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder mutableStateNodes( String... mutableStateNodes ) {
+            this.config.mutableStateNodes = Set.of(mutableStateNodes);
+            return this;
+        }
+
+        /**
+         * Sets the nodes whose actions receive a mutable copy of the state when read-only state is enabled.
+         *
+         * @param mutableStateNodes the node ids
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder mutableStateNodes( Collection<String> mutableStateNodes ) {
+            this.config.mutableStateNodes = mutableStateNodes.stream().collect(Collectors.toUnmodifiableSet());
+            return this;
+        }
+
         /**
          * Initializes the compilation configuration and returns it.
          *
@@ -217,6 +276,9 @@ public class CompileConfig {
         this.interruptsAfter = config.interruptsAfter;
         this.releaseThread = config.releaseThread;
         this.interruptBeforeEdge = config.interruptBeforeEdge;
+        this.recursionLimit = config.recursionLimit;
+        this.readOnlyState = config.readOnlyState;
+        this.mutableStateNodes = config.mutableStateNodes;
 
     }
 
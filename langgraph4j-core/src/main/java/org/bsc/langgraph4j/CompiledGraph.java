@@ -4,11 +4,13 @@ import org.bsc.async.AsyncGenerator;
 import org.bsc.langgraph4j.action.*;
 import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.CheckpointDiff;
 import org.bsc.langgraph4j.internal.edge.Edge;
 import org.bsc.langgraph4j.internal.edge.EdgeValue;
 import org.bsc.langgraph4j.internal.node.ParallelNode;
 import org.bsc.langgraph4j.internal.node.SubCompiledGraphNodeAction;
 import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.ReadOnlyView;
 import org.bsc.langgraph4j.state.StateSnapshot;
 import org.bsc.langgraph4j.utils.TryFunction;
 import org.bsc.langgraph4j.utils.TypeRef;
@@ -192,6 +194,35 @@ public class CompiledGraph<State extends AgentState> {
     }
 
 
+    /**
+     * Streams the per-channel changes made by each checkpoint of a specific Thread ID, without
+     * building the {@link StateSnapshot} of each one. The first element of the stream is the last change.
+     *
+     * @param config the RunnableConfig containing the thread ID information
+     * @return stream of the diffs between each checkpoint and its parent
+     * @throws IllegalStateException if the saver is not defined
+     */
+    public Stream<CheckpointDiff> getStateHistoryDiff( RunnableConfig config ) {
+        BaseCheckpointSaver saver = compileConfig.checkpointSaver().orElseThrow( () -> (new IllegalStateException("Missing CheckpointSaver!")) );
+
+        return saver.diffHistory(config);
+    }
+
+    /**
+     * Computes the per-channel changes between two checkpoints of a specific Thread ID.
+     *
+     * @param config the RunnableConfig containing the thread ID information
+     * @param fromCheckpointId the id of the starting checkpoint
+     * @param toCheckpointId the id of the target checkpoint
+     * @return the diff, empty if one of the checkpoints is not found
+     * @throws IllegalStateException if the saver is not defined
+     */
+    public Optional<CheckpointDiff> diffState( RunnableConfig config, String fromCheckpointId, String toCheckpointId ) {
+        BaseCheckpointSaver saver = compileConfig.checkpointSaver().orElseThrow( () -> (new IllegalStateException("Missing CheckpointSaver!")) );
+
+        return saver.diff(config, fromCheckpointId, toCheckpointId);
+    }
+
     /**
      * Same of {@link #stateOf(RunnableConfig)} but throws an IllegalStateException if checkpoint is not found.
      *
@@ -383,6 +414,21 @@ public class CompiledGraph<State extends AgentState> {
         return stateGraph.getStateSerializer().cloneObject(data);
     }
 
+    /**
+     * Creates the state passed to the action of the given node: a read-only view if enabled by
+     * {@link CompileConfig#readOnlyState()}, otherwise a copy.
+     *
+     * @param data the current state data
+     * @param nodeId the node id
+     * @return the state for the node action
+     */
+    State actionState( Map<String,Object> data, String nodeId ) throws IOException, ClassNotFoundException, InstantiationException, IllegalAccessException {
+        if( compileConfig.readOnlyState() && !compileConfig.mutableStateNodes().contains(nodeId) ) {
+            return stateGraph.getStateFactory().apply( ReadOnlyView.of(data) );
+        }
+        return cloneState(data);
+    }
+
     /**
      * Creates an AsyncGenerator stream of NodeOutput based on the provided inputs.
      *
@@ -723,7 +769,7 @@ public class CompiledGraph<State extends AgentState> {
 
         private CompletableFuture<Data<Output>> evaluateAction( AsyncNodeActionWithConfig<State> action ) {
                 try {
-                    return action.apply( cloneState(currentState), config)
+                    return action.apply( actionState(currentState, context.currentNodeId()), config)
                             .thenApply(TryFunction.Try(updateState -> {
 
 
@@ -760,6 +806,20 @@ public class CompiledGraph<State extends AgentState> {
                     ;
         }
 
+        /**
+         * Stores the pending checkpoints before returning the interruption, so that a resume finds all of them
+         */
+        private Data<Output> interrupted( InterruptionMetadata<State> interruption ) throws Exception {
+            flushCheckpoints();
+            return Data.done( interruption );
+        }
+
+        private void flushCheckpoints() throws Exception {
+            if( compileConfig.checkpointSaver().isPresent() ) {
+                compileConfig.checkpointSaver().get().flush( config );
+            }
+        }
+
         private Optional<BaseCheckpointSaver.Tag> releaseThread() throws Exception {
             if(compileConfig.releaseThread() && compileConfig.checkpointSaver().isPresent() ) {
                 return Optional.of(compileConfig.checkpointSaver().get().release( config ));
@@ -780,7 +840,12 @@ public class CompiledGraph<State extends AgentState> {
 
                 // GUARD: CHECK IF IT IS END
                 if( context.nextNodeId() == null && context.currentNodeId() == null  ) {
-                    return releaseThread()
+                    var releasedTag = releaseThread();
+                    if( releasedTag.isEmpty() ) {
+                        // the thread is kept, its pending checkpoints are stored before returning
+                        flushCheckpoints();
+                    }
+                    return releasedTag
                             .map(Data::<Output>done)
                             .orElseGet( () -> Data.done(currentState) );
                 }
@@ -793,7 +858,7 @@ public class CompiledGraph<State extends AgentState> {
                     var interruption = returnFromEmbed.get().value(new TypeRef<InterruptionMetadata<State>>(){} );
 
                     if( interruption.isPresent() ) {
-                        return Data.done( interruption.get() );
+                        return interrupted( interruption.get() );
                     }
 
                     return Data.of( getNodeOutput() );
@@ -841,11 +906,11 @@ public class CompiledGraph<State extends AgentState> {
 
                 // check on previous node
                 if( shouldInterruptAfter( context.currentNodeId(), context.nextNodeId() )) {
-                    return Data.done( InterruptionMetadata.builder(context.currentNodeId(), cloneState(currentState)).build() );
+                    return interrupted( InterruptionMetadata.builder(context.currentNodeId(), cloneState(currentState)).build() );
                 }
 
                 if( shouldInterruptBefore( context.nextNodeId(), context.currentNodeId() ) ) {
-                    return Data.done(InterruptionMetadata.builder(context.currentNodeId(), cloneState(currentState)).build() );
+                    return interrupted( InterruptionMetadata.builder(context.currentNodeId(), cloneState(currentState)).build() );
                 }
 
                 context.setCurrentNodeId( context.nextNodeId() );
@@ -861,7 +926,7 @@ public class CompiledGraph<State extends AgentState> {
                     final var interruption = (InterruptableAction<State>) action;
                     final var interruptMetadata = interruption.interrupt(context.currentNodeId(), cloneState(currentState));
                     if( interruptMetadata.isPresent() ) {
-                        return Data.done( interruptMetadata.get() );
+                        return interrupted( interruptMetadata.get() );
                     }
                 }
 
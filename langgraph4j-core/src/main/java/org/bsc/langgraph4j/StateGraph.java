@@ -77,9 +77,13 @@ public class StateGraph<State extends AgentState> {
     private final StateSerializer<State> stateSerializer;
 
     /**
+     * The serializer is not changed by the graph, so it can be shared by graphs with different schemas.
+     * Channels declaring their own serializer are written by it through
+     * {@code stateSerializer.withChannels( channels )}, e.g. when building the checkpoint saver of the graph.
      *
      * @param channels the state's schema of the graph
      * @param stateSerializer the serializer to serialize the state
+     * @see StateSerializer#withChannels(Map)
      */
     public StateGraph(Map<String, Channel<?>> channels,
                       StateSerializer<State> stateSerializer) {
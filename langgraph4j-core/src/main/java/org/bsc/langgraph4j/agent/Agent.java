@@ -39,6 +39,7 @@ public interface Agent {
 
     String AGENT_LABEL = "agent";
     String END_LABEL = "end";
+    String MESSAGES_WINDOW_LABEL = "messages_window";
 
     static <M, S extends MessagesState<M>> Builder<M,S> builder() {
         return new Builder<>();
@@ -50,6 +51,7 @@ public interface Agent {
         private AsyncNodeActionWithConfig<S> callModelAction;
         private AsyncCommandAction<S> executeToolsAction;
         private Map<String, Channel<?>> schema;
+        private AsyncNodeActionWithConfig<S> messagesWindowAction;
 
         public Builder<M,S> stateSerializer(StateSerializer<S> stateSerializer) {
             this.stateSerializer = stateSerializer;
@@ -71,8 +73,37 @@ public interface Agent {
             return this;
         }
 
+        /**
+         * Sets the action executed before each model call to keep the messages within a budget
+         *
+         * @param messagesWindowAction the action, usually {@link org.bsc.langgraph4j.prebuilt.MessagesWindow#action()}
+         * @return this builder
+         */
+        public Builder<M,S> messagesWindowAction(AsyncNodeActionWithConfig<S> messagesWindowAction) {
+            this.messagesWindowAction = messagesWindowAction;
+            return this;
+        }
+
         public StateGraph<S> build() throws GraphStateException {
 
+            if( messagesWindowAction != null ) {
+                return new StateGraph<>(
+                        requireNonNull(schema, "schema is required!"),
+                        requireNonNull(stateSerializer, "stateSerializer is required!"))
+                        .addNode(MESSAGES_WINDOW_LABEL, messagesWindowAction )
+                        .addNode(AGENT_LABEL,  requireNonNull(callModelAction, "callModelAction is required!") )
+                        .addNode("action",
+                                requireNonNull(executeToolsAction, "executeToolsAction is required!"),
+                                EdgeMappings.builder()
+                                .to(MESSAGES_WINDOW_LABEL, AGENT_LABEL)
+                                .toEND(END_LABEL)
+                                .build())
+                        .addEdge(START, MESSAGES_WINDOW_LABEL)
+                        .addEdge(MESSAGES_WINDOW_LABEL, AGENT_LABEL)
+                        .addEdge(AGENT_LABEL, "action")
+                        ;
+            }
+
             return new StateGraph<>(
                     requireNonNull(schema, "schema is required!"),
                     requireNonNull(stateSerializer, "stateSerializer is required!"))
@@ -39,6 +39,7 @@ import static org.bsc.langgraph4j.StateGraph.START;
  *       │stop│         │ tool_name 1 │ │ tool_name 2 │......│ tool_name N │
  *       └────┘         └─────────────┘ └─────────────┘      └─────────────┘
  * </pre>
+ * If a messages window action is set, its node runs before each model call, as in {@link Agent}.
  */
 public interface AgentEx {
 
@@ -108,6 +109,7 @@ public interface AgentEx {
         private AsyncCommandAction<S> approvalActionEdge;
         private Map<String, Channel<?>> schema;
         private Function<TOOL, String> toolName;
+        private AsyncNodeActionWithConfig<S> messagesWindowAction;
 
         public Builder<M, S, TOOL> stateSerializer(StateSerializer<S> stateSerializer) {
             this.stateSerializer = stateSerializer;
@@ -154,6 +156,17 @@ public interface AgentEx {
             return this;
         }
 
+        /**
+         * Sets the action executed before each model call to keep the messages within a budget
+         *
+         * @param messagesWindowAction the action, usually {@link org.bsc.langgraph4j.prebuilt.MessagesWindow#action()}
+         * @return this builder
+         */
+        public Builder<M, S, TOOL> messagesWindowAction(AsyncNodeActionWithConfig<S> messagesWindowAction) {
+            this.messagesWindowAction = messagesWindowAction;
+            return this;
+        }
+
         public StateGraph<S> build(Collection<TOOL> tools, Map<String, ApprovalNodeAction<M, S>> approvals) throws GraphStateException {
 
             requireNonNull(toolName, "toolName is required!");
@@ -167,12 +180,21 @@ public interface AgentEx {
                         .orElseThrow(() -> new IllegalArgumentException(format("approval action %s not found!", approval)));
             }
 
+            // the model is reached through the messages window node, if any
+            final var modelNode = ( messagesWindowAction != null ) ? Agent.MESSAGES_WINDOW_LABEL : "model";
+
             var graph = new StateGraph<>(
                     requireNonNull(schema, "schema is required!"),
                     requireNonNull(stateSerializer, "stateSerializer is required!"))
                     .addNode("model", requireNonNull(callModelAction, "callModelAction is required!"))
-                    .addNode("action_dispatcher", requireNonNull(dispatchToolsAction, "dispatchToolsAction is required!"))
-                    .addEdge(START, "model")
+                    .addNode("action_dispatcher", requireNonNull(dispatchToolsAction, "dispatchToolsAction is required!"));
+
+            if( messagesWindowAction != null ) {
+                graph.addNode(Agent.MESSAGES_WINDOW_LABEL, messagesWindowAction)
+                        .addEdge(Agent.MESSAGES_WINDOW_LABEL, "model");
+            }
+
+            graph.addEdge(START, modelNode)
                     .addConditionalEdges("model",
                             requireNonNull(shouldContinueEdge, "shouldContinueEdge is required!"),
                             EdgeMappings.builder()
@@ -181,7 +203,7 @@ public interface AgentEx {
                                     .build());
 
             var actionMappingBuilder = EdgeMappings.builder()
-                    .to("model")
+                    .to(modelNode, "model")
                     .toEND();
 
             for (var tool : tools) {
@@ -198,7 +220,7 @@ public interface AgentEx {
 
                     graph.addConditionalEdges(approval_nodeId, requireNonNull(approvalActionEdge, "approvalActionEdge is required!"),
                             EdgeMappings.builder()
-                                    .to("model", ApprovalState.REJECTED.name())
+                                    .to(modelNode, ApprovalState.REJECTED.name())
                                     .to(tool_name, ApprovalState.APPROVED.name())
                                     .build()
                     );
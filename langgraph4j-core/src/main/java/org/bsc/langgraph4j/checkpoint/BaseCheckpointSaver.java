@@ -3,6 +3,8 @@ package org.bsc.langgraph4j.checkpoint;
 import org.bsc.langgraph4j.RunnableConfig;
 
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Optional.ofNullable;
 
@@ -24,4 +26,77 @@ public interface BaseCheckpointSaver {
 
     Tag release(RunnableConfig config) throws Exception;
 
+    /**
+     * Waits until the checkpoints of the thread put so far are stored.
+     * It is called by the graph when it is interrupted or returns, so that a resume finds all of them.
+     * Savers storing the checkpoints synchronously have nothing to do
+     *
+     * @param config the config identifying the thread
+     * @throws Exception if the checkpoints cannot be stored
+     */
+    default void flush(RunnableConfig config) throws Exception {
+    }
+
+    /**
+     * Computes the per-channel changes between two checkpoints of the thread
+     *
+     * @param config the config identifying the thread
+     * @param fromCheckpointId the id of the starting checkpoint
+     * @param toCheckpointId the id of the target checkpoint
+     * @return the diff, empty if one of the checkpoints is not found
+     */
+    default Optional<CheckpointDiff> diff(RunnableConfig config, String fromCheckpointId, String toCheckpointId) {
+        Objects.requireNonNull( fromCheckpointId, "fromCheckpointId cannot be null" );
+        Objects.requireNonNull( toCheckpointId, "toCheckpointId cannot be null" );
+
+        Checkpoint from = null, to = null;
+        for( var checkpoint : list(config) ) {
+            if( fromCheckpointId.equals( checkpoint.getId() ) ) {
+                from = checkpoint;
+            }
+            if( toCheckpointId.equals( checkpoint.getId() ) ) {
+                to = checkpoint;
+            }
+        }
+        if( from == null || to == null ) {
+            return Optional.empty();
+        }
+        return Optional.of( CheckpointDiff.of( from, to ) );
+    }
+
+    /**
+     * Streams the changes made by each checkpoint of the thread over its parent, from the newest to the oldest.
+     * Diffs are evaluated lazily while the stream is consumed.
+     *
+     * @param config the config identifying the thread
+     * @return the stream of diffs, the oldest checkpoint is compared with an empty state
+     */
+    default Stream<CheckpointDiff> diffHistory(RunnableConfig config) {
+        final var checkpoints = list(config);
+
+        final var iterator = new Iterator<CheckpointDiff>() {
+            final Iterator<Checkpoint> source = checkpoints.iterator();
+            Checkpoint next = source.hasNext() ? source.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public CheckpointDiff next() {
+                if( next == null ) {
+                    throw new NoSuchElementException();
+                }
+                final var to = next;
+                next = source.hasNext() ? source.next() : null;
+                return CheckpointDiff.of( next, to );
+            }
+        };
+
+        return StreamSupport.stream(
+                Spliterators.spliterator( iterator, checkpoints.size(), Spliterator.ORDERED | Spliterator.NONNULL ),
+                false );
+    }
+
 }
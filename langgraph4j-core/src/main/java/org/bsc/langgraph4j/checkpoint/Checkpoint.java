@@ -3,7 +3,10 @@ package org.bsc.langgraph4j.checkpoint;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.Channel;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -21,14 +24,109 @@ import static java.util.Objects.requireNonNull;
 public class Checkpoint {
 
     private final String id;
-    private Map<String,Object> state = null;
+    private volatile Map<String,Object> state = null;
+    private Function<Checkpoint,Map<String,Object>> stateLoader = null;
+    private volatile CheckpointDelta storedDelta = null;
+    private volatile WeakReference<Map<String,Object>> storedParentState = null;
+    private volatile int storedDepth = -1;
     private String nodeId = null ;
     private String nextNodeId = null;
 
     public String getId() { return id; }
 
+    /**
+     * Returns the checkpoint state. A state provided through {@link Builder#lazyState(Supplier)}
+     * is loaded on the first call
+     *
+     * @return the checkpoint state
+     */
     public Map<String, Object> getState() {
-        return state;
+        var result = state;
+        if( result == null ) {
+            synchronized (this) {
+                result = state;
+                if( result == null ) {
+                    result = requireNonNull( stateLoader.apply( this ), "loaded state cannot be null" );
+                    state = result;
+                    stateLoader = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the delta this checkpoint has been stored as, if it has been computed over the current state of
+     * the given parent. It allows to diff the checkpoint with its parent without comparing their states
+     *
+     * @param parent the parent checkpoint
+     * @return the stored delta, empty if the checkpoint is not stored as a delta over that parent state
+     */
+    Optional<CheckpointDelta> storedDeltaOver( Checkpoint parent ) {
+        final var delta = storedDelta;
+        if( delta == null || !delta.parentId().equals( parent.getId() ) ) {
+            return Optional.empty();
+        }
+        // an updated parent keeps its id but has a new state
+        final var parentState = storedParentState.get();
+        return ( parentState != null && parentState == parent.getState() ) ? Optional.of( delta ) : Optional.empty();
+    }
+
+    /**
+     * Records the delta the checkpoint has been stored as, together with the parent state it has been computed over.
+     * Keyframes are not recorded, since they don't tell anything about the parent
+     *
+     * @param delta the stored delta
+     * @param parentState the state of the parent checkpoint
+     */
+    void storedDelta( CheckpointDelta delta, Map<String,Object> parentState ) {
+        storedDelta( delta, parentState, -1 );
+    }
+
+    /**
+     * Records the delta the checkpoint has been stored as over the given parent, together with the
+     * number of deltas between the checkpoint and the nearest keyframe, see {@link #storedDepth()}
+     *
+     * @param delta the stored delta
+     * @param parent the parent checkpoint, null for a keyframe
+     */
+    void storedDelta( CheckpointDelta delta, Checkpoint parent ) {
+        if( delta != null && !delta.isKeyframe() && parent != null ) {
+            storedDelta( delta, parent.getState(), parent.storedDepth );
+        }
+        else {
+            storedDelta( delta, null, -1 );
+        }
+    }
+
+    private void storedDelta( CheckpointDelta delta, Map<String,Object> parentState, int parentDepth ) {
+        if( delta == null ) {
+            return;
+        }
+        if( delta.isKeyframe() ) {
+            storedDepth = 0;
+        }
+        else if( parentState != null ) {
+            storedParentState = new WeakReference<>( parentState );
+            storedDelta = delta;
+            storedDepth = ( parentDepth < 0 ) ? -1 : parentDepth + 1;
+        }
+    }
+
+    /**
+     * Returns the number of deltas the stored state is rebuilt from, starting from the nearest keyframe
+     *
+     * @return 0 for a keyframe, -1 if unknown
+     */
+    int storedDepth() {
+        return storedDepth;
+    }
+
+    /**
+     * @return true if the state is available, false if it will be loaded on demand
+     */
+    public boolean isStateLoaded() {
+        return state != null;
     }
 
     public String getNodeId() {
@@ -47,7 +145,7 @@ public class Checkpoint {
     public static Checkpoint copyOf( Checkpoint checkpoint ) {
         requireNonNull( checkpoint, "checkpoint cannot be null" );
         return new Checkpoint( UUID.randomUUID().toString(),
-                                checkpoint.state,
+                                checkpoint.getState(),
                                 checkpoint.nodeId,
                                 checkpoint.nextNodeId);
     }
@@ -61,6 +159,15 @@ public class Checkpoint {
 
     }
 
+    private Checkpoint( String id, Function<Checkpoint,Map<String,Object>> stateLoader, String nodeId, String nextNodeId ) {
+
+        this.id = requireNonNull( id, "id cannot be null" );
+        this.stateLoader =  requireNonNull( stateLoader, "state cannot be null" );
+        this.nodeId = requireNonNull( nodeId, "nodeId cannot be null" );
+        this.nextNodeId =  requireNonNull( nextNodeId, "Checkpoint.nextNodeId cannot be null" );
+
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -68,6 +175,7 @@ public class Checkpoint {
     public static class Builder {
         private String id = UUID.randomUUID().toString();
         private Map<String,Object> state = null;
+        private Function<Checkpoint,Map<String,Object>> stateLoader = null;
         private String nodeId = null ;
         private String nextNodeId = null;
 
@@ -77,12 +185,57 @@ public class Checkpoint {
         }
         public Builder state( AgentState state ) {
             this.state = state.data();
+            this.stateLoader = null;
             return this;
         }
         public Builder state( Map<String,Object> state ) {
             this.state = state;
+            this.stateLoader = null;
             return this;
         }
+
+        /**
+         * Sets the loader of a state decoded on demand, e.g. by a saver reading only the checkpoint headers.
+         * The loader is called at most once, on the first {@link Checkpoint#getState()}
+         *
+         * @param stateLoader the state loader
+         * @return this builder
+         */
+        public Builder lazyState( Supplier<Map<String,Object>> stateLoader ) {
+            this.stateLoader = ( stateLoader != null ) ? checkpoint -> stateLoader.get() : null;
+            this.state = null;
+            return this;
+        }
+
+        /**
+         * Sets the loader of a state stored as {@link CheckpointDelta}, decoded on demand.
+         * On the first {@link Checkpoint#getState()} the delta is loaded and applied to the state of its parent,
+         * which is in turn loaded on demand. The delta is kept, so that a diff with the parent doesn't compare their states
+         *
+         * @param deltaLoader the loader of the stored delta
+         * @param parents resolves the parent checkpoint by id, null if not found
+         * @return this builder
+         */
+        public Builder lazyDelta( Supplier<CheckpointDelta> deltaLoader, Function<String,Checkpoint> parents ) {
+            requireNonNull( deltaLoader, "deltaLoader cannot be null" );
+            requireNonNull( parents, "parents cannot be null" );
+            this.stateLoader = checkpoint -> {
+                final var delta = requireNonNull( deltaLoader.get(), "loaded delta cannot be null" );
+                if( delta.isKeyframe() ) {
+                    checkpoint.storedDelta( delta, (Checkpoint) null );
+                    return delta.applyTo( null );
+                }
+                final var parent = parents.apply( delta.parentId() );
+                if( parent == null ) {
+                    throw new IllegalStateException( format("parent checkpoint '%s' not found!", delta.parentId()) );
+                }
+                checkpoint.storedDelta( delta, parent );
+                return delta.applyTo( parent.getState() );
+            };
+            this.state = null;
+            return this;
+        }
+
         public Builder nodeId( String nodeId ) {
             this.nodeId = nodeId;
             return this;
@@ -93,6 +246,9 @@ public class Checkpoint {
         }
 
         public Checkpoint build() {
+            if( stateLoader != null ) {
+                return new Checkpoint( id, stateLoader, nodeId, nextNodeId );
+            }
             return new Checkpoint(  id,
                                     state,
                                     nodeId,
@@ -103,7 +259,7 @@ public class Checkpoint {
     public Checkpoint updateState(Map<String,Object> values, Map<String, Channel<?>> channels ) {
 
         return new Checkpoint( this.id,
-                AgentState.updateState( this.state, values, channels ),
+                AgentState.updateState( getState(), values, channels ),
                 this.nodeId,
                 this.nextNodeId );
     }
@@ -114,7 +270,7 @@ public class Checkpoint {
                 id,
                 nodeId,
                 nextNodeId,
-                state
+                isStateLoaded() ? state : "<not loaded>"
         );
     }
 
@@ -0,0 +1,379 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Commits the checkpoints of a saver backed by a database on a dedicated writer thread.
+ * <p>
+ * The writes are prepared ( encoded ) by the caller, so they don't depend on the state of the saver anymore,
+ * and queued to the writer thread. The writer takes all the queued writes, from any thread, up to the max
+ * batch size and commits them as a single batch, e.g. a JDBC batch in one transaction.
+ * Writes are committed in submission order, so the order of the checkpoints of each thread is preserved.
+ * </p>
+ * <p>
+ * A failed batch doesn't stop the writer. The threads of its writes are marked as failed: their following writes
+ * are discarded, since they could refer to checkpoints not committed, until the saver reloads the thread from
+ * the database ( see {@link #reset(String)} ). The failure is reported once to the next {@link #flush()}
+ * and to the next {@link #flush(String)} of each failed thread.
+ * </p>
+ * <p>
+ * If the writer thread stops unexpectedly, e.g. it is interrupted, the calls waiting for it fail with an
+ * {@link IllegalStateException} instead of blocking, and {@link #close()} reports the writes left in the queue.
+ * </p>
+ *
+ * @param <W> the type of the prepared writes
+ */
+public final class CheckpointBatchWriter<W> implements AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CheckpointBatchWriter.class);
+
+    /**
+     * Commits a batch of writes
+     *
+     * @param <W> the type of the prepared writes
+     */
+    @FunctionalInterface
+    public interface Committer<W> {
+        /**
+         * @param batch the writes in submission order
+         * @throws Exception if the batch cannot be committed
+         */
+        void commit( List<W> batch ) throws Exception;
+    }
+
+    /**
+     * Failure of the writes of a thread. Its flags are updated within the compute methods of {@link #failures}
+     */
+    private static final class Failure {
+        final String threadId;
+        final Exception cause;
+        boolean reported;
+        boolean reset;
+
+        Failure( String threadId, Exception cause ) {
+            this.threadId = threadId;
+            this.cause = cause;
+        }
+    }
+
+    private sealed interface Task permits Submitted, Barrier, Reset, Stop {}
+    private record Submitted( Object write ) implements Task {}
+    private record Barrier( CompletableFuture<Exception> done ) implements Task {}
+    private record Reset( Failure failure ) implements Task {}
+    private record Stop() implements Task {}
+
+    /**
+     * Default max number of writes committed by a batch
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * interval between the checks that the writer thread is still running, while waiting for it
+     */
+    private static final long POLL_MILLIS = 100;
+
+    private final int maxBatchSize;
+    private final Function<W,String> threadIdOf;
+    private final Committer<W> committer;
+    private final BlockingQueue<Task> queue = new ArrayBlockingQueue<>( QUEUE_CAPACITY );
+    private final Thread writerThread;
+    /**
+     * failures of the threads not reported or not reset yet
+     */
+    private final Map<String,Failure> failures = new ConcurrentHashMap<>();
+    /**
+     * failures whose threads have their writes discarded, accessed by the writer thread only
+     */
+    private final Map<String,Failure> discarding = new HashMap<>();
+    /**
+     * failure not reported to a barrier yet, accessed by the writer thread only
+     */
+    private Exception unreported;
+
+    /**
+     * Creates the writer and starts its thread
+     *
+     * @param name the name of the writer thread
+     * @param maxBatchSize the max number of writes committed by a batch
+     * @param threadIdOf provides the id of the thread of a write
+     * @param committer the committer of the batches
+     */
+    public CheckpointBatchWriter( String name, int maxBatchSize, Function<W,String> threadIdOf, Committer<W> committer ) {
+        Objects.requireNonNull( name, "name cannot be null" );
+        if( maxBatchSize < 1 ) {
+            throw new IllegalArgumentException( format("maxBatchSize must be >= 1 but is %d", maxBatchSize) );
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.threadIdOf = Objects.requireNonNull( threadIdOf, "threadIdOf cannot be null" );
+        this.committer = Objects.requireNonNull( committer, "committer cannot be null" );
+        writerThread = new Thread( this::run, name );
+        writerThread.setDaemon( true );
+        writerThread.start();
+    }
+
+    /**
+     * Queues the write. The call blocks while the queue is full
+     *
+     * @param write the write
+     * @throws IllegalStateException if the writer has been closed
+     * @throws InterruptedException if interrupted while the queue is full
+     */
+    public void submit( W write ) throws InterruptedException {
+        Objects.requireNonNull( write, "write cannot be null" );
+        if( !writerThread.isAlive() ) {
+            throw new IllegalStateException( "checkpoint writer has been closed" );
+        }
+        enqueue( new Submitted( write ) );
+    }
+
+    /**
+     * Queues the task, waiting while the queue is full as long as the writer thread is running
+     *
+     * @throws IllegalStateException if the writer thread has stopped
+     */
+    private void enqueue( Task task ) throws InterruptedException {
+        while( !queue.offer( task, POLL_MILLIS, TimeUnit.MILLISECONDS ) ) {
+            if( !writerThread.isAlive() ) {
+                throw stopped();
+            }
+        }
+    }
+
+    /**
+     * @return the number of writes left in the queue
+     */
+    private long pendingWrites() {
+        return queue.stream().filter( Submitted.class::isInstance ).count();
+    }
+
+    private IllegalStateException stopped() {
+        return new IllegalStateException( format("checkpoint writer has stopped with %d writes not committed", pendingWrites()) );
+    }
+
+    /**
+     * Checks whether the writes of the given thread have failed since its last reset. In this case the checkpoints
+     * held in memory don't match the database anymore: the writes of the thread still pending are discarded and
+     * the following ones are committed again, so the caller has to reload the thread from the database.
+     * It is expected to be called holding the lock of the thread, before accessing its checkpoints
+     *
+     * @param threadId the thread id
+     * @return true if the thread has to be reloaded
+     * @throws InterruptedException if interrupted while the queue is full
+     */
+    public boolean reset( String threadId ) throws InterruptedException {
+        Objects.requireNonNull( threadId, "threadId cannot be null" );
+        final var reset = new Failure[1];
+        failures.computeIfPresent( threadId, ( id, failure ) -> {
+            if( failure.reset ) {
+                return failure;
+            }
+            failure.reset = true;
+            reset[0] = failure;
+            return failure.reported ? null : failure;
+        });
+        if( reset[0] == null ) {
+            return false;
+        }
+        enqueue( new Reset( reset[0] ) );
+        return true;
+    }
+
+    /**
+     * Waits until all the writes submitted so far have been committed
+     *
+     * @throws IllegalStateException if a batch has failed since the previous flush
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        final var failure = await();
+        if( failure != null ) {
+            throw new IllegalStateException( "a checkpoint write failed", failure );
+        }
+    }
+
+    /**
+     * Waits until all the writes submitted so far have been committed
+     *
+     * @return the failure of a batch since the previous wait, null if there isn't
+     * @throws IllegalStateException if the writer thread has stopped with writes not committed
+     */
+    private Exception await() throws InterruptedException {
+        if( !writerThread.isAlive() ) {
+            if( pendingWrites() > 0 ) {
+                throw stopped();
+            }
+            return null;
+        }
+        final var done = new CompletableFuture<Exception>();
+        enqueue( new Barrier( done ) );
+        while( true ) {
+            try {
+                return done.get( POLL_MILLIS, TimeUnit.MILLISECONDS );
+            }
+            catch( ExecutionException ex ) {
+                throw new IllegalStateException( ex.getCause() );
+            }
+            catch( TimeoutException ex ) {
+                if( !writerThread.isAlive() && !done.isDone() ) {
+                    throw stopped();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all the writes submitted so far have been committed, and reports the failure of the writes
+     * of the given thread, if any, not reported yet. The failures of the other threads are not reported
+     *
+     * @param threadId the thread id
+     * @throws IllegalStateException if writes of the thread have failed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush( String threadId ) throws InterruptedException {
+        Objects.requireNonNull( threadId, "threadId cannot be null" );
+        await();
+        final var cause = new Exception[1];
+        failures.computeIfPresent( threadId, ( id, failure ) -> {
+            if( failure.reported ) {
+                return failure;
+            }
+            failure.reported = true;
+            cause[0] = failure.cause;
+            return failure.reset ? null : failure;
+        });
+        if( cause[0] != null ) {
+            throw new IllegalStateException( format("checkpoints of thread '%s' not committed", threadId), cause[0] );
+        }
+    }
+
+    /**
+     * Commits the pending writes and stops the writer thread.
+     * If interrupted, the interrupt status is restored and the writer thread is left stopping on its own
+     *
+     * @throws IllegalStateException if the last writes cannot be committed, the writer thread has stopped
+     * with writes not committed or the current thread has been interrupted while waiting
+     */
+    @Override
+    public void close() {
+        try {
+            if( writerThread.isAlive() ) {
+                try {
+                    flush();
+                }
+                finally {
+                    stop();
+                }
+            }
+        }
+        catch( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "interrupted while closing the checkpoint writer", ex );
+        }
+        if( pendingWrites() > 0 ) {
+            throw stopped();
+        }
+    }
+
+    private void stop() throws InterruptedException {
+        try {
+            enqueue( new Stop() );
+        }
+        catch( IllegalStateException ex ) {
+            // already stopped, the pending writes are reported by close
+            return;
+        }
+        writerThread.join();
+    }
+
+    private void run() {
+        final var tasks = new ArrayList<Task>();
+        while( true ) {
+            try {
+                tasks.clear();
+                tasks.add( queue.take() );
+                queue.drainTo( tasks, maxBatchSize - 1 );
+                if( !commit( tasks ) ) {
+                    return;
+                }
+            }
+            catch( InterruptedException ex ) {
+                log.warn( "checkpoint writer interrupted, {} writes pending", queue.size() );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Commits the writes of the given tasks as a batch, then completes the barriers.
+     * The writes of the threads marked as failed are discarded, while a failed batch marks its threads as failed
+     *
+     * @return false if the writer has to stop
+     */
+    @SuppressWarnings("unchecked")
+    private boolean commit( List<Task> tasks ) {
+        boolean running = true;
+        final var batch = new ArrayList<W>( tasks.size() );
+        final var barriers = new ArrayList<CompletableFuture<Exception>>();
+        Exception failure = null;
+        int discarded = 0;
+        for( var task : tasks ) {
+            if( task instanceof Submitted submitted ) {
+                final var write = (W)submitted.write();
+                final var discarding = this.discarding.get( threadIdOf.apply( write ) );
+                if( discarding != null ) {
+                    failure = discarding.cause;
+                    ++discarded;
+                }
+                else {
+                    batch.add( write );
+                }
+            }
+            else if( task instanceof Barrier barrier ) {
+                barriers.add( barrier.done() );
+            }
+            else if( task instanceof Reset reset ) {
+                discarding.remove( reset.failure().threadId, reset.failure() );
+            }
+            else if( task instanceof Stop ) {
+                running = false;
+            }
+        }
+        if( discarded > 0 ) {
+            log.warn( "discarded {} checkpoints following a failed write of their thread", discarded );
+        }
+
+        if( !batch.isEmpty() ) {
+            try {
+                committer.commit( batch );
+            }
+            catch( Exception ex ) {
+                log.error( "error committing {} checkpoints", batch.size(), ex );
+                failure = ex;
+                for( var write : batch ) {
+                    final var threadId = threadIdOf.apply( write );
+                    if( !discarding.containsKey( threadId ) ) {
+                        final var threadFailure = new Failure( threadId, ex );
+                        discarding.put( threadId, threadFailure );
+                        failures.put( threadId, threadFailure );
+                    }
+                }
+            }
+        }
+
+        if( failure != null ) {
+            unreported = failure;
+        }
+        if( !barriers.isEmpty() ) {
+            for( var done : barriers ) {
+                done.complete( unreported );
+            }
+            unreported = null;
+        }
+        return running;
+    }
+}
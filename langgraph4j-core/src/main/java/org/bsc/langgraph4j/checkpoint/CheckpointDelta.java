@@ -0,0 +1,242 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents the state of a {@link Checkpoint} as the set of channels changed since its parent checkpoint.
+ * <p>
+ * A delta without parent is a <b>keyframe</b> and carries the whole state.
+ * Savers persist deltas instead of full states and rebuild the checkpoint state on read
+ * by applying each delta over the state of its parent, up to the nearest keyframe.
+ * </p>
+ * <p>
+ * List channels that only grew since the parent (e.g. messages managed by an appender channel)
+ * are stored as the appended elements instead of the whole list.
+ * </p>
+ *
+ * @param parentId the id of the parent checkpoint, {@code null} for a keyframe
+ * @param changed the channels added or updated since the parent checkpoint
+ * @param appended the elements appended to list channels since the parent checkpoint
+ * @param removed the channels removed since the parent checkpoint
+ */
+public record CheckpointDelta(String parentId, Map<String,Object> changed, Map<String,List<Object>> appended, Set<String> removed ) {
+
+    /**
+     * Default number of checkpoints between two consecutive keyframes
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 10;
+
+    public CheckpointDelta {
+        changed = Collections.unmodifiableMap( new HashMap<>( requireNonNull(changed, "changed cannot be null") ) );
+        appended = Collections.unmodifiableMap( new HashMap<>( requireNonNull(appended, "appended cannot be null") ) );
+        removed = Set.copyOf( requireNonNull(removed, "removed cannot be null") );
+        if( parentId == null && !( appended.isEmpty() && removed.isEmpty() ) ) {
+            throw new IllegalArgumentException( "keyframe cannot contain appended or removed channels" );
+        }
+    }
+
+    /**
+     * Creates a keyframe holding the whole state
+     *
+     * @param state the checkpoint state
+     * @return a keyframe delta
+     */
+    public static CheckpointDelta keyframe( Map<String,Object> state ) {
+        return new CheckpointDelta( null, state, Map.of(), Set.of() );
+    }
+
+    /**
+     * Computes the channels changed between the parent state and the given state.
+     * A channel is considered changed when its value is not {@link Objects#equals(Object, Object)} to the parent one.
+     * A list channel whose parent value is a prefix of the new one is considered appended.
+     *
+     * @param parentId the id of the parent checkpoint
+     * @param parentState the state of the parent checkpoint
+     * @param state the state of the checkpoint
+     * @return the delta relative to the parent checkpoint
+     */
+    public static CheckpointDelta of( String parentId, Map<String,Object> parentState, Map<String,Object> state ) {
+        requireNonNull( parentId, "parentId cannot be null" );
+        requireNonNull( parentState, "parentState cannot be null" );
+        requireNonNull( state, "state cannot be null" );
+
+        final var changed = new HashMap<String,Object>();
+        final var appended = new HashMap<String,List<Object>>();
+        for( var entry : state.entrySet() ) {
+            var key = entry.getKey();
+            var value = entry.getValue();
+            if( !parentState.containsKey(key) ) {
+                changed.put( key, value );
+                continue;
+            }
+            var parentValue = parentState.get(key);
+            if( Objects.equals( parentValue, value) ) {
+                continue;
+            }
+            if( parentValue instanceof List<?> parentList && value instanceof List<?> list && isPrefix( parentList, list ) ) {
+                appended.put( key, new ArrayList<>( list.subList( parentList.size(), list.size() ) ) );
+                continue;
+            }
+            changed.put( key, value );
+        }
+        final var removed = new HashSet<String>();
+        for( var key : parentState.keySet() ) {
+            if( !state.containsKey(key) ) {
+                removed.add(key);
+            }
+        }
+        return new CheckpointDelta( parentId, changed, appended, removed );
+    }
+
+    private static boolean isPrefix( List<?> prefix, List<?> list ) {
+        if( prefix.isEmpty() || prefix.size() > list.size() ) {
+            return false;
+        }
+        return Objects.equals( prefix, list.subList( 0, prefix.size() ) );
+    }
+
+    /**
+     * Computes the delta of the checkpoint at the given position of a thread.
+     * The checkpoint is stored as keyframe if it is the first one or if its position matches the keyframe interval.
+     *
+     * @param position the zero based position of the checkpoint in the thread, from the oldest
+     * @param keyframeInterval the number of checkpoints between two consecutive keyframes
+     * @param parent the parent checkpoint, {@code null} if there isn't
+     * @param checkpoint the checkpoint
+     * @return the delta to persist
+     */
+    public static CheckpointDelta of( int position, int keyframeInterval, Checkpoint parent, Checkpoint checkpoint ) {
+        requireNonNull( checkpoint, "checkpoint cannot be null" );
+        if( parent == null || isKeyframe( position, keyframeInterval ) ) {
+            return keyframe( checkpoint.getState() );
+        }
+        return of( parent.getId(), parent.getState(), checkpoint.getState() );
+    }
+
+    /**
+     * Computes the delta of a checkpoint following the given parent.
+     * The checkpoint is stored as keyframe if it has no parent, or if the parent is stored at
+     * {@code keyframeInterval - 1} deltas from its nearest keyframe. Unlike the position in the thread, this distance
+     * doesn't depend on the checkpoints held in memory, so the delta chains stay bounded when older
+     * checkpoints are dropped. A parent whose distance is unknown is followed by a keyframe
+     *
+     * @param keyframeInterval the number of checkpoints between two consecutive keyframes
+     * @param parent the parent checkpoint, {@code null} if there isn't
+     * @param checkpoint the checkpoint
+     * @return the delta to persist
+     */
+    public static CheckpointDelta of( int keyframeInterval, Checkpoint parent, Checkpoint checkpoint ) {
+        requireNonNull( checkpoint, "checkpoint cannot be null" );
+        if( parent == null || keyframeInterval <= 1 ) {
+            return keyframe( checkpoint.getState() );
+        }
+        // the parent state is read first, since loading it records its distance from the keyframe
+        final var parentState = parent.getState();
+        final var parentDepth = parent.storedDepth();
+        if( parentDepth < 0 || parentDepth + 1 >= keyframeInterval ) {
+            return keyframe( checkpoint.getState() );
+        }
+        return of( parent.getId(), parentState, checkpoint.getState() );
+    }
+
+    /**
+     * Checks if the checkpoint at the given position must be stored as keyframe
+     *
+     * @param position the zero based position of the checkpoint in the thread, from the oldest
+     * @param keyframeInterval the number of checkpoints between two consecutive keyframes
+     * @return true if a keyframe is required
+     */
+    public static boolean isKeyframe( int position, int keyframeInterval ) {
+        if( keyframeInterval <= 1 ) {
+            return true;
+        }
+        return position % keyframeInterval == 0;
+    }
+
+    /**
+     * Validates the keyframe interval
+     *
+     * @param keyframeInterval the number of checkpoints between two consecutive keyframes
+     * @return the given interval
+     * @throws IllegalArgumentException if interval is less than 1
+     */
+    public static int requireValidKeyframeInterval( int keyframeInterval ) {
+        if( keyframeInterval < 1 ) {
+            throw new IllegalArgumentException( format("keyframeInterval must be >= 1 but is %d", keyframeInterval) );
+        }
+        return keyframeInterval;
+    }
+
+    public boolean isKeyframe() {
+        return parentId == null;
+    }
+
+    /**
+     * Rebuilds the checkpoint state applying this delta over the parent state
+     *
+     * @param parentState the state of the parent checkpoint, ignored for keyframe
+     * @return the rebuilt state
+     */
+    public Map<String,Object> applyTo( Map<String,Object> parentState ) {
+        if( isKeyframe() ) {
+            return new HashMap<>(changed);
+        }
+        final var result = new HashMap<>( requireNonNull(parentState, "parentState cannot be null") );
+        removed.forEach( result::remove );
+        result.putAll( changed );
+        for( var entry : appended.entrySet() ) {
+            if( !( result.get(entry.getKey()) instanceof List<?> parentList ) ) {
+                throw new IllegalStateException( format("parent value of appended channel '%s' is not a list!", entry.getKey()) );
+            }
+            var list = new ArrayList<Object>( parentList.size() + entry.getValue().size() );
+            list.addAll( parentList );
+            list.addAll( entry.getValue() );
+            result.put( entry.getKey(), list );
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilds the states of a set of checkpoints following their parent relationship.
+     *
+     * @param deltasById the deltas indexed by checkpoint id
+     * @return the rebuilt states indexed by checkpoint id
+     * @throws IllegalStateException if a parent checkpoint is missing
+     */
+    public static Map<String,Map<String,Object>> rebuild( Map<String,CheckpointDelta> deltasById ) {
+        requireNonNull( deltasById, "deltasById cannot be null" );
+
+        final var result = new HashMap<String,Map<String,Object>>( deltasById.size() );
+        final var chain = new ArrayDeque<String>();
+
+        for( var id : deltasById.keySet() ) {
+
+            var current = id;
+            while( !result.containsKey(current) ) {
+                var delta = deltasById.get(current);
+                if( delta == null ) {
+                    throw new IllegalStateException( format("parent checkpoint '%s' not found!", current) );
+                }
+                if( chain.contains(current) ) {
+                    throw new IllegalStateException( format("cyclic parent reference on checkpoint '%s'!", current) );
+                }
+                chain.push(current);
+                if( delta.isKeyframe() ) {
+                    break;
+                }
+                current = delta.parentId();
+            }
+
+            while( !chain.isEmpty() ) {
+                var childId = chain.pop();
+                var delta = deltasById.get(childId);
+                result.put( childId, delta.applyTo( delta.isKeyframe() ? null : result.get(delta.parentId()) ) );
+            }
+        }
+
+        return result;
+    }
+}
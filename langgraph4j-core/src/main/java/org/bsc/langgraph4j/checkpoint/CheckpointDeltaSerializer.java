@@ -0,0 +1,60 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Serializer of {@link CheckpointDelta} that delegates the serialization of the changed channels
+ * to the given {@link StateSerializer}
+ *
+ * @param stateSerializer the serializer used for channel values
+ */
+public record CheckpointDeltaSerializer(
+        StateSerializer<? extends AgentState> stateSerializer) implements NullableObjectSerializer<CheckpointDelta> {
+
+    public CheckpointDeltaSerializer {
+        Objects.requireNonNull( stateSerializer, "stateSerializer cannot be null" );
+    }
+
+    @Override
+    public void write(CheckpointDelta object, ObjectOutput out) throws IOException {
+        writeNullableUTF( object.parentId(), out );
+        out.writeInt( object.removed().size() );
+        for( var key : object.removed() ) {
+            Serializer.writeUTF( key, out );
+        }
+        stateSerializer.writeState( object.changed(), out );
+        if( !object.isKeyframe() ) {
+            stateSerializer.writeState( new HashMap<>(object.appended()), out );
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CheckpointDelta read(ObjectInput in) throws IOException, ClassNotFoundException {
+        var parentId = readNullableUTF(in).orElse(null);
+        var size = in.readInt();
+        var removed = new HashSet<String>( size );
+        for( int i = 0; i < size; ++i ) {
+            removed.add( Serializer.readUTF(in) );
+        }
+        var changed = stateSerializer.readState(in);
+        var appended = new HashMap<String,List<Object>>();
+        if( parentId != null ) {
+            for( var entry : stateSerializer.readState(in).entrySet() ) {
+                appended.put( entry.getKey(), (List<Object>)entry.getValue() );
+            }
+        }
+        return new CheckpointDelta( parentId, changed, appended, removed );
+    }
+}
@@ -0,0 +1,81 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Content type negotiation of the serializers used by a saver.
+ * <p>
+ * Checkpoints are always written by the serializer of the saver, while they can be read by any of
+ * the given serializers matching the content type they have been stored with.
+ * This allows, for example, to switch a saver from JSON to a binary format keeping the
+ * previously stored checkpoints readable.
+ * </p>
+ */
+public final class CheckpointDeltaSerializers {
+
+    private final CheckpointDeltaSerializer writer;
+    private final Map<String,CheckpointDeltaSerializer> readers;
+
+    public CheckpointDeltaSerializers( StateSerializer<? extends AgentState> stateSerializer ) {
+        this( stateSerializer, List.of() );
+    }
+
+    /**
+     * Creates the serializers of a saver
+     *
+     * @param stateSerializer the serializer used to write (and read) checkpoints
+     * @param readSerializers the additional serializers used to read checkpoints stored with their content type
+     */
+    public CheckpointDeltaSerializers( StateSerializer<? extends AgentState> stateSerializer,
+                                       Collection<? extends StateSerializer<? extends AgentState>> readSerializers ) {
+        this.writer = new CheckpointDeltaSerializer( stateSerializer );
+        Objects.requireNonNull( readSerializers, "readSerializers cannot be null" );
+        final var result = new HashMap<String,CheckpointDeltaSerializer>();
+        for( var serializer : readSerializers ) {
+            result.put( serializer.contentType(), new CheckpointDeltaSerializer( serializer ) );
+        }
+        result.put( stateSerializer.contentType(), writer );
+        this.readers = Map.copyOf( result );
+    }
+
+    /**
+     * @return the content type of the written checkpoints
+     */
+    public String contentType() {
+        return writer.stateSerializer().contentType();
+    }
+
+    /**
+     * @return the serializer used to write checkpoints
+     */
+    public CheckpointDeltaSerializer writer() {
+        return writer;
+    }
+
+    /**
+     * Selects the serializer for checkpoints stored with the given content type
+     *
+     * @param contentType the stored content type
+     * @return the serializer
+     * @throws IllegalStateException if no serializer supports the content type
+     */
+    public CheckpointDeltaSerializer reader( String contentType ) {
+        var result = readers.get( contentType );
+        if( result == null ) {
+            throw new IllegalStateException(
+                    format( "Content Type used for store state '%s' is different from one '%s' used for deserialize it",
+                            contentType,
+                            String.join( "', '", readers.keySet() ) ));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Represents the per-channel changes between two checkpoints of the same thread.
+ *
+ * @param fromCheckpointId the id of the starting checkpoint, {@code null} if the diff starts from an empty state
+ * @param toCheckpointId the id of the target checkpoint
+ * @param nodeId the node that produced the target checkpoint
+ * @param delta the channels changed, appended and removed from the starting checkpoint to the target one
+ */
+public record CheckpointDiff( String fromCheckpointId, String toCheckpointId, String nodeId, CheckpointDelta delta ) {
+
+    public CheckpointDiff {
+        Objects.requireNonNull( toCheckpointId, "toCheckpointId cannot be null" );
+        Objects.requireNonNull( delta, "delta cannot be null" );
+    }
+
+    /**
+     * Computes the diff between two checkpoints. When the target checkpoint is stored as a delta over the
+     * starting one, the stored delta is the diff, otherwise the values of their channels are compared.
+     *
+     * @param from the starting checkpoint, {@code null} to diff from an empty state
+     * @param to the target checkpoint
+     * @return the diff
+     */
+    public static CheckpointDiff of( Checkpoint from, Checkpoint to ) {
+        Objects.requireNonNull( to, "to cannot be null" );
+        if( from == null ) {
+            return new CheckpointDiff( null, to.getId(), to.getNodeId(), CheckpointDelta.keyframe( to.getState() ) );
+        }
+        final var toState = to.getState(); // a lazy state loads the stored delta
+        final var delta = to.storedDeltaOver( from )
+                .orElseGet( () -> CheckpointDelta.of( from.getId(), from.getState(), toState ) );
+        return new CheckpointDiff( from.getId(), to.getId(), to.getNodeId(), delta );
+    }
+
+    /**
+     * @return the names of the channels changed, appended or removed
+     */
+    public Set<String> channels() {
+        final var result = new HashSet<String>( delta.changed().keySet() );
+        result.addAll( delta.appended().keySet() );
+        result.addAll( delta.removed() );
+        return result;
+    }
+
+    /**
+     * @return true if no channel has been changed
+     */
+    public boolean isEmpty() {
+        return delta.changed().isEmpty() && delta.appended().isEmpty() && delta.removed().isEmpty();
+    }
+}
@@ -0,0 +1,334 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Performs the file writes of a {@link FileSystemSaver} and forces them according to a {@link FsyncPolicy}.
+ * <p>
+ * The writes are prepared ( encoded ) by the caller, holding the lock of the thread, so they don't depend
+ * on the state of the saver anymore. Synchronous writes are performed by the caller, while with write-behind
+ * they are queued to a single writer thread. The writer performs all the queued writes, from any thread,
+ * as a batch and then forces once each file written by the batch ( group commit ).
+ * Writes of the same file are performed in submission order.
+ * </p>
+ * <p>
+ * The first failure of the writer thread is kept and reported by the following {@link #submit(Write)}
+ * and {@link #flush()}, since the writes following it cannot be applied reliably.
+ * </p>
+ */
+final class CheckpointFileWriter implements AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CheckpointFileWriter.class);
+
+    /**
+     * A write prepared by the saver
+     */
+    sealed interface Write permits Append, Rewrite {
+        Path file();
+    }
+
+    /**
+     * Appends an encoded record at the given position of a log
+     */
+    record Append( Path file, long position, ByteBuffer bytes ) implements Write {}
+
+    /**
+     * Replaces a file with the given content
+     */
+    record Rewrite( Path file, ByteBuffer[] content ) implements Write {}
+
+    private sealed interface Task permits Submitted, Barrier, Stop {}
+    private record Submitted( Write write ) implements Task {}
+    private record Barrier( CompletableFuture<Void> done, boolean sync ) implements Task {}
+    private record Stop() implements Task {}
+
+    static final int QUEUE_CAPACITY = 1024;
+
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final BlockingQueue<Task> queue;
+    private final Thread writerThread;
+    /**
+     * files written but not forced yet
+     */
+    private final Set<Path> dirty = ConcurrentHashMap.newKeySet();
+    private volatile long lastSync = System.nanoTime();
+    private volatile IOException failure;
+    /**
+     * writes queued and not performed yet
+     */
+    private final AtomicLong pending = new AtomicLong();
+
+    /**
+     * @param fsyncPolicy when the files are forced
+     * @param fsyncInterval the interval of {@link FsyncPolicy#INTERVAL}
+     * @param writeBehind true to perform the writes on a dedicated thread
+     */
+    CheckpointFileWriter( FsyncPolicy fsyncPolicy, Duration fsyncInterval, boolean writeBehind ) {
+        this.fsyncPolicy = Objects.requireNonNull( fsyncPolicy, "fsyncPolicy cannot be null" );
+        Objects.requireNonNull( fsyncInterval, "fsyncInterval cannot be null" );
+        if( fsyncInterval.isNegative() || fsyncInterval.isZero() ) {
+            throw new IllegalArgumentException( format("fsyncInterval must be positive but is %s", fsyncInterval) );
+        }
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        if( writeBehind ) {
+            queue = new ArrayBlockingQueue<>( QUEUE_CAPACITY );
+            writerThread = new Thread( this::run, "langgraph4j-checkpoint-writer" );
+            writerThread.setDaemon( true );
+            writerThread.start();
+        }
+        else {
+            queue = null;
+            writerThread = null;
+        }
+    }
+
+    boolean isWriteBehind() {
+        return writerThread != null;
+    }
+
+    FsyncPolicy fsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    private void checkFailure() throws IOException {
+        final var ex = failure;
+        if( ex != null ) {
+            throw new IOException( "a previous checkpoint write failed", ex );
+        }
+    }
+
+    /**
+     * Performs the write, or queues it with write-behind. The call blocks while the queue is full
+     *
+     * @param write the write
+     * @throws IOException if the write fails, or a previous write of the writer thread has failed
+     */
+    void submit( Write write ) throws IOException {
+        Objects.requireNonNull( write, "write cannot be null" );
+        checkFailure();
+        if( !isWriteBehind() ) {
+            apply( write );
+            if( fsyncPolicy == FsyncPolicy.EVERY_COMMIT ) {
+                sync();
+            }
+            else if( fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastSync >= fsyncIntervalNanos ) {
+                sync();
+            }
+            return;
+        }
+        if( !writerThread.isAlive() ) {
+            throw new IOException( "checkpoint writer has been closed" );
+        }
+        pending.incrementAndGet();
+        try {
+            queue.put( new Submitted( write ) );
+        }
+        catch( InterruptedException ex ) {
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "interrupted while queueing a checkpoint write" );
+        }
+    }
+
+    /**
+     * Waits until all the writes submitted so far have been performed, without forcing them,
+     * e.g. before reading a file
+     *
+     * @throws IOException if a write has failed or the wait has been interrupted
+     */
+    void await() throws IOException {
+        if( !isWriteBehind() || pending.get() == 0 ) {
+            checkFailure();
+            return;
+        }
+        barrier( false );
+    }
+
+    /**
+     * Waits until all the writes submitted so far have been performed and, unless the policy is
+     * {@link FsyncPolicy#NONE}, forced to the storage device
+     *
+     * @throws IOException if a write has failed or the wait has been interrupted
+     */
+    void flush() throws IOException {
+        if( !isWriteBehind() ) {
+            checkFailure();
+            if( fsyncPolicy != FsyncPolicy.NONE ) {
+                sync();
+            }
+            return;
+        }
+        barrier( true );
+    }
+
+    private void barrier( boolean sync ) throws IOException {
+        if( !writerThread.isAlive() ) {
+            checkFailure();
+            return;
+        }
+        final var done = new CompletableFuture<Void>();
+        try {
+            queue.put( new Barrier( done, sync ) );
+            done.get();
+        }
+        catch( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "interrupted while flushing the checkpoint writes" );
+        }
+        catch( ExecutionException ex ) {
+            throw ( ex.getCause() instanceof IOException io ) ? io : new IOException( ex.getCause() );
+        }
+    }
+
+    /**
+     * Flushes the pending writes and stops the writer thread
+     */
+    @Override
+    public void close() throws IOException {
+        if( !isWriteBehind() || !writerThread.isAlive() ) {
+            flush();
+            return;
+        }
+        try {
+            flush();
+        }
+        finally {
+            try {
+                queue.put( new Stop() );
+                writerThread.join();
+            }
+            catch( InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void apply( Write write ) throws IOException {
+        if( write instanceof Append append ) {
+            CheckpointLogFile.append( append.file(), append.position(), append.bytes().duplicate() );
+        }
+        else if( write instanceof Rewrite rewrite ) {
+            CheckpointLogFile.write( rewrite.file(), duplicate( rewrite.content() ), fsyncPolicy != FsyncPolicy.NONE );
+        }
+        if( fsyncPolicy != FsyncPolicy.NONE ) {
+            dirty.add( write.file() );
+        }
+    }
+
+    private static ByteBuffer[] duplicate( ByteBuffer[] buffers ) {
+        var result = new ByteBuffer[ buffers.length ];
+        for( int i = 0; i < buffers.length; ++i ) {
+            result[i] = buffers[i].duplicate();
+        }
+        return result;
+    }
+
+    /**
+     * Forces the files written since the previous sync
+     */
+    private void sync() throws IOException {
+        lastSync = System.nanoTime();
+        for( var i = dirty.iterator(); i.hasNext(); ) {
+            final var file = i.next();
+            i.remove();
+            try( var channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+                channel.force( false );
+            }
+            catch( NoSuchFileException ex ) {
+                // released or deleted in the meantime
+            }
+        }
+    }
+
+    private void run() {
+        final var batch = new ArrayList<Task>();
+        while( true ) {
+            try {
+                final Task first = ( fsyncPolicy == FsyncPolicy.INTERVAL && !dirty.isEmpty() ) ?
+                        queue.poll( Math.max( 0, fsyncIntervalNanos - ( System.nanoTime() - lastSync ) ), TimeUnit.NANOSECONDS ) :
+                        queue.take();
+                batch.clear();
+                if( first != null ) {
+                    batch.add( first );
+                    queue.drainTo( batch );
+                }
+                if( !commit( batch ) ) {
+                    return;
+                }
+            }
+            catch( InterruptedException ex ) {
+                log.warn( "checkpoint writer interrupted, {} writes pending", queue.size() );
+                return;
+            }
+        }
+    }
+
+    /**
+     * Performs a batch of tasks and forces the written files as required by the policy
+     *
+     * @return false if the writer has to stop
+     */
+    private boolean commit( List<Task> batch ) {
+        boolean running = true;
+        final var barriers = new ArrayList<CompletableFuture<Void>>();
+        boolean syncRequested = false;
+        for( var task : batch ) {
+            if( task instanceof Submitted submitted ) {
+                if( failure == null ) {
+                    try {
+                        apply( submitted.write() );
+                    }
+                    catch( IOException ex ) {
+                        log.error( "error writing checkpoint file {}", submitted.write().file(), ex );
+                        failure = ex;
+                    }
+                }
+                pending.decrementAndGet();
+            }
+            else if( task instanceof Barrier barrier ) {
+                barriers.add( barrier.done() );
+                syncRequested |= barrier.sync();
+            }
+            else if( task instanceof Stop ) {
+                running = false;
+            }
+        }
+
+        final boolean syncRequired = switch( fsyncPolicy ) {
+            case NONE -> false;
+            case EVERY_COMMIT -> true;
+            case INTERVAL -> syncRequested || System.nanoTime() - lastSync >= fsyncIntervalNanos;
+        };
+        if( syncRequired && failure == null ) {
+            try {
+                sync();
+            }
+            catch( IOException ex ) {
+                log.error( "error forcing checkpoint files", ex );
+                failure = ex;
+            }
+        }
+
+        for( var done : barriers ) {
+            if( failure != null ) {
+                done.completeExceptionally( new IOException( "a checkpoint write failed", failure ) );
+            }
+            else {
+                done.complete( null );
+            }
+        }
+        return running;
+    }
+}
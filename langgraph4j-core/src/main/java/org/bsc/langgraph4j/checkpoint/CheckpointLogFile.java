@@ -0,0 +1,345 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import static java.lang.String.format;
+
+/**
+ * Append-only checkpoint file, read through a memory-mapped buffer.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int     magic "LGL1"
+ * string  content type of the state serializer
+ * record* in write order:
+ *         int length of the body, int CRC32 of the body, then the body:
+ *         byte kind, string id, string nodeId, string nextNodeId, string parentId ( null for keyframe ),
+ *         string replacedId ( REPLACE only ), byte* payload up to the end of the body
+ * </pre>
+ * Strings are written as UTF-8 bytes prefixed by their length, {@code -1} for null.
+ * A {@link Kind#PUT} record adds a checkpoint as the newest one, a {@link Kind#REPLACE} record is the tombstone of
+ * the replaced checkpoint and takes its place. Tombstoned records stay in the file, so that the deltas
+ * referring to them can still be decoded, until the file is rewritten with the live records only.
+ * </p>
+ * <p>
+ * Reading stops at the first truncated or corrupted record, e.g. the tail of a write interrupted by a crash,
+ * and {@link Log#length()} tells where the next record has to be appended.
+ * </p>
+ */
+final class CheckpointLogFile {
+
+    static final int MAGIC = 0x4C474C31; // "LGL1"
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2;
+
+    enum Kind {
+        PUT( 1 ),
+        REPLACE( 2 );
+
+        private final int id;
+
+        Kind( int id ) {
+            this.id = id;
+        }
+
+        static Kind of( int id ) throws StreamCorruptedException {
+            for( var kind : values() ) {
+                if( kind.id == id ) {
+                    return kind;
+                }
+            }
+            throw new StreamCorruptedException( format("unsupported record kind %d", id) );
+        }
+    }
+
+    /**
+     * @param kind record kind
+     * @param id checkpoint id
+     * @param nodeId checkpoint node id
+     * @param nextNodeId checkpoint next node id
+     * @param parentId id of the parent checkpoint, null if the payload is a keyframe
+     * @param replacedId id of the replaced checkpoint, null unless {@link Kind#REPLACE}
+     * @param payload the serialized delta
+     */
+    record Record( Kind kind, String id, String nodeId, String nextNodeId, String parentId, String replacedId, ByteBuffer payload ) {
+        Record {
+            Objects.requireNonNull( kind, "kind cannot be null" );
+            Objects.requireNonNull( id, "id cannot be null" );
+            Objects.requireNonNull( payload, "payload cannot be null" );
+            if( ( kind == Kind.REPLACE ) != ( replacedId != null ) ) {
+                throw new IllegalArgumentException( "replacedId is required by REPLACE records only" );
+            }
+        }
+
+        static Record put( String id, String nodeId, String nextNodeId, String parentId, ByteBuffer payload ) {
+            return new Record( Kind.PUT, id, nodeId, nextNodeId, parentId, null, payload );
+        }
+
+        static Record replace( String replacedId, String id, String nodeId, String nextNodeId, String parentId, ByteBuffer payload ) {
+            return new Record( Kind.REPLACE, id, nodeId, nextNodeId, parentId, replacedId, payload );
+        }
+
+        boolean isKeyframe() {
+            return parentId == null;
+        }
+    }
+
+    /**
+     * @param contentType the content type of the state serializer
+     * @param records the valid records in write order, their payloads are slices of the mapped buffer
+     * @param length the length of the valid part of the file
+     * @param size the size of the file, greater than {@code length} if its tail is not valid
+     */
+    record Log( String contentType, List<Record> records, long length, long size ) {}
+
+    private CheckpointLogFile() {}
+
+    /**
+     * Checks whether the given file has been written with this layout
+     *
+     * @param file the file
+     * @return true if the file starts with the layout magic
+     * @throws IOException if the file cannot be read
+     */
+    static boolean matches( Path file ) throws IOException {
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            var magic = ByteBuffer.allocate( Integer.BYTES );
+            while( magic.hasRemaining() ) {
+                if( channel.read( magic ) < 0 ) {
+                    return false;
+                }
+            }
+            return magic.getInt( 0 ) == MAGIC;
+        }
+    }
+
+    /**
+     * Maps the given file and decodes its records
+     *
+     * @param file the file
+     * @return the valid records
+     * @throws IOException if the file cannot be mapped or its header is corrupted
+     */
+    static Log read( Path file ) throws IOException {
+        final MappedByteBuffer buffer;
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            if( channel.size() > Integer.MAX_VALUE ) {
+                throw new IOException( format("file %s is too large to be mapped", file) );
+            }
+            buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+
+        final String contentType;
+        try {
+            if( buffer.getInt() != MAGIC ) {
+                throw new StreamCorruptedException( format("file %s is not a checkpoint log", file) );
+            }
+            contentType = readString( buffer );
+        }
+        catch( BufferUnderflowException ex ) {
+            throw new EOFException( format("unexpected end of file %s", file) );
+        }
+
+        final var records = new ArrayList<Record>();
+        final var crc = new CRC32();
+        while( buffer.remaining() >= RECORD_HEADER_SIZE ) {
+            final int start = buffer.position();
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if( length <= 0 || length > buffer.remaining() ) {
+                buffer.position( start );
+                break;
+            }
+            final var body = buffer.slice( buffer.position(), length );
+            crc.reset();
+            crc.update( body.duplicate() );
+            if( (int)crc.getValue() != checksum ) {
+                buffer.position( start );
+                break;
+            }
+            try {
+                records.add( readRecord( body ) );
+            }
+            catch( BufferUnderflowException | IndexOutOfBoundsException | StreamCorruptedException ex ) {
+                buffer.position( start );
+                break;
+            }
+            buffer.position( buffer.position() + length );
+        }
+        return new Log( contentType, List.copyOf( records ), buffer.position(), buffer.limit() );
+    }
+
+    private static Record readRecord( ByteBuffer body ) throws StreamCorruptedException {
+        final var kind = Kind.of( body.get() );
+        final var id = readString( body );
+        if( id == null ) {
+            throw new StreamCorruptedException( "record without id" );
+        }
+        final var nodeId = readString( body );
+        final var nextNodeId = readString( body );
+        final var parentId = readString( body );
+        final var replacedId = ( kind == Kind.REPLACE ) ? readString( body ) : null;
+        if( kind == Kind.REPLACE && replacedId == null ) {
+            throw new StreamCorruptedException( "replace record without replaced id" );
+        }
+        return new Record( kind, id, nodeId, nextNodeId, parentId, replacedId, body.slice().asReadOnlyBuffer() );
+    }
+
+    /**
+     * Encodes a new log holding the given records
+     *
+     * @param contentType the content type of the state serializer
+     * @param records the records in write order
+     * @return the content of the file
+     * @throws IOException if a record cannot be encoded
+     */
+    static ByteBuffer[] encode( String contentType, List<Record> records ) throws IOException {
+        Objects.requireNonNull( contentType, "contentType cannot be null" );
+        Objects.requireNonNull( records, "records cannot be null" );
+
+        final var header = new ByteArrayOutputStream( 64 );
+        try( var out = new DataOutputStream( header ) ) {
+            out.writeInt( MAGIC );
+            writeString( contentType, out );
+        }
+
+        final var buffers = new ByteBuffer[ records.size() + 1 ];
+        buffers[0] = ByteBuffer.wrap( header.toByteArray() );
+        for( int i = 0; i < records.size(); ++i ) {
+            buffers[i + 1] = encode( records.get(i) );
+        }
+        return buffers;
+    }
+
+    /**
+     * @return the number of bytes of the given content
+     */
+    static long length( ByteBuffer[] content ) {
+        long length = 0;
+        for( var buffer : content ) {
+            length += buffer.remaining();
+        }
+        return length;
+    }
+
+    /**
+     * Writes the given content into a temporary file then moves it over the target one,
+     * so that the buffers mapped from the previous file stay valid
+     *
+     * @param file the target file
+     * @param content the content, see {@link #encode(String, List)}
+     * @param force true to force the content to the storage device before moving the file
+     * @throws IOException if the file cannot be written
+     */
+    static void write( Path file, ByteBuffer[] content, boolean force ) throws IOException {
+        Objects.requireNonNull( file, "file cannot be null" );
+        Objects.requireNonNull( content, "content cannot be null" );
+
+        final var tempFile = Files.createTempFile( file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp" );
+        try {
+            try( var channel = FileChannel.open( tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) ) {
+                long remaining = length( content );
+                while( remaining > 0 ) {
+                    remaining -= channel.write( content );
+                }
+                if( force ) {
+                    channel.force( false );
+                }
+            }
+            try {
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch( AtomicMoveNotSupportedException ex ) {
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        finally {
+            Files.deleteIfExists( tempFile );
+        }
+    }
+
+    /**
+     * Appends an encoded record to the log. An invalid tail, beyond the given position, is overwritten
+     *
+     * @param file the log file
+     * @param position the length of the valid part of the log
+     * @param bytes the record, see {@link #encode(Record)}
+     * @throws IOException if the record cannot be written or the file is shorter than expected
+     */
+    static void append( Path file, long position, ByteBuffer bytes ) throws IOException {
+        try( var channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+            final long size = channel.size();
+            if( size < position ) {
+                throw new StreamCorruptedException( format("log %s is shorter (%d) than expected (%d)", file, size, position) );
+            }
+            if( size > position ) {
+                channel.truncate( position );
+            }
+            while( bytes.hasRemaining() ) {
+                position += channel.write( bytes, position );
+            }
+        }
+    }
+
+    /**
+     * @return the record framed with its length and checksum
+     */
+    static ByteBuffer encode( Record record ) throws IOException {
+        final var payload = record.payload().duplicate();
+        final var header = new ByteArrayOutputStream( 128 );
+        try( var out = new DataOutputStream( header ) ) {
+            out.writeInt( 0 ); // length
+            out.writeInt( 0 ); // checksum
+            out.writeByte( record.kind().id );
+            writeString( record.id(), out );
+            writeString( record.nodeId(), out );
+            writeString( record.nextNodeId(), out );
+            writeString( record.parentId(), out );
+            if( record.kind() == Kind.REPLACE ) {
+                writeString( record.replacedId(), out );
+            }
+        }
+        final var result = ByteBuffer.allocate( header.size() + payload.remaining() );
+        result.put( header.toByteArray() ).put( payload ).flip();
+
+        final int length = result.remaining() - RECORD_HEADER_SIZE;
+        final var crc = new CRC32();
+        crc.update( result.slice( RECORD_HEADER_SIZE, length ) );
+        result.putInt( 0, length );
+        result.putInt( Integer.BYTES, (int)crc.getValue() );
+        return result;
+    }
+
+    private static void writeString( String value, DataOutput out ) throws IOException {
+        if( value == null ) {
+            out.writeInt( -1 );
+            return;
+        }
+        var bytes = value.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private static String readString( ByteBuffer buffer ) throws StreamCorruptedException {
+        int length = buffer.getInt();
+        if( length == -1 ) {
+            return null;
+        }
+        if( length < 0 || length > buffer.remaining() ) {
+            throw new StreamCorruptedException( format("invalid string length %d", length) );
+        }
+        var bytes = new byte[length];
+        buffer.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,232 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+
+/**
+ * Retention policy of the checkpoints held in memory by a {@link MemorySaver}.
+ * <p>
+ * The policy bounds:
+ * <ul>
+ *     <li>the checkpoints kept for each thread, dropping the oldest ones beyond {@link Builder#maxCheckpointsPerThread(int)}</li>
+ *     <li>the time a thread stays in memory without being accessed, see {@link Builder#idleTimeout(Duration)}</li>
+ *     <li>the threads and the checkpoints held overall, evicting whole threads from the least recently used,
+ *     see {@link Builder#maxThreads(int)} and {@link Builder#maxCheckpoints(long)}</li>
+ * </ul>
+ * An evicted thread is not released: savers backed by a store (file or database) reload it on the next access,
+ * while a plain {@link MemorySaver} loses its checkpoints.
+ * Checkpoints dropped beyond the per-thread limit are not reloaded until the thread itself is.
+ * The retention bounds the memory only: savers backed by a store keep the dropped checkpoints there.
+ * </p>
+ * <pre>{@code
+ * var saver = new MemorySaver( CheckpointRetention.builder()
+ *                 .maxCheckpointsPerThread( 50 )
+ *                 .idleTimeout( Duration.ofMinutes( 30 ) )
+ *                 .maxThreads( 10_000 )
+ *                 .build() );
+ * }</pre>
+ */
+public final class CheckpointRetention {
+
+    private static final CheckpointRetention UNBOUNDED = builder().build();
+
+    /**
+     * Counters of the checkpoints dropped from memory
+     */
+    public static final class Metrics {
+        private final LongAdder trimmedCheckpoints = new LongAdder();
+        private final LongAdder expiredThreads = new LongAdder();
+        private final LongAdder evictedThreads = new LongAdder();
+        private final LongAdder evictedCheckpoints = new LongAdder();
+
+        Metrics() {}
+
+        void trimmed( int checkpoints ) {
+            trimmedCheckpoints.add( checkpoints );
+        }
+
+        void evicted( boolean expired, int checkpoints ) {
+            ( expired ? expiredThreads : evictedThreads ).increment();
+            evictedCheckpoints.add( checkpoints );
+        }
+
+        /**
+         * @return the number of checkpoints dropped beyond the per-thread limit
+         */
+        public long trimmedCheckpoints() {
+            return trimmedCheckpoints.sum();
+        }
+
+        /**
+         * @return the number of threads evicted for being idle
+         */
+        public long expiredThreads() {
+            return expiredThreads.sum();
+        }
+
+        /**
+         * @return the number of threads evicted to stay within the global limits
+         */
+        public long evictedThreads() {
+            return evictedThreads.sum();
+        }
+
+        /**
+         * @return the number of checkpoints held by the evicted threads ( either expired or evicted )
+         */
+        public long evictedCheckpoints() {
+            return evictedCheckpoints.sum();
+        }
+
+        @Override
+        public String toString() {
+            return format( "CheckpointRetention.Metrics{ trimmedCheckpoints=%d, expiredThreads=%d, evictedThreads=%d, evictedCheckpoints=%d }",
+                    trimmedCheckpoints(), expiredThreads(), evictedThreads(), evictedCheckpoints() );
+        }
+    }
+
+    private final int maxCheckpointsPerThread;
+    private final Duration idleTimeout;
+    private final int maxThreads;
+    private final long maxCheckpoints;
+    private final LongSupplier ticker;
+
+    private CheckpointRetention( Builder builder ) {
+        this.maxCheckpointsPerThread = builder.maxCheckpointsPerThread;
+        this.idleTimeout = builder.idleTimeout;
+        this.maxThreads = builder.maxThreads;
+        this.maxCheckpoints = builder.maxCheckpoints;
+        this.ticker = builder.ticker;
+    }
+
+    /**
+     * @return the policy keeping all the checkpoints until the thread is released
+     */
+    public static CheckpointRetention unbounded() {
+        return UNBOUNDED;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int maxCheckpointsPerThread() {
+        return maxCheckpointsPerThread;
+    }
+
+    /**
+     * @return the idle timeout of a thread, null if threads never expire
+     */
+    public Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    public int maxThreads() {
+        return maxThreads;
+    }
+
+    public long maxCheckpoints() {
+        return maxCheckpoints;
+    }
+
+    /**
+     * @return true if whole threads can be evicted from memory
+     */
+    boolean isEvicting() {
+        return idleTimeout != null || maxThreads != Integer.MAX_VALUE || maxCheckpoints != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the current time in nanoseconds, used to track the thread accesses
+     */
+    long now() {
+        return ticker.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return format( "CheckpointRetention{ maxCheckpointsPerThread=%d, idleTimeout=%s, maxThreads=%d, maxCheckpoints=%d }",
+                maxCheckpointsPerThread, idleTimeout, maxThreads, maxCheckpoints );
+    }
+
+    public static class Builder {
+        private int maxCheckpointsPerThread = Integer.MAX_VALUE;
+        private Duration idleTimeout;
+        private int maxThreads = Integer.MAX_VALUE;
+        private long maxCheckpoints = Long.MAX_VALUE;
+        private LongSupplier ticker = System::nanoTime;
+
+        /**
+         * Sets the number of checkpoints kept in memory for each thread, the oldest ones are dropped first
+         *
+         * @param maxCheckpointsPerThread the max number of checkpoints of a thread, at least 1
+         * @return this builder
+         */
+        public Builder maxCheckpointsPerThread( int maxCheckpointsPerThread ) {
+            if( maxCheckpointsPerThread < 1 ) {
+                throw new IllegalArgumentException( format("maxCheckpointsPerThread must be >= 1 but is %d", maxCheckpointsPerThread) );
+            }
+            this.maxCheckpointsPerThread = maxCheckpointsPerThread;
+            return this;
+        }
+
+        /**
+         * Sets the time after which a thread that hasn't been accessed is evicted from memory
+         *
+         * @param idleTimeout the idle timeout, null to never expire the threads
+         * @return this builder
+         */
+        public Builder idleTimeout( Duration idleTimeout ) {
+            if( idleTimeout != null && ( idleTimeout.isNegative() || idleTimeout.isZero() ) ) {
+                throw new IllegalArgumentException( format("idleTimeout must be positive but is %s", idleTimeout) );
+            }
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads held in memory, the least recently used ones are evicted first
+         *
+         * @param maxThreads the max number of threads, at least 1
+         * @return this builder
+         */
+        public Builder maxThreads( int maxThreads ) {
+            if( maxThreads < 1 ) {
+                throw new IllegalArgumentException( format("maxThreads must be >= 1 but is %d", maxThreads) );
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints held in memory across all the threads.
+         * Whole threads are evicted, from the least recently used, until the total fits the limit
+         *
+         * @param maxCheckpoints the max number of checkpoints, at least 1
+         * @return this builder
+         */
+        public Builder maxCheckpoints( long maxCheckpoints ) {
+            if( maxCheckpoints < 1 ) {
+                throw new IllegalArgumentException( format("maxCheckpoints must be >= 1 but is %d", maxCheckpoints) );
+            }
+            this.maxCheckpoints = maxCheckpoints;
+            return this;
+        }
+
+        /**
+         * Sets the time source, in nanoseconds
+         */
+        Builder ticker( LongSupplier ticker ) {
+            this.ticker = Objects.requireNonNull( ticker, "ticker cannot be null" );
+            return this;
+        }
+
+        public CheckpointRetention build() {
+            return new CheckpointRetention( this );
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Loads the states of the checkpoints of a thread on demand, a page at a time.
+ * <p>
+ * Savers backed by a database read only the checkpoint headers (id, node and next node) when a thread is loaded,
+ * so that resuming a thread with a long history doesn't read and decode all of its states.
+ * The state of a checkpoint is read the first time it is requested, together with the states of the following
+ * ( older ) checkpoints not read yet, up to the page size. Since a delta is applied to the state of its parent,
+ * which is older, a page usually holds the whole chain up to the nearest keyframe, and browsing the history
+ * from the newest checkpoint costs a query every page.
+ * </p>
+ * <p>
+ * The states read and not requested yet are kept by the pager until they are, while the decoded states are
+ * kept by their checkpoint.
+ * </p>
+ */
+public final class CheckpointStatePager {
+
+    /**
+     * Default number of checkpoint states read by a query
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Header of a stored checkpoint
+     *
+     * @param id checkpoint id
+     * @param nodeId checkpoint node id
+     * @param nextNodeId checkpoint next node id
+     */
+    public record Header( String id, String nodeId, String nextNodeId ) {
+        public Header {
+            requireNonNull( id, "id cannot be null" );
+        }
+    }
+
+    /**
+     * Reads the stored states of a page of checkpoints
+     */
+    @FunctionalInterface
+    public interface PageReader {
+        /**
+         * @param ids the ids of the checkpoints to read
+         * @return the stored states indexed by checkpoint id, missing checkpoints are omitted
+         * @throws Exception if the states cannot be read or decoded
+         */
+        Map<String,CheckpointDelta> read( List<String> ids ) throws Exception;
+    }
+
+    private final List<String> ids;
+    private final Map<String,Integer> positionsById;
+    private final int pageSize;
+    private final PageReader reader;
+    private final Map<String,Checkpoint> checkpointsById;
+    /**
+     * states read and not requested yet
+     */
+    private final Map<String,CheckpointDelta> pending = new HashMap<>();
+    /**
+     * positions of the checkpoints whose state has been read
+     */
+    private final BitSet read = new BitSet();
+
+    private CheckpointStatePager( List<Header> headers, int pageSize, PageReader reader ) {
+        this.pageSize = requireValidPageSize( pageSize );
+        this.reader = requireNonNull( reader, "reader cannot be null" );
+        this.ids = new ArrayList<>( headers.size() );
+        this.positionsById = new HashMap<>( headers.size() );
+        this.checkpointsById = new HashMap<>( headers.size() );
+        for( var header : headers ) {
+            positionsById.put( header.id(), ids.size() );
+            ids.add( header.id() );
+            checkpointsById.put( header.id(), Checkpoint.builder()
+                    .id( header.id() )
+                    .nodeId( header.nodeId() )
+                    .nextNodeId( header.nextNodeId() )
+                    .lazyDelta( () -> deltaOf( header.id() ), checkpointsById::get )
+                    .build() );
+        }
+    }
+
+    /**
+     * Creates the checkpoints of the given headers, whose states are read on demand
+     *
+     * @param headers the checkpoint headers, from the newest to the oldest
+     * @param pageSize the number of states read by each query
+     * @param reader the reader of the stored states
+     * @return the checkpoints in the same order of the headers
+     */
+    public static List<Checkpoint> lazyCheckpoints( List<Header> headers, int pageSize, PageReader reader ) {
+        requireNonNull( headers, "headers cannot be null" );
+        final var pager = new CheckpointStatePager( headers, pageSize, reader );
+        final var result = new ArrayList<Checkpoint>( headers.size() );
+        for( var header : headers ) {
+            result.add( pager.checkpointsById.get( header.id() ) );
+        }
+        return result;
+    }
+
+    /**
+     * Validates the page size
+     *
+     * @param pageSize the number of states read by each query
+     * @return the given page size
+     * @throws IllegalArgumentException if the page size is less than 1
+     */
+    public static int requireValidPageSize( int pageSize ) {
+        if( pageSize < 1 ) {
+            throw new IllegalArgumentException( format("pageSize must be >= 1 but is %d", pageSize) );
+        }
+        return pageSize;
+    }
+
+    /**
+     * @return the stored delta of the given checkpoint. The parent state is decoded out of the pager lock, on its own checkpoint
+     */
+    private CheckpointDelta deltaOf( String id ) {
+        final CheckpointDelta delta;
+        synchronized( this ) {
+            if( !pending.containsKey( id ) ) {
+                readPage( id );
+            }
+            delta = pending.remove( id );
+        }
+        if( delta == null ) {
+            throw new IllegalStateException( format("state of checkpoint '%s' not found!", id) );
+        }
+        return delta;
+    }
+
+    /**
+     * Reads the state of the given checkpoint and of the following ones not read yet, up to the page size
+     */
+    private void readPage( String id ) {
+        final int position = positionsById.get( id );
+        final var page = new ArrayList<String>( pageSize );
+        page.add( id );
+        for( int i = read.nextClearBit( position + 1 ); i < ids.size() && page.size() < pageSize; i = read.nextClearBit( i + 1 ) ) {
+            page.add( ids.get( i ) );
+        }
+        final Map<String,CheckpointDelta> states;
+        try {
+            states = reader.read( page );
+        }
+        catch( RuntimeException ex ) {
+            throw ex;
+        }
+        catch( Exception ex ) {
+            throw new IllegalStateException( format("error reading state of checkpoint '%s'", id), ex );
+        }
+        for( var pageId : page ) {
+            read.set( positionsById.get( pageId ) );
+        }
+        pending.putAll( states );
+    }
+}
@@ -1,19 +1,26 @@
 package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.SerializationBuffers;
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
 import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 import static java.lang.String.format;
 
@@ -25,22 +32,133 @@ import static java.lang.String.format;
  *     Each RunnableConfig is associated with a file in the provided targetFolder.
  *     The file is named "thread-<i>threadId</i>.saver" if the RunnableConfig has a
  *     threadId, or "thread-$default.saver" if it doesn't.
+ *     Files are spread in nested folders named after the hash of the thread id ( e.g. "3f/a2/thread-<i>threadId</i>.saver",
+ *     see {@link Builder#shardLevels(int)} ), so that each folder stays small whatever the number of threads.
+ *     Files stored directly in the targetFolder by the previous versions are moved into their folder when loaded.
+ * </p>
+ * <p>
+ *     Releasing a thread moves its file into the versions folder of the thread
+ *     ( e.g. "3f/a2/thread-<i>threadId</i>.versions/v1.saver" ) through an atomic rename, without copying it.
+ * </p>
+ * <p>
+ *     Checkpoints are stored from the oldest to the newest as {@link CheckpointDelta}, that is
+ *     only the channels changed since the previous checkpoint, plus a full keyframe
+ *     every {@code keyframeInterval} checkpoints.
+ *     Files written in the previous format (full state for each checkpoint) are still readable.
+ * </p>
+ * <p>
+ *     Each file records the content type of its {@link StateSerializer}, so that files written with a
+ *     different serializer can be read through the {@code readSerializers} matching their content type.
+ * </p>
+ * <p>
+ *     Files are append-only logs of checkpoint records (see {@link CheckpointLogFile}): a new checkpoint appends
+ *     a single record, whatever the length of the thread, and an update appends a record replacing the previous one.
+ *     Each record is protected by a checksum, so a record partially written by a crash is ignored and overwritten.
+ *     When at least half of the records of a file are no longer live ( replaced by an update ), the file is compacted,
+ *     rewriting the live records read from the file and copying their payloads as they are when possible.
+ *     The file doesn't depend on the {@link CheckpointRetention}: checkpoints dropped from memory are kept in the file.
+ * </p>
+ * <p>
+ *     Files are read through a memory-mapped buffer: loading a thread decodes only the record headers
+ *     (id, node, next node, parent), while the state of a checkpoint is decoded from the mapped buffer on the
+ *     first {@link Checkpoint#getState()}. Files written in the previous indexed layout are still readable
+ *     and are rewritten as logs on the next write.
+ * </p>
+ * <p>
+ *     Records are encoded by the thread putting the checkpoint, while the file writes can be performed
+ *     by a dedicated writer thread ( see {@link Builder#writeBehind(boolean)} ), that batches the writes of all the
+ *     threads and forces the written files according to the {@link FsyncPolicy} once per batch.
+ *     Pending writes are flushed before a file is read, on {@link #release(RunnableConfig)},
+ *     on {@link #flush(RunnableConfig)} ( called by the graph when it is interrupted or returns ) and on {@link #close()}.
+ * </p>
+ * <p>
+ *     Payloads can be compressed through a {@link PayloadCompressor}. Compressed payloads are recognized by their
+ *     header, so they are always readable while uncompressed ones are still supported.
+ *     Files written in the previous layouts (whole file serialized, optionally compressed) are still readable.
  * </p>
  *
  */
-public class FileSystemSaver extends MemorySaver {
+public class FileSystemSaver extends MemorySaver implements AutoCloseable {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileSystemSaver.class);
     public static final String EXTENSION = ".saver";
+    /**
+     * marker of file format storing checkpoints as deltas. Legacy format starts with checkpoints size ( >= 0 )
+     */
+    private static final int DELTA_FORMAT = -1;
+    /**
+     * marker of file format storing checkpoints as deltas, preceded by the content type of the state serializer
+     */
+    private static final int TYPED_DELTA_FORMAT = -2;
+    /**
+     * suffix of the folder holding the released versions of a thread
+     */
+    private static final String VERSIONS_SUFFIX = ".versions";
+    private static final Pattern VERSION_PATTERN = Pattern.compile(format("v(\\d+)\\%s$", EXTENSION));
+    static final int MAX_SHARD_LEVELS = 4;
 
     private final Path targetFolder;
     private final Serializer<Checkpoint> serializer;
+    private final CheckpointDeltaSerializers deltaSerializers;
+    private final PayloadCompressor compressor;
+    private final int keyframeInterval;
+    private final int shardLevels;
+    /**
+     * Current file of each thread
+     */
+    private final Map<Path,StoredFile> storedFiles = new ConcurrentHashMap<>();
+    private final CheckpointFileWriter writer;
+
+    public static Builder builder() {
+        return new Builder();
+    }
 
-    @SuppressWarnings("unchecked")
     public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer) {
+        this( targetFolder, stateSerializer, CheckpointDelta.DEFAULT_KEYFRAME_INTERVAL );
+    }
+
+    public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer, int keyframeInterval) {
+        this( targetFolder, stateSerializer, keyframeInterval, List.of() );
+    }
+
+    /**
+     * Creates a saver
+     *
+     * @param targetFolder the folder of the checkpoint files
+     * @param stateSerializer the serializer used to write (and read) the checkpoints
+     * @param keyframeInterval the number of checkpoints between two full keyframes
+     * @param readSerializers the additional serializers used to read files written with their content type
+     */
+    public FileSystemSaver(Path targetFolder,
+                           StateSerializer<? extends AgentState> stateSerializer,
+                           int keyframeInterval,
+                           Collection<? extends StateSerializer<? extends AgentState>> readSerializers ) {
+        this( targetFolder, stateSerializer, keyframeInterval, readSerializers, PayloadCompressor.disabled(), CheckpointRetention.unbounded(),
+                FsyncPolicy.NONE, Builder.DEFAULT_FSYNC_INTERVAL, false, Builder.DEFAULT_SHARD_LEVELS );
+    }
+
+    @SuppressWarnings("unchecked")
+    private FileSystemSaver(Path targetFolder,
+                           StateSerializer<? extends AgentState> stateSerializer,
+                           int keyframeInterval,
+                           Collection<? extends StateSerializer<? extends AgentState>> readSerializers,
+                           PayloadCompressor compressor,
+                           CheckpointRetention retention,
+                           FsyncPolicy fsyncPolicy,
+                           Duration fsyncInterval,
+                           boolean writeBehind,
+                           int shardLevels ) {
+        super( retention );
 
         Objects.requireNonNull(stateSerializer, "stateSerializer cannot be null");
+        this.compressor = Objects.requireNonNull(compressor, "compressor cannot be null");
         this.targetFolder = Objects.requireNonNull(targetFolder, "targetFolder cannot be null");
         this.serializer = new CheckPointSerializer((StateSerializer<AgentState>) stateSerializer);
+        this.deltaSerializers = new CheckpointDeltaSerializers( stateSerializer, readSerializers );
+        this.keyframeInterval = CheckpointDelta.requireValidKeyframeInterval(keyframeInterval);
+        if (shardLevels < 0 || shardLevels > MAX_SHARD_LEVELS) {
+            throw new IllegalArgumentException(format("shardLevels must be between 0 and %d but is %d", MAX_SHARD_LEVELS, shardLevels));
+        }
+        this.shardLevels = shardLevels;
 
         File targetFolderAsFile = targetFolder.toFile();
 
@@ -54,6 +172,8 @@ public class FileSystemSaver extends MemorySaver {
             }
         }
 
+        this.writer = new CheckpointFileWriter( fsyncPolicy, fsyncInterval, writeBehind );
+
     }
 
     private String getBaseName(RunnableConfig config) {
@@ -61,44 +181,424 @@ public class FileSystemSaver extends MemorySaver {
         return format("thread-%s", threadId);
     }
 
-    private Path getPath(RunnableConfig config) {
-        return Paths.get(targetFolder.toString(), getBaseName(config).concat(EXTENSION));
+    /**
+     * @return the folder of the files of the given thread, nested by the hash of the thread id
+     */
+    private Path getShardFolder(RunnableConfig config) {
+        if (shardLevels == 0) {
+            return targetFolder;
+        }
+        var crc = new CRC32();
+        crc.update(config.threadId().orElse(THREAD_ID_DEFAULT).getBytes(StandardCharsets.UTF_8));
+        var hash = format("%08x", crc.getValue());
+        var folder = targetFolder;
+        for (int level = 0; level < shardLevels; ++level) {
+            folder = folder.resolve(hash.substring(level * 2, level * 2 + 2));
+        }
+        return folder;
+    }
+
+    /**
+     * @return the current file of the given thread
+     */
+    Path getPath(RunnableConfig config) {
+        return getShardFolder(config).resolve(getBaseName(config).concat(EXTENSION));
     }
 
-    private File getFile(RunnableConfig config) {
-        return getPath(config).toFile();
+    /**
+     * @return the file of the given thread as stored by the previous versions, directly in the target folder
+     */
+    private Path getLegacyPath(RunnableConfig config) {
+        return targetFolder.resolve(getBaseName(config).concat(EXTENSION));
     }
 
-    private void serialize(LinkedList<Checkpoint> checkpoints, File outFile) throws IOException {
+    /**
+     * @return the file of the given released version of a thread
+     */
+    Path getVersionPath(RunnableConfig config, int version) {
+        return getVersionsFolder(config).resolve(format("v%d%s", version, EXTENSION));
+    }
+
+    private Path getVersionsFolder(RunnableConfig config) {
+        return getShardFolder(config).resolve(getBaseName(config).concat(VERSIONS_SUFFIX));
+    }
+
+    /**
+     * Moves the file of a thread stored directly in the target folder into its shard folder
+     */
+    private void moveLegacyFile(RunnableConfig config, Path path) throws IOException {
+        if (shardLevels == 0 || Files.exists(path)) {
+            return;
+        }
+        var legacyPath = getLegacyPath(config);
+        if (Files.exists(legacyPath)) {
+            Files.createDirectories(path.getParent());
+            move(legacyPath, path);
+            log.debug("file {} moved to {}", legacyPath, path);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+    /**
+     * Payload of a checkpoint as read from the file of its thread, reused as it is by a compaction
+     * while the parent of the checkpoint doesn't change
+     */
+    private record StoredPayload( ByteBuffer payload, Checkpoint parent, boolean keyframe ) {}
+
+    /**
+     * Current file of a thread. It is accessed holding the lock of the thread.
+     * It doesn't refer to the checkpoints, so the ones dropped from memory are not retained
+     */
+    private static final class StoredFile {
+        final String contentType;
+        /**
+         * length of the valid part of the log, -1 if the file has a previous layout
+         */
+        long length;
+        /**
+         * number of records in the log, including the replaced ones
+         */
+        int records;
+        /**
+         * number of live records in the log
+         */
+        int live;
+
+        StoredFile( String contentType, long length, int records, int live ) {
+            this.contentType = contentType;
+            this.length = length;
+            this.records = records;
+            this.live = live;
+        }
+
+        boolean isAppendable( String contentType ) {
+            return length >= 0 && this.contentType.equals( contentType );
+        }
+    }
+
+    private ByteBuffer encode( CheckpointDelta delta ) throws IOException {
+        try (var lease = SerializationBuffers.acquire()) {
+            deltaSerializers.writer().write( delta, lease.objectOutput() );
+            return ByteBuffer.wrap( compressor.compress( lease.toByteArray() ) );
+        }
+    }
+
+    /**
+     * Rewrites the log of a thread with its live records only, applying the given new ( or updated ) checkpoint.
+     * The live records are read from the file, since the checkpoints held in memory could have been
+     * dropped by the retention. The checkpoints in memory are used only when the file doesn't exist
+     *
+     * @param checkpoints the checkpoints of the thread held in memory
+     * @param checkpoint the new ( or updated ) checkpoint not written yet, null if there isn't
+     * @param replacedId the id of the updated checkpoint, null for a new one
+     */
+    private void compact(LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint, String replacedId, Path path) throws IOException {
         Objects.requireNonNull(checkpoints, "checkpoints cannot be null");
-        Objects.requireNonNull(outFile, "outFile cannot be null");
-        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(outFile.toPath()))) {
+        Objects.requireNonNull(path, "path cannot be null");
+
+        final var contentType = deltaSerializers.contentType();
+        final var live = new LinkedList<Checkpoint>();
+        final var reusable = new IdentityHashMap<Checkpoint,StoredPayload>();
+
+        if( storedFiles.containsKey( path ) ) { // the pending writes of the file are performed before reading it
+            writer.await();
+        }
+        if( Files.exists( path ) ) {
+            try {
+                var stored = deserialize( path.toFile(), live, reusable );
+                if( stored == null || !stored.contentType.equals( contentType ) ) {
+                    reusable.clear();
+                }
+            }
+            catch( ClassNotFoundException ex ) {
+                throw new IOException( format("error reading file %s", path), ex );
+            }
+            if( checkpoint != null && !( replacedId != null && replace( live, replacedId, checkpoint ) ) ) {
+                live.push( checkpoint );
+            }
+        }
+        else {
+            live.addAll( checkpoints );
+        }
+
+        final var records = new ArrayList<CheckpointLogFile.Record>( live.size() );
+
+        Checkpoint parent = null;
+        int parentDepth = -1;
+        // from the oldest to the newest
+        for (var i = live.descendingIterator(); i.hasNext(); ) {
+            var current = i.next();
+            var previous = reusable.get( current );
+
+            final boolean keyframe;
+            final ByteBuffer payload;
+            if( previous != null && ( previous.keyframe() ||
+                    ( previous.parent() == parent && parentDepth + 1 < keyframeInterval ) ) ) {
+                keyframe = previous.keyframe();
+                payload = previous.payload();
+            }
+            else {
+                keyframe = parent == null || parentDepth + 1 >= keyframeInterval;
+                var delta = keyframe ?
+                        CheckpointDelta.keyframe( current.getState() ) :
+                        CheckpointDelta.of( parent.getId(), parent.getState(), current.getState() );
+                current.storedDelta( delta, keyframe ? null : parent );
+                payload = encode( delta );
+            }
+
+            records.add( CheckpointLogFile.Record.put( current.getId(),
+                    current.getNodeId(),
+                    current.getNextNodeId(),
+                    keyframe ? null : parent.getId(),
+                    payload ) );
+            parent = current;
+            parentDepth = keyframe ? 0 : parentDepth + 1;
+        }
+
+        final var content = CheckpointLogFile.encode( contentType, records );
+        Files.createDirectories( path.getParent() );
+        writer.submit( new CheckpointFileWriter.Rewrite( path, content ) );
+        storedFiles.put( path, new StoredFile( contentType, CheckpointLogFile.length( content ), records.size(), records.size() ) );
+    }
+
+    private static boolean replace( LinkedList<Checkpoint> checkpoints, String replacedId, Checkpoint checkpoint ) {
+        for( var i = checkpoints.listIterator(); i.hasNext(); ) {
+            if( i.next().getId().equals( replacedId ) ) {
+                i.set( checkpoint );
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the record of a new ( or updated ) checkpoint, compacting the log instead when it is not appendable
+     * or when at least half of its records are no longer live
+     *
+     * @param replacedId the id of the updated checkpoint, null for a new one
+     */
+    private void append(LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint, String replacedId, Path path) throws IOException {
+        final var contentType = deltaSerializers.contentType();
+        final var stored = storedFiles.get( path );
+        final var live = ( stored != null ) ? stored.live + ( replacedId == null ? 1 : 0 ) : 0;
+        if( stored == null || !stored.isAppendable( contentType ) || ( stored.records + 1 ) >= 2 * live ) {
+            compact( checkpoints, checkpoint, replacedId, path );
+            return;
+        }
+
+        final Checkpoint parent;
+        final CheckpointDelta delta;
+        if( replacedId == null ) {
+            // the keyframe follows the distance of the parent from its keyframe, not the checkpoints held in memory
+            parent = ( checkpoints.size() > 1 ) ? checkpoints.get(1) : null;
+            delta = CheckpointDelta.of( keyframeInterval, parent, checkpoint );
+        }
+        else { // an update is stored as keyframe, the deltas of its children still refer to the replaced record
+            parent = null;
+            delta = CheckpointDelta.keyframe( checkpoint.getState() );
+        }
+        checkpoint.storedDelta( delta, parent );
+        final var payload = encode( delta );
+
+        final var record = ( replacedId == null ) ?
+                CheckpointLogFile.Record.put( checkpoint.getId(), checkpoint.getNodeId(), checkpoint.getNextNodeId(),
+                        delta.parentId(), payload ) :
+                CheckpointLogFile.Record.replace( replacedId, checkpoint.getId(), checkpoint.getNodeId(), checkpoint.getNextNodeId(),
+                        null, payload );
+
+        final var bytes = CheckpointLogFile.encode( record );
+        writer.submit( new CheckpointFileWriter.Append( path, stored.length, bytes ) );
+        stored.length += bytes.remaining();
+        stored.records += 1;
+        stored.live = live;
+    }
+
+    private StoredFile deserializeLog(Path file, LinkedList<Checkpoint> result, Map<Checkpoint,StoredPayload> payloads) throws IOException {
+        final var logFile = CheckpointLogFile.read( file );
+        final var deltaSerializer = deltaSerializers.reader( logFile.contentType() );
+        if( logFile.length() < logFile.size() ) {
+            log.warn( "ignored {} bytes at the end of file {}, not a complete record", logFile.size() - logFile.length(), file );
+        }
 
-            oos.writeInt(checkpoints.size());
-            for (Checkpoint checkpoint : checkpoints) {
-                serializer.write(checkpoint, oos);
+        // live checkpoints from the oldest to the newest
+        final var live = new ArrayList<Checkpoint>( logFile.records().size() );
+        final var positionsById = new HashMap<String,Integer>( logFile.records().size() );
+        // latest record of each id, to bind the parent of the following deltas
+        final var checkpointsById = new HashMap<String,Checkpoint>( logFile.records().size() );
+
+        for( var record : logFile.records() ) {
+            final var parent = record.isKeyframe() ? null : checkpointsById.get( record.parentId() );
+            if( !record.isKeyframe() && parent == null ) {
+                throw new StreamCorruptedException( format("parent checkpoint '%s' not found in file %s", record.parentId(), file) );
+            }
+            var checkpoint = Checkpoint.builder()
+                    .id( record.id() )
+                    .nodeId( record.nodeId() )
+                    .nextNodeId( record.nextNodeId() )
+                    .lazyDelta( () -> decodeDelta( deltaSerializer, record.id(), record.payload() ), parentId -> parent )
+                    .build();
+            checkpointsById.put( record.id(), checkpoint );
+            if( payloads != null ) {
+                payloads.put( checkpoint, new StoredPayload( record.payload(), parent, record.isKeyframe() ) );
+            }
+
+            var replacedPosition = ( record.kind() == CheckpointLogFile.Kind.REPLACE ) ?
+                    positionsById.remove( record.replacedId() ) :
+                    null;
+            if( replacedPosition != null ) {
+                live.set( replacedPosition, checkpoint );
+                positionsById.put( record.id(), replacedPosition );
+            }
+            else {
+                positionsById.put( record.id(), live.size() );
+                live.add( checkpoint );
             }
         }
+
+        for( var checkpoint : live ) {
+            result.push( checkpoint );
+        }
+        return new StoredFile( logFile.contentType(), logFile.length(), logFile.records().size(), live.size() );
     }
 
-    private void deserialize(File file, LinkedList<Checkpoint> result) throws IOException, ClassNotFoundException {
+    /**
+     * Reads a file written in the previous indexed layout, that is rewritten as log on the next write
+     */
+    private StoredFile deserializeMapped(Path file, LinkedList<Checkpoint> result, Map<Checkpoint,StoredPayload> payloads) throws IOException {
+        final var mapped = MappedCheckpointFile.map( file );
+        final var deltaSerializer = deltaSerializers.reader( mapped.contentType() );
+
+        final var checkpointsById = new HashMap<String,Checkpoint>( mapped.entries().size() );
+
+        Checkpoint parent = null;
+        // from the oldest to the newest
+        for( var entry : mapped.entries() ) {
+            var checkpoint = Checkpoint.builder()
+                    .id( entry.id() )
+                    .nodeId( entry.nodeId() )
+                    .nextNodeId( entry.nextNodeId() )
+                    .lazyDelta( () -> decodeDelta( deltaSerializer, entry.id(), entry.payload() ), checkpointsById::get )
+                    .build();
+            checkpointsById.put( entry.id(), checkpoint );
+            if( payloads != null ) {
+                payloads.put( checkpoint, new StoredPayload( entry.payload(), parent, entry.isKeyframe() ) );
+            }
+            result.push( checkpoint );
+            parent = checkpoint;
+        }
+        return new StoredFile( mapped.contentType(), -1, mapped.entries().size(), mapped.entries().size() );
+    }
+
+    /**
+     * Decodes the delta of a checkpoint from its mapped payload. The delta is applied to the state of
+     * its parent checkpoint, which is in turn decoded on demand
+     */
+    private CheckpointDelta decodeDelta( CheckpointDeltaSerializer deltaSerializer, String id, ByteBuffer payload ) {
+        try {
+            final InputStream stream = PayloadCompressor.isCompressed( payload ) ?
+                    new ByteArrayInputStream( compressor.decompress( toByteArray( payload ) ) ) :
+                    new MappedCheckpointFile.ByteBufferInputStream( payload );
+            try( var ois = new ObjectInputStream( stream ) ) {
+                return deltaSerializer.read( ois );
+            }
+        }
+        catch( IOException ex ) {
+            throw new UncheckedIOException( format("error decoding state of checkpoint '%s'", id), ex );
+        }
+        catch( ClassNotFoundException ex ) {
+            throw new IllegalStateException( format("error decoding state of checkpoint '%s'", id), ex );
+        }
+    }
+
+    private static byte[] toByteArray( ByteBuffer buffer ) {
+        var result = new byte[ buffer.remaining() ];
+        buffer.duplicate().get( result );
+        return result;
+    }
+
+    /**
+     * Reads the live checkpoints of a file, from the newest
+     *
+     * @param payloads collects the stored payloads of the read checkpoints, null if not required
+     * @return the read file, null if it has been written in the previous serialized layouts
+     */
+    private StoredFile deserialize(File file, LinkedList<Checkpoint> result, Map<Checkpoint,StoredPayload> payloads) throws IOException, ClassNotFoundException {
         Objects.requireNonNull(file, "file cannot be null");
         Objects.requireNonNull(result, "result cannot be null");
 
-        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(file.toPath()))) {
+        if( CheckpointLogFile.matches( file.toPath() ) ) {
+            return deserializeLog( file.toPath(), result, payloads );
+        }
+        if( MappedCheckpointFile.matches( file.toPath() ) ) {
+            return deserializeMapped( file.toPath(), result, payloads );
+        }
+
+        final var bytes = compressor.decompress( Files.readAllBytes(file.toPath()) );
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
             int size = ois.readInt();
+            if( size >= 0 ) { // legacy format
+                for (int i = 0; i < size; i++) {
+                    result.add(serializer.read(ois));
+                }
+                return null;
+            }
+            final CheckpointDeltaSerializer deltaSerializer = switch( size ) {
+                case DELTA_FORMAT -> deltaSerializers.writer();
+                case TYPED_DELTA_FORMAT -> deltaSerializers.reader( Serializer.readUTF(ois) );
+                default -> throw new IOException( format("unsupported format '%d' of file %s", size, file) );
+            };
+
+            record Header( String id, String nodeId, String nextNodeId ) {}
+
+            size = ois.readInt();
+            // from the oldest to the newest
+            var headers = new ArrayList<Header>(size);
+            var deltasById = new HashMap<String,CheckpointDelta>(size);
             for (int i = 0; i < size; i++) {
-                result.add(serializer.read(ois));
+                var header = new Header( Serializer.readUTF(ois),
+                        deltaSerializer.readNullableUTF(ois).orElse(null),
+                        deltaSerializer.readNullableUTF(ois).orElse(null) );
+                headers.add( header );
+                deltasById.put( header.id(), deltaSerializer.read(ois) );
+            }
+
+            var statesById = CheckpointDelta.rebuild( deltasById );
+
+            for( var header : headers ) {
+                var checkpoint = Checkpoint.builder()
+                        .id( header.id() )
+                        .nodeId( header.nodeId() )
+                        .nextNodeId( header.nextNodeId() )
+                        .state( statesById.get( header.id() ) )
+                        .build();
+                var delta = deltasById.get( header.id() );
+                checkpoint.storedDelta( delta, delta.isKeyframe() ? null : statesById.get( delta.parentId() ) );
+                result.push( checkpoint );
             }
         }
+        return null;
     }
 
     @Override
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
 
-        File targetFile = getFile(config);
-        if (targetFile.exists() && checkpoints.isEmpty()) {
-            deserialize(targetFile, checkpoints);
+        if (checkpoints.isEmpty()) {
+            writer.await();
+            var targetPath = getPath(config);
+            moveLegacyFile(config, targetPath);
+            if (Files.exists(targetPath)) {
+                var stored = deserialize(targetPath.toFile(), checkpoints, null);
+                if (stored != null) {
+                    storedFiles.put(targetPath, stored);
+                }
+            }
         }
         return checkpoints;
 
@@ -106,21 +606,64 @@ public class FileSystemSaver extends MemorySaver {
 
     @Override
     protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        File targetFile = getFile(config);
-        serialize(checkpoints, targetFile);
+        append(checkpoints, checkpoint, null, getPath(config));
     }
 
     @Override
     protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        insertedCheckpoint(config, checkpoints, checkpoint);
+        append(checkpoints, checkpoint, config.checkPointId().orElseThrow(), getPath(config));
+    }
+
+    /**
+     * Rewrites the file of the given thread with its live records only, dropping the replaced ones.
+     * Files are compacted automatically on write, when at least half of their records are no longer live
+     *
+     * @param config the configuration of the thread
+     * @throws Exception if the checkpoints cannot be loaded or the file cannot be written
+     */
+    public void compact(RunnableConfig config) throws Exception {
+        loadOrInitCheckpoints( config, checkpoints -> {
+            if( !checkpoints.isEmpty() ) {
+                compact( checkpoints, null, null, getPath(config) );
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Waits until the checkpoints put so far are written and, unless the {@link FsyncPolicy} is
+     * {@link FsyncPolicy#NONE}, forced to the storage device
+     *
+     * @param config the configuration of the thread, the pending writes of all the threads are flushed
+     * @throws IOException if a write has failed
+     */
+    @Override
+    public void flush(RunnableConfig config) throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Flushes the pending writes and stops the writer thread, if any
+     *
+     * @throws IOException if a write has failed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    protected void evictedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        // the file is read again when the thread is reloaded
+        storedFiles.remove(getPath(config));
     }
 
     /**
      * Releases the checkpoints associated with the given configuration.
-     * This involves copying the current checkpoint file (e.g., "thread-123.saver")
-     * to a versioned backup file (e.g., "thread-123-v1.saver", "thread-123-v2.saver", etc.)
-     * based on existing versioned files, deleting the original unversioned file,
-     * and then clearing the in-memory checkpoints.
+     * This involves moving the current checkpoint file (e.g., "thread-123.saver")
+     * into the versions folder of the thread (e.g., "thread-123.versions/v1.saver", "thread-123.versions/v2.saver", etc.),
+     * numbered after the versions already released, and then clearing the in-memory checkpoints.
+     * The file is renamed, so the cost of the release doesn't depend on the size of the file nor on the number of threads.
      *
      * @param config The configuration for which to release checkpoints.
      * @param checkpoints released checkpoints
@@ -130,35 +673,33 @@ public class FileSystemSaver extends MemorySaver {
     @Override
     protected void releasedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
         var currentPath = getPath(config);
+        writer.flush();
+        storedFiles.remove(currentPath);
 
         if (!Files.exists(currentPath)) {
             log.warn("file {} doesn't exist. Skipping file operations.", currentPath);
             return;
         }
 
-        var versionPattern = Pattern.compile(format("%s-v(\\d+)\\%s$", getBaseName(config), EXTENSION));
+        var versionsFolder = getVersionsFolder(config);
+        Files.createDirectories(versionsFolder);
 
         int maxVersion = 0;
-        try (var stream = Files.list(targetFolder)) {
+        // lists the versions of this thread only
+        try (var stream = Files.list(versionsFolder)) {
             maxVersion = stream
                     .map(path -> path.getFileName().toString())
-                    .map(versionPattern::matcher)
+                    .map(VERSION_PATTERN::matcher)
                     .filter(Matcher::matches)
                     .mapToInt(matcher -> Integer.parseInt(matcher.group(1)))
                     .max()
                     .orElse(0); // Default to 0 if no versioned files found
         } catch (IOException e) {
-            log.error("Failed to list directory {} to determine next version number for backup. Skipping file operations.", targetFolder, e);
+            log.error("Failed to list directory {} to determine next version number for backup. Skipping file operations.", versionsFolder, e);
             return;
         }
 
-        int nextVersion = maxVersion + 1;
-        var backupFilename = format("%s-v%d%s", getBaseName(config), nextVersion, EXTENSION);
-        Path backupPath = targetFolder.resolve(backupFilename);
-
-        Files.copy(currentPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
-
-        Files.delete(currentPath);
+        move(currentPath, getVersionPath(config, maxVersion + 1));
 
     }
 
@@ -169,8 +710,142 @@ public class FileSystemSaver extends MemorySaver {
      * @return true if the file existed and was successfully deleted, false otherwise
      */
     public boolean deleteFile(RunnableConfig config) {
-        File targetFile = getFile(config);
-        return targetFile.exists() && targetFile.delete();
+        var targetPath = getPath(config);
+        try {
+            writer.await();
+        } catch (IOException e) {
+            log.warn("pending writes not performed before deleting file {}", targetPath, e);
+        }
+        storedFiles.remove(targetPath);
+        boolean deleted = targetPath.toFile().delete();
+        if (shardLevels > 0) {
+            deleted |= getLegacyPath(config).toFile().delete();
+        }
+        return deleted;
+    }
+
+    public static class Builder {
+        private Path targetFolder;
+        private StateSerializer<? extends AgentState> stateSerializer;
+        private int keyframeInterval = CheckpointDelta.DEFAULT_KEYFRAME_INTERVAL;
+        private final List<StateSerializer<? extends AgentState>> readSerializers = new ArrayList<>();
+        private PayloadCompressor compressor = PayloadCompressor.disabled();
+        private CheckpointRetention retention = CheckpointRetention.unbounded();
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.NONE;
+        private Duration fsyncInterval = DEFAULT_FSYNC_INTERVAL;
+        private boolean writeBehind;
+        private int shardLevels = DEFAULT_SHARD_LEVELS;
+
+        static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofSeconds(1);
+        static final int DEFAULT_SHARD_LEVELS = 2;
+
+        public Builder targetFolder(Path targetFolder) {
+            this.targetFolder = targetFolder;
+            return this;
+        }
+
+        public <State extends AgentState> Builder stateSerializer(StateSerializer<State> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints between two full keyframes. Checkpoints in between store only changed channels.
+         *
+         * @param keyframeInterval the keyframe interval, 1 means store full state for each checkpoint
+         * @return this builder
+         */
+        public Builder keyframeInterval(int keyframeInterval) {
+            this.keyframeInterval = keyframeInterval;
+            return this;
+        }
+
+        /**
+         * Adds a serializer used to read the files written with its content type,
+         * e.g. the previous serializer after switching to a different format
+         *
+         * @param readSerializer the serializer
+         * @return this builder
+         */
+        public <State extends AgentState> Builder readSerializer(StateSerializer<State> readSerializer) {
+            this.readSerializers.add( Objects.requireNonNull(readSerializer, "readSerializer cannot be null") );
+            return this;
+        }
+
+        /**
+         * Sets the compressor of the checkpoint files (default {@link PayloadCompressor#disabled()})
+         *
+         * @param compressor the compressor
+         * @return this builder
+         */
+        public Builder compressor(PayloadCompressor compressor) {
+            this.compressor = compressor;
+            return this;
+        }
+
+        /**
+         * Sets the retention of the checkpoints held in memory (default {@link CheckpointRetention#unbounded()}).
+         * Evicted threads are read again from their file
+         *
+         * @param retention the retention policy
+         * @return this builder
+         */
+        public Builder retention(CheckpointRetention retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * Sets when the checkpoint files are forced to the storage device (default {@link FsyncPolicy#NONE})
+         *
+         * @param fsyncPolicy the fsync policy
+         * @return this builder
+         */
+        public Builder fsyncPolicy(FsyncPolicy fsyncPolicy) {
+            this.fsyncPolicy = fsyncPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the interval of {@link FsyncPolicy#INTERVAL} (default 1 second)
+         *
+         * @param fsyncInterval the fsync interval
+         * @return this builder
+         */
+        public Builder fsyncInterval(Duration fsyncInterval) {
+            this.fsyncInterval = fsyncInterval;
+            return this;
+        }
+
+        /**
+         * Enables the write-behind mode (default disabled): the checkpoint files are written by a dedicated thread,
+         * so a put doesn't wait for the I/O. Pending writes are flushed on release and on interruption,
+         * the saver should be {@link FileSystemSaver#close() closed} to flush the last ones
+         *
+         * @param writeBehind true to write the files on a dedicated thread
+         * @return this builder
+         */
+        public Builder writeBehind(boolean writeBehind) {
+            this.writeBehind = writeBehind;
+            return this;
+        }
+
+        /**
+         * Sets the number of nested folders, named after the hash of the thread id, holding the files of a thread.
+         * Each level splits the files in up to 256 folders (default 2).
+         *
+         * @param shardLevels the number of levels, from 0 ( files stored directly in the target folder ) to 4
+         * @return this builder
+         */
+        public Builder shardLevels(int shardLevels) {
+            this.shardLevels = shardLevels;
+            return this;
+        }
+
+        public FileSystemSaver build() {
+            return new FileSystemSaver( targetFolder, stateSerializer, keyframeInterval, readSerializers, compressor, retention,
+                    fsyncPolicy, fsyncInterval, writeBehind, shardLevels );
+        }
     }
 }
 
@@ -190,8 +865,8 @@ record CheckPointSerializer(
     public Checkpoint read(ObjectInput in) throws IOException, ClassNotFoundException {
         return Checkpoint.builder()
                 .id(Serializer.readUTF(in))
-                .nextNodeId(readNullableUTF(in).orElse(null))
                 .nodeId(readNullableUTF(in).orElse(null))
+                .nextNodeId(readNullableUTF(in).orElse(null))
                 .state(stateSerializer.read(in))
                 .build();
     }
@@ -0,0 +1,25 @@
+package org.bsc.langgraph4j.checkpoint;
+
+/**
+ * When the checkpoint files written by a {@link FileSystemSaver} are forced to the storage device.
+ * <p>
+ * Without fsync a checkpoint survives the crash of the process, since it is in the operating system cache,
+ * but it can be lost on power failure or on a crash of the operating system.
+ * </p>
+ */
+public enum FsyncPolicy {
+    /**
+     * Never force the files, leaving it to the operating system
+     */
+    NONE,
+    /**
+     * Force the files written since the previous fsync at most once per interval,
+     * so a failure loses at most the checkpoints of the last interval
+     */
+    INTERVAL,
+    /**
+     * Force the files on each commit. With write-behind a commit is a batch of writes,
+     * so the checkpoints put concurrently by many threads share the same fsync ( group commit )
+     */
+    EVERY_COMMIT
+}
@@ -0,0 +1,271 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Checkpoint file with an offset index, read through a memory-mapped buffer.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int     magic "LGM1"
+ * string  content type of the state serializer
+ * int     number of checkpoints
+ * entry*  from the oldest to the newest checkpoint:
+ *         string id, string nodeId, string nextNodeId, string parentId ( null for keyframe ),
+ *         int offset, int length of the payload, relative to the end of the index
+ * byte*   payloads, each one a {@link CheckpointDelta} written on its own object stream
+ * </pre>
+ * Strings are written as UTF-8 bytes prefixed by their length, {@code -1} for null.
+ * The index is decoded without touching the payloads, each {@link Entry#payload()} is a slice of the mapped buffer.
+ */
+final class MappedCheckpointFile {
+
+    static final int MAGIC = 0x4C474D31; // "LGM1"
+
+    /**
+     * @param id checkpoint id
+     * @param nodeId checkpoint node id
+     * @param nextNodeId checkpoint next node id
+     * @param parentId id of the parent checkpoint, null if the payload is a keyframe
+     * @param payload the serialized delta
+     */
+    record Entry( String id, String nodeId, String nextNodeId, String parentId, ByteBuffer payload ) {
+        Entry {
+            Objects.requireNonNull( id, "id cannot be null" );
+            Objects.requireNonNull( payload, "payload cannot be null" );
+        }
+
+        boolean isKeyframe() {
+            return parentId == null;
+        }
+    }
+
+    private final String contentType;
+    private final List<Entry> entries;
+
+    private MappedCheckpointFile( String contentType, List<Entry> entries ) {
+        this.contentType = contentType;
+        this.entries = entries;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the entries from the oldest to the newest
+     */
+    List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Checks whether the given file has been written with this layout
+     *
+     * @param file the file
+     * @return true if the file starts with the layout magic
+     * @throws IOException if the file cannot be read
+     */
+    static boolean matches( Path file ) throws IOException {
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            var magic = ByteBuffer.allocate( Integer.BYTES );
+            while( magic.hasRemaining() ) {
+                if( channel.read( magic ) < 0 ) {
+                    return false;
+                }
+            }
+            return magic.getInt( 0 ) == MAGIC;
+        }
+    }
+
+    /**
+     * Maps the given file and decodes its index
+     *
+     * @param file the file
+     * @return the mapped file
+     * @throws IOException if the file cannot be mapped or it is corrupted
+     */
+    static MappedCheckpointFile map( Path file ) throws IOException {
+        final MappedByteBuffer buffer;
+        try( var channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+            if( channel.size() > Integer.MAX_VALUE ) {
+                throw new IOException( format("file %s is too large to be mapped", file) );
+            }
+            buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+
+        try {
+            if( buffer.getInt() != MAGIC ) {
+                throw new StreamCorruptedException( format("file %s is not a mapped checkpoint file", file) );
+            }
+            final var contentType = readString( buffer );
+            final int size = buffer.getInt();
+            if( size < 0 ) {
+                throw new StreamCorruptedException( format("invalid checkpoints count %d in file %s", size, file) );
+            }
+
+            record IndexEntry( String id, String nodeId, String nextNodeId, String parentId, int offset, int length ) {}
+
+            final var index = new ArrayList<IndexEntry>( size );
+            for( int i = 0; i < size; ++i ) {
+                index.add( new IndexEntry( readString( buffer ),
+                        readString( buffer ),
+                        readString( buffer ),
+                        readString( buffer ),
+                        buffer.getInt(),
+                        buffer.getInt() ) );
+            }
+
+            final int payloadsStart = buffer.position();
+            final var entries = new ArrayList<Entry>( size );
+            for( var entry : index ) {
+                if( entry.offset() < 0 || entry.length() < 0 ||
+                        (long)payloadsStart + entry.offset() + entry.length() > buffer.limit() ) {
+                    throw new StreamCorruptedException( format("invalid payload bounds of checkpoint '%s' in file %s", entry.id(), file) );
+                }
+                entries.add( new Entry( entry.id(), entry.nodeId(), entry.nextNodeId(), entry.parentId(),
+                        buffer.slice( payloadsStart + entry.offset(), entry.length() ).asReadOnlyBuffer() ) );
+            }
+            return new MappedCheckpointFile( contentType, List.copyOf( entries ) );
+        }
+        catch( BufferUnderflowException | IndexOutOfBoundsException ex ) {
+            throw new EOFException( format("unexpected end of file %s", file) );
+        }
+    }
+
+    /**
+     * Writes the given entries into a temporary file then moves it over the target one,
+     * so that the buffers mapped from the previous file stay valid
+     *
+     * @param file the target file
+     * @param contentType the content type of the state serializer
+     * @param entries the entries from the oldest to the newest
+     * @throws IOException if the file cannot be written
+     */
+    static void write( Path file, String contentType, List<Entry> entries ) throws IOException {
+        Objects.requireNonNull( file, "file cannot be null" );
+        Objects.requireNonNull( contentType, "contentType cannot be null" );
+        Objects.requireNonNull( entries, "entries cannot be null" );
+
+        final var index = new ByteArrayOutputStream( 128 + entries.size() * 128 );
+        try( var out = new DataOutputStream( index ) ) {
+            out.writeInt( MAGIC );
+            writeString( contentType, out );
+            out.writeInt( entries.size() );
+            int offset = 0;
+            for( var entry : entries ) {
+                writeString( entry.id(), out );
+                writeString( entry.nodeId(), out );
+                writeString( entry.nextNodeId(), out );
+                writeString( entry.parentId(), out );
+                out.writeInt( offset );
+                out.writeInt( entry.payload().remaining() );
+                offset = Math.addExact( offset, entry.payload().remaining() );
+            }
+        }
+
+        final var buffers = new ByteBuffer[ entries.size() + 1 ];
+        buffers[0] = ByteBuffer.wrap( index.toByteArray() );
+        for( int i = 0; i < entries.size(); ++i ) {
+            buffers[i + 1] = entries.get(i).payload().duplicate();
+        }
+
+        final var tempFile = Files.createTempFile( file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp" );
+        try {
+            try( var channel = FileChannel.open( tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING ) ) {
+                long remaining = 0;
+                for( var buffer : buffers ) {
+                    remaining += buffer.remaining();
+                }
+                while( remaining > 0 ) {
+                    remaining -= channel.write( buffers );
+                }
+            }
+            try {
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch( AtomicMoveNotSupportedException ex ) {
+                Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        finally {
+            Files.deleteIfExists( tempFile );
+        }
+    }
+
+    private static void writeString( String value, DataOutput out ) throws IOException {
+        if( value == null ) {
+            out.writeInt( -1 );
+            return;
+        }
+        var bytes = value.getBytes( StandardCharsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private static String readString( ByteBuffer buffer ) throws StreamCorruptedException {
+        int length = buffer.getInt();
+        if( length == -1 ) {
+            return null;
+        }
+        if( length < 0 ) {
+            throw new StreamCorruptedException( format("invalid string length %d", length) );
+        }
+        var bytes = new byte[length];
+        buffer.get( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Stream over the remaining bytes of a buffer, read in place
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream( ByteBuffer buffer ) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read( byte[] b, int off, int len ) {
+            Objects.checkFromIndexSize( off, len, b.length );
+            if( len == 0 ) {
+                return 0;
+            }
+            if( !buffer.hasRemaining() ) {
+                return -1;
+            }
+            int count = Math.min( len, buffer.remaining() );
+            buffer.get( b, off, count );
+            return count;
+        }
+
+        @Override
+        public long skip( long n ) {
+            int count = (int)Math.max( 0, Math.min( n, buffer.remaining() ) );
+            buffer.position( buffer.position() + count );
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
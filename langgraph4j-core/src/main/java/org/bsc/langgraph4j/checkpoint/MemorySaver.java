@@ -4,18 +4,152 @@ import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.utils.TryFunction;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.IntStream;
 
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 
+/**
+ * A CheckpointSaver that keeps the checkpoints in memory.
+ * <p>
+ * Each thread id has its own lock, so the hooks of the subclasses ( e.g. database or file I/O in
+ * {@link #loadedCheckpoints(RunnableConfig, LinkedList)} or {@link #insertedCheckpoint(RunnableConfig, LinkedList, Checkpoint)} )
+ * serialize the operations on the same thread only, while unrelated threads proceed concurrently.
+ * </p>
+ * <p>
+ * By default the checkpoints are kept until the thread is released. A {@link CheckpointRetention} bounds the
+ * checkpoints of each thread and evicts whole threads, idle or least recently used, so that subclasses backed by
+ * a store use the memory as a bounded cache.
+ * </p>
+ */
 public class MemorySaver implements BaseCheckpointSaver {
 
-    final Map<String, LinkedList<Checkpoint>> _checkpointsByThread = new HashMap<>();
-    private final ReentrantLock _lock = new ReentrantLock();
+    /**
+     * Checkpoints of a thread and the lock guarding them.
+     * A released slot is marked as removed, so that callers waiting on its lock retry on a new one.
+     * <p>
+     * The checkpoints are kept from the newest to the oldest, as handed to the hooks, together with
+     * an index by id. The index is rebuilt whenever it is out of sync with the list returned by
+     * {@link #loadedCheckpoints(RunnableConfig, LinkedList)}, e.g. after the checkpoints have been loaded
+     * ( or reloaded ) from a store.
+     * </p>
+     */
+    static final class ThreadSlot {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedList<Checkpoint> checkpoints = new LinkedList<>();
+        final Map<String, Checkpoint> checkpointsById = new HashMap<>();
+        LinkedList<Checkpoint> loaded;
+        boolean removed;
+        /**
+         * checkpoints accounted in the total held by the saver
+         */
+        int counted;
+        volatile long lastAccess;
+
+        void load( LinkedList<Checkpoint> list ) {
+            if( list != loaded || list.size() != checkpointsById.size() ||
+                    ( !list.isEmpty() && checkpointsById.get( list.peek().getId() ) != list.peek() ) ) {
+                checkpointsById.clear();
+                for( var checkpoint : list ) { // newest first, as a lookup on the list
+                    checkpointsById.putIfAbsent( checkpoint.getId(), checkpoint );
+                }
+                loaded = list;
+            }
+        }
+
+        Optional<Checkpoint> byId( String id ) {
+            return ofNullable( checkpointsById.get( id ) );
+        }
+
+        void push( Checkpoint checkpoint ) {
+            loaded.push( checkpoint );
+            checkpointsById.put( checkpoint.getId(), checkpoint );
+        }
+
+        /**
+         * Replaces a checkpoint. The list is scanned from the newest checkpoint, the one usually updated,
+         * only once the id is known to be present
+         */
+        void replace( String id, Checkpoint checkpoint ) {
+            if( !checkpointsById.containsKey( id ) ) {
+                throw new NoSuchElementException(format("Checkpoint with id %s not found!", id));
+            }
+            for( var i = loaded.listIterator(); i.hasNext(); ) {
+                if( i.next().getId().equals( id ) ) {
+                    i.set( checkpoint );
+                    break;
+                }
+            }
+            checkpointsById.remove( id );
+            checkpointsById.put( checkpoint.getId(), checkpoint );
+        }
+
+        /**
+         * Drops the oldest checkpoints beyond the given size
+         *
+         * @return the number of dropped checkpoints
+         */
+        int trim( int maxSize ) {
+            int trimmed = 0;
+            while( loaded.size() > maxSize ) {
+                var checkpoint = loaded.removeLast();
+                if( checkpointsById.get( checkpoint.getId() ) == checkpoint ) {
+                    checkpointsById.remove( checkpoint.getId() );
+                }
+                ++trimmed;
+            }
+            return trimmed;
+        }
+    }
+
+    final Map<String, ThreadSlot> _slotsByThread = new ConcurrentHashMap<>();
+
+    private final CheckpointRetention retention;
+    private final CheckpointRetention.Metrics retentionMetrics = new CheckpointRetention.Metrics();
+    private final AtomicLong cachedCheckpoints = new AtomicLong();
+    private final AtomicLong lastExpiration;
+    private final AtomicBoolean evicting = new AtomicBoolean();
 
     public MemorySaver( ) {
+        this( CheckpointRetention.unbounded() );
+    }
+
+    /**
+     * Creates a saver bounding the checkpoints held in memory
+     *
+     * @param retention the retention policy
+     */
+    public MemorySaver( CheckpointRetention retention ) {
+        this.retention = Objects.requireNonNull( retention, "retention cannot be null" );
+        this.lastExpiration = new AtomicLong( retention.now() );
+    }
+
+    public CheckpointRetention retention() {
+        return retention;
+    }
+
+    /**
+     * @return the counters of the checkpoints dropped by the retention policy
+     */
+    public CheckpointRetention.Metrics retentionMetrics() {
+        return retentionMetrics;
+    }
+
+    /**
+     * @return the number of threads currently held in memory
+     */
+    public int cachedThreads() {
+        return _slotsByThread.size();
+    }
+
+    /**
+     * @return the number of checkpoints currently held in memory
+     */
+    public long cachedCheckpoints() {
+        return cachedCheckpoints.get();
     }
 
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
@@ -27,16 +161,130 @@ public class MemorySaver implements BaseCheckpointSaver {
     }
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
     }
+    /**
+     * Called when a thread has been evicted from memory by the retention policy. Unlike a release, the thread
+     * is still open and its checkpoints are loaded again on the next access
+     */
+    protected void evictedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+    }
 
     protected final <T> T loadOrInitCheckpoints(RunnableConfig config,
                                                 TryFunction<LinkedList<Checkpoint>, T, Exception> transformer) throws Exception {
-        _lock.lock();
+        return loadOrInitSlot( config, slot -> transformer.tryApply( slot.loaded ) );
+    }
+
+    private <T> T loadOrInitSlot(RunnableConfig config,
+                                 TryFunction<ThreadSlot, T, Exception> transformer) throws Exception {
+        final var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        while( true ) {
+            final var slot = _slotsByThread.computeIfAbsent(threadId, k -> new ThreadSlot());
+            final T result;
+            slot.lock.lock();
+            try {
+                if( slot.removed ) { // released or evicted while waiting
+                    continue;
+                }
+                slot.load( loadedCheckpoints( config, slot.checkpoints ) );
+                result = transformer.tryApply( slot );
+
+            } finally {
+                retain( slot );
+                slot.lock.unlock();
+            }
+            evict( slot );
+            return result;
+        }
+    }
+
+    /**
+     * Applies the per-thread limit and updates the accounting of the slot. Called holding its lock
+     */
+    private void retain( ThreadSlot slot ) {
+        if( slot.removed || slot.loaded == null ) {
+            return;
+        }
+        int trimmed = slot.trim( retention.maxCheckpointsPerThread() );
+        if( trimmed > 0 ) {
+            retentionMetrics.trimmed( trimmed );
+        }
+        int size = slot.loaded.size();
+        cachedCheckpoints.addAndGet( size - slot.counted );
+        slot.counted = size;
+        slot.lastAccess = retention.now();
+    }
+
+    /**
+     * Marks the slot as removed and drops it from the accounting. Called holding its lock
+     */
+    private void discard( ThreadSlot slot ) {
+        slot.removed = true;
+        cachedCheckpoints.addAndGet( -slot.counted );
+        slot.counted = 0;
+    }
+
+    /**
+     * Evicts the threads exceeding the retention policy. The slot just accessed is never evicted
+     * and busy slots are skipped, they are evicted later on
+     */
+    private void evict( ThreadSlot current ) {
+        if( !retention.isEvicting() || !evicting.compareAndSet( false, true ) ) {
+            return;
+        }
         try {
-            var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
-            return transformer.tryApply( loadedCheckpoints( config, _checkpointsByThread.computeIfAbsent(threadId, k -> new LinkedList<>()) ) );
+            final long now = retention.now();
+            final var idleTimeout = retention.idleTimeout();
+            if( idleTimeout != null ) {
+                final long timeout = idleTimeout.toNanos();
+                final long last = lastExpiration.get();
+                // look for idle threads at most twice per timeout
+                if( now - last >= timeout / 2 && lastExpiration.compareAndSet( last, now ) ) {
+                    for( var entry : _slotsByThread.entrySet() ) {
+                        var slot = entry.getValue();
+                        if( slot != current && now - slot.lastAccess >= timeout ) {
+                            evict( entry.getKey(), slot, true );
+                        }
+                    }
+                }
+            }
 
-        } finally {
-            _lock.unlock();
+            if( _slotsByThread.size() > retention.maxThreads() || cachedCheckpoints.get() > retention.maxCheckpoints() ) {
+                final var candidates = new ArrayList<>( _slotsByThread.entrySet() );
+                candidates.sort( Comparator.comparingLong( entry -> entry.getValue().lastAccess ) );
+                for( var entry : candidates ) {
+                    if( _slotsByThread.size() <= retention.maxThreads() && cachedCheckpoints.get() <= retention.maxCheckpoints() ) {
+                        break;
+                    }
+                    if( entry.getValue() != current ) {
+                        evict( entry.getKey(), entry.getValue(), false );
+                    }
+                }
+            }
+        }
+        finally {
+            evicting.set( false );
+        }
+    }
+
+    private void evict( String threadId, ThreadSlot slot, boolean expired ) {
+        if( !slot.lock.tryLock() ) {
+            return;
+        }
+        try {
+            if( slot.removed || !_slotsByThread.remove( threadId, slot ) ) {
+                return;
+            }
+            final int checkpoints = slot.counted;
+            discard( slot );
+            retentionMetrics.evicted( expired, checkpoints );
+            if( slot.loaded != null ) {
+                evictedCheckpoints( RunnableConfig.builder().threadId( threadId ).build(), slot.loaded );
+            }
+        }
+        catch( Exception ex ) {
+            throw new RuntimeException( ex );
+        }
+        finally {
+            slot.lock.unlock();
         }
     }
 
@@ -45,7 +293,12 @@ public class MemorySaver implements BaseCheckpointSaver {
     }
 
     protected final Collection<Checkpoint> remove( String threadId ) {
-        return _checkpointsByThread.remove( Objects.requireNonNull(threadId) );
+        final var slot = _slotsByThread.remove( Objects.requireNonNull(threadId) );
+        if( slot == null ) {
+            return null;
+        }
+        discard( slot );
+        return slot.checkpoints;
     }
 
     @Override
@@ -61,14 +314,11 @@ public class MemorySaver implements BaseCheckpointSaver {
     public final Optional<Checkpoint> get(RunnableConfig config) {
 
         try {
-            return loadOrInitCheckpoints( config, checkpoints -> {
+            return loadOrInitSlot( config, slot -> {
                 if( config.checkPointId().isPresent() ) {
-                    return config.checkPointId()
-                            .flatMap( id -> checkpoints.stream()
-                                    .filter( checkpoint -> checkpoint.getId().equals(id) )
-                                    .findFirst());
+                    return config.checkPointId().flatMap( slot::byId );
                 }
-                return getLast(checkpoints,config);
+                return getLast(slot.loaded,config);
 
             });
         } catch (Exception e) {
@@ -79,21 +329,16 @@ public class MemorySaver implements BaseCheckpointSaver {
     @Override
     public final RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
 
-        return loadOrInitCheckpoints( config, checkpoints -> {
+        return loadOrInitSlot( config, slot -> {
 
             if (config.checkPointId().isPresent()) { // Replace Checkpoint
-                String checkPointId = config.checkPointId().get();
-                int index = IntStream.range(0, checkpoints.size())
-                        .filter(i -> checkpoints.get(i).getId().equals(checkPointId))
-                        .findFirst()
-                        .orElseThrow(() -> (new NoSuchElementException(format("Checkpoint with id %s not found!", checkPointId))));
-                checkpoints.set(index, checkpoint );
-                updatedCheckpoint( config, checkpoints, checkpoint);
+                slot.replace( config.checkPointId().get(), checkpoint );
+                updatedCheckpoint( config, slot.loaded, checkpoint);
                 return config;
             }
 
-            checkpoints.push( checkpoint ); // Add Checkpoint
-            insertedCheckpoint( config, checkpoints, checkpoint);
+            slot.push( checkpoint ); // Add Checkpoint
+            insertedCheckpoint( config, slot.loaded, checkpoint);
 
             return RunnableConfig.builder(config)
                     .checkPointId(checkpoint.getId())
@@ -0,0 +1,26 @@
+package org.bsc.langgraph4j.checkpoint;
+
+/**
+ * When the checkpoints put into a saver backed by a database are committed.
+ * <p>
+ * With {@link #ON_RETURN} and {@link #ASYNC} the checkpoints are queued to a {@link CheckpointBatchWriter},
+ * that commits the checkpoints put concurrently by many threads in a single transaction,
+ * so the latency of the database doesn't add up to each step of the graph.
+ * </p>
+ */
+public enum WriteDurability {
+    /**
+     * Each checkpoint is committed before the put returns
+     */
+    SYNC,
+    /**
+     * Checkpoints are committed in the background, and the graph waits for them before
+     * returning or being interrupted, so that a resume finds all of them
+     */
+    ON_RETURN,
+    /**
+     * Checkpoints are committed in the background, and the graph doesn't wait for them ( fire-and-forget ).
+     * The last checkpoints can be lost if the process stops before they are committed
+     */
+    ASYNC
+}
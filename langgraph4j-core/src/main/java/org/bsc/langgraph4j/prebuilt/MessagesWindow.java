@@ -0,0 +1,317 @@
+package org.bsc.langgraph4j.prebuilt;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
+import org.bsc.langgraph4j.state.AppenderChannel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+import static org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver.THREAD_ID_DEFAULT;
+
+/**
+ * A token-budgeted working window over the messages of a {@link MessagesState}.
+ * <p>
+ * The window is made of the newest messages whose total token count fits the budget.
+ * It can be used in two ways:
+ * <ul>
+ *     <li>{@link #apply(List)} selects the messages to send to the model without changing the state</li>
+ *     <li>{@link #action()} is a node action that, once the messages exceed {@code maxTokens}, moves the
+ *     older ones to the {@link Archive} and keeps in state only the newest ones fitting {@code retainTokens},
+ *     optionally preceded by a summary of the archived messages</li>
+ * </ul>
+ *
+ * @param <T> the type of messages
+ */
+public class MessagesWindow<T> {
+
+    /**
+     * Counts the tokens of a message
+     *
+     * @param <T> the type of messages
+     */
+    @FunctionalInterface
+    public interface TokenCounter<T> {
+
+        int count( T message );
+
+        /**
+         * Approximates the tokens of a message as one token every four characters of its text
+         *
+         * @param textOf extracts the text of the message
+         * @param <T> the type of messages
+         * @return the token counter
+         */
+        static <T> TokenCounter<T> ofText( Function<T,String> textOf ) {
+            Objects.requireNonNull( textOf, "textOf cannot be null" );
+            return message -> {
+                var text = textOf.apply( message );
+                return ( text == null ) ? 1 : 1 + text.length() / 4;
+            };
+        }
+    }
+
+    /**
+     * Summarizes the messages moved out of the window.
+     * The first message may be the summary produced by a previous call.
+     *
+     * @param <T> the type of messages
+     */
+    @FunctionalInterface
+    public interface Summarizer<T> {
+
+        T summarize( List<T> archivedMessages );
+    }
+
+    /**
+     * Storage of the messages moved out of the window
+     *
+     * @param <T> the type of messages
+     */
+    public interface Archive<T> {
+
+        void archive( RunnableConfig config, List<T> messages );
+
+        List<T> archived( RunnableConfig config );
+    }
+
+    /**
+     * An {@link Archive} that keeps messages in memory, grouped by thread.
+     * <p>
+     * The archive is lossy: messages are neither persisted with the checkpoints nor bounded, so they are lost
+     * on restart while the window has already dropped them from the state. Call {@link #release(RunnableConfig)}
+     * along with {@link org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver#release(RunnableConfig)} to free them.
+     * </p>
+     *
+     * @param <T> the type of messages
+     */
+    public static class MemoryArchive<T> implements Archive<T> {
+
+        private final Map<String,List<T>> messagesByThread = new ConcurrentHashMap<>();
+
+        @Override
+        public void archive(RunnableConfig config, List<T> messages) {
+            messagesByThread.computeIfAbsent( config.threadId().orElse(THREAD_ID_DEFAULT), key -> Collections.synchronizedList( new ArrayList<>() ) )
+                    .addAll( messages );
+        }
+
+        @Override
+        public List<T> archived(RunnableConfig config) {
+            return List.copyOf( messagesByThread.getOrDefault( config.threadId().orElse(THREAD_ID_DEFAULT), List.of() ) );
+        }
+
+        /**
+         * Drops the messages archived by the thread
+         *
+         * @param config the configuration of the released thread
+         */
+        public void release(RunnableConfig config) {
+            messagesByThread.remove( config.threadId().orElse(THREAD_ID_DEFAULT) );
+        }
+    }
+
+    private final TokenCounter<T> tokenCounter;
+    private final int maxTokens;
+    private final int retainTokens;
+    private final Predicate<T> windowStart;
+    private final Summarizer<T> summarizer;
+    private final Archive<T> archive;
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    private MessagesWindow( Builder<T> builder ) {
+        this.tokenCounter = Objects.requireNonNull( builder.tokenCounter, "tokenCounter cannot be null" );
+        if( builder.maxTokens <= 0 ) {
+            throw new IllegalArgumentException( format("maxTokens must be > 0 but is %d", builder.maxTokens) );
+        }
+        this.maxTokens = builder.maxTokens;
+        this.retainTokens = ofNullable(builder.retainTokens).orElse(maxTokens);
+        if( retainTokens <= 0 || retainTokens > maxTokens ) {
+            throw new IllegalArgumentException( format("retainTokens must be > 0 and <= maxTokens but is %d", retainTokens) );
+        }
+        this.windowStart = ofNullable(builder.windowStart).orElse( message -> true );
+        this.summarizer = builder.summarizer;
+        this.archive = builder.archive;
+    }
+
+    public int maxTokens() {
+        return maxTokens;
+    }
+
+    public Optional<Archive<T>> archive() {
+        return ofNullable(archive);
+    }
+
+    /**
+     * Counts the tokens of the given messages
+     *
+     * @param messages the messages
+     * @return the total tokens
+     */
+    public int tokens( List<T> messages ) {
+        int result = 0;
+        for( var message : messages ) {
+            result += tokenCounter.count( message );
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the index of the first message of the window.
+     * The newest message is always part of the window, and the window never starts on a message
+     * rejected by the {@code windowStart} predicate ( e.g. a tool result detached from its request ).
+     *
+     * @param messages the messages
+     * @param budget the tokens budget
+     * @return the index of the first message in the window
+     */
+    private int windowStartIndex( List<T> messages, int budget ) {
+        int tokens = 0;
+        int start = messages.size();
+        while( start > 0 ) {
+            tokens += tokenCounter.count( messages.get( start - 1 ) );
+            if( tokens > budget && start < messages.size() ) {
+                break;
+            }
+            --start;
+        }
+        while( start > 0 && start < messages.size() - 1 && !windowStart.test( messages.get(start) ) ) {
+            ++start;
+        }
+        return start;
+    }
+
+    /**
+     * Selects the newest messages fitting the {@code maxTokens} budget
+     *
+     * @param messages all the messages
+     * @return the messages in the window
+     */
+    public List<T> apply( List<T> messages ) {
+        Objects.requireNonNull( messages, "messages cannot be null" );
+        return messages.subList( windowStartIndex( messages, maxTokens ), messages.size() );
+    }
+
+    /**
+     * Creates the node action that archives the messages exceeding the budget and, if a {@link Summarizer}
+     * is provided, replaces them with their summary.
+     *
+     * @param <S> the type of the state
+     * @return the node action
+     * @throws IllegalStateException if no {@link Archive} has been set
+     */
+    public <S extends MessagesState<T>> AsyncNodeActionWithConfig<S> action() {
+        if( archive == null ) {
+            throw new IllegalStateException( "an archive is required to move messages out of the window" );
+        }
+        return ( state, config ) -> {
+            final var messages = state.messages();
+
+            if( tokens( messages ) <= maxTokens ) {
+                return CompletableFuture.completedFuture( Map.of() );
+            }
+
+            final int start = windowStartIndex( messages, retainTokens );
+            if( start == 0 ) {
+                return CompletableFuture.completedFuture( Map.of() );
+            }
+
+            final var archived = List.copyOf( messages.subList( 0, start ) );
+            final var window = new ArrayList<T>( messages.size() - start + 1 );
+
+            try {
+                archive.archive( config, archived );
+                if( summarizer != null ) {
+                    window.add( summarizer.summarize( archived ) );
+                }
+            }
+            catch( Throwable ex ) {
+                return CompletableFuture.failedFuture( ex );
+            }
+            window.addAll( messages.subList( start, messages.size() ) );
+
+            return CompletableFuture.completedFuture( Map.of( "messages", AppenderChannel.ReplaceAllWith.of( window ) ) );
+        };
+    }
+
+    public static class Builder<T> {
+        private TokenCounter<T> tokenCounter;
+        private int maxTokens;
+        private Integer retainTokens;
+        private Predicate<T> windowStart;
+        private Summarizer<T> summarizer;
+        private Archive<T> archive;
+
+        public Builder<T> tokenCounter(TokenCounter<T> tokenCounter) {
+            this.tokenCounter = tokenCounter;
+            return this;
+        }
+
+        /**
+         * Sets the tokens budget of the window
+         *
+         * @param maxTokens the maximum tokens of the messages in the window
+         * @return this builder
+         */
+        public Builder<T> maxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        /**
+         * Sets the tokens kept in state once the messages exceed {@code maxTokens} (default {@code maxTokens}).
+         * A lower value reduces how often messages are archived and summarized.
+         *
+         * @param retainTokens the tokens kept in state
+         * @return this builder
+         */
+        public Builder<T> retainTokens(int retainTokens) {
+            this.retainTokens = retainTokens;
+            return this;
+        }
+
+        /**
+         * Sets the predicate of the messages that can start the window (default any message)
+         *
+         * @param windowStart the predicate
+         * @return this builder
+         */
+        public Builder<T> windowStart(Predicate<T> windowStart) {
+            this.windowStart = windowStart;
+            return this;
+        }
+
+        public Builder<T> summarizer(Summarizer<T> summarizer) {
+            this.summarizer = summarizer;
+            return this;
+        }
+
+        /**
+         * Sets where archived messages are stored. It is required by {@link MessagesWindow#action()}, that removes the
+         * archived messages from the state, while {@link MessagesWindow#apply(List)} doesn't need it.
+         *
+         * @param archive the archive
+         * @return this builder
+         */
+        public Builder<T> archive(Archive<T> archive) {
+            this.archive = archive;
+            return this;
+        }
+
+        public MessagesWindow<T> build() {
+            return new MessagesWindow<>( this );
+        }
+    }
+}
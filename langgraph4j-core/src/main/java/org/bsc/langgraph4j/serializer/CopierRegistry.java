@@ -0,0 +1,246 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.state.Embedding;
+import org.bsc.langgraph4j.state.EmbeddingBatch;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Registry of the {@link ObjectCopier}s used by {@link StateSerializer#cloneObject(Map)} to deep copy
+ * the state data without a serialization round trip.
+ * <p>
+ * The copier of a type is the one registered for the type itself or for its most specific super type
+ * (the same resolution of {@code SerializerMapper}). Out of the box:
+ * <ul>
+ *     <li>{@code null}, enums, records and immutable JDK types ({@link String}, boxed primitives,
+ *     {@link BigDecimal}, {@link BigInteger}, {@link UUID}, {@link URI}, java.time types) and embeddings are returned as they are</li>
+ *     <li>{@link List}, {@link Set} and {@link Map} are copied structurally, copying their elements</li>
+ *     <li>primitive arrays are cloned</li>
+ * </ul>
+ * When a value has no copier, {@link #copy(Object)} throws {@link NotCopyableException} and the
+ * {@link StateSerializer} falls back to the serialization round trip.
+ */
+public class CopierRegistry {
+
+    static final ObjectCopier<Object> IDENTITY = ( object, registry ) -> object;
+
+    /**
+     * Thrown when a value has no registered copier
+     */
+    public static class NotCopyableException extends RuntimeException {
+        private final Class<?> type;
+
+        public NotCopyableException( Class<?> type ) {
+            super( format("no copier registered for type %s", type.getName()), null, false, false );
+            this.type = type;
+        }
+
+        public Class<?> type() {
+            return type;
+        }
+    }
+
+    private static final List<Class<?>> IMMUTABLE_TYPES = List.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, BigDecimal.class, BigInteger.class,
+            UUID.class, URI.class, Class.class,
+            Instant.class, LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class,
+            ZonedDateTime.class, Duration.class, Period.class, ZoneId.class,
+            Embedding.class, EmbeddingBatch.class );
+
+    private final Map<Class<?>, ObjectCopier<?>> _copiers = new HashMap<>();
+
+    /**
+     * Per-class cache of the resolved copiers.
+     * It is replaced on each change of the registrations, so resolutions made before are discarded
+     */
+    private volatile ClassValue<Optional<ObjectCopier<Object>>> _resolved = newResolutionCache();
+
+    public CopierRegistry() {
+        IMMUTABLE_TYPES.forEach( type -> _copiers.put( type, IDENTITY ) );
+        _copiers.put( List.class, (ObjectCopier<List<Object>>) CopierRegistry::copyList );
+        _copiers.put( Set.class, (ObjectCopier<Set<Object>>) CopierRegistry::copySet );
+        _copiers.put( Map.class, (ObjectCopier<Map<Object,Object>>) CopierRegistry::copyMap );
+    }
+
+    private ClassValue<Optional<ObjectCopier<Object>>> newResolutionCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<ObjectCopier<Object>> computeValue(Class<?> type) {
+                return resolveCopier(type);
+            }
+        };
+    }
+
+    /**
+     * Registers the copier of the given type and its subtypes
+     *
+     * @param clazz the type
+     * @param copier the copier
+     * @return this registry
+     * @param <T> the type
+     */
+    public synchronized <T> CopierRegistry register( Class<T> clazz, ObjectCopier<? super T> copier ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        Objects.requireNonNull( copier, "copier cannot be null" );
+
+        _copiers.put( clazz, copier );
+        _resolved = newResolutionCache();
+        return this;
+    }
+
+    /**
+     * Declares the given types (and their subtypes) as immutable, so their values are shared by the copies
+     *
+     * @param types the immutable types
+     * @return this registry
+     */
+    public synchronized CopierRegistry registerImmutable( Class<?>... types ) {
+        for( var type : Objects.requireNonNull( types, "types cannot be null" ) ) {
+            _copiers.put( Objects.requireNonNull( type, "type cannot be null" ), IDENTITY );
+        }
+        _resolved = newResolutionCache();
+        return this;
+    }
+
+    /**
+     * Removes the copier registered for the given type
+     *
+     * @param clazz the type the copier has been registered for
+     * @return true if a copier has been removed, false otherwise
+     */
+    public synchronized boolean unregister( Class<?> clazz ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        if( _copiers.remove( clazz ) == null ) {
+            return false;
+        }
+        _resolved = newResolutionCache();
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized Optional<ObjectCopier<Object>> resolveCopier( Class<?> clazz ) {
+        var copier = _copiers.get( clazz );
+        if( copier != null ) {
+            return Optional.of( (ObjectCopier<Object>)copier );
+        }
+        if( Enum.class.isAssignableFrom( clazz ) || clazz.isRecord() ) {
+            return Optional.of( IDENTITY );
+        }
+        if( clazz.isArray() && clazz.getComponentType().isPrimitive() ) {
+            return Optional.of( CopierRegistry::copyPrimitiveArray );
+        }
+
+        final var candidates = _copiers.keySet().stream()
+                .filter( type -> type.isAssignableFrom(clazz) )
+                .toList();
+
+        return candidates.stream()
+                .filter( type -> candidates.stream().noneMatch( other -> other != type && type.isAssignableFrom(other) ) )
+                .min( Comparator.<Class<?>,Boolean>comparing( Class::isInterface ).thenComparing( Class::getName ) )
+                .map( type -> (ObjectCopier<Object>)_copiers.get( type ) );
+    }
+
+    /**
+     * @param clazz the type
+     * @return the copier resolved for the given type if any
+     */
+    public Optional<ObjectCopier<Object>> getCopier( Class<?> clazz ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        return _resolved.get( clazz );
+    }
+
+    /**
+     * Deep copies the given value
+     *
+     * @param object the value, may be null
+     * @return the copy
+     * @param <T> the type of the value
+     * @throws NotCopyableException if the value, or one of its nested values, has no copier
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy( T object ) {
+        if( object == null ) {
+            return null;
+        }
+        final var copier = _resolved.get( object.getClass() )
+                .orElseThrow( () -> new NotCopyableException( object.getClass() ) );
+        return (T)copier.copy( object, this );
+    }
+
+    /**
+     * Deep copies the given state data
+     *
+     * @param data the state data
+     * @return the copy, or empty if a value has no copier
+     */
+    public Optional<Map<String,Object>> copyData( Map<String,Object> data ) {
+        Objects.requireNonNull( data, "data cannot be null" );
+        try {
+            final var result = new HashMap<String,Object>( Math.max( 16, (int)(data.size() / .75f) + 1 ) );
+            for( var entry : data.entrySet() ) {
+                result.put( entry.getKey(), copy( entry.getValue() ) );
+            }
+            return Optional.of( result );
+        }
+        catch( NotCopyableException ex ) {
+            return Optional.empty();
+        }
+    }
+
+    private static List<Object> copyList( List<Object> list, CopierRegistry registry ) {
+        final var result = new ArrayList<>( list.size() );
+        for( var element : list ) {
+            result.add( registry.copy( element ) );
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Object> copySet( Set<Object> set, CopierRegistry registry ) {
+        final Set<Object> result = ( set instanceof SortedSet<?> sorted ) ?
+                new TreeSet<>( (Comparator<Object>) sorted.comparator() ) :
+                new LinkedHashSet<>( Math.max( 16, (int)(set.size() / .75f) + 1 ) );
+        for( var element : set ) {
+            result.add( registry.copy( element ) );
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object,Object> copyMap( Map<Object,Object> map, CopierRegistry registry ) {
+        final Map<Object,Object> result = ( map instanceof SortedMap<?,?> sorted ) ?
+                new TreeMap<>( (Comparator<Object>) sorted.comparator() ) :
+                new LinkedHashMap<>( Math.max( 16, (int)(map.size() / .75f) + 1 ) );
+        for( var entry : map.entrySet() ) {
+            result.put( registry.copy( entry.getKey() ), registry.copy( entry.getValue() ) );
+        }
+        return result;
+    }
+
+    private static Object copyPrimitiveArray( Object array, CopierRegistry registry ) {
+        if( array instanceof byte[] a ) return a.clone();
+        if( array instanceof int[] a ) return a.clone();
+        if( array instanceof long[] a ) return a.clone();
+        if( array instanceof float[] a ) return a.clone();
+        if( array instanceof double[] a ) return a.clone();
+        if( array instanceof char[] a ) return a.clone();
+        if( array instanceof short[] a ) return a.clone();
+        return ((boolean[]) array).clone();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return format( "CopierRegistry: \n%s", _copiers.keySet().stream()
+                .map( Class::getName )
+                .sorted()
+                .collect( Collectors.joining("\n") ) );
+    }
+}
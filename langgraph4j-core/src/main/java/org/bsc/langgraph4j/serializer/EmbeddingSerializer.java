@@ -0,0 +1,90 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.state.Embedding;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Writes an {@link Embedding} as its dimension followed by its values as raw little-endian floats
+ */
+public final class EmbeddingSerializer implements Serializer<Embedding> {
+
+    private static final EmbeddingSerializer HEAP = new EmbeddingSerializer( false );
+    private static final EmbeddingSerializer OFF_HEAP = new EmbeddingSerializer( true );
+
+    private final boolean offHeap;
+
+    private EmbeddingSerializer( boolean offHeap ) {
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @return the serializer reading embeddings on the heap
+     */
+    public static EmbeddingSerializer heap() {
+        return HEAP;
+    }
+
+    /**
+     * @return the serializer reading embeddings out of the java heap
+     */
+    public static EmbeddingSerializer offHeap() {
+        return OFF_HEAP;
+    }
+
+    /**
+     * @return the serializer of a list of embeddings, read as this serializer does
+     */
+    public Serializer<List<Embedding>> list() {
+        final var element = this;
+        return new Serializer<>() {
+            @Override
+            public void write(List<Embedding> object, ObjectOutput out) throws IOException {
+                out.writeInt( object.size() );
+                for( var embedding : object ) {
+                    element.write( embedding, out );
+                }
+            }
+
+            @Override
+            public List<Embedding> read(ObjectInput in) throws IOException {
+                final int size = in.readInt();
+                if( size < 0 ) {
+                    throw new StreamCorruptedException( format("invalid embeddings count %d", size) );
+                }
+                final var result = new ArrayList<Embedding>( size );
+                for( int i = 0; i < size; ++i ) {
+                    result.add( element.read( in ) );
+                }
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public void write(Embedding object, ObjectOutput out) throws IOException {
+        Objects.requireNonNull( object, "object cannot be null" );
+        out.writeInt( object.dimension() );
+        out.write( object.toBytes() );
+    }
+
+    @Override
+    public Embedding read(ObjectInput in) throws IOException {
+        final int dimension = in.readInt();
+        if( dimension < 0 ) {
+            throw new StreamCorruptedException( format("invalid embedding dimension %d", dimension) );
+        }
+        final var bytes = new byte[ dimension * Float.BYTES ];
+        in.readFully( bytes );
+        return Embedding.fromBytes( ByteBuffer.wrap( bytes ), offHeap );
+    }
+}
@@ -0,0 +1,31 @@
+package org.bsc.langgraph4j.serializer;
+
+/**
+ * Deep copy of the values of a given type, registered in a {@link CopierRegistry}.
+ *
+ * @param <T> the type of the copied values
+ */
+@FunctionalInterface
+public interface ObjectCopier<T> {
+
+    /**
+     * Copier returning the value itself, suitable for immutable types
+     *
+     * @param <T> the type of the values
+     * @return the identity copier
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ObjectCopier<T> identity() {
+        return (ObjectCopier<T>) CopierRegistry.IDENTITY;
+    }
+
+    /**
+     * Copies the given value
+     *
+     * @param object the value to copy, never null
+     * @param registry the registry to use to copy nested values
+     * @return the copy
+     * @throws CopierRegistry.NotCopyableException if a nested value cannot be copied
+     */
+    T copy( T object, CopierRegistry registry );
+}
@@ -0,0 +1,168 @@
+package org.bsc.langgraph4j.serializer;
+
+import java.io.*;
+import java.util.Objects;
+
+/**
+ * {@link ObjectInput} returning already read bytes before the remaining data of the wrapped input.
+ * Used to peek the format marker of a state without consuming it for the state serializer.
+ */
+class PushbackObjectInput implements ObjectInput {
+    private final ObjectInput in;
+    private final byte[] pending;
+    private int position;
+    private final DataInputStream pendingData;
+
+    PushbackObjectInput( ObjectInput in, byte[] pending ) {
+        this.in = Objects.requireNonNull( in, "in cannot be null" );
+        this.pending = Objects.requireNonNull( pending, "pending cannot be null" );
+        this.pendingData = new DataInputStream( new InputStream() {
+            @Override
+            public int read() throws IOException {
+                return PushbackObjectInput.this.read();
+            }
+
+            @Override
+            public int read( byte[] b, int off, int len ) throws IOException {
+                return PushbackObjectInput.this.read( b, off, len );
+            }
+        });
+    }
+
+    private boolean hasPending() {
+        return position < pending.length;
+    }
+
+    @Override
+    public Object readObject() throws ClassNotFoundException, IOException {
+        if( hasPending() ) {
+            throw new StreamCorruptedException( "primitive data pending before object" );
+        }
+        return in.readObject();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return hasPending() ? pending[position++] & 0xFF : in.read();
+    }
+
+    @Override
+    public int read( byte[] b ) throws IOException {
+        return read( b, 0, b.length );
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException {
+        if( !hasPending() ) {
+            return in.read( b, off, len );
+        }
+        Objects.checkFromIndexSize( off, len, b.length );
+        int count = Math.min( len, pending.length - position );
+        System.arraycopy( pending, position, b, off, count );
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip( long n ) throws IOException {
+        if( !hasPending() ) {
+            return in.skip( n );
+        }
+        int count = (int)Math.max( 0, Math.min( n, pending.length - position ) );
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return ( pending.length - position ) + in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public void readFully( byte[] b ) throws IOException {
+        readFully( b, 0, b.length );
+    }
+
+    @Override
+    public void readFully( byte[] b, int off, int len ) throws IOException {
+        if( !hasPending() ) {
+            in.readFully( b, off, len );
+            return;
+        }
+        int count = read( b, off, len );
+        if( count < len ) {
+            in.readFully( b, off + count, len - count );
+        }
+    }
+
+    @Override
+    public int skipBytes( int n ) throws IOException {
+        return hasPending() ? pendingData.skipBytes( n ) : in.skipBytes( n );
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return hasPending() ? pendingData.readBoolean() : in.readBoolean();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return hasPending() ? pendingData.readByte() : in.readByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return hasPending() ? pendingData.readUnsignedByte() : in.readUnsignedByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return hasPending() ? pendingData.readShort() : in.readShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return hasPending() ? pendingData.readUnsignedShort() : in.readUnsignedShort();
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return hasPending() ? pendingData.readChar() : in.readChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return hasPending() ? pendingData.readInt() : in.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return hasPending() ? pendingData.readLong() : in.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return hasPending() ? pendingData.readFloat() : in.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return hasPending() ? pendingData.readDouble() : in.readDouble();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String readLine() throws IOException {
+        return hasPending() ? pendingData.readLine() : in.readLine();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return hasPending() ? pendingData.readUTF() : in.readUTF();
+    }
+}
@@ -0,0 +1,308 @@
+package org.bsc.langgraph4j.serializer;
+
+import java.io.*;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Pool of growable byte buffers, each one bound to a reusable {@link ObjectOutputStream}.
+ * <p>
+ * Creating an {@link ObjectOutputStream} allocates its block-data buffers and handle tables,
+ * and a new {@link ByteArrayOutputStream} has to grow again up to the size of the payload.
+ * A {@link Lease} keeps both across calls: on acquisition the stream is {@link ObjectOutputStream#reset() reset}
+ * and the buffer rewound to the stream header, so the bytes produced are exactly the ones of a freshly
+ * created stream and can be read back by a plain {@link ObjectInputStream}.
+ * <p>
+ * The pool isn't bound to threads (it works the same with virtual threads) and nested acquisitions
+ * simply get another lease. Buffers grown beyond {@link #MAX_RETAINED_CAPACITY} are not kept, and the idle
+ * buffers are bounded in total by {@link #maxRetainedBytes(long)} ( default {@link #DEFAULT_MAX_RETAINED_BYTES} ),
+ * whatever the number of cores.
+ *
+ * <pre>{@code
+ * try( var lease = SerializationBuffers.acquire() ) {
+ *     serializer.write( object, lease.objectOutput() );
+ *     return lease.toByteArray();
+ * }
+ * }</pre>
+ */
+public final class SerializationBuffers {
+
+    /**
+     * Initial capacity of a new buffer
+     */
+    public static final int INITIAL_CAPACITY = 8 * 1024;
+    /**
+     * Max capacity of a buffer returned to the pool
+     */
+    public static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    /**
+     * Default max capacity of all the buffers held by the pool
+     */
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 16L * 1024 * 1024;
+
+    private static final int POOL_SIZE = Math.max( 4, Runtime.getRuntime().availableProcessors() * 2 );
+
+    private static final ArrayBlockingQueue<Lease> pool = new ArrayBlockingQueue<>( POOL_SIZE );
+    /**
+     * capacity of the buffers held by the pool
+     */
+    private static final AtomicLong retainedBytes = new AtomicLong();
+    private static volatile long maxRetainedBytes = DEFAULT_MAX_RETAINED_BYTES;
+
+    private SerializationBuffers() {}
+
+    /**
+     * Growable buffer exposing its content without copying it
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super( INITIAL_CAPACITY );
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        void writeTo( DataOutput out ) throws IOException {
+            out.write( buf, 0, count );
+        }
+
+        ByteArrayInputStream inputStream() {
+            return new ByteArrayInputStream( buf, 0, count );
+        }
+    }
+
+    /**
+     * A buffer and its object stream, borrowed from the pool until {@link #close()} is called.
+     * A lease is not thread safe and must not be used after it has been closed.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Buffer buffer = new Buffer();
+        private final ObjectOutputStream objectOutput;
+        private final byte[] streamHeader;
+        private boolean leased;
+        private boolean completed;
+        /**
+         * capacity accounted in the retained bytes while the lease is in the pool
+         */
+        private int retainedCapacity;
+
+        private Lease() throws IOException {
+            objectOutput = new ObjectOutputStream( buffer );
+            objectOutput.flush();
+            streamHeader = buffer.toByteArray();
+        }
+
+        private Lease rewind() throws IOException {
+            if( completed ) {
+                // drop the TC_RESET marker, a fresh stream starts with the header only
+                objectOutput.reset();
+                objectOutput.flush();
+                buffer.reset();
+                buffer.write( streamHeader );
+            }
+            leased = true;
+            completed = false;
+            return this;
+        }
+
+        private void ensureLeased() {
+            if( !leased ) {
+                throw new IllegalStateException( "lease has been closed" );
+            }
+        }
+
+        /**
+         * Raw output stream over the buffer. It is positioned after the object stream header,
+         * use {@link #reset()} to write plain bytes
+         *
+         * @return the buffer output stream
+         */
+        public OutputStream outputStream() {
+            ensureLeased();
+            return buffer;
+        }
+
+        /**
+         * Discards the buffer content, including the object stream header. After it
+         * only {@link #outputStream()} must be used
+         *
+         * @return this lease
+         */
+        public Lease reset() {
+            ensureLeased();
+            buffer.reset();
+            return this;
+        }
+
+        /**
+         * @return the object stream writing into the buffer
+         */
+        public ObjectOutputStream objectOutput() {
+            ensureLeased();
+            return objectOutput;
+        }
+
+        /**
+         * @return the number of bytes written so far
+         * @throws IOException if flushing the object stream fails
+         */
+        public int size() throws IOException {
+            flush();
+            return buffer.size();
+        }
+
+        private void flush() throws IOException {
+            ensureLeased();
+            objectOutput.flush();
+            completed = true;
+        }
+
+        /**
+         * @return a copy of the bytes written
+         * @throws IOException if flushing the object stream fails
+         */
+        public byte[] toByteArray() throws IOException {
+            flush();
+            return buffer.toByteArray();
+        }
+
+        /**
+         * Copies the bytes written into the given output
+         *
+         * @param out the output
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeTo( DataOutput out ) throws IOException {
+            Objects.requireNonNull( out, "out cannot be null" );
+            flush();
+            buffer.writeTo( out );
+        }
+
+        /**
+         * Copies the bytes written into the given stream
+         *
+         * @param out the stream
+         * @throws IOException if an I/O error occurs
+         */
+        public void transferTo( OutputStream out ) throws IOException {
+            Objects.requireNonNull( out, "out cannot be null" );
+            flush();
+            buffer.writeTo( out );
+        }
+
+        /**
+         * Stream reading the bytes written without copying them. It is valid until the lease is closed
+         *
+         * @return the input stream
+         * @throws IOException if flushing the object stream fails
+         */
+        public ByteArrayInputStream inputStream() throws IOException {
+            flush();
+            return buffer.inputStream();
+        }
+
+        /**
+         * Returns the lease to the pool. A lease whose object stream has not been flushed
+         * (e.g. the serialization failed half-way) or whose buffer has grown too much is discarded
+         */
+        @Override
+        public void close() {
+            if( !leased ) {
+                return;
+            }
+            leased = false;
+            if( completed && buffer.capacity() <= MAX_RETAINED_CAPACITY ) {
+                release( this );
+            }
+        }
+    }
+
+    /**
+     * Borrows a lease from the pool, creating a new one if the pool is empty
+     *
+     * @return a lease positioned after the object stream header
+     * @throws IOException if the object stream cannot be created
+     */
+    public static Lease acquire() throws IOException {
+        var lease = poll();
+        if( lease != null ) {
+            try {
+                return lease.rewind();
+            }
+            catch( IOException ex ) {
+                // stream left in an unusable state, replace it
+            }
+        }
+        return new Lease().rewind();
+    }
+
+    private static Lease poll() {
+        var lease = pool.poll();
+        if( lease != null ) {
+            retainedBytes.addAndGet( -lease.retainedCapacity );
+            lease.retainedCapacity = 0;
+        }
+        return lease;
+    }
+
+    /**
+     * Returns the lease to the pool, unless the pool is full or would exceed the max retained bytes
+     */
+    private static void release( Lease lease ) {
+        final int capacity = lease.buffer.capacity();
+        if( retainedBytes.addAndGet( capacity ) > maxRetainedBytes ) {
+            retainedBytes.addAndGet( -capacity );
+            return;
+        }
+        lease.retainedCapacity = capacity;
+        if( !pool.offer( lease ) ) {
+            retainedBytes.addAndGet( -capacity );
+            lease.retainedCapacity = 0;
+        }
+    }
+
+    /**
+     * Borrows a lease positioned at the beginning of an empty buffer, to write plain bytes
+     *
+     * @return the lease
+     * @throws IOException if the object stream cannot be created
+     */
+    public static Lease acquireRaw() throws IOException {
+        return acquire().reset();
+    }
+
+    /**
+     * @return the number of leases currently available in the pool
+     */
+    public static int available() {
+        return pool.size();
+    }
+
+    /**
+     * @return the capacity of the buffers currently held by the pool
+     */
+    public static long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Sets the max capacity of all the buffers held by the pool, dropping the idle buffers exceeding it.
+     * Zero disables pooling
+     *
+     * @param maxBytes the max retained bytes
+     */
+    public static void maxRetainedBytes( long maxBytes ) {
+        if( maxBytes < 0 ) {
+            throw new IllegalArgumentException( format("maxRetainedBytes must be >= 0 but is %d", maxBytes) );
+        }
+        maxRetainedBytes = maxBytes;
+        while( retainedBytes.get() > maxBytes && poll() != null ) {
+            // dropped
+        }
+    }
+}
@@ -15,11 +15,9 @@ public interface Serializer<T> {
 
     default byte[] objectToBytes(T object) throws IOException {
         Objects.requireNonNull( object, "object cannot be null" );
-        try( ByteArrayOutputStream stream = new ByteArrayOutputStream() ) {
-            ObjectOutputStream oas = new ObjectOutputStream(stream);
-            write(object, oas);
-            oas.flush();
-            return stream.toByteArray();
+        try( var lease = SerializationBuffers.acquire() ) {
+            write(object, lease.objectOutput());
+            return lease.toByteArray();
         }
     }
 
@@ -47,7 +45,13 @@ public interface Serializer<T> {
 
     default T cloneObject(T object) throws IOException, ClassNotFoundException {
         Objects.requireNonNull( object, "object cannot be null" );
-        return readObject(writeObject(object));
+        try( var lease = SerializationBuffers.acquire() ) {
+            write(object, lease.objectOutput());
+            // read back from the pooled buffer, no intermediate copy
+            try( ObjectInputStream ois = new ObjectInputStream(lease.inputStream()) ) {
+                return read(ois);
+            }
+        }
     }
 
     // Fix issue for string greater than 65K
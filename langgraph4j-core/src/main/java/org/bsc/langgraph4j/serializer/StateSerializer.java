@@ -2,23 +2,156 @@ package org.bsc.langgraph4j.serializer;
 
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
+import org.bsc.langgraph4j.state.Channel;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static java.lang.String.format;
+
+/**
+ * Serializer of the agent state.
+ * <p>
+ * Channels can declare their own {@link Serializer} ( see {@link Channel#withSerializer(Serializer)} ), used by the
+ * copy of the serializer returned by {@link #withChannels(Map)}, that leaves this one unchanged so that it can be
+ * shared by graphs with different schemas. When the state contains values of such channels,
+ * {@link #writeState(Map, ObjectOutput)} writes a marker followed by each of them, length prefixed and on its own
+ * object stream, then the other channels through {@link #writeData(Map, ObjectOutput)}.
+ * States without channel serializers are written by {@link #writeData(Map, ObjectOutput)} alone, as before.
+ * The marker is looked for on read only when channel serializers are registered, so the states of the other
+ * serializers are read as before: states written with channel serializers must be read by a serializer with
+ * the same channels.
+ * </p>
+ */
 public abstract class StateSerializer<State extends AgentState> implements Serializer<State> {
 
+    /**
+     * marker of a state whose channels are written by their own serializers
+     */
+    static final int CHANNELS_FORMAT = 0x804C4743;
+
     private final AgentStateFactory<State> stateFactory;
+    private final CopierRegistry copiers;
+    private final Map<String,Serializer<Object>> channelSerializers;
 
     protected StateSerializer( AgentStateFactory<State> stateFactory) {
         this.stateFactory = Objects.requireNonNull(stateFactory, "stateFactory cannot be null");
+        this.copiers = new CopierRegistry();
+        this.channelSerializers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Creates a copy of the given serializer sharing its state factory and copiers, with its own channel serializers
+     */
+    private StateSerializer( StateSerializer<State> source ) {
+        this.stateFactory = source.stateFactory;
+        this.copiers = source.copiers;
+        this.channelSerializers = new ConcurrentHashMap<>( source.channelSerializers );
+    }
+
+    /**
+     * Copy of a serializer using the channel serializers of a schema. The state data is written in the
+     * format of the source serializer
+     */
+    private static final class ChannelsStateSerializer<State extends AgentState> extends StateSerializer<State> {
+        private final StateSerializer<State> format;
+
+        ChannelsStateSerializer( StateSerializer<State> source, StateSerializer<State> format ) {
+            super( source );
+            this.format = format;
+        }
+
+        @Override
+        public String contentType() {
+            return format.contentType();
+        }
+
+        @Override
+        public void writeData( Map<String,Object> data, ObjectOutput out ) throws IOException {
+            format.writeData( data, out );
+        }
+
+        @Override
+        public Map<String,Object> readData( ObjectInput in ) throws IOException, ClassNotFoundException {
+            return format.readData( in );
+        }
     }
 
     public final AgentStateFactory<State> stateFactory() {
         return stateFactory;
     }
 
+    /**
+     * The registry of the copiers used by {@link #cloneObject(Map)}.
+     * Register here the copiers (or the immutability) of the types stored in the state
+     *
+     * @return the copier registry
+     */
+    public final CopierRegistry copiers() {
+        return copiers;
+    }
+
+    /**
+     * Returns a copy of this serializer that writes the channels of the given schema with their own serializers,
+     * e.g. to build the checkpoint saver of a graph. This serializer is left unchanged, so it can be shared
+     * by graphs with different schemas. The copy shares the format, the state factory and the {@link #copiers()}
+     *
+     * @param channels the state schema
+     * @return the copy, or this serializer if no channel declares a serializer
+     */
+    public final StateSerializer<State> withChannels( Map<String, Channel<?>> channels ) {
+        Objects.requireNonNull( channels, "channels cannot be null" );
+        if( channels.values().stream().noneMatch( channel -> channel.getSerializer().isPresent() ) ) {
+            return this;
+        }
+        final var format = ( this instanceof ChannelsStateSerializer<State> copy ) ? copy.format : this;
+        return new ChannelsStateSerializer<>( this, format ).registerChannels( channels );
+    }
+
+    /**
+     * Registers the serializers declared by the given channels on this serializer.
+     * Prefer {@link #withChannels(Map)} when the serializer is shared
+     *
+     * @param channels the state schema
+     * @return this serializer
+     */
+    public final StateSerializer<State> registerChannels( Map<String, Channel<?>> channels ) {
+        Objects.requireNonNull( channels, "channels cannot be null" );
+        channels.forEach( (key, channel) -> channel.getSerializer()
+                .ifPresent( serializer -> registerChannelSerializer( key, serializer ) ) );
+        return this;
+    }
+
+    /**
+     * Registers the serializer of the given channel, used in place of {@link #writeData(Map, ObjectOutput)}
+     *
+     * @param key the channel key
+     * @param serializer the channel serializer
+     * @return this serializer
+     */
+    @SuppressWarnings("unchecked")
+    public final StateSerializer<State> registerChannelSerializer( String key, Serializer<?> serializer ) {
+        Objects.requireNonNull( key, "key cannot be null" );
+        Objects.requireNonNull( serializer, "serializer cannot be null" );
+        channelSerializers.put( key, (Serializer<Object>) serializer );
+        return this;
+    }
+
+    /**
+     * @param key the channel key
+     * @return the serializer registered for the given channel if any
+     */
+    public final Optional<Serializer<Object>> channelSerializer( String key ) {
+        return Optional.ofNullable( channelSerializers.get( Objects.requireNonNull( key, "key cannot be null" ) ) );
+    }
+
     public final State stateOf( Map<String,Object> data) {
         Objects.requireNonNull( data, "data cannot be null");
         return stateFactory.apply( data);
@@ -29,14 +162,153 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
         return cloneObject( stateFactory().apply(data) );
     }
 
+    /**
+     * Deep copies the state using the registered {@link #copiers()}, falling back to the
+     * serialization round trip if a value has no copier
+     *
+     * @param object the state to clone
+     * @return the cloned state
+     * @throws IOException if the serialization round trip fails
+     * @throws ClassNotFoundException if the serialization round trip fails
+     */
+    @Override
+    public State cloneObject(State object) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( object, "object cannot be null" );
+        final var copy = copiers.copyData( object.data() );
+        if( copy.isPresent() ) {
+            return stateOf( copy.get() );
+        }
+        return Serializer.super.cloneObject( object );
+    }
+
     @Override
     public final void write(State object, ObjectOutput out) throws IOException {
-        writeData(object.data(), out);
+        writeState(object.data(), out);
     }
 
     @Override
     public final State read(ObjectInput in) throws IOException, ClassNotFoundException {
-        return stateFactory().apply( readData(in) );
+        return stateFactory().apply( readState(in) );
+    }
+
+    /**
+     * Writes the state data, using the registered channel serializers for their channels
+     * and {@link #writeData(Map, ObjectOutput)} for the others
+     *
+     * @param data the state data
+     * @param out the output
+     * @throws IOException if an I/O error occurs
+     */
+    public final void writeState( Map<String,Object> data, ObjectOutput out ) throws IOException {
+        Objects.requireNonNull( data, "data cannot be null" );
+        if( channelSerializers.isEmpty() || data.keySet().stream().noneMatch( key -> data.get(key) != null && channelSerializers.containsKey(key) ) ) {
+            writeData( data, out );
+            return;
+        }
+
+        final var channels = new LinkedHashMap<String,Serializer<Object>>();
+        final var others = new HashMap<String,Object>( data.size() );
+        for( var entry : data.entrySet() ) {
+            var serializer = ( entry.getValue() != null ) ? channelSerializers.get( entry.getKey() ) : null;
+            if( serializer != null ) {
+                channels.put( entry.getKey(), serializer );
+            }
+            else {
+                others.put( entry.getKey(), entry.getValue() );
+            }
+        }
+
+        out.writeInt( CHANNELS_FORMAT );
+        out.writeInt( channels.size() );
+        for( var channel : channels.entrySet() ) {
+            Serializer.writeUTF( channel.getKey(), out );
+            try( var lease = SerializationBuffers.acquire() ) {
+                channel.getValue().write( data.get( channel.getKey() ), lease.objectOutput() );
+                out.writeInt( lease.size() );
+                lease.writeTo( out );
+            }
+        }
+        writeData( others, out );
+    }
+
+    /**
+     * Reads the state data written by {@link #writeState(Map, ObjectOutput)}
+     *
+     * @param in the input
+     * @return the state data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class of a value cannot be found
+     */
+    public final Map<String,Object> readState( ObjectInput in ) throws IOException, ClassNotFoundException {
+        if( channelSerializers.isEmpty() ) {
+            return readData( in );
+        }
+        // peek the marker, a state written by writeData alone may be shorter
+        final var head = new byte[ Integer.BYTES ];
+        int count = 0;
+        for( int n; count < head.length && ( n = in.read( head, count, head.length - count ) ) > 0; count += n ) {
+            // read
+        }
+        if( count < head.length || ByteBuffer.wrap( head ).getInt() != CHANNELS_FORMAT ) {
+            return readData( new PushbackObjectInput( in, Arrays.copyOf( head, count ) ) );
+        }
+
+        final int size = in.readInt();
+        final var channels = new HashMap<String,Object>( size );
+        for( int i = 0; i < size; ++i ) {
+            var key = Serializer.readUTF( in );
+            var bytes = new byte[ in.readInt() ];
+            in.readFully( bytes );
+            channels.put( key, readChannel( key, bytes ) );
+        }
+        final var result = new HashMap<>( readData( in ) );
+        result.putAll( channels );
+        return result;
+    }
+
+    private Object readChannel( String key, byte[] bytes ) throws IOException, ClassNotFoundException {
+        var serializer = channelSerializer( key )
+                .orElseThrow( () -> new StreamCorruptedException( format("no serializer registered for channel '%s'", key) ) );
+        try( var ois = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+            return serializer.read( ois );
+        }
+    }
+
+    /**
+     * Decodes a single channel written by its own serializer, without decoding the other channels
+     *
+     * @param bytes the state bytes, as returned by {@link #dataToBytes(Map)}
+     * @param key the channel key
+     * @return the channel value, empty if the channel has not been written by its own serializer
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class of a value cannot be found
+     */
+    public final Optional<Object> channelFromBytes( byte[] bytes, String key ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        Objects.requireNonNull( key, "key cannot be null" );
+        try( var in = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+            if( in.readInt() != CHANNELS_FORMAT ) {
+                return Optional.empty();
+            }
+            final int size = in.readInt();
+            for( int i = 0; i < size; ++i ) {
+                var channelKey = Serializer.readUTF( in );
+                int length = in.readInt();
+                if( channelKey.equals( key ) ) {
+                    var channelBytes = new byte[ length ];
+                    in.readFully( channelBytes );
+                    return Optional.of( readChannel( key, channelBytes ) );
+                }
+                while( length > 0 ) {
+                    int skipped = in.skipBytes( length );
+                    if( skipped <= 0 ) {
+                        throw new EOFException( format("unexpected end of channel '%s'", channelKey) );
+                    }
+                    length -= skipped;
+                }
+            }
+            return Optional.empty();
+        }
     }
 
     public abstract void writeData( Map<String,Object> data, ObjectOutput out) throws IOException ;
@@ -45,11 +317,9 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
 
     public final byte[] dataToBytes(Map<String,Object> data) throws IOException {
         Objects.requireNonNull( data, "object cannot be null" );
-        try( ByteArrayOutputStream stream = new ByteArrayOutputStream() ) {
-            ObjectOutputStream oas = new ObjectOutputStream(stream);
-            writeData(data, oas);
-            oas.flush();
-            return stream.toByteArray();
+        try( var lease = SerializationBuffers.acquire() ) {
+            writeState(data, lease.objectOutput());
+            return lease.toByteArray();
         }
     }
 
@@ -60,7 +330,7 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
         }
         try( ByteArrayInputStream stream = new ByteArrayInputStream( bytes ) ) {
             ObjectInputStream ois = new ObjectInputStream(stream);
-            return readData(ois);
+            return readState(ois);
         }
     }
 
@@ -0,0 +1,16 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import java.io.IOException;
+
+/**
+ * Encodes and decodes values of a given type in the compact binary format of {@link BinaryStateSerializer}
+ *
+ * @param <T> the type of the value
+ */
+public interface BinaryCodec<T> {
+
+    void write( T value, BinaryOutput out ) throws IOException;
+
+    T read( BinaryInput in ) throws IOException, ClassNotFoundException;
+
+}
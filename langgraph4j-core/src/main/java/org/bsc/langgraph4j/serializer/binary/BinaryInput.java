@@ -0,0 +1,165 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * Reader of the compact binary format of {@link BinaryStateSerializer}.
+ *
+ * @see BinaryOutput
+ */
+public final class BinaryInput {
+
+    private final DataInput in;
+    private final BinaryTypeRegistry registry;
+    private final List<String> keys = new ArrayList<>();
+
+    BinaryInput( DataInput in, BinaryTypeRegistry registry ) {
+        this.in = Objects.requireNonNull( in, "in cannot be null" );
+        this.registry = Objects.requireNonNull( registry, "registry cannot be null" );
+    }
+
+    public int readVarInt() throws IOException {
+        int result = 0;
+        for( int shift = 0; shift < 32; shift += 7 ) {
+            final byte b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varint" );
+    }
+
+    public long readVarLong() throws IOException {
+        long result = 0;
+        for( int shift = 0; shift < 64; shift += 7 ) {
+            final byte b = in.readByte();
+            result |= (long)(b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varlong" );
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    public double readDouble() throws IOException {
+        return in.readDouble();
+    }
+
+    public float readFloat() throws IOException {
+        return in.readFloat();
+    }
+
+    public byte[] readBytes() throws IOException {
+        var bytes = new byte[ readVarInt() ];
+        in.readFully( bytes );
+        return bytes;
+    }
+
+    public String readString() throws IOException {
+        return new String( readBytes(), StandardCharsets.UTF_8 );
+    }
+
+    public String readNullableString() throws IOException {
+        int length = readVarInt();
+        if( length == 0 ) {
+            return null;
+        }
+        var bytes = new byte[ length - 1 ];
+        in.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    public String readKey() throws IOException {
+        int header = readVarInt();
+        if( (header & 1) == 1 ) {
+            int index = header >>> 1;
+            if( index >= keys.size() ) {
+                throw new StreamCorruptedException( format("invalid key reference %d", index) );
+            }
+            return keys.get( index );
+        }
+        var bytes = new byte[ header >>> 1 ];
+        in.readFully( bytes );
+        var key = new String( bytes, StandardCharsets.UTF_8 );
+        keys.add( key );
+        return key;
+    }
+
+    public Object readValue() throws IOException, ClassNotFoundException {
+        final int tag = readVarInt();
+        return switch( tag ) {
+            case BinaryTags.NULL -> null;
+            case BinaryTags.STRING -> readString();
+            case BinaryTags.KEY -> readKey();
+            case BinaryTags.TRUE -> Boolean.TRUE;
+            case BinaryTags.FALSE -> Boolean.FALSE;
+            case BinaryTags.INT -> readSignedVarInt();
+            case BinaryTags.LONG -> readSignedVarLong();
+            case BinaryTags.DOUBLE -> in.readDouble();
+            case BinaryTags.FLOAT -> in.readFloat();
+            case BinaryTags.SHORT -> (short)readSignedVarInt();
+            case BinaryTags.BYTE -> in.readByte();
+            case BinaryTags.CHAR -> (char)readVarInt();
+            case BinaryTags.BYTES -> readBytes();
+            case BinaryTags.LIST -> readList();
+            case BinaryTags.MAP -> readMap();
+            case BinaryTags.SET -> readSet();
+            case BinaryTags.JAVA_SERIALIZABLE -> {
+                try( var ois = new ObjectInputStream( new ByteArrayInputStream( readBytes() ) ) ) {
+                    yield ois.readObject();
+                }
+            }
+            default -> registry.entryOf( tag )
+                        .orElseThrow( () -> new StreamCorruptedException( format("no binary codec registered for tag %d", tag) ) )
+                        .codec().read( this );
+        };
+    }
+
+    public List<Object> readList() throws IOException, ClassNotFoundException {
+        final int size = readVarInt();
+        final var result = new ArrayList<>( size );
+        for( int i = 0; i < size; ++i ) {
+            result.add( readValue() );
+        }
+        return result;
+    }
+
+    public Set<Object> readSet() throws IOException, ClassNotFoundException {
+        final int size = readVarInt();
+        final var result = new LinkedHashSet<>( size );
+        for( int i = 0; i < size; ++i ) {
+            result.add( readValue() );
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K> Map<K,Object> readMap() throws IOException, ClassNotFoundException {
+        final int size = readVarInt();
+        final var result = new HashMap<K,Object>( size );
+        for( int i = 0; i < size; ++i ) {
+            var key = (K)readValue();
+            result.put( key, readValue() );
+        }
+        return result;
+    }
+}
@@ -0,0 +1,263 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.SerializationBuffers;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Writer of the compact binary format of {@link BinaryStateSerializer}.
+ * <p>
+ * Lengths and integers are written as varints, values are prefixed by a type tag and
+ * map keys are interned: each distinct key is written once per stream and then referenced by index.
+ * </p>
+ */
+public final class BinaryOutput {
+
+    private final DataOutput out;
+    private final BinaryTypeRegistry registry;
+    private final Map<String,Integer> keys = new HashMap<>();
+
+    BinaryOutput( DataOutput out, BinaryTypeRegistry registry ) {
+        this.out = Objects.requireNonNull( out, "out cannot be null" );
+        this.registry = Objects.requireNonNull( registry, "registry cannot be null" );
+    }
+
+    /**
+     * Writes an unsigned varint
+     *
+     * @param value the value, interpreted as unsigned
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeVarInt( int value ) throws IOException {
+        while( (value & ~0x7F) != 0 ) {
+            out.writeByte( (value & 0x7F) | 0x80 );
+            value >>>= 7;
+        }
+        out.writeByte( value );
+    }
+
+    /**
+     * Writes an unsigned varint
+     *
+     * @param value the value, interpreted as unsigned
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeVarLong( long value ) throws IOException {
+        while( (value & ~0x7FL) != 0 ) {
+            out.writeByte( (int)((value & 0x7F) | 0x80) );
+            value >>>= 7;
+        }
+        out.writeByte( (int)value );
+    }
+
+    /**
+     * Writes a signed int as zigzag varint, so that small negative numbers are small too
+     *
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeSignedVarInt( int value ) throws IOException {
+        writeVarInt( (value << 1) ^ (value >> 31) );
+    }
+
+    /**
+     * Writes a signed long as zigzag varint, so that small negative numbers are small too
+     *
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeSignedVarLong( long value ) throws IOException {
+        writeVarLong( (value << 1) ^ (value >> 63) );
+    }
+
+    public void writeBoolean( boolean value ) throws IOException {
+        out.writeBoolean( value );
+    }
+
+    public void writeDouble( double value ) throws IOException {
+        out.writeDouble( value );
+    }
+
+    public void writeFloat( float value ) throws IOException {
+        out.writeFloat( value );
+    }
+
+    public void writeBytes( byte[] value ) throws IOException {
+        writeVarInt( value.length );
+        out.write( value );
+    }
+
+    public void writeString( String value ) throws IOException {
+        Objects.requireNonNull( value, "value cannot be null" );
+        writeBytes( value.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Writes a string that can be null
+     *
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNullableString( String value ) throws IOException {
+        if( value == null ) {
+            writeVarInt( 0 );
+            return;
+        }
+        var bytes = value.getBytes( StandardCharsets.UTF_8 );
+        writeVarInt( bytes.length + 1 );
+        out.write( bytes );
+    }
+
+    /**
+     * Writes a string interned in the keys dictionary of this stream
+     *
+     * @param key the key
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeKey( String key ) throws IOException {
+        Objects.requireNonNull( key, "key cannot be null" );
+        var index = keys.get(key);
+        if( index != null ) {
+            writeVarInt( (index << 1) | 1 );
+            return;
+        }
+        keys.put( key, keys.size() );
+        var bytes = key.getBytes( StandardCharsets.UTF_8 );
+        writeVarInt( bytes.length << 1 );
+        out.write( bytes );
+    }
+
+    /**
+     * Writes a value prefixed by its type tag
+     *
+     * @param value the value, can be null
+     * @throws IOException if an I/O error occurs
+     * @throws NotSerializableException if the type of value is not supported
+     */
+    public void writeValue( Object value ) throws IOException {
+        if( value == null ) {
+            writeVarInt( BinaryTags.NULL );
+        }
+        else if( value instanceof String s ) {
+            writeVarInt( BinaryTags.STRING );
+            writeString( s );
+        }
+        else if( value instanceof Integer i ) {
+            writeVarInt( BinaryTags.INT );
+            writeSignedVarInt( i );
+        }
+        else if( value instanceof Long l ) {
+            writeVarInt( BinaryTags.LONG );
+            writeSignedVarLong( l );
+        }
+        else if( value instanceof Boolean b ) {
+            writeVarInt( b ? BinaryTags.TRUE : BinaryTags.FALSE );
+        }
+        else if( value instanceof Double d ) {
+            writeVarInt( BinaryTags.DOUBLE );
+            out.writeDouble( d );
+        }
+        else if( value instanceof Float f ) {
+            writeVarInt( BinaryTags.FLOAT );
+            out.writeFloat( f );
+        }
+        else if( value instanceof Short s ) {
+            writeVarInt( BinaryTags.SHORT );
+            writeSignedVarInt( s );
+        }
+        else if( value instanceof Byte b ) {
+            writeVarInt( BinaryTags.BYTE );
+            out.writeByte( b );
+        }
+        else if( value instanceof Character c ) {
+            writeVarInt( BinaryTags.CHAR );
+            writeVarInt( c );
+        }
+        else if( value instanceof byte[] bytes ) {
+            writeVarInt( BinaryTags.BYTES );
+            writeBytes( bytes );
+        }
+        else {
+            writeObject( value );
+        }
+    }
+
+    private void writeObject( Object value ) throws IOException {
+        var entry = registry.entryOf( value.getClass() );
+        if( entry.isPresent() ) {
+            writeVarInt( entry.get().tag() );
+            entry.get().codec().write( value, this );
+        }
+        else if( value instanceof Map<?,?> map ) {
+            writeVarInt( BinaryTags.MAP );
+            writeMap( map );
+        }
+        else if( value instanceof Set<?> set ) {
+            writeVarInt( BinaryTags.SET );
+            writeCollection( set );
+        }
+        else if( value instanceof Collection<?> collection ) {
+            writeVarInt( BinaryTags.LIST );
+            writeCollection( collection );
+        }
+        else if( value instanceof Serializable ) {
+            writeVarInt( BinaryTags.JAVA_SERIALIZABLE );
+            try( var lease = SerializationBuffers.acquire() ) {
+                lease.objectOutput().writeObject( value );
+                writeVarInt( lease.size() );
+                lease.writeTo( out );
+            }
+        }
+        else {
+            throw new NotSerializableException( format("no binary codec registered for type %s", value.getClass().getName()) );
+        }
+    }
+
+    /**
+     * Writes the elements of a collection
+     *
+     * @param collection the collection
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCollection( Collection<?> collection ) throws IOException {
+        writeVarInt( collection.size() );
+        if( collection instanceof List<?> list && list instanceof java.util.RandomAccess ) {
+            for( int i = 0; i < list.size(); ++i ) {
+                writeValue( list.get(i) );
+            }
+            return;
+        }
+        for( var element : collection ) {
+            writeValue( element );
+        }
+    }
+
+    /**
+     * Writes the entries of a map, string keys are interned
+     *
+     * @param map the map
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeMap( Map<?,?> map ) throws IOException {
+        writeVarInt( map.size() );
+        for( var entry : map.entrySet() ) {
+            if( entry.getKey() instanceof String key ) {
+                writeVarInt( BinaryTags.KEY );
+                writeKey( key );
+            }
+            else {
+                writeValue( entry.getKey() );
+            }
+            writeValue( entry.getValue() );
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.AgentStateFactory;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+
+/**
+ * A compact binary {@link StateSerializer}.
+ * <p>
+ * Compared to {@link org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer}:
+ * <ul>
+ *     <li>lengths and integers are written as varints</li>
+ *     <li>types are identified by small integer tags instead of class descriptors</li>
+ *     <li>map keys are interned, so each distinct key is written once per stream</li>
+ *     <li>String, numbers, byte[], List, Set and Map have built-in codecs, other types need a
+ *     {@link BinaryCodec} registered in {@link #registry()}, Java serialization is used only as fallback</li>
+ * </ul>
+ *
+ * @param <State> the type of the agent state
+ */
+public class BinaryStateSerializer<State extends AgentState> extends StateSerializer<State> {
+
+    private final BinaryTypeRegistry registry = new BinaryTypeRegistry();
+
+    public BinaryStateSerializer( AgentStateFactory<State> stateFactory ) {
+        super(stateFactory);
+    }
+
+    public BinaryTypeRegistry registry() {
+        return registry;
+    }
+
+    @Override
+    public String contentType() {
+        return "application/x-langgraph4j-binary";
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        new BinaryOutput( out, registry ).writeMap( data );
+        out.flush();
+    }
+
+    @Override
+    public Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
+        return new BinaryInput( in, registry ).readMap();
+    }
+}
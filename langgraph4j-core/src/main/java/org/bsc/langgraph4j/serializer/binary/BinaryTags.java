@@ -0,0 +1,30 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+/**
+ * Type tags of the values natively supported by {@link BinaryStateSerializer}.
+ * Tags below {@link #FIRST_CUSTOM_TAG} are reserved.
+ */
+final class BinaryTags {
+
+    static final int NULL = 0;
+    static final int STRING = 1;
+    static final int KEY = 2;
+    static final int TRUE = 3;
+    static final int FALSE = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int DOUBLE = 7;
+    static final int FLOAT = 8;
+    static final int SHORT = 9;
+    static final int BYTE = 10;
+    static final int CHAR = 11;
+    static final int BYTES = 12;
+    static final int LIST = 13;
+    static final int MAP = 14;
+    static final int SET = 15;
+    static final int JAVA_SERIALIZABLE = 31;
+
+    static final int FIRST_CUSTOM_TAG = 32;
+
+    private BinaryTags() {}
+}
@@ -0,0 +1,80 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Registry of the {@link BinaryCodec} of custom types, each identified by a small integer tag
+ * written in place of the class name.
+ * <p>
+ * Tags must be stable across releases since they are persisted with the data.
+ * Tags lower than {@value BinaryTags#FIRST_CUSTOM_TAG} are reserved to the native types.
+ * A value is encoded by the codec registered for its class or, if missing, by the one with the
+ * lowest tag among those registered for its super types.
+ * </p>
+ */
+public class BinaryTypeRegistry {
+
+    record Entry( int tag, Class<?> type, BinaryCodec<Object> codec ) {}
+
+    private static final Entry NONE = new Entry( -1, Object.class, null );
+
+    private final Map<Integer,Entry> entriesByTag = new ConcurrentHashMap<>();
+    private final Map<Class<?>,Entry> entriesByType = new ConcurrentHashMap<>();
+    private final Map<Class<?>,Entry> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the codec of the given type
+     *
+     * @param tag the tag identifying the type, must be &gt;= {@value BinaryTags#FIRST_CUSTOM_TAG}
+     * @param type the type
+     * @param codec the codec
+     * @param <T> the type
+     * @return this registry
+     * @throws IllegalArgumentException if the tag is reserved or already used by another type
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> BinaryTypeRegistry register( int tag, Class<T> type, BinaryCodec<? super T> codec ) {
+        Objects.requireNonNull( type, "type cannot be null" );
+        Objects.requireNonNull( codec, "codec cannot be null" );
+        if( tag < BinaryTags.FIRST_CUSTOM_TAG ) {
+            throw new IllegalArgumentException( format("tag %d is reserved, use a tag >= %d", tag, BinaryTags.FIRST_CUSTOM_TAG) );
+        }
+        var current = entriesByTag.get(tag);
+        if( current != null && !current.type().equals(type) ) {
+            throw new IllegalArgumentException( format("tag %d already registered for type %s", tag, current.type().getName()) );
+        }
+        var entry = new Entry( tag, type, (BinaryCodec<Object>)codec );
+        var previous = entriesByType.put( type, entry );
+        if( previous != null ) {
+            entriesByTag.remove( previous.tag() );
+        }
+        entriesByTag.put( tag, entry );
+        resolved.clear();
+        return this;
+    }
+
+    Optional<Entry> entryOf( int tag ) {
+        return Optional.ofNullable( entriesByTag.get(tag) );
+    }
+
+    Optional<Entry> entryOf( Class<?> type ) {
+        var entry = resolved.computeIfAbsent( type, this::resolve );
+        return ( entry == NONE ) ? Optional.empty() : Optional.of(entry);
+    }
+
+    private Entry resolve( Class<?> type ) {
+        var entry = entriesByType.get(type);
+        if( entry != null ) {
+            return entry;
+        }
+        return entriesByType.values().stream()
+                .filter( e -> e.type().isAssignableFrom(type) )
+                .min( (e1, e2) -> Integer.compare( e1.tag(), e2.tag() ) )
+                .orElse( NONE );
+    }
+}
@@ -0,0 +1,78 @@
+package org.bsc.langgraph4j.serializer.blob;
+
+import org.bsc.langgraph4j.state.LazyValue;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * A reference to a state value stored out of line in a {@link BlobStore}.
+ * <p>
+ * The value is loaded from the store on first access and then kept by the reference.
+ * Two references are equal when they point to the same content hash.
+ * </p>
+ */
+public final class BlobRef implements LazyValue<Object> {
+
+    private final String hash;
+    private final BlobStore blobStore;
+    private final Function<String,Object> loader;
+    private volatile Object value;
+
+    BlobRef( String hash, BlobStore blobStore, Function<String,Object> loader ) {
+        this.hash = Objects.requireNonNull( hash, "hash cannot be null" );
+        this.blobStore = Objects.requireNonNull( blobStore, "blobStore cannot be null" );
+        this.loader = Objects.requireNonNull( loader, "loader cannot be null" );
+    }
+
+    /**
+     * @return the content hash of the referenced value
+     */
+    public String hash() {
+        return hash;
+    }
+
+    BlobStore blobStore() {
+        return blobStore;
+    }
+
+    /**
+     * @return true if the referenced value has already been loaded
+     */
+    public boolean isLoaded() {
+        return value != null;
+    }
+
+    @Override
+    public Object resolve() {
+        var result = value;
+        if( result == null ) {
+            synchronized (this) {
+                result = value;
+                if( result == null ) {
+                    result = value = loader.apply( hash );
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BlobRef blobRef)) return false;
+        return hash.equals(blobRef.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return format("BlobRef{hash=%s, loaded=%b}", hash, isLoaded());
+    }
+}
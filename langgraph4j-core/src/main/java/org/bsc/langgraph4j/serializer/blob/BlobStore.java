@@ -0,0 +1,75 @@
+package org.bsc.langgraph4j.serializer.blob;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Content-addressed store of binary blobs.
+ * <p>
+ * Each blob is identified by the SHA-256 hash of its content, so the same content is
+ * written once and shared across checkpoints and threads.
+ * </p>
+ */
+public interface BlobStore {
+
+    /**
+     * Checks whether a blob with the given hash is present
+     *
+     * @param hash the content hash
+     * @return true if the blob is present
+     * @throws IOException if an I/O error occurs
+     */
+    boolean contains( String hash ) throws IOException;
+
+    /**
+     * Loads the content of a blob
+     *
+     * @param hash the content hash
+     * @return the blob content, empty if not present
+     * @throws IOException if an I/O error occurs
+     */
+    Optional<byte[]> get( String hash ) throws IOException;
+
+    /**
+     * Stores a blob under the given hash. Called only when the blob is not already present.
+     *
+     * @param hash the content hash
+     * @param content the blob content
+     * @throws IOException if an I/O error occurs
+     */
+    void store( String hash, byte[] content ) throws IOException;
+
+    /**
+     * Stores the content if not already present
+     *
+     * @param content the blob content
+     * @return the content hash
+     * @throws IOException if an I/O error occurs
+     */
+    default String put( byte[] content ) throws IOException {
+        final var hash = hashOf( content );
+        if( !contains( hash ) ) {
+            store( hash, content );
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the hash that identifies the given content
+     *
+     * @param content the blob content
+     * @return the hex encoded SHA-256 of the content
+     */
+    static String hashOf( byte[] content ) {
+        Objects.requireNonNull( content, "content cannot be null" );
+        try {
+            return HexFormat.of().formatHex( MessageDigest.getInstance("SHA-256").digest( content ) );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException( e );
+        }
+    }
+}
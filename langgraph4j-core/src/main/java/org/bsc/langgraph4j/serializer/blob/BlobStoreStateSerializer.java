@@ -0,0 +1,146 @@
+package org.bsc.langgraph4j.serializer.blob;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link StateSerializer} that moves large state values out of line into a {@link BlobStore}.
+ * <p>
+ * Each value whose size is above the threshold is serialized on its own by the delegate serializer,
+ * stored in the blob store and replaced in the serialized state by its content hash.
+ * On read, such values are restored as {@link BlobRef} that load the content on first access
+ * (see {@link AgentState#value(String)}) and are written back as hash without being loaded.
+ * </p>
+ * <p>
+ * By default only the size of {@link CharSequence} ( e.g. base64 images, documents ) and {@code byte[]}
+ * values is evaluated, a custom size function can be provided to offload other types.
+ * </p>
+ *
+ * @param <State> the type of the agent state
+ */
+public class BlobStoreStateSerializer<State extends AgentState> extends StateSerializer<State> {
+
+    /**
+     * Default size above which a value is stored out of line
+     */
+    public static final long DEFAULT_THRESHOLD = 32 * 1024;
+
+    private static final String VALUE_KEY = "value";
+
+    private final StateSerializer<State> delegate;
+    private final BlobStore blobStore;
+    private final long threshold;
+    private final ToLongFunction<Object> sizeOf;
+
+    public BlobStoreStateSerializer( StateSerializer<State> delegate, BlobStore blobStore ) {
+        this( delegate, blobStore, DEFAULT_THRESHOLD );
+    }
+
+    public BlobStoreStateSerializer( StateSerializer<State> delegate, BlobStore blobStore, long threshold ) {
+        this( delegate, blobStore, threshold, BlobStoreStateSerializer::defaultSizeOf );
+    }
+
+    /**
+     * @param delegate the serializer used for inline state and for blob content
+     * @param blobStore the store of the out of line values
+     * @param threshold the size above which a value is stored out of line
+     * @param sizeOf the function evaluating the size of a value, 0 if it must be kept inline
+     */
+    public BlobStoreStateSerializer( StateSerializer<State> delegate, BlobStore blobStore, long threshold, ToLongFunction<Object> sizeOf ) {
+        super( Objects.requireNonNull(delegate, "delegate cannot be null").stateFactory() );
+        this.delegate = delegate;
+        this.blobStore = Objects.requireNonNull( blobStore, "blobStore cannot be null" );
+        this.sizeOf = Objects.requireNonNull( sizeOf, "sizeOf cannot be null" );
+        if( threshold <= 0 ) {
+            throw new IllegalArgumentException( format("threshold must be > 0 but is %d", threshold) );
+        }
+        this.threshold = threshold;
+    }
+
+    static long defaultSizeOf( Object value ) {
+        if( value instanceof CharSequence text ) {
+            return text.length();
+        }
+        if( value instanceof byte[] bytes ) {
+            return bytes.length;
+        }
+        return 0;
+    }
+
+    public StateSerializer<State> delegate() {
+        return delegate;
+    }
+
+    public BlobStore blobStore() {
+        return blobStore;
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        final var inline = new HashMap<String,Object>( data.size() );
+        final var refs = new HashMap<String,String>();
+
+        for( var entry : data.entrySet() ) {
+            var value = entry.getValue();
+            if( value instanceof BlobRef ref && ref.blobStore() == blobStore ) {
+                refs.put( entry.getKey(), ref.hash() );
+                continue;
+            }
+            if( value instanceof BlobRef ref ) {
+                value = ref.resolve();
+            }
+            if( value != null && sizeOf.applyAsLong(value) > threshold ) {
+                refs.put( entry.getKey(), blobStore.put( delegate.dataToBytes( Map.of( VALUE_KEY, value ) ) ) );
+                continue;
+            }
+            inline.put( entry.getKey(), value );
+        }
+
+        out.writeInt( refs.size() );
+        for( var ref : refs.entrySet() ) {
+            Serializer.writeUTF( ref.getKey(), out );
+            Serializer.writeUTF( ref.getValue(), out );
+        }
+        delegate.writeData( inline, out );
+    }
+
+    @Override
+    public Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
+        final int size = in.readInt();
+        final var refs = new HashMap<String,String>( size );
+        for( int i = 0; i < size; ++i ) {
+            var key = Serializer.readUTF(in);
+            refs.put( key, Serializer.readUTF(in) );
+        }
+
+        final var result = new HashMap<>( delegate.readData(in) );
+        for( var ref : refs.entrySet() ) {
+            result.put( ref.getKey(), new BlobRef( ref.getValue(), blobStore, this::loadValue ) );
+        }
+        return result;
+    }
+
+    private Object loadValue( String hash ) {
+        try {
+            var content = blobStore.get( hash )
+                    .orElseThrow( () -> new IllegalStateException( format("blob '%s' not found!", hash) ) );
+            return delegate.dataFromBytes( content ).get( VALUE_KEY );
+        } catch (IOException e) {
+            throw new UncheckedIOException( format("error loading blob '%s'", hash), e );
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException( format("error loading blob '%s'", hash), e );
+        }
+    }
+}
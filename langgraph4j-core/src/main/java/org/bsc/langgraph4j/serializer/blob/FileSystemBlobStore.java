@@ -0,0 +1,65 @@
+package org.bsc.langgraph4j.serializer.blob;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link BlobStore} that stores each blob in a file of the provided targetFolder.
+ * <p>
+ *     Blob files are named after their hash and grouped in subfolders named after the first two
+ *     characters of the hash. Each file is written to a temporary file then atomically moved
+ *     in place, so concurrent writers of the same blob are safe.
+ * </p>
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private final Path targetFolder;
+
+    public FileSystemBlobStore( Path targetFolder ) {
+        this.targetFolder = Objects.requireNonNull( targetFolder, "targetFolder cannot be null" );
+    }
+
+    private Path blobPath( String hash ) {
+        Objects.requireNonNull( hash, "hash cannot be null" );
+        if( hash.length() < 3 ) {
+            throw new IllegalArgumentException( "invalid blob hash: " + hash );
+        }
+        return targetFolder.resolve( hash.substring(0, 2) ).resolve( hash );
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return Files.exists( blobPath(hash) );
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) throws IOException {
+        var path = blobPath(hash);
+        if( !Files.exists(path) ) {
+            return Optional.empty();
+        }
+        return Optional.of( Files.readAllBytes( path ) );
+    }
+
+    @Override
+    public void store(String hash, byte[] content) throws IOException {
+        var path = blobPath(hash);
+        Files.createDirectories( path.getParent() );
+        var tempFile = Files.createTempFile( path.getParent(), hash, ".tmp" );
+        try {
+            Files.write( tempFile, content );
+            Files.move( tempFile, path, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( FileAlreadyExistsException ex ) {
+            // blob already written by a concurrent writer
+        }
+        finally {
+            Files.deleteIfExists( tempFile );
+        }
+    }
+}
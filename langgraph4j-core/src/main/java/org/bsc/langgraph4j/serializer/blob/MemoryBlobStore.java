@@ -0,0 +1,35 @@
+package org.bsc.langgraph4j.serializer.blob;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link BlobStore} that keeps blobs in memory.
+ */
+public class MemoryBlobStore implements BlobStore {
+
+    private final Map<String,byte[]> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean contains(String hash) {
+        return blobs.containsKey(hash);
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        return Optional.ofNullable( blobs.get(hash) );
+    }
+
+    @Override
+    public void store(String hash, byte[] content) {
+        blobs.putIfAbsent( hash, content );
+    }
+
+    /**
+     * @return the number of stored blobs
+     */
+    public int size() {
+        return blobs.size();
+    }
+}
@@ -0,0 +1,393 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Compresses the serialized checkpoints using the codecs available in the JDK.
+ * <p>
+ * A compressed payload starts with a self-describing header ( magic bytes, codec id and uncompressed length ),
+ * so {@link #decompress(byte[])} returns any other payload as it is. That allows to read
+ * the checkpoints stored before enabling the compression, or below the size threshold.
+ * Payloads written by {@link java.io.ObjectOutputStream} start with a different magic ( {@code 0xACED} ),
+ * as well as JSON documents.
+ * </p>
+ */
+public final class PayloadCompressor {
+
+    private static final byte[] MAGIC = { 'L', 'G', 'Z' };
+    private static final int HEADER_SIZE = MAGIC.length + 1 + Integer.BYTES;
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    public static final int DEFAULT_MAX_LENGTH = 256 * 1024 * 1024;
+
+    public enum Codec {
+        DEFLATE( 1 ),
+        GZIP( 2 );
+
+        private final int id;
+
+        Codec( int id ) {
+            this.id = id;
+        }
+
+        static Codec of( int id ) throws StreamCorruptedException {
+            for( var codec : values() ) {
+                if( codec.id == id ) {
+                    return codec;
+                }
+            }
+            throw new StreamCorruptedException( format("unsupported compression codec %d", id) );
+        }
+    }
+
+    /**
+     * Counters of the compression activity
+     */
+    public static final class Metrics {
+        private final LongAdder compressed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder decompressed = new LongAdder();
+        private final LongAdder uncompressedBytes = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+        private final LongAdder compressNanos = new LongAdder();
+        private final LongAdder decompressNanos = new LongAdder();
+
+        private Metrics() {}
+
+        /**
+         * @return the number of compressed payloads
+         */
+        public long compressed() {
+            return compressed.sum();
+        }
+
+        /**
+         * @return the number of payloads left uncompressed, being below the threshold or not worth it
+         */
+        public long skipped() {
+            return skipped.sum();
+        }
+
+        /**
+         * @return the number of decompressed payloads
+         */
+        public long decompressed() {
+            return decompressed.sum();
+        }
+
+        /**
+         * @return the total size of the compressed payloads before compression
+         */
+        public long uncompressedBytes() {
+            return uncompressedBytes.sum();
+        }
+
+        /**
+         * @return the total size of the compressed payloads after compression
+         */
+        public long compressedBytes() {
+            return compressedBytes.sum();
+        }
+
+        /**
+         * @return the time spent compressing, in nanoseconds
+         */
+        public long compressNanos() {
+            return compressNanos.sum();
+        }
+
+        /**
+         * @return the time spent decompressing, in nanoseconds
+         */
+        public long decompressNanos() {
+            return decompressNanos.sum();
+        }
+
+        /**
+         * @return the ratio between the compressed and the uncompressed size, 1 if nothing has been compressed
+         */
+        public double ratio() {
+            long uncompressed = uncompressedBytes();
+            return ( uncompressed == 0 ) ? 1.0 : (double)compressedBytes() / uncompressed;
+        }
+
+        @Override
+        public String toString() {
+            return format( "PayloadCompressor.Metrics{ compressed=%d, skipped=%d, decompressed=%d, ratio=%.3f, compressMs=%.3f, decompressMs=%.3f }",
+                    compressed(), skipped(), decompressed(), ratio(),
+                    compressNanos() / 1_000_000.0, decompressNanos() / 1_000_000.0 );
+        }
+    }
+
+    private static final PayloadCompressor DISABLED = new PayloadCompressor( Codec.DEFLATE, Integer.MAX_VALUE, Deflater.DEFAULT_COMPRESSION, DEFAULT_MAX_LENGTH );
+
+    private final Codec codec;
+    private final int threshold;
+    private final int level;
+    private final int maxLength;
+    private final Metrics metrics = new Metrics();
+
+    private PayloadCompressor( Codec codec, int threshold, int level, int maxLength ) {
+        this.codec = Objects.requireNonNull( codec, "codec cannot be null" );
+        if( threshold < 0 ) {
+            throw new IllegalArgumentException( format("threshold must be >= 0 but is %d", threshold) );
+        }
+        if( level != Deflater.DEFAULT_COMPRESSION && ( level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION ) ) {
+            throw new IllegalArgumentException( format("level must be between 0 and 9 but is %d", level) );
+        }
+        if( maxLength < 0 ) {
+            throw new IllegalArgumentException( format("maxLength must be >= 0 but is %d", maxLength) );
+        }
+        this.threshold = threshold;
+        this.level = level;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns a compressor that never compresses, but still decompresses the compressed payloads
+     *
+     * @return the disabled compressor
+     */
+    public static PayloadCompressor disabled() {
+        return DISABLED;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    public Codec codec() {
+        return codec;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    public int maxLength() {
+        return maxLength;
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Checks whether the given payload has been compressed
+     *
+     * @param payload the payload
+     * @return true if the payload starts with the compression header
+     */
+    public static boolean isCompressed( byte[] payload ) {
+        if( payload == null || payload.length < HEADER_SIZE ) {
+            return false;
+        }
+        for( int i = 0; i < MAGIC.length; ++i ) {
+            if( payload[i] != MAGIC[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the remaining bytes of the buffer start with the compression header.
+     * The buffer position is not changed
+     *
+     * @param payload the payload buffer
+     * @return true if the payload has been compressed
+     */
+    public static boolean isCompressed( ByteBuffer payload ) {
+        if( payload == null || payload.remaining() < HEADER_SIZE ) {
+            return false;
+        }
+        for( int i = 0; i < MAGIC.length; ++i ) {
+            if( payload.get( payload.position() + i ) != MAGIC[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compresses the given payload if it is not smaller than the threshold and the compression reduces its size
+     *
+     * @param payload the payload
+     * @return the compressed payload, or the payload itself
+     * @throws IOException if the compression fails
+     */
+    public byte[] compress( byte[] payload ) throws IOException {
+        Objects.requireNonNull( payload, "payload cannot be null" );
+        if( payload.length < threshold ) {
+            metrics.skipped.increment();
+            return payload;
+        }
+
+        final long start = System.nanoTime();
+
+        final var result = new ByteArrayOutputStream( Math.max( 64, payload.length / 4 ) );
+        result.write( MAGIC );
+        result.write( codec.id );
+        result.write( payload.length >>> 24 );
+        result.write( payload.length >>> 16 );
+        result.write( payload.length >>> 8 );
+        result.write( payload.length );
+
+        try( OutputStream out = ( codec == Codec.GZIP ) ? new LevelGZIPOutputStream( result, level ) : new LevelDeflaterOutputStream( result, level ) ) {
+            out.write( payload );
+        }
+
+        metrics.compressNanos.add( System.nanoTime() - start );
+
+        if( result.size() >= payload.length ) {
+            metrics.skipped.increment();
+            return payload;
+        }
+        metrics.compressed.increment();
+        metrics.uncompressedBytes.add( payload.length );
+        metrics.compressedBytes.add( result.size() );
+        return result.toByteArray();
+    }
+
+    /**
+     * Decompresses the given payload if it has been compressed.
+     * The uncompressed length read from the header is checked against {@link #maxLength()}, and the result
+     * grows with the data actually decompressed, so a corrupted header cannot allocate a large buffer upfront
+     *
+     * @param payload the payload
+     * @return the decompressed payload, or the payload itself if it is not compressed
+     * @throws IOException if the decompression fails
+     */
+    public byte[] decompress( byte[] payload ) throws IOException {
+        Objects.requireNonNull( payload, "payload cannot be null" );
+        if( !isCompressed( payload ) ) {
+            return payload;
+        }
+
+        final long start = System.nanoTime();
+
+        final var codec = Codec.of( payload[MAGIC.length] );
+        final int length = ( (payload[MAGIC.length + 1] & 0xFF) << 24 )
+                         | ( (payload[MAGIC.length + 2] & 0xFF) << 16 )
+                         | ( (payload[MAGIC.length + 3] & 0xFF) << 8 )
+                         | ( payload[MAGIC.length + 4] & 0xFF );
+        if( length < 0 ) {
+            throw new StreamCorruptedException( format("invalid uncompressed length %d", length) );
+        }
+        if( length > maxLength ) {
+            throw new StreamCorruptedException( format("uncompressed length %d exceeds the maximum %d", length, maxLength) );
+        }
+
+        final byte[] result;
+        final var compressed = new ByteArrayInputStream( payload, HEADER_SIZE, payload.length - HEADER_SIZE );
+        try( InputStream in = ( codec == Codec.GZIP ) ? new GZIPInputStream( compressed ) : new InflaterInputStream( compressed ) ) {
+            result = in.readNBytes( length );
+        }
+        if( result.length < length ) {
+            throw new StreamCorruptedException( "unexpected end of compressed payload" );
+        }
+
+        metrics.decompressed.increment();
+        metrics.decompressNanos.add( System.nanoTime() - start );
+        return result;
+    }
+
+    /**
+     * {@link GZIPOutputStream} with the given compression level
+     */
+    private static class LevelGZIPOutputStream extends GZIPOutputStream {
+        LevelGZIPOutputStream( OutputStream out, int level ) throws IOException {
+            super( out );
+            def.setLevel( level );
+        }
+    }
+
+    /**
+     * {@link DeflaterOutputStream} with the given compression level, releasing its {@link Deflater} on close
+     */
+    private static class LevelDeflaterOutputStream extends DeflaterOutputStream {
+        LevelDeflaterOutputStream( OutputStream out, int level ) {
+            super( out, new Deflater( level ) );
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            }
+            finally {
+                def.end();
+            }
+        }
+    }
+
+    public static class Builder {
+        private Codec codec = Codec.DEFLATE;
+        private int threshold = DEFAULT_THRESHOLD;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private int maxLength = DEFAULT_MAX_LENGTH;
+
+        public Builder codec( Codec codec ) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Sets the minimum size of the payloads to compress (default {@value #DEFAULT_THRESHOLD} bytes)
+         *
+         * @param threshold the minimum size in bytes
+         * @return this builder
+         */
+        public Builder threshold( int threshold ) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets the compression level, from 0 (no compression) to 9 (best compression)
+         *
+         * @param level the compression level
+         * @return this builder
+         */
+        public Builder level( int level ) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Sets the maximum uncompressed size of the payloads to decompress (default {@value #DEFAULT_MAX_LENGTH} bytes).
+         * Larger payloads are rejected as corrupted
+         *
+         * @param maxLength the maximum size in bytes
+         * @return this builder
+         */
+        public Builder maxLength( int maxLength ) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        public PayloadCompressor build() {
+            return new PayloadCompressor( codec, threshold, level, maxLength );
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.bsc.langgraph4j.serializer.plain_text;
 
+import org.bsc.langgraph4j.serializer.SerializationBuffers;
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
@@ -8,11 +9,101 @@ import org.bsc.langgraph4j.utils.Types;
 
 import java.io.*;
 import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+import static java.lang.String.format;
+
 
 public abstract class PlainTextStateSerializer<State extends AgentState> extends StateSerializer<State> {
 
+    /**
+     * Writes the text payload to an UTF-8 encoded stream
+     */
+    @FunctionalInterface
+    protected interface PayloadWriter {
+        void write( OutputStream out ) throws IOException;
+    }
+
+    /**
+     * Buffer exposing its content to an {@link ObjectOutput} without copying it
+     */
+    private static class PayloadBuffer extends ByteArrayOutputStream {
+
+        PayloadBuffer() {
+            super( 1024 );
+        }
+
+        void writeTo( ObjectOutput out ) throws IOException {
+            out.write( buf, 0, count );
+        }
+    }
+
+    /**
+     * Stream of the {@code length} bytes of a payload read from an {@link ObjectInput}.
+     * Closing it skips the unread bytes of the payload but doesn't close the {@link ObjectInput}
+     */
+    private static class PayloadInputStream extends InputStream {
+        private final ObjectInput in;
+        private int remaining;
+
+        PayloadInputStream( ObjectInput in, int length ) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if( remaining <= 0 ) {
+                return -1;
+            }
+            int result = in.read();
+            if( result < 0 ) {
+                throw new EOFException( "unexpected end of payload" );
+            }
+            --remaining;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if( len == 0 ) {
+                return 0;
+            }
+            if( remaining <= 0 ) {
+                return -1;
+            }
+            int result = in.read( b, off, Math.min( len, remaining ) );
+            if( result < 0 ) {
+                throw new EOFException( "unexpected end of payload" );
+            }
+            remaining -= result;
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.min( in.available(), remaining );
+        }
+
+        @Override
+        public void close() throws IOException {
+            while( remaining > 0 ) {
+                long skipped = in.skip( remaining );
+                if( skipped <= 0 ) {
+                    if( read() < 0 ) {
+                        break;
+                    }
+                }
+                else {
+                    remaining -= (int)skipped;
+                }
+            }
+        }
+    }
+
     protected PlainTextStateSerializer(AgentStateFactory<State> stateFactory) {
         super(stateFactory);
     }
@@ -23,6 +114,23 @@ public abstract class PlainTextStateSerializer<State extends AgentState> extends
     }
 
 
+    /**
+     * Evaluates whether the serializer writes a text format, that is required by
+     * {@link #writeText(Map)}, {@link #readText(String)} and {@link #read(Reader)}
+     *
+     * @return true by default, false if the serializer writes a binary format
+     */
+    public boolean isText() {
+        return true;
+    }
+
+    private void requireText() {
+        if( !isText() ) {
+            throw new IllegalStateException( format( "serializer '%s' writes the binary format '%s' that cannot be read or written as text",
+                    getClass().getName(), contentType() ) );
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public Optional<Class<State>> getStateType() {
         return Types.parameterizedType(getClass())
@@ -31,21 +139,52 @@ public abstract class PlainTextStateSerializer<State extends AgentState> extends
                 .map( args -> (Class<State>)args[0] );
     }
 
-    public State read( String data ) throws IOException, ClassNotFoundException {
-        ByteArrayOutputStream bytesStream =  new ByteArrayOutputStream();
-
-        try(ObjectOutputStream out = new ObjectOutputStream( bytesStream )) {
-            Serializer.writeUTF(data, out);
-            out.flush();
-        }
+    /**
+     * Writes a text payload in the same format of {@link Serializer#writeUTF(String, ObjectOutput)}
+     * ( length prefix followed by the UTF-8 bytes ) without building an intermediate {@link String}
+     *
+     * @param out the output
+     * @param writer writes the payload
+     * @throws IOException if an I/O error occurs
+     */
+    protected static void writePayload( ObjectOutput out, PayloadWriter writer ) throws IOException {
+        Objects.requireNonNull( out, "out cannot be null" );
+        Objects.requireNonNull( writer, "writer cannot be null" );
+        final var buffer = new PayloadBuffer();
+        writer.write( buffer );
+        out.writeInt( buffer.size() );
+        buffer.writeTo( out );
+    }
 
-        try(ObjectInput in = new ObjectInputStream( new ByteArrayInputStream( bytesStream.toByteArray() ) ) ) {
-            return read(in);
+    /**
+     * Returns a stream over a text payload written by {@link #writePayload(ObjectOutput, PayloadWriter)}
+     * or {@link Serializer#writeUTF(String, ObjectOutput)}, to parse it directly from the input.
+     * The stream must be closed to skip the bytes of the payload not consumed by the parser
+     *
+     * @param in the input
+     * @return the UTF-8 encoded stream of the payload
+     * @throws IOException if an I/O error occurs
+     */
+    protected static InputStream payloadStream( ObjectInput in ) throws IOException {
+        Objects.requireNonNull( in, "in cannot be null" );
+        final int length = in.readInt();
+        if( length < 0 ) {
+            throw new StreamCorruptedException( "invalid payload length " + length );
         }
-
+        return new PayloadInputStream( in, length );
     }
 
-    public State read( Reader reader ) throws IOException, ClassNotFoundException {
+    /**
+     * Parses the state data from the given text.
+     * The default implementation round trips the text through {@link #readData(ObjectInput)}, implementations
+     * should override it to parse the reader directly.
+     *
+     * @param reader the text reader
+     * @return the state data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class of a value cannot be found
+     */
+    protected Map<String,Object> readData( Reader reader ) throws IOException, ClassNotFoundException {
         StringBuilder sb = new StringBuilder();
         try (BufferedReader bufferedReader = new BufferedReader(reader)) {
             String line;
@@ -53,7 +192,58 @@ public abstract class PlainTextStateSerializer<State extends AgentState> extends
                 sb.append(line).append(System.lineSeparator());
             }
         }
-        return read( sb.toString() );
+
+        try( var lease = SerializationBuffers.acquire() ) {
+            Serializer.writeUTF(sb.toString(), lease.objectOutput());
+
+            try(ObjectInput in = new ObjectInputStream( lease.inputStream() ) ) {
+                return readData(in);
+            }
+        }
+    }
+
+    /**
+     * Writes the state data as text, e.g. the JSON document, without the length prefix written by
+     * {@link #writeData(Map, ObjectOutput)}
+     *
+     * @param data the state data
+     * @return the text
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if the serializer writes a binary format
+     */
+    public String writeText( Map<String,Object> data ) throws IOException {
+        requireText();
+        try( var lease = SerializationBuffers.acquire() ) {
+            writeData( data, lease.objectOutput() );
+            try( var in = new ObjectInputStream( lease.inputStream() ); var text = payloadStream( in ) ) {
+                return new String( text.readAllBytes(), StandardCharsets.UTF_8 );
+            }
+        }
+    }
+
+    /**
+     * Parses the state data from a text written by {@link #writeText(Map)}
+     *
+     * @param text the text
+     * @return the state data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a class of a value cannot be found
+     * @throws IllegalStateException if the serializer writes a binary format
+     */
+    public Map<String,Object> readText( String text ) throws IOException, ClassNotFoundException {
+        requireText();
+        return readData( new StringReader( Objects.requireNonNull( text, "text cannot be null" ) ) );
+    }
+
+    public State read( String data ) throws IOException, ClassNotFoundException {
+        return read( new StringReader( data ) );
+    }
+
+    public State read( Reader reader ) throws IOException, ClassNotFoundException {
+        requireText();
+        try( reader ) {
+            return stateOf( readData( reader ) );
+        }
     }
 
 }
@@ -2,15 +2,14 @@ package org.bsc.langgraph4j.serializer.plain_text.gson;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.reflect.TypeToken;
-import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.plain_text.PlainTextStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
-import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -20,6 +19,8 @@ import java.util.Map;
  */
 public abstract class GsonStateSerializer<State extends AgentState> extends PlainTextStateSerializer<State> {
 
+    private static final TypeToken<Map<String, Object>> MAP_TYPE = new TypeToken<>() {};
+
     protected final Gson gson;
 
     protected GsonStateSerializer(AgentStateFactory<State> stateFactory, Gson gson) {
@@ -40,15 +41,28 @@ public abstract class GsonStateSerializer<State extends AgentState> extends Plai
 
     @Override
     public final void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
-        String json = gson.toJson(data);
-        Serializer.writeUTF(json, out);
+        writePayload( out, stream -> {
+            var writer = new OutputStreamWriter( stream, StandardCharsets.UTF_8 );
+            gson.toJson(data, writer);
+            writer.flush();
+        });
     }
 
     @Override
     public final Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
-        String json = Serializer.readUTF(in);
-        var typeToken = new TypeToken<Map<String, Object>>() {};
-        return gson.fromJson(json, typeToken);
+        try( var reader = new InputStreamReader( payloadStream(in), StandardCharsets.UTF_8 ) ) {
+            return readData( reader );
+        }
+    }
+
+    @Override
+    protected final Map<String, Object> readData(Reader reader) throws IOException {
+        try {
+            return gson.fromJson(reader, MAP_TYPE);
+        }
+        catch( JsonIOException ex ) {
+            throw new IOException( ex );
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package org.bsc.langgraph4j.serializer.plain_text.jackson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.util.Objects;
+
+/**
+ * Data formats supported by {@link JacksonStateSerializer}.
+ * <p>
+ * The binary formats need the related jackson dataformat module on the classpath
+ * ( {@code jackson-dataformat-smile} or {@code jackson-dataformat-cbor} ).
+ * They are configured to write the repeated keys and string values as back references,
+ * that is the main size saving for long message histories.
+ * </p>
+ */
+public enum JacksonFormat {
+
+    JSON( "JSON", "application/json" ) {
+        @Override
+        public ObjectMapper newObjectMapper() {
+            return new ObjectMapper();
+        }
+    },
+    SMILE( "Smile", "application/x-jackson-smile" ) {
+        @Override
+        public ObjectMapper newObjectMapper() {
+            return Smile.newObjectMapper();
+        }
+    },
+    CBOR( "CBOR", "application/cbor" ) {
+        @Override
+        public ObjectMapper newObjectMapper() {
+            return Cbor.newObjectMapper();
+        }
+    };
+
+    /**
+     * loaded only when the format is used, so that the dataformat module is required only in that case
+     */
+    private static final class Smile {
+        static ObjectMapper newObjectMapper() {
+            return new SmileMapper( SmileFactory.builder()
+                    .enable( SmileGenerator.Feature.CHECK_SHARED_NAMES )
+                    .enable( SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES )
+                    .build() );
+        }
+    }
+
+    /**
+     * loaded only when the format is used, so that the dataformat module is required only in that case
+     */
+    private static final class Cbor {
+        static ObjectMapper newObjectMapper() {
+            return new CBORMapper( CBORFactory.builder()
+                    .enable( CBORGenerator.Feature.STRINGREF )
+                    .build() );
+        }
+    }
+
+    private final String formatName;
+    private final String contentType;
+
+    JacksonFormat( String formatName, String contentType ) {
+        this.formatName = formatName;
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Creates a new {@link ObjectMapper} for this format
+     *
+     * @return the object mapper
+     */
+    public abstract ObjectMapper newObjectMapper();
+
+    /**
+     * Evaluates the format of the given mapper
+     *
+     * @param objectMapper the object mapper
+     * @return the format, {@link #JSON} if the format is unknown
+     */
+    public static JacksonFormat of( ObjectMapper objectMapper ) {
+        Objects.requireNonNull( objectMapper, "objectMapper cannot be null" );
+        final var formatName = objectMapper.getFactory().getFormatName();
+        for( var format : values() ) {
+            if( format.formatName.equals( formatName ) ) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
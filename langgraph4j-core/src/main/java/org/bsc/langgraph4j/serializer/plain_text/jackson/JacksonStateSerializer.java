@@ -5,7 +5,6 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.plain_text.PlainTextStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
@@ -13,6 +12,7 @@ import org.bsc.langgraph4j.state.AgentStateFactory;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.Reader;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -24,12 +24,25 @@ import java.util.Objects;
  * @param <State> The type of the agent state to be serialized/deserialized.
  */
 public abstract class JacksonStateSerializer <State extends AgentState> extends PlainTextStateSerializer<State> {
+    private static final TypeReference<Map<String,Object>> MAP_TYPE = new TypeReference<>() {};
+
     protected final ObjectMapper objectMapper;
 
     protected TypeMapper typeMapper = new TypeMapper();
 
     protected JacksonStateSerializer( AgentStateFactory<State> stateFactory ) {
-        this( stateFactory, new ObjectMapper() );
+        this( stateFactory, JacksonFormat.JSON );
+    }
+
+    /**
+     * Creates a serializer writing the given data format, e.g. {@link JacksonFormat#SMILE} or {@link JacksonFormat#CBOR}
+     * for a compact binary encoding of the same data model of the JSON one
+     *
+     * @param stateFactory the state factory
+     * @param format the data format
+     */
+    protected JacksonStateSerializer( AgentStateFactory<State> stateFactory, JacksonFormat format ) {
+        this( stateFactory, Objects.requireNonNull(format, "format cannot be null").newObjectMapper() );
         this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
 
     }
@@ -53,21 +66,40 @@ public abstract class JacksonStateSerializer <State extends AgentState> extends
         return objectMapper;
     }
 
+    public JacksonFormat format() {
+        return JacksonFormat.of(objectMapper);
+    }
+
     @Override
     public String contentType() {
-        return "application/json";
+        return format().contentType();
+    }
+
+    /**
+     * The binary formats, e.g. {@link JacksonFormat#SMILE} or {@link JacksonFormat#CBOR}, cannot be read from a {@link Reader}
+     *
+     * @return false if the object mapper writes a binary format
+     */
+    @Override
+    public boolean isText() {
+        return !objectMapper.getFactory().canHandleBinaryNatively();
     }
 
     @Override
     public final void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
-        String json = objectMapper.writeValueAsString(data);
-        Serializer.writeUTF( json, out );
+        writePayload( out, stream -> objectMapper.writeValue( stream, data ) );
     }
 
     @Override
     public final Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
-        String json = Serializer.readUTF(in);
-        return objectMapper.readValue(json, new TypeReference<Map<String,Object>>() {});
+        try( var stream = payloadStream(in) ) {
+            return objectMapper.readValue(stream, MAP_TYPE);
+        }
+    }
+
+    @Override
+    protected final Map<String, Object> readData(Reader reader) throws IOException {
+        return objectMapper.readValue(reader, MAP_TYPE);
     }
 
 }
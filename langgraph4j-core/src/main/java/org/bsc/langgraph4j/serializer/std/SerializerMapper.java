@@ -50,7 +50,9 @@ public class SerializerMapper {
 
         @Override
         public boolean equals(Object o) {
-            return Objects.equals( o, _className );
+            if( this == o ) return true;
+            if( !(o instanceof Key other) ) return false;
+            return Objects.equals( other._className, _className );
         }
 
         @Override
@@ -60,39 +62,80 @@ public class SerializerMapper {
     }
     private final Map<Key, Serializer<?>> _serializers = new HashMap<>();
 
-    public SerializerMapper register( Class<?> clazz, Serializer<?> serializer ) {
+    /**
+     * Per-class cache of the resolved serializers.
+     * It is replaced on each change of the registrations, so resolutions made before are discarded
+     */
+    private volatile ClassValue<Optional<Serializer<Object>>> _resolved = newResolutionCache();
+
+    private ClassValue<Optional<Serializer<Object>>> newResolutionCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<Serializer<Object>> computeValue(Class<?> type) {
+                return resolveSerializer(type);
+            }
+        };
+    }
+
+    public synchronized SerializerMapper register( Class<?> clazz, Serializer<?> serializer ) {
         Objects.requireNonNull(clazz,"class cannot be null ");
-        Objects.requireNonNull(clazz,"serializer cannot be null ");
+        Objects.requireNonNull(serializer,"serializer cannot be null ");
 
         _serializers.put( Key.of(clazz), serializer);
+        _resolved = newResolutionCache();
         return this;
     }
 
-    public boolean unregister( Class<? extends Serializer<?>> clazz ) {
-        Objects.requireNonNull( clazz, "Serializer's class cannot be null" );
+    /**
+     * Removes the serializer registered for the given type
+     *
+     * @param clazz the type the serializer has been registered for
+     * @return true if a serializer has been removed, false otherwise
+     */
+    public synchronized boolean unregister( Class<?> clazz ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
         Serializer<?> serializer = _serializers.remove( Key.of(clazz) );
-        return serializer != null;
+        if( serializer == null ) {
+            return false;
+        }
+        _resolved = newResolutionCache();
+        return true;
     }
 
+    /**
+     * Resolves the serializer of the given type, that is the one registered for the type itself or,
+     * if missing, the one registered for its most specific super type.
+     * When several unrelated super types match (e.g. two interfaces), classes are preferred to interfaces
+     * and then the type name decides, so that the resolution doesn't depend on the registration order.
+     *
+     * @param clazz the type
+     * @return the resolved serializer if any
+     */
     @SuppressWarnings("unchecked")
-    public Optional<Serializer<Object>> getSerializer( Class<?> clazz ) {
-        Objects.requireNonNull(clazz,"class cannot be null ");
+    private synchronized Optional<Serializer<Object>> resolveSerializer( Class<?> clazz ) {
         Serializer<?> ser = _serializers.get( Key.of(clazz) );
+        if( ser != null ) {
+            return Optional.of((Serializer<Object>)ser);
+        }
 
-        return ( ser != null ) ?
-
-            Optional.of((Serializer<Object>)ser) :
+        final var candidates = _serializers.keySet().stream()
+                .map( Key::getType )
+                .filter( type -> type != null && type.isAssignableFrom(clazz) )
+                .toList();
 
-            _serializers.entrySet().stream()
-                    .filter( e -> e.getKey().getType().isAssignableFrom(clazz) )
-                    .findFirst()
-                    .map( e -> (Serializer<Object>)e.getValue() )
-                ;
+        return candidates.stream()
+                .filter( type -> candidates.stream().noneMatch( other -> other != type && type.isAssignableFrom(other) ) )
+                .min( Comparator.<Class<?>,Boolean>comparing( Class::isInterface ).thenComparing( Class::getName ) )
+                .map( type -> (Serializer<Object>)_serializers.get( Key.of(type) ) );
+    }
 
+    public Optional<Serializer<Object>> getSerializer( Class<?> clazz ) {
+        Objects.requireNonNull(clazz,"class cannot be null ");
+        return _resolved.get( clazz );
     }
 
     @SuppressWarnings("unchecked")
-    public Optional<Serializer<Object>> getSerializer( String className ) {
+    public synchronized Optional<Serializer<Object>> getSerializer( String className ) {
         Objects.requireNonNull(className,"className cannot be null ");
         return Optional.ofNullable((Serializer<Object>)_serializers.get( Key.of(className) ));
     }
@@ -127,7 +170,7 @@ public class SerializerMapper {
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         List<String> typeNames = _serializers.keySet().stream().map(Key::getTypeName).collect(Collectors.toList());
         return format( "SerializerMapper: \n%s", String.join("\n", typeNames) );
 
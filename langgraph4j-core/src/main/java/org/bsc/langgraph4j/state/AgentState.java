@@ -42,13 +42,14 @@ public class AgentState {
 
     /**
      * Retrieves the value associated with the given key, if present.
+     * A {@link LazyValue} is resolved before being returned.
      *
      * @param key the key whose associated value is to be returned
      * @param <T> the type of the value
      * @return an Optional containing the value if present, otherwise an empty Optional
      */
     @SuppressWarnings("unchecked")
-    public final <T> Optional<T> value(String key) { return ofNullable((T) data().get(key));}
+    public final <T> Optional<T> value(String key) { return ofNullable((T) LazyValue.resolve(data.get(key)));}
 
     /**
      * Returns a string representation of the agent state.
@@ -114,7 +115,7 @@ public class AgentState {
 
             Channel<?> channel = channels.get(entry.getKey());
             if (channel != null) {
-                Object newValue = channel.update( entry.getKey(), state.get(entry.getKey()), entry.getValue());
+                Object newValue = channel.update( entry.getKey(), LazyValue.resolve(state.get(entry.getKey())), entry.getValue());
                 return entryOf(entry.getKey(), newValue);
             }
 
@@ -1,6 +1,9 @@
 package org.bsc.langgraph4j.state;
 
+import org.bsc.langgraph4j.serializer.Serializer;
+
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -88,6 +91,28 @@ public interface Channel<T> {
      */
     Optional<Supplier<T>> getDefault();
 
+    /**
+     * The serializer of the channel value, if it must not be written by the
+     * {@link org.bsc.langgraph4j.serializer.StateSerializer} together with the other channels.
+     *
+     * @return an Optional containing the channel serializer
+     */
+    default Optional<Serializer<T>> getSerializer() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a channel with the same behaviour of this one, whose value is written by the given serializer
+     * (e.g. raw bytes for embeddings, a compact codec for messages) and can be decoded independently
+     * of the other channels.
+     *
+     * @param serializer the serializer of the channel value
+     * @return the channel with the given serializer
+     */
+    default Channel<T> withSerializer( Serializer<T> serializer ) {
+        return new SerializedChannel<>( this, serializer );
+    }
+
 
     default boolean isMarkedForReset( Object value ) {
         return value == null || value == MARK_FOR_RESET ;
@@ -123,4 +148,54 @@ public interface Channel<T> {
 
         return getReducer().map( reducer -> reducer.apply( _old, _new)).orElse(_new);
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Channel delegating to another one, with its own serializer
+ *
+ * @param <T> the type of the state property
+ */
+class SerializedChannel<T> implements Channel<T> {
+    private final Channel<T> channel;
+    private final Serializer<T> serializer;
+
+    SerializedChannel( Channel<T> channel, Serializer<T> serializer ) {
+        this.channel = Objects.requireNonNull( channel, "channel cannot be null" );
+        this.serializer = Objects.requireNonNull( serializer, "serializer cannot be null" );
+    }
+
+    @Override
+    public Optional<Reducer<T>> getReducer() {
+        return channel.getReducer();
+    }
+
+    @Override
+    public Optional<Supplier<T>> getDefault() {
+        return channel.getDefault();
+    }
+
+    @Override
+    public Optional<Serializer<T>> getSerializer() {
+        return Optional.of( serializer );
+    }
+
+    @Override
+    public Channel<T> withSerializer( Serializer<T> serializer ) {
+        return new SerializedChannel<>( channel, serializer );
+    }
+
+    @Override
+    public boolean isMarkedForReset( Object value ) {
+        return channel.isMarkedForReset( value );
+    }
+
+    @Override
+    public boolean isMarkedForRemoval( Object value ) {
+        return channel.isMarkedForRemoval( value );
+    }
+
+    @Override
+    public Object update( String key, Object oldValue, Object newValue ) {
+        return channel.update( key, oldValue, newValue );
+    }
+}
@@ -1,5 +1,8 @@
 package org.bsc.langgraph4j.state;
 
+import org.bsc.langgraph4j.serializer.EmbeddingSerializer;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -24,4 +27,34 @@ public interface Channels {
     static <T> Channel<T> base( Reducer<T> reducer, Supplier<T> defaultProvider ) {
         return new BaseChannel<>(reducer, defaultProvider);
     }
+
+    /**
+     * Channel holding a single {@link Embedding}, serialized as raw little-endian floats
+     *
+     * @param offHeap true to load the embedding out of the java heap
+     * @return the embedding channel
+     */
+    static Channel<Embedding> embedding( boolean offHeap ) {
+        return new BaseChannel<Embedding>( null, null )
+                .withSerializer( offHeap ? EmbeddingSerializer.offHeap() : EmbeddingSerializer.heap() );
+    }
+
+    static Channel<Embedding> embedding() {
+        return embedding( false );
+    }
+
+    /**
+     * Appender channel of {@link Embedding}s, serialized as raw little-endian floats
+     *
+     * @param offHeap true to load the embeddings out of the java heap
+     * @return the embeddings channel
+     */
+    static Channel<List<Embedding>> embeddings( boolean offHeap ) {
+        return Channels.<Embedding>appenderWithDuplicate( ArrayList::new )
+                .withSerializer( ( offHeap ? EmbeddingSerializer.offHeap() : EmbeddingSerializer.heap() ).list() );
+    }
+
+    static Channel<List<Embedding>> embeddings() {
+        return embeddings( false );
+    }
 }
@@ -0,0 +1,233 @@
+package org.bsc.langgraph4j.state;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Collection;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Immutable float vector, e.g. the embedding of a query or of a document.
+ * <p>
+ * Values are packed in a {@link FloatBuffer}, either on the heap or off-heap ( see {@link #offHeap(float...)} ),
+ * and the vector operations work on primitive floats without boxing.
+ * Use {@link org.bsc.langgraph4j.serializer.EmbeddingSerializer} ( or {@link Channels#embedding()} )
+ * to store it as raw little-endian floats.
+ * </p>
+ */
+public final class Embedding implements Serializable {
+
+    private final transient FloatBuffer values;
+
+    private Embedding( FloatBuffer values ) {
+        this.values = values;
+    }
+
+    /**
+     * @param values the vector values, copied
+     * @return a heap embedding
+     */
+    public static Embedding of( float... values ) {
+        Objects.requireNonNull( values, "values cannot be null" );
+        return new Embedding( FloatBuffer.wrap( values.clone() ) );
+    }
+
+    /**
+     * @param values the vector values, e.g. a {@code List<Double>} returned by an embedding model
+     * @return a heap embedding
+     */
+    public static Embedding of( Collection<? extends Number> values ) {
+        Objects.requireNonNull( values, "values cannot be null" );
+        final var result = new float[ values.size() ];
+        int i = 0;
+        for( var value : values ) {
+            result[i++] = Objects.requireNonNull( value, "value cannot be null" ).floatValue();
+        }
+        return new Embedding( FloatBuffer.wrap( result ) );
+    }
+
+    /**
+     * @param values the vector values, copied
+     * @return an embedding stored in a direct buffer, out of the java heap
+     */
+    public static Embedding offHeap( float... values ) {
+        Objects.requireNonNull( values, "values cannot be null" );
+        final var buffer = ByteBuffer.allocateDirect( values.length * Float.BYTES )
+                .order( ByteOrder.nativeOrder() )
+                .asFloatBuffer()
+                .put( values )
+                .flip();
+        return new Embedding( buffer );
+    }
+
+    /**
+     * Creates an embedding from raw little-endian floats
+     *
+     * @param bytes the raw floats, from the buffer position to its limit. The buffer position is not changed
+     * @param offHeap true to copy the values out of the java heap
+     * @return the embedding
+     */
+    public static Embedding fromBytes( ByteBuffer bytes, boolean offHeap ) {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        if( bytes.remaining() % Float.BYTES != 0 ) {
+            throw new IllegalArgumentException( format("%d bytes are not a float vector", bytes.remaining()) );
+        }
+        final var source = bytes.slice().order( ByteOrder.LITTLE_ENDIAN ).asFloatBuffer();
+        final var target = offHeap ?
+                ByteBuffer.allocateDirect( bytes.remaining() ).order( ByteOrder.nativeOrder() ).asFloatBuffer() :
+                FloatBuffer.allocate( source.remaining() );
+        return new Embedding( target.put( source ).flip() );
+    }
+
+    /**
+     * Wraps a slice of a packed buffer, without copying it
+     */
+    static Embedding wrap( FloatBuffer values ) {
+        return new Embedding( values );
+    }
+
+    /**
+     * @return the number of values
+     */
+    public int dimension() {
+        return values.limit();
+    }
+
+    /**
+     * @param index the value index
+     * @return the value at the given index
+     */
+    public float get( int index ) {
+        return values.get( index );
+    }
+
+    /**
+     * @return true if the values are stored out of the java heap
+     */
+    public boolean isOffHeap() {
+        return values.isDirect();
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public float[] toArray() {
+        final var result = new float[ dimension() ];
+        values.get( 0, result );
+        return result;
+    }
+
+    /**
+     * Copies the values into the given buffer as raw little-endian floats
+     *
+     * @param target the target buffer, its position is advanced
+     */
+    public void writeTo( ByteBuffer target ) {
+        Objects.requireNonNull( target, "target cannot be null" );
+        final int length = dimension() * Float.BYTES;
+        final var slice = target.slice().order( ByteOrder.LITTLE_ENDIAN );
+        slice.asFloatBuffer().put( values.duplicate().rewind() );
+        target.position( target.position() + length );
+    }
+
+    /**
+     * @return the values as raw little-endian floats
+     */
+    public byte[] toBytes() {
+        final var result = new byte[ dimension() * Float.BYTES ];
+        writeTo( ByteBuffer.wrap( result ) );
+        return result;
+    }
+
+    FloatBuffer buffer() {
+        return values.duplicate();
+    }
+
+    private void requireSameDimension( Embedding other ) {
+        Objects.requireNonNull( other, "other cannot be null" );
+        if( other.dimension() != dimension() ) {
+            throw new IllegalArgumentException( format("dimension mismatch %d != %d", dimension(), other.dimension()) );
+        }
+    }
+
+    static float dot( FloatBuffer a, int aOffset, FloatBuffer b, int dimension ) {
+        float result = 0f;
+        for( int i = 0; i < dimension; ++i ) {
+            result += a.get( aOffset + i ) * b.get( i );
+        }
+        return result;
+    }
+
+    /**
+     * @param other an embedding of the same dimension
+     * @return the dot product
+     */
+    public float dot( Embedding other ) {
+        requireSameDimension( other );
+        return dot( values, 0, other.values, dimension() );
+    }
+
+    /**
+     * @return the euclidean norm
+     */
+    public float norm() {
+        return (float)Math.sqrt( dot( values, 0, values, dimension() ) );
+    }
+
+    /**
+     * @param other an embedding of the same dimension
+     * @return the cosine similarity, 0 if one of the embeddings is a zero vector
+     */
+    public float cosineSimilarity( Embedding other ) {
+        requireSameDimension( other );
+        final float norms = norm() * other.norm();
+        return ( norms == 0f ) ? 0f : dot( other ) / norms;
+    }
+
+    /**
+     * @return the embedding scaled to unit norm, stored as this one ( heap or off-heap )
+     */
+    public Embedding normalize() {
+        final float norm = norm();
+        final var result = toArray();
+        if( norm != 0f ) {
+            for( int i = 0; i < result.length; ++i ) {
+                result[i] /= norm;
+            }
+        }
+        return isOffHeap() ? offHeap( result ) : new Embedding( FloatBuffer.wrap( result ) );
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if( this == o ) return true;
+        if( !( o instanceof Embedding other ) ) return false;
+        return values.duplicate().rewind().equals( other.values.duplicate().rewind() );
+    }
+
+    @Override
+    public int hashCode() {
+        return values.duplicate().rewind().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return format( "Embedding{ dimension=%d%s }", dimension(), isOffHeap() ? ", offHeap" : "" );
+    }
+
+    private record SerializedForm( float[] values, boolean offHeap ) implements Serializable {
+        @Serial
+        private Object readResolve() {
+            return offHeap ? Embedding.offHeap( values ) : Embedding.of( values );
+        }
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new SerializedForm( toArray(), isOffHeap() );
+    }
+}
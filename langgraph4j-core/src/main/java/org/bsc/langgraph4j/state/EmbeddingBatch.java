@@ -0,0 +1,190 @@
+package org.bsc.langgraph4j.state;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Immutable set of embeddings of the same dimension packed in a single buffer, row after row,
+ * to compute the similarity of a query with all of them without boxing.
+ */
+public final class EmbeddingBatch {
+
+    private final FloatBuffer matrix;
+    private final int dimension;
+    private final int size;
+    private final float[] norms;
+
+    private EmbeddingBatch( FloatBuffer matrix, int dimension, int size ) {
+        this.matrix = matrix;
+        this.dimension = dimension;
+        this.size = size;
+        this.norms = new float[size];
+        for( int row = 0; row < size; ++row ) {
+            final int offset = row * dimension;
+            float sum = 0f;
+            for( int i = 0; i < dimension; ++i ) {
+                float value = matrix.get( offset + i );
+                sum += value * value;
+            }
+            norms[row] = (float)Math.sqrt( sum );
+        }
+    }
+
+    /**
+     * Packs the given embeddings
+     *
+     * @param embeddings the embeddings, all of the same dimension
+     * @param offHeap true to store the values out of the java heap
+     * @return the batch
+     */
+    public static EmbeddingBatch of( List<Embedding> embeddings, boolean offHeap ) {
+        Objects.requireNonNull( embeddings, "embeddings cannot be null" );
+        final int dimension = embeddings.isEmpty() ? 0 : embeddings.get(0).dimension();
+        final int length = Math.multiplyExact( dimension, embeddings.size() );
+        final var matrix = offHeap ?
+                ByteBuffer.allocateDirect( Math.multiplyExact( length, Float.BYTES ) ).order( ByteOrder.nativeOrder() ).asFloatBuffer() :
+                FloatBuffer.allocate( length );
+        for( var embedding : embeddings ) {
+            Objects.requireNonNull( embedding, "embedding cannot be null" );
+            if( embedding.dimension() != dimension ) {
+                throw new IllegalArgumentException( format("dimension mismatch %d != %d", dimension, embedding.dimension()) );
+            }
+            matrix.put( embedding.buffer().rewind() );
+        }
+        return new EmbeddingBatch( matrix.flip(), dimension, embeddings.size() );
+    }
+
+    /**
+     * Packs the given embeddings on the heap
+     *
+     * @param embeddings the embeddings, all of the same dimension
+     * @return the batch
+     */
+    public static EmbeddingBatch of( List<Embedding> embeddings ) {
+        return of( embeddings, false );
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public boolean isOffHeap() {
+        return matrix.isDirect();
+    }
+
+    /**
+     * @param index the row index
+     * @return the embedding at the given row, a view sharing the batch buffer
+     */
+    public Embedding get( int index ) {
+        Objects.checkIndex( index, size );
+        return Embedding.wrap( matrix.slice( index * dimension, dimension ) );
+    }
+
+    /**
+     * @return the embeddings of the batch, views sharing the batch buffer
+     */
+    public List<Embedding> toList() {
+        return new AbstractList<>() {
+            @Override
+            public Embedding get( int index ) {
+                return EmbeddingBatch.this.get( index );
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private FloatBuffer requireQuery( Embedding query ) {
+        Objects.requireNonNull( query, "query cannot be null" );
+        if( size > 0 && query.dimension() != dimension ) {
+            throw new IllegalArgumentException( format("dimension mismatch %d != %d", dimension, query.dimension()) );
+        }
+        return query.buffer();
+    }
+
+    /**
+     * @param query an embedding of the same dimension
+     * @return the dot product of the query with each embedding of the batch
+     */
+    public float[] dot( Embedding query ) {
+        final var q = requireQuery( query );
+        final var result = new float[size];
+        for( int row = 0; row < size; ++row ) {
+            result[row] = Embedding.dot( matrix, row * dimension, q, dimension );
+        }
+        return result;
+    }
+
+    /**
+     * @param query an embedding of the same dimension
+     * @return the cosine similarity of the query with each embedding of the batch
+     */
+    public float[] cosineSimilarity( Embedding query ) {
+        final var result = dot( query );
+        final float queryNorm = query.norm();
+        for( int row = 0; row < size; ++row ) {
+            final float norms = this.norms[row] * queryNorm;
+            result[row] = ( norms == 0f ) ? 0f : result[row] / norms;
+        }
+        return result;
+    }
+
+    /**
+     * @param query an embedding of the same dimension
+     * @param k the max number of results
+     * @return the indexes of the {@code k} embeddings most similar to the query, from the most similar
+     */
+    public int[] topK( Embedding query, int k ) {
+        if( k < 0 ) {
+            throw new IllegalArgumentException( format("k must be >= 0 but is %d", k) );
+        }
+        final var scores = cosineSimilarity( query );
+        final int count = Math.min( k, size );
+        // partial selection, k is usually small
+        final var result = new int[count];
+        final var taken = new boolean[size];
+        for( int i = 0; i < count; ++i ) {
+            int best = -1;
+            for( int row = 0; row < size; ++row ) {
+                if( !taken[row] && ( best < 0 || scores[row] > scores[best] ) ) {
+                    best = row;
+                }
+            }
+            taken[best] = true;
+            result[i] = best;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return format( "EmbeddingBatch{ size=%d, dimension=%d%s }", size, dimension, isOffHeap() ? ", offHeap" : "" );
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if( this == o ) return true;
+        if( !( o instanceof EmbeddingBatch other ) ) return false;
+        return size == other.size && dimension == other.dimension && matrix.equals( other.matrix );
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode( new int[] { size, dimension } ) + matrix.hashCode();
+    }
+}
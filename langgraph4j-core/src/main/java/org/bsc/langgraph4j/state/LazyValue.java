@@ -0,0 +1,33 @@
+package org.bsc.langgraph4j.state;
+
+/**
+ * Represents a state value whose content is resolved only when accessed.
+ * <p>
+ * {@link AgentState#value(String)} transparently resolves lazy values, while {@link AgentState#data()}
+ * exposes them as they are, so that they can be serialized again without being loaded.
+ * </p>
+ *
+ * @param <T> the type of the resolved value
+ */
+public interface LazyValue<T> {
+
+    /**
+     * Resolves the value
+     *
+     * @return the resolved value
+     */
+    T resolve();
+
+    /**
+     * Resolves the given object if it is a {@link LazyValue}
+     *
+     * @param value the value to resolve
+     * @return the resolved value or the given one if it is not lazy
+     */
+    static Object resolve( Object value ) {
+        if( value instanceof LazyValue<?> lazyValue ) {
+            return lazyValue.resolve();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,169 @@
+package org.bsc.langgraph4j.state;
+
+import java.util.*;
+
+/**
+ * Provides deeply read-only views over state values without copying them.
+ * <p>
+ * {@link List}, {@link Set} and {@link Map} values are wrapped in views that throw
+ * {@link UnsupportedOperationException} on any mutation and that wrap their nested collections on access.
+ * Other values are returned as they are, so they should be immutable (e.g. strings, numbers, messages).
+ * </p>
+ */
+public final class ReadOnlyView {
+
+    private ReadOnlyView() {}
+
+    /**
+     * Creates a read-only view of the given state data
+     *
+     * @param data the state data
+     * @return a new map holding a read-only view of each value
+     */
+    public static Map<String,Object> of( Map<String,Object> data ) {
+        Objects.requireNonNull( data, "data cannot be null" );
+        final var result = new HashMap<String,Object>( data.size() );
+        for( var entry : data.entrySet() ) {
+            result.put( entry.getKey(), of( entry.getValue() ) );
+        }
+        return result;
+    }
+
+    /**
+     * Creates a read-only view of the given value
+     *
+     * @param value the value
+     * @return the read-only view if the value is a collection, otherwise the value itself
+     */
+    @SuppressWarnings("unchecked")
+    public static Object of( Object value ) {
+        if( value instanceof ListView<?> || value instanceof SetView<?> || value instanceof MapView<?,?> ) {
+            return value;
+        }
+        if( value instanceof List<?> list ) {
+            return ( list instanceof RandomAccess ) ? new RandomAccessListView<>( (List<Object>)list ) : new ListView<>( (List<Object>)list );
+        }
+        if( value instanceof Set<?> set ) {
+            return new SetView<>( (Set<Object>)set );
+        }
+        if( value instanceof Map<?,?> map ) {
+            return new MapView<>( (Map<Object,Object>)map );
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T view( T value ) {
+        return (T)of( value );
+    }
+
+    static class ListView<T> extends AbstractList<T> {
+        private final List<T> list;
+
+        ListView( List<T> list ) {
+            this.list = list;
+        }
+
+        @Override
+        public T get(int index) {
+            return view( list.get(index) );
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+    }
+
+    static final class RandomAccessListView<T> extends ListView<T> implements RandomAccess {
+        RandomAccessListView( List<T> list ) {
+            super(list);
+        }
+    }
+
+    static final class SetView<T> extends AbstractSet<T> {
+        private final Set<T> set;
+
+        SetView( Set<T> set ) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set.contains(o);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ViewIterator<>( set.iterator() );
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+
+    static final class MapView<K,V> extends AbstractMap<K,V> {
+        private final Map<K,V> map;
+
+        MapView( Map<K,V> map ) {
+            this.map = map;
+        }
+
+        @Override
+        public V get(Object key) {
+            return view( map.get(key) );
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    final var iterator = map.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<K, V> next() {
+                            var entry = iterator.next();
+                            return new SimpleImmutableEntry<>( entry.getKey(), view( entry.getValue() ) );
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+            };
+        }
+    }
+
+    private record ViewIterator<T>( Iterator<T> iterator ) implements Iterator<T> {
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return view( iterator.next() );
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.bsc.langgraph4j;
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
 import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.serializer.std.SerializerMapper;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
@@ -141,4 +142,55 @@ public class SerializeTest {
     }
 
 
+    interface Message {}
+    static class BaseMessage implements Message {}
+    static class AiMessage extends BaseMessage {}
+
+    static class NamedSerializer<T> implements Serializer<T> {
+        final String name;
+
+        NamedSerializer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void write(T object, ObjectOutput out) {}
+
+        @Override
+        public T read(ObjectInput in) {
+            return null;
+        }
+    }
+
+    private static String serializerName( SerializerMapper mapper, Class<?> type ) {
+        return mapper.getSerializer(type)
+                .map( s -> ((NamedSerializer<?>)s).name )
+                .orElse( null );
+    }
+
+    @Test
+    public void serializerResolutionTest() {
+
+        var mapper = new SerializerMapper()
+                .register( Message.class, new NamedSerializer<Message>("message") )
+                .register( BaseMessage.class, new NamedSerializer<BaseMessage>("base") );
+
+        // most specific super type wins whatever the registration order
+        assertEquals( "base", serializerName( mapper, AiMessage.class ) );
+        assertEquals( "base", serializerName( mapper, BaseMessage.class ) );
+        assertTrue( mapper.getSerializer( String.class ).isEmpty() );
+        assertTrue( mapper.getSerializer( BaseMessage.class.getName() ).isPresent() );
+
+        // cached resolutions are invalidated on register
+        mapper.register( AiMessage.class, new NamedSerializer<AiMessage>("ai") );
+        assertEquals( "ai", serializerName( mapper, AiMessage.class ) );
+
+        // ... and on unregister
+        assertTrue( mapper.unregister( AiMessage.class ) );
+        assertFalse( mapper.unregister( AiMessage.class ) );
+        assertEquals( "base", serializerName( mapper, AiMessage.class ) );
+        assertTrue( mapper.unregister( BaseMessage.class ) );
+        assertEquals( "message", serializerName( mapper, AiMessage.class ) );
+    }
+
 }
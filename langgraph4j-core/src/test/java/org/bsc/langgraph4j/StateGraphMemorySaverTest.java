@@ -460,4 +460,57 @@ public class StateGraphMemorySaverTest
 
     }
 
+    @Test
+    public void testStateHistoryDiff() throws Exception {
+
+        var workflow = new StateGraph<>(State.SCHEMA, State::new)
+                .addEdge(START, "agent")
+                .addNode("agent", node_async(agent_whether))
+                .addNode("tools", node_async(tool_whether))
+                .addConditionalEdges("agent", edge_async(shouldContinue_whether),
+                        Map.of("tools", "tools", END, END))
+                .addEdge("tools", "agent");
+
+        var app = workflow.compile( CompileConfig.builder()
+                .checkpointSaver( new MemorySaver() )
+                .build() );
+
+        var runnableConfig = RunnableConfig.builder().threadId("diff").build();
+
+        app.invoke( Map.of( "messages", "whether in Naples?" ), runnableConfig );
+
+        var history = app.getStateHistory( runnableConfig ).stream().toList();
+        var diffs = app.getStateHistoryDiff( runnableConfig ).toList();
+
+        assertEquals( history.size(), diffs.size() );
+
+        var oldest = diffs.get( diffs.size() - 1 );
+        assertNull( oldest.fromCheckpointId() );
+        assertTrue( oldest.delta().isKeyframe() );
+
+        for( int i = 0; i < diffs.size() - 1; ++i ) {
+            var diff = diffs.get(i);
+            assertEquals( history.get(i).config().checkPointId().orElseThrow(), diff.toCheckpointId() );
+            assertEquals( history.get(i+1).config().checkPointId().orElseThrow(), diff.fromCheckpointId() );
+            assertEquals( history.get(i).node(), diff.nodeId() );
+        }
+
+        // the "tools" node appends a message
+        var toolsDiff = diffs.stream().filter( d -> "tools".equals(d.nodeId()) ).findFirst().orElseThrow();
+        assertEquals( java.util.List.of("temperature in Napoli is 30 degree"), toolsDiff.delta().appended().get("messages") );
+        assertTrue( toolsDiff.delta().changed().isEmpty() );
+
+        // diff between the first and the last checkpoint
+        var first = history.get( history.size() - 1 ).config().checkPointId().orElseThrow();
+        var last = history.get(0).config().checkPointId().orElseThrow();
+        var diff = app.diffState( runnableConfig, first, last ).orElseThrow();
+
+        var lastMessages = history.get(0).state().messages();
+        var firstMessages = history.get( history.size() - 1 ).state().messages();
+        assertEquals( lastMessages.subList( firstMessages.size(), lastMessages.size() ), diff.delta().appended().get("messages") );
+        assertEquals( java.util.Set.of("messages"), diff.channels() );
+
+        assertTrue( app.diffState( runnableConfig, first, "unknown" ).isEmpty() );
+    }
+
 }
@@ -5,6 +5,7 @@ import org.bsc.langgraph4j.action.AsyncCommandAction;
 import org.bsc.langgraph4j.action.AsyncNodeAction;
 import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
 import org.bsc.langgraph4j.action.Command;
+import org.bsc.langgraph4j.action.NodeAction;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
 import org.bsc.langgraph4j.state.*;
 import org.bsc.langgraph4j.utils.EdgeMappings;
@@ -542,4 +543,48 @@ public class StateGraphTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void testReadOnlyState() throws Exception {
+
+        var mutationErrors = new ArrayList<String>();
+
+        NodeAction<MessagesState<Object>> tryMutate = state -> {
+            var nested = state.<Map<String,List<String>>>value("nested").orElseThrow();
+            try {
+                nested.get("list").add("x");
+            }
+            catch( UnsupportedOperationException ex ) {
+                mutationErrors.add( "nested" );
+            }
+            try {
+                state.messages().add("x");
+            }
+            catch( UnsupportedOperationException ex ) {
+                mutationErrors.add( "messages" );
+            }
+            return Map.of( "messages", "done" );
+        };
+
+        var workflow = new StateGraph<MessagesState<Object>>( MessagesState.SCHEMA, MessagesState::new )
+                .addNode( "read_only", node_async( tryMutate ) )
+                .addNode( "mutable", node_async( tryMutate ) )
+                .addEdge( START, "read_only" )
+                .addEdge( "read_only", "mutable" )
+                .addEdge( "mutable", END );
+
+        var app = workflow.compile( CompileConfig.builder()
+                .readOnlyState( true )
+                .mutableStateNodes( "mutable" )
+                .build() );
+
+        var nested = new HashMap<String,Object>();
+        nested.put( "list", new ArrayList<>( List.of("a") ) );
+
+        var result = app.invoke( Map.of( "messages", "hello", "nested", nested ) ).orElseThrow();
+
+        assertEquals( List.of( "nested", "messages" ), mutationErrors );
+        assertEquals( List.of( "hello", "done" ), result.messages() );
+        assertEquals( List.of( "a" ), result.<Map<String,List<String>>>value("nested").orElseThrow().get("list") );
+    }
+
+}
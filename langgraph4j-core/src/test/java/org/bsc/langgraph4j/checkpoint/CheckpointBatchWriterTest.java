@@ -0,0 +1,194 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointBatchWriterTest {
+
+    private static final int THREADS = 16;
+    private static final int STEPS = 200;
+
+    record Write( int thread, int step ) {
+        String threadId() {
+            return "thread-" + thread;
+        }
+    }
+
+    /**
+     * committer simulating a database, each commit costs a round trip
+     */
+    static class Store implements CheckpointBatchWriter.Committer<Write> {
+        final Map<Integer,List<Integer>> stepsByThread = new HashMap<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public synchronized void commit( List<Write> batch ) throws Exception {
+            Thread.sleep( 1 );
+            batchSizes.add( batch.size() );
+            for( var write : batch ) {
+                stepsByThread.computeIfAbsent( write.thread(), k -> new ArrayList<>() ).add( write.step() );
+            }
+        }
+
+        synchronized int committed() {
+            return stepsByThread.values().stream().mapToInt( List::size ).sum();
+        }
+    }
+
+    private static void submitAll( CheckpointBatchWriter<Write> writer ) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for( int thread = 0; thread < THREADS; ++thread ) {
+                final int t = thread;
+                futures.add( executor.submit( () -> {
+                    for( int step = 0; step < STEPS; ++step ) {
+                        writer.submit( new Write( t, step ) );
+                    }
+                    return null;
+                } ) );
+            }
+            for( var future : futures ) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void orderedBatchesTest() throws Exception {
+        var store = new Store();
+        try( var writer = new CheckpointBatchWriter<>( "test-writer", 64, Write::threadId, store ) ) {
+            submitAll( writer );
+            writer.flush();
+            assertEquals( THREADS * STEPS, store.committed() );
+        }
+
+        // the writes of each thread are committed in submission order
+        var expected = new ArrayList<Integer>();
+        for( int step = 0; step < STEPS; ++step ) {
+            expected.add( step );
+        }
+        for( int thread = 0; thread < THREADS; ++thread ) {
+            assertEquals( expected, store.stepsByThread.get( thread ) );
+        }
+        // batched across threads
+        assertTrue( store.batchSizes.stream().allMatch( size -> size <= 64 ) );
+        assertTrue( store.batchSizes.size() < THREADS * STEPS );
+    }
+
+    @Test
+    public void closeCommitsPendingWritesTest() throws Exception {
+        var store = new Store();
+        var writer = new CheckpointBatchWriter<>( "test-writer", CheckpointBatchWriter.DEFAULT_MAX_BATCH_SIZE, Write::threadId, store );
+        for( int step = 0; step < STEPS; ++step ) {
+            writer.submit( new Write( 0, step ) );
+        }
+        writer.close();
+        assertEquals( STEPS, store.committed() );
+
+        assertThrows( IllegalStateException.class, () -> writer.submit( new Write( 0, STEPS ) ) );
+        // closing again does nothing
+        writer.close();
+    }
+
+    @Test
+    public void stoppedWriterTest() throws Exception {
+        var started = new CountDownLatch( 1 );
+        var store = new Store() {
+            @Override
+            public synchronized void commit( List<Write> batch ) throws Exception {
+                started.countDown();
+                try {
+                    new CountDownLatch( 1 ).await();
+                }
+                catch( InterruptedException ex ) {
+                    // stops the writer thread
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        };
+        var writer = new CheckpointBatchWriter<>( "stopped-writer", 1, Write::threadId, store );
+        writer.submit( new Write( 0, 0 ) );
+        started.await();
+        for( int step = 1; step < 10; ++step ) {
+            writer.submit( new Write( 0, step ) );
+        }
+
+        var writerThread = Thread.getAllStackTraces().keySet().stream()
+                .filter( thread -> thread.getName().equals( "stopped-writer" ) )
+                .findFirst()
+                .orElseThrow();
+        writerThread.interrupt();
+        writerThread.join();
+
+        // the writes left in the queue are reported, without blocking
+        assertTimeoutPreemptively( Duration.ofSeconds( 10 ), () -> {
+            var ex = assertThrows( IllegalStateException.class, writer::flush );
+            assertTrue( ex.getMessage().contains( "9 writes not committed" ), ex::getMessage );
+            assertThrows( IllegalStateException.class, writer::close );
+        });
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        var failing = new AtomicBoolean( true );
+        var store = new Store() {
+            @Override
+            public synchronized void commit( List<Write> batch ) throws Exception {
+                if( failing.get() ) {
+                    throw new IOException( "unavailable" );
+                }
+                super.commit( batch );
+            }
+        };
+        var writer = new CheckpointBatchWriter<>( "test-writer", 10, Write::threadId, store );
+        writer.submit( new Write( 0, 0 ) );
+
+        var ex = assertThrows( IllegalStateException.class, writer::flush );
+        assertInstanceOf( IOException.class, ex.getCause() );
+
+        // the failure is not sticky: the writes of the other threads are committed
+        failing.set( false );
+        writer.submit( new Write( 1, 0 ) );
+        writer.flush();
+        writer.flush( "thread-1" );
+        assertEquals( List.of( 0 ), store.stepsByThread.get( 1 ) );
+
+        // the writes of the failed thread are discarded until it is reset
+        writer.submit( new Write( 0, 1 ) );
+        assertThrows( IllegalStateException.class, writer::flush );
+        assertNull( store.stepsByThread.get( 0 ) );
+
+        // the failure is reported once to the thread
+        ex = assertThrows( IllegalStateException.class, () -> writer.flush( "thread-0" ) );
+        assertInstanceOf( IOException.class, ex.getCause() );
+        writer.flush( "thread-0" );
+
+        // once reset, e.g. reloaded from the database, the writes of the thread are committed again
+        assertTrue( writer.reset( "thread-0" ) );
+        assertFalse( writer.reset( "thread-0" ) );
+        writer.submit( new Write( 0, 2 ) );
+        writer.flush();
+        assertEquals( List.of( 2 ), store.stepsByThread.get( 0 ) );
+        assertFalse( writer.reset( "thread-1" ) );
+
+        writer.close();
+        assertThrows( IllegalStateException.class, () -> writer.submit( new Write( 0, 3 ) ) );
+
+        assertThrows( IllegalArgumentException.class, () -> new CheckpointBatchWriter<Write>( "test-writer", 0, Write::threadId, batch -> {} ) );
+    }
+}
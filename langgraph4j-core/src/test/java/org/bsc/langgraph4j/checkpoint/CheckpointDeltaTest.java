@@ -0,0 +1,258 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointDeltaTest {
+
+    @Test
+    public void diffAndApplyTest() {
+
+        var parentState = Map.<String,Object>of( "a", "1", "b", List.of("x"), "c", 3, "e", List.of("z") );
+        var state = Map.<String,Object>of( "a", "1", "b", List.of("x", "y"), "d", 4, "e", List.of("w") );
+
+        var delta = CheckpointDelta.of( "parent", parentState, state );
+
+        assertFalse( delta.isKeyframe() );
+        assertEquals( "parent", delta.parentId() );
+        assertEquals( Set.of("d", "e"), delta.changed().keySet() );
+        assertEquals( Map.of("b", List.of("y")), delta.appended() );
+        assertEquals( Set.of("c"), delta.removed() );
+        assertEquals( state, delta.applyTo( parentState ) );
+
+        var keyframe = CheckpointDelta.keyframe( state );
+        assertTrue( keyframe.isKeyframe() );
+        assertEquals( state, keyframe.applyTo( null ) );
+    }
+
+    @Test
+    public void keyframeIntervalTest() {
+        assertTrue( CheckpointDelta.isKeyframe( 0, 3 ) );
+        assertFalse( CheckpointDelta.isKeyframe( 1, 3 ) );
+        assertFalse( CheckpointDelta.isKeyframe( 2, 3 ) );
+        assertTrue( CheckpointDelta.isKeyframe( 3, 3 ) );
+        assertTrue( CheckpointDelta.isKeyframe( 5, 1 ) );
+        assertThrows( IllegalArgumentException.class, () -> CheckpointDelta.requireValidKeyframeInterval(0) );
+    }
+
+    @Test
+    public void keyframeIntervalWithRetentionTest() throws Exception {
+        final int interval = 3;
+        final var deltas = new ArrayList<CheckpointDelta>();
+
+        // stores the deltas as the database savers do, while only the two newest checkpoints are held in memory
+        var saver = new MemorySaver( CheckpointRetention.builder().maxCheckpointsPerThread( 2 ).build() ) {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+                var parent = ( checkpoints.size() > 1 ) ? checkpoints.get(1) : null;
+                var delta = CheckpointDelta.of( interval, parent, checkpoint );
+                checkpoint.storedDelta( delta, parent );
+                deltas.add( delta );
+            }
+        };
+        var config = RunnableConfig.builder().threadId( "retention" ).build();
+        for( int step = 0; step < 20; ++step ) {
+            saver.put( config, Checkpoint.builder().nodeId( "node_" + step ).nextNodeId( "node_" + ( step + 1 ) )
+                    .state( Map.of( "step", step ) ).build() );
+        }
+        assertEquals( 2, saver.list( config ).size() );
+        assertEquals( 20, deltas.size() );
+        // the keyframes follow the interval, even if the thread held in memory doesn't grow
+        for( int step = 0; step < deltas.size(); ++step ) {
+            assertEquals( step % interval == 0, deltas.get(step).isKeyframe(), "step " + step );
+        }
+
+        // a parent whose distance from the keyframe is unknown is followed by a keyframe
+        var parent = Checkpoint.builder().nodeId( "a" ).nextNodeId( "b" ).state( Map.of( "step", 0 ) ).build();
+        var child = Checkpoint.builder().nodeId( "b" ).nextNodeId( "c" ).state( Map.of( "step", 1 ) ).build();
+        assertTrue( CheckpointDelta.of( interval, parent, child ).isKeyframe() );
+        parent.storedDelta( CheckpointDelta.keyframe( parent.getState() ), (Checkpoint) null );
+        assertFalse( CheckpointDelta.of( interval, parent, child ).isKeyframe() );
+        assertTrue( CheckpointDelta.of( 1, parent, child ).isKeyframe() );
+    }
+
+    @Test
+    public void rebuildTest() {
+        var deltas = new HashMap<String,CheckpointDelta>();
+        deltas.put( "3", new CheckpointDelta( "2", Map.of("step", 3), Map.of(), Set.of("tmp") ) );
+        deltas.put( "1", CheckpointDelta.keyframe( Map.of("step", 1, "input", "test") ) );
+        deltas.put( "2", new CheckpointDelta( "1", Map.of("step", 2, "tmp", "x"), Map.of(), Set.of() ) );
+
+        var states = CheckpointDelta.rebuild( deltas );
+
+        assertEquals( Map.of("step", 1, "input", "test"), states.get("1") );
+        assertEquals( Map.of("step", 2, "input", "test", "tmp", "x"), states.get("2") );
+        assertEquals( Map.of("step", 3, "input", "test"), states.get("3") );
+
+        deltas.remove("1");
+        assertThrows( IllegalStateException.class, () -> CheckpointDelta.rebuild( deltas ) );
+    }
+
+    @Test
+    public void fileSystemSaverWithDeltasTest() throws Exception {
+        var folder = Paths.get( "target", "checkpoint", "fileSystemSaverWithDeltasTest" );
+        var stateSerializer = new ObjectStreamStateSerializer<>( AgentState::new );
+
+        var saver = FileSystemSaver.builder()
+                .targetFolder( folder )
+                .stateSerializer( stateSerializer )
+                .keyframeInterval( 3 )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("delta").build();
+        saver.deleteFile( config );
+
+        var expected = new ArrayList<Map<String,Object>>();
+        var messages = new ArrayList<String>();
+        for( int step = 0; step < 10; ++step ) {
+            messages.add( "message " + step );
+            var state = new HashMap<String,Object>();
+            state.put( "step", step );
+            state.put( "messages", new ArrayList<>(messages) );
+            state.put( "input", "test" );
+            if( step % 2 == 0 ) {
+                state.put( "even", true );
+            }
+            expected.add( 0, state );
+            saver.put( config, Checkpoint.builder()
+                    .nodeId( "node_" + step )
+                    .nextNodeId( "node_" + (step + 1) )
+                    .state( state )
+                    .build() );
+        }
+
+        var fileSize = Files.size( saver.getPath( config ) );
+
+        var fullStateSaver = new FileSystemSaver( folder, stateSerializer, 1 );
+        var fullStateConfig = RunnableConfig.builder().threadId("full").build();
+        fullStateSaver.deleteFile( fullStateConfig );
+        var checkpoints = new ArrayList<>(saver.list(config));
+        Collections.reverse( checkpoints );
+        for( var checkpoint : checkpoints ) {
+            fullStateSaver.put( fullStateConfig, checkpoint );
+        }
+        assertTrue( fileSize < Files.size( fullStateSaver.getPath( fullStateConfig ) ) );
+
+        // reload from file
+        var reloaded = new FileSystemSaver( folder, stateSerializer ).list( config );
+
+        assertEquals( 10, reloaded.size() );
+        int index = 0;
+        for( var checkpoint : reloaded ) {
+            var step = 9 - index;
+            assertEquals( "node_" + step, checkpoint.getNodeId() );
+            assertEquals( "node_" + (step + 1), checkpoint.getNextNodeId() );
+            assertEquals( expected.get(index), checkpoint.getState() );
+            ++index;
+        }
+
+        saver.deleteFile( config );
+        fullStateSaver.deleteFile( fullStateConfig );
+    }
+
+    @Test
+    public void fileSystemSaverContentTypeTest() throws Exception {
+        var folder = Paths.get( "target", "checkpoint", "fileSystemSaverContentTypeTest" );
+        var jsonSerializer = new JacksonStateSerializer<AgentState>( AgentState::new ) {};
+        var smileSerializer = new JacksonStateSerializer<AgentState>( AgentState::new, JacksonFormat.SMILE ) {};
+
+        var config = RunnableConfig.builder().threadId("content-type").build();
+
+        var jsonSaver = new FileSystemSaver( folder, jsonSerializer );
+        jsonSaver.deleteFile( config );
+        jsonSaver.put( config, Checkpoint.builder()
+                .nodeId( "node_1" )
+                .nextNodeId( "node_2" )
+                .state( Map.of( "step", 1 ) )
+                .build() );
+
+        // the file written as JSON cannot be read as Smile ...
+        var ex = assertThrows( RuntimeException.class,
+                () -> new FileSystemSaver( folder, smileSerializer ).list( config ) );
+        assertInstanceOf( IllegalStateException.class, ex.getCause() );
+
+        // ... unless the JSON serializer is accepted to read it
+        var smileSaver = FileSystemSaver.builder()
+                .targetFolder( folder )
+                .stateSerializer( smileSerializer )
+                .readSerializer( jsonSerializer )
+                .build();
+        assertEquals( Map.of( "step", 1 ), smileSaver.get( config ).orElseThrow().getState() );
+
+        smileSaver.put( config, Checkpoint.builder()
+                .nodeId( "node_2" )
+                .nextNodeId( "node_3" )
+                .state( Map.of( "step", 2 ) )
+                .build() );
+
+        // new writes use Smile
+        ex = assertThrows( RuntimeException.class,
+                () -> new FileSystemSaver( folder, jsonSerializer ).list( config ) );
+        assertInstanceOf( IllegalStateException.class, ex.getCause() );
+        var reloaded = new FileSystemSaver( folder, smileSerializer ).list( config );
+        assertEquals( 2, reloaded.size() );
+        assertEquals( Map.of( "step", 2 ), reloaded.iterator().next().getState() );
+
+        smileSaver.deleteFile( config );
+    }
+
+    @Test
+    public void fileSystemSaverCompressionTest() throws Exception {
+        var folder = Paths.get( "target", "checkpoint", "fileSystemSaverCompressionTest" );
+        var stateSerializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var config = RunnableConfig.builder().threadId("compression").build();
+
+        var messages = new ArrayList<String>();
+        for( int i = 0; i < 100; ++i ) {
+            messages.add( "this is the message number " + i + " of the conversation" );
+        }
+
+        var saver = new FileSystemSaver( folder, stateSerializer );
+        var file = saver.getPath( config );
+        saver.deleteFile( config );
+        saver.put( config, Checkpoint.builder()
+                .nodeId( "node_1" )
+                .nextNodeId( "node_2" )
+                .state( Map.of( "messages", messages ) )
+                .build() );
+        var uncompressedSize = Files.size( file );
+
+        var compressor = PayloadCompressor.builder().build();
+        var compressedSaver = FileSystemSaver.builder()
+                .targetFolder( folder )
+                .stateSerializer( stateSerializer )
+                .keyframeInterval( 1 )
+                .compressor( compressor )
+                .build();
+
+        // uncompressed file is still readable
+        assertEquals( messages, compressedSaver.get( config ).orElseThrow().getState().get("messages") );
+
+        compressedSaver.put( config, Checkpoint.builder()
+                .nodeId( "node_2" )
+                .nextNodeId( "node_3" )
+                .state( Map.of( "messages", messages, "step", 2 ) )
+                .build() );
+        // the new keyframe is compressed, the existing payload is copied as it is
+        assertTrue( Files.size( file ) < 2 * uncompressedSize - uncompressedSize / 2 );
+        assertEquals( 1, compressor.metrics().compressed() );
+
+        // compressed file is readable without compressor
+        var reloaded = new FileSystemSaver( folder, stateSerializer ).list( config );
+        assertEquals( 2, reloaded.size() );
+        assertEquals( Map.of( "messages", messages, "step", 2 ), reloaded.iterator().next().getState() );
+
+        saver.deleteFile( config );
+    }
+}
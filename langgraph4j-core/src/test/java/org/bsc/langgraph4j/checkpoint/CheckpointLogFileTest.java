@@ -0,0 +1,184 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointLogFileTest {
+
+    private static Map<String,Object> stateOf( int step ) {
+        var messages = new ArrayList<String>();
+        for( int i = 0; i <= step; ++i ) {
+            messages.add( "message " + i );
+        }
+        return Map.of( "step", step, "messages", messages );
+    }
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .id( "checkpoint-" + step )
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( stateOf( step ) )
+                .build();
+    }
+
+    private static FileSystemSaver newSaver( String name ) {
+        return FileSystemSaver.builder()
+                .targetFolder( Paths.get( "target", "checkpoint", name ) )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .keyframeInterval( 10 )
+                .build();
+    }
+
+    private static Path fileOf( String name, String threadId ) {
+        return newSaver( name ).getPath( RunnableConfig.builder().threadId( threadId ).build() );
+    }
+
+    @Test
+    public void appendOnlyTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("append").build();
+        var saver = newSaver( "appendOnlyTest" );
+        saver.deleteFile( config );
+        var file = fileOf( "appendOnlyTest", "append" );
+
+        final int steps = 200;
+        byte[] previous = new byte[0];
+        for( int step = 0; step < steps; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+            var content = Files.readAllBytes( file );
+            // each put only appends to the file
+            assertArrayEquals( previous, Arrays.copyOf( content, previous.length ) );
+            previous = content;
+        }
+        assertEquals( steps, CheckpointLogFile.read( file ).records().size() );
+
+        var checkpoints = List.copyOf( newSaver( "appendOnlyTest" ).list( config ) );
+        assertEquals( steps, checkpoints.size() );
+        for( int i = 0; i < steps; ++i ) {
+            assertEquals( stateOf( steps - 1 - i ), checkpoints.get(i).getState() );
+        }
+
+        saver.deleteFile( config );
+    }
+
+    @Test
+    public void incompleteRecordTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("torn").build();
+        var saver = newSaver( "incompleteRecordTest" );
+        saver.deleteFile( config );
+        var file = fileOf( "incompleteRecordTest", "torn" );
+
+        for( int step = 0; step < 5; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+        // write interrupted in the middle of the last record
+        long size = Files.size( file );
+        try( var channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+            channel.truncate( size - 3 );
+        }
+
+        var reloaded = newSaver( "incompleteRecordTest" );
+        var checkpoints = List.copyOf( reloaded.list( config ) );
+        assertEquals( 4, checkpoints.size() );
+        assertEquals( "checkpoint-3", checkpoints.get(0).getId() );
+
+        // next record overwrites the incomplete one
+        reloaded.put( config, checkpointOf( 5 ) );
+        var log = CheckpointLogFile.read( file );
+        assertEquals( log.size(), log.length() );
+        var result = List.copyOf( newSaver( "incompleteRecordTest" ).list( config ) );
+        assertEquals( List.of( "checkpoint-5", "checkpoint-3", "checkpoint-2", "checkpoint-1", "checkpoint-0" ),
+                result.stream().map( Checkpoint::getId ).toList() );
+        assertEquals( stateOf( 5 ), result.get(0).getState() );
+
+        saver.deleteFile( config );
+    }
+
+    @Test
+    public void corruptedRecordTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("corrupted").build();
+        var saver = newSaver( "corruptedRecordTest" );
+        saver.deleteFile( config );
+        var file = fileOf( "corruptedRecordTest", "corrupted" );
+
+        for( int step = 0; step < 3; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+        var content = Files.readAllBytes( file );
+        content[ content.length - 1 ] ^= 0x5A;
+        Files.write( file, content );
+
+        var checkpoints = List.copyOf( newSaver( "corruptedRecordTest" ).list( config ) );
+        assertEquals( List.of( "checkpoint-1", "checkpoint-0" ), checkpoints.stream().map( Checkpoint::getId ).toList() );
+
+        saver.deleteFile( config );
+    }
+
+    @Test
+    public void replaceAndCompactTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("replace").build();
+        var saver = newSaver( "replaceAndCompactTest" );
+        saver.deleteFile( config );
+        var file = fileOf( "replaceAndCompactTest", "replace" );
+
+        for( int step = 0; step < 4; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+        // update of the second checkpoint, its child delta refers to the replaced record
+        var updated = RunnableConfig.builder( config ).checkPointId( "checkpoint-1" ).build();
+        saver.put( updated, Checkpoint.builder()
+                .id( "checkpoint-1" )
+                .nodeId( "node_1" )
+                .nextNodeId( "node_2" )
+                .state( Map.of( "step", 1, "messages", List.of( "updated" ) ) )
+                .build() );
+
+        var records = CheckpointLogFile.read( file ).records();
+        assertEquals( 5, records.size() );
+        assertEquals( CheckpointLogFile.Kind.REPLACE, records.get(4).kind() );
+        assertEquals( "checkpoint-1", records.get(4).replacedId() );
+
+        var checkpoints = List.copyOf( newSaver( "replaceAndCompactTest" ).list( config ) );
+        assertEquals( List.of( "checkpoint-3", "checkpoint-2", "checkpoint-1", "checkpoint-0" ),
+                checkpoints.stream().map( Checkpoint::getId ).toList() );
+        assertEquals( stateOf( 3 ), checkpoints.get(0).getState() );
+        assertEquals( stateOf( 2 ), checkpoints.get(1).getState() );
+        assertEquals( List.of( "updated" ), checkpoints.get(2).getState().get("messages") );
+
+        // half of the records are no longer live
+        var latest = RunnableConfig.builder( config ).checkPointId( "checkpoint-3" ).build();
+        for( int i = 0; i < 3; ++i ) {
+            saver.put( latest, checkpointOf( 3 ) );
+        }
+        assertEquals( 4, CheckpointLogFile.read( file ).records().size() );
+
+        saver.put( config, checkpointOf( 4 ) );
+        saver.put( latest.withCheckPointId( "checkpoint-4" ), checkpointOf( 4 ) );
+        assertEquals( 6, CheckpointLogFile.read( file ).records().size() );
+        saver.compact( config );
+        assertEquals( 5, CheckpointLogFile.read( file ).records().size() );
+
+        var result = List.copyOf( newSaver( "replaceAndCompactTest" ).list( config ) );
+        assertEquals( 5, result.size() );
+        assertEquals( stateOf( 4 ), result.get(0).getState() );
+        assertEquals( stateOf( 3 ), result.get(1).getState() );
+        assertEquals( stateOf( 2 ), result.get(2).getState() );
+        assertEquals( List.of( "updated" ), result.get(3).getState().get("messages") );
+
+        saver.deleteFile( config );
+    }
+}
@@ -0,0 +1,211 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointRetentionTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( Map.of( "step", step ) )
+                .build();
+    }
+
+    private static RunnableConfig thread( String threadId ) {
+        return RunnableConfig.builder().threadId( threadId ).build();
+    }
+
+    private void elapse( Duration duration ) {
+        ticker.addAndGet( duration.toNanos() );
+    }
+
+    @Test
+    public void maxCheckpointsPerThreadTest() throws Exception {
+        var saver = new MemorySaver( CheckpointRetention.builder()
+                .maxCheckpointsPerThread( 3 )
+                .build() );
+        var config = thread( "t1" );
+
+        String firstId = null;
+        for( int step = 0; step < 5; ++step ) {
+            var stored = saver.put( config, checkpointOf( step ) );
+            if( step == 0 ) {
+                firstId = stored.checkPointId().orElseThrow();
+            }
+        }
+
+        assertEquals( List.of( 4, 3, 2 ), saver.list( config ).stream().map( c -> c.getState().get("step") ).toList() );
+        assertTrue( saver.get( RunnableConfig.builder( config ).checkPointId( firstId ).build() ).isEmpty() );
+        assertEquals( 2, saver.retentionMetrics().trimmedCheckpoints() );
+        assertEquals( 3, saver.cachedCheckpoints() );
+
+        saver.release( config );
+        assertEquals( 0, saver.cachedCheckpoints() );
+        assertEquals( 0, saver.cachedThreads() );
+    }
+
+    @Test
+    public void idleTimeoutTest() throws Exception {
+        var saver = new MemorySaver( CheckpointRetention.builder()
+                .idleTimeout( Duration.ofMinutes( 1 ) )
+                .ticker( ticker::get )
+                .build() );
+
+        saver.put( thread( "t1" ), checkpointOf( 1 ) );
+        elapse( Duration.ofSeconds( 40 ) );
+        saver.put( thread( "t2" ), checkpointOf( 2 ) );
+        elapse( Duration.ofSeconds( 40 ) );
+        saver.put( thread( "t3" ), checkpointOf( 3 ) );
+
+        // t1 idle for 80s, t2 for 40s
+        assertEquals( 2, saver.cachedThreads() );
+        assertEquals( 1, saver.retentionMetrics().expiredThreads() );
+        assertEquals( 1, saver.retentionMetrics().evictedCheckpoints() );
+        assertEquals( 2, saver.cachedCheckpoints() );
+        // without a backing store the checkpoints of an evicted thread are lost
+        assertTrue( saver.get( thread( "t1" ) ).isEmpty() );
+        assertTrue( saver.get( thread( "t2" ) ).isPresent() );
+    }
+
+    @Test
+    public void maxThreadsEvictsLeastRecentlyUsedTest() throws Exception {
+        var saver = new MemorySaver( CheckpointRetention.builder()
+                .maxThreads( 2 )
+                .ticker( ticker::get )
+                .build() );
+
+        saver.put( thread( "t1" ), checkpointOf( 1 ) );
+        elapse( Duration.ofSeconds( 1 ) );
+        saver.put( thread( "t2" ), checkpointOf( 2 ) );
+        elapse( Duration.ofSeconds( 1 ) );
+        saver.get( thread( "t1" ) ); // t2 is now the least recently used
+        elapse( Duration.ofSeconds( 1 ) );
+        saver.put( thread( "t3" ), checkpointOf( 3 ) );
+
+        assertEquals( 2, saver.cachedThreads() );
+        assertEquals( 1, saver.retentionMetrics().evictedThreads() );
+        assertTrue( saver.get( thread( "t1" ) ).isPresent() );
+        assertTrue( saver.get( thread( "t3" ) ).isPresent() );
+    }
+
+    @Test
+    public void maxCheckpointsTest() throws Exception {
+        var saver = new MemorySaver( CheckpointRetention.builder()
+                .maxCheckpoints( 5 )
+                .ticker( ticker::get )
+                .build() );
+
+        for( var threadId : List.of( "t1", "t2", "t3" ) ) {
+            for( int step = 0; step < 2; ++step ) {
+                saver.put( thread( threadId ), checkpointOf( step ) );
+                elapse( Duration.ofSeconds( 1 ) );
+            }
+        }
+
+        assertEquals( 4, saver.cachedCheckpoints() );
+        assertEquals( 2, saver.cachedThreads() );
+        assertEquals( 1, saver.retentionMetrics().evictedThreads() );
+        assertEquals( 2, saver.retentionMetrics().evictedCheckpoints() );
+    }
+
+    @Test
+    public void fileSystemSaverReloadsEvictedThreadTest() throws Exception {
+        var folder = Paths.get( "target", "checkpoint", "fileSystemSaverReloadsEvictedThreadTest" );
+        var saver = FileSystemSaver.builder()
+                .targetFolder( folder )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .retention( CheckpointRetention.builder()
+                        .maxThreads( 1 )
+                        .ticker( ticker::get )
+                        .build() )
+                .build();
+
+        var t1 = thread( "t1" );
+        var t2 = thread( "t2" );
+        saver.deleteFile( t1 );
+        saver.deleteFile( t2 );
+
+        var ids = new ArrayList<String>();
+        for( int step = 0; step < 3; ++step ) {
+            ids.add( saver.put( t1, checkpointOf( step ) ).checkPointId().orElseThrow() );
+            elapse( Duration.ofSeconds( 1 ) );
+        }
+        saver.put( t2, checkpointOf( 10 ) );
+
+        assertEquals( 1, saver.cachedThreads() );
+        assertEquals( 1, saver.retentionMetrics().evictedThreads() );
+
+        // reloaded from its file
+        var reloaded = saver.list( t1 );
+        assertEquals( List.of( ids.get(2), ids.get(1), ids.get(0) ), reloaded.stream().map( Checkpoint::getId ).toList() );
+        assertEquals( 1, saver.get( RunnableConfig.builder( t1 ).checkPointId( ids.get(1) ).build() )
+                .orElseThrow().getState().get("step") );
+
+        saver.release( t1 );
+        saver.release( t2 );
+    }
+
+    @Test
+    public void fileSystemSaverKeepsTrimmedCheckpointsTest() throws Exception {
+        final int steps = 20;
+        final int keyframeInterval = 3;
+        var folder = Paths.get( "target", "checkpoint", "fileSystemSaverKeepsTrimmedCheckpointsTest" );
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var saver = FileSystemSaver.builder()
+                .targetFolder( folder )
+                .stateSerializer( serializer )
+                .keyframeInterval( keyframeInterval )
+                .retention( CheckpointRetention.builder()
+                        .maxCheckpointsPerThread( 2 )
+                        .build() )
+                .build();
+
+        var config = thread( "t1" );
+        saver.deleteFile( config );
+
+        // each checkpoint is updated once, so the file is compacted while the thread held in memory doesn't grow
+        for( int step = 0; step < steps; ++step ) {
+            var stored = saver.put( config, checkpointOf( step ) );
+            saver.put( stored, checkpointOf( step * 100 ) );
+        }
+        assertEquals( 2, saver.list( config ).size() );
+
+        var expected = new ArrayList<Integer>();
+        for( int step = steps - 1; step >= 0; --step ) {
+            expected.add( step * 100 );
+        }
+        var reader = new FileSystemSaver( folder, serializer );
+        assertEquals( expected, reader.list( config ).stream().map( c -> c.getState().get("step") ).toList() );
+
+        saver.compact( config );
+        saver.flush( config );
+        reader = new FileSystemSaver( folder, serializer );
+        assertEquals( expected, reader.list( config ).stream().map( c -> c.getState().get("step") ).toList() );
+
+        // the delta chains don't exceed the keyframe interval
+        var depths = new java.util.HashMap<String,Integer>();
+        for( var record : CheckpointLogFile.read( saver.getPath( config ) ).records() ) {
+            var depth = record.isKeyframe() ? 0 : depths.get( record.parentId() ) + 1;
+            assertTrue( depth < keyframeInterval );
+            depths.put( record.id(), depth );
+        }
+        assertEquals( steps, depths.size() );
+
+        saver.deleteFile( config );
+    }
+}
@@ -0,0 +1,151 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointStatePagerTest {
+
+    private static final int KEYFRAME_INTERVAL = 5;
+
+    /**
+     * stored thread of the given steps, the deltas append a message to the parent state
+     */
+    private static class Store {
+        final Map<String,CheckpointDelta> deltasById = new HashMap<>();
+        final List<CheckpointStatePager.Header> headers = new ArrayList<>();
+        final List<List<String>> queries = new ArrayList<>();
+
+        Store( int steps ) {
+            Map<String,Object> parentState = null;
+            for( int step = 0; step < steps; ++step ) {
+                var state = Map.<String,Object>of( "step", step, "messages", messagesOf( step ) );
+                var delta = CheckpointDelta.isKeyframe( step, KEYFRAME_INTERVAL ) ?
+                        CheckpointDelta.keyframe( state ) :
+                        CheckpointDelta.of( "checkpoint-" + ( step - 1 ), parentState, state );
+                deltasById.put( "checkpoint-" + step, delta );
+                // newest first
+                headers.add( 0, new CheckpointStatePager.Header( "checkpoint-" + step, "node_" + step, "node_" + ( step + 1 ) ) );
+                parentState = state;
+            }
+        }
+
+        Map<String,CheckpointDelta> read( List<String> ids ) {
+            queries.add( List.copyOf( ids ) );
+            var result = new HashMap<String,CheckpointDelta>();
+            for( var id : ids ) {
+                result.put( id, deltasById.get( id ) );
+            }
+            return result;
+        }
+    }
+
+    private static List<String> messagesOf( int step ) {
+        var messages = new ArrayList<String>();
+        for( int i = 0; i <= step; ++i ) {
+            messages.add( "message " + i );
+        }
+        return messages;
+    }
+
+    @Test
+    public void latestOnlyTest() {
+        var store = new Store( 1_000 );
+        var checkpoints = CheckpointStatePager.lazyCheckpoints( store.headers, 10, store::read );
+
+        assertEquals( 1_000, checkpoints.size() );
+        assertEquals( "checkpoint-999", checkpoints.get(0).getId() );
+        assertEquals( "node_999", checkpoints.get(0).getNodeId() );
+        assertTrue( store.queries.isEmpty() );
+        assertFalse( checkpoints.get(0).isStateLoaded() );
+
+        // the latest state and its chain up to the keyframe are read by a single query
+        assertEquals( Map.of( "step", 999, "messages", messagesOf( 999 ) ), checkpoints.get(0).getState() );
+        assertEquals( 1, store.queries.size() );
+        assertEquals( 10, store.queries.get(0).size() );
+        assertEquals( "checkpoint-999", store.queries.get(0).get(0) );
+        assertEquals( 5, checkpoints.stream().filter( Checkpoint::isStateLoaded ).count() );
+    }
+
+    @Test
+    public void pagedHistoryTest() {
+        var store = new Store( 95 );
+        var checkpoints = CheckpointStatePager.lazyCheckpoints( store.headers, 10, store::read );
+
+        for( int i = 0; i < checkpoints.size(); ++i ) {
+            int step = 94 - i;
+            assertEquals( Map.of( "step", step, "messages", messagesOf( step ) ), checkpoints.get(i).getState() );
+        }
+        assertEquals( 10, store.queries.size() );
+        // every state has been read once
+        assertEquals( 95, store.queries.stream().mapToInt( List::size ).sum() );
+    }
+
+    @Test
+    public void randomAccessTest() {
+        var store = new Store( 100 );
+        var checkpoints = CheckpointStatePager.lazyCheckpoints( store.headers, 10, store::read );
+
+        // an older checkpoint first, then a newer one whose chain is partially read
+        assertEquals( 50, checkpoints.get(49).getState().get( "step" ) );
+        assertEquals( List.of( "checkpoint-50", "checkpoint-49", "checkpoint-48", "checkpoint-47", "checkpoint-46",
+                        "checkpoint-45", "checkpoint-44", "checkpoint-43", "checkpoint-42", "checkpoint-41" ),
+                store.queries.get(0) );
+
+        assertEquals( 53, checkpoints.get(46).getState().get( "step" ) );
+        assertEquals( 2, store.queries.size() );
+        // the page skips the states already read
+        assertEquals( List.of( "checkpoint-53", "checkpoint-52", "checkpoint-51", "checkpoint-40", "checkpoint-39",
+                        "checkpoint-38", "checkpoint-37", "checkpoint-36", "checkpoint-35", "checkpoint-34" ),
+                store.queries.get(1) );
+        assertEquals( messagesOf( 53 ), checkpoints.get(46).getState().get( "messages" ) );
+
+        // read by the previous pages
+        assertEquals( 35, checkpoints.get(64).getState().get( "step" ) );
+        assertEquals( 2, store.queries.size() );
+    }
+
+    @Test
+    public void missingStateTest() {
+        var store = new Store( 3 );
+        store.deltasById.remove( "checkpoint-1" );
+        var checkpoints = CheckpointStatePager.lazyCheckpoints( store.headers, 10, store::read );
+
+        var ex = assertThrows( IllegalStateException.class, () -> checkpoints.get(0).getState() );
+        assertEquals( "state of checkpoint 'checkpoint-1' not found!", ex.getMessage() );
+        assertEquals( Map.of( "step", 0, "messages", messagesOf( 0 ) ), checkpoints.get(2).getState() );
+
+        var failing = CheckpointStatePager.lazyCheckpoints( store.headers, 10, ids -> { throw new java.io.IOException( "unavailable" ); } );
+        ex = assertThrows( IllegalStateException.class, () -> failing.get(0).getState() );
+        assertInstanceOf( java.io.IOException.class, ex.getCause() );
+
+        assertThrows( IllegalArgumentException.class, () -> CheckpointStatePager.lazyCheckpoints( store.headers, 0, store::read ) );
+    }
+
+    @Test
+    public void storedDeltaDiffTest() {
+        var store = new Store( 12 );
+        var checkpoints = CheckpointStatePager.lazyCheckpoints( store.headers, 10, store::read );
+
+        // the stored delta is the diff with the parent
+        var diff = CheckpointDiff.of( checkpoints.get(1), checkpoints.get(0) );
+        assertSame( store.deltasById.get( "checkpoint-11" ), diff.delta() );
+        assertEquals( Set.of( "step", "messages" ), diff.channels() );
+
+        // a keyframe, or a checkpoint that isn't the parent, is compared
+        diff = CheckpointDiff.of( checkpoints.get(2), checkpoints.get(0) );
+        assertEquals( "checkpoint-9", diff.delta().parentId() );
+        assertEquals( List.of( "message 10", "message 11" ), diff.delta().appended().get( "messages" ) );
+        diff = CheckpointDiff.of( checkpoints.get(3), checkpoints.get(2) );
+        assertTrue( store.deltasById.get( "checkpoint-10" ).isKeyframe() );
+        assertEquals( List.of( "message 9" ), diff.delta().appended().get( "messages" ) );
+
+        // an updated parent keeps its id but not its state
+        var updated = checkpoints.get(1).updateState( Map.of( "step", 100 ), Map.of() );
+        diff = CheckpointDiff.of( updated, checkpoints.get(0) );
+        assertNotSame( store.deltasById.get( "checkpoint-11" ), diff.delta() );
+        assertEquals( 11, diff.delta().changed().get( "step" ) );
+    }
+}
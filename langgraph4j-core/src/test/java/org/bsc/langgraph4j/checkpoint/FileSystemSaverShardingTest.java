@@ -0,0 +1,149 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSystemSaverShardingTest {
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .id( "checkpoint-" + step )
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( Map.of( "step", step ) )
+                .build();
+    }
+
+    private static Path folderOf( String name ) {
+        return Paths.get( "target", "checkpoint", name );
+    }
+
+    private static FileSystemSaver newSaver( String name, int shardLevels ) {
+        return FileSystemSaver.builder()
+                .targetFolder( folderOf( name ) )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .shardLevels( shardLevels )
+                .build();
+    }
+
+    private static void deleteFolder( Path folder ) throws Exception {
+        if( !Files.exists( folder ) ) {
+            return;
+        }
+        try( Stream<Path> paths = Files.walk( folder ) ) {
+            for( var path : paths.sorted( Comparator.reverseOrder() ).toList() ) {
+                Files.delete( path );
+            }
+        }
+    }
+
+    @Test
+    public void shardedLayoutTest() throws Exception {
+        deleteFolder( folderOf( "shardedLayoutTest" ) );
+        var saver = newSaver( "shardedLayoutTest", 2 );
+        var config = RunnableConfig.builder().threadId("sharded").build();
+
+        saver.put( config, checkpointOf( 0 ) );
+
+        var file = saver.getPath( config );
+        assertTrue( Files.exists( file ) );
+        assertEquals( "thread-sharded.saver", file.getFileName().toString() );
+        assertEquals( folderOf( "shardedLayoutTest" ), file.getParent().getParent().getParent() );
+        assertTrue( file.getParent().getFileName().toString().matches( "[0-9a-f]{2}" ) );
+
+        // flat layout
+        var flatSaver = newSaver( "shardedLayoutTest", 0 );
+        assertEquals( folderOf( "shardedLayoutTest" ).resolve( "thread-sharded.saver" ), flatSaver.getPath( config ) );
+
+        assertThrows( IllegalArgumentException.class, () -> newSaver( "shardedLayoutTest", FileSystemSaver.MAX_SHARD_LEVELS + 1 ) );
+    }
+
+    @Test
+    public void releaseVersionsTest() throws Exception {
+        deleteFolder( folderOf( "releaseVersionsTest" ) );
+        var saver = newSaver( "releaseVersionsTest", 2 );
+        var config = RunnableConfig.builder().threadId("release").build();
+
+        for( int version = 1; version <= 3; ++version ) {
+            for( int step = 0; step < version; ++step ) {
+                saver.put( config, checkpointOf( step ) );
+            }
+            var file = saver.getPath( config );
+            var content = Files.readAllBytes( file );
+
+            saver.release( config );
+
+            assertFalse( Files.exists( file ) );
+            var versioned = saver.getVersionPath( config, version );
+            // the file is renamed as it is
+            assertArrayEquals( content, Files.readAllBytes( versioned ) );
+            assertEquals( version, CheckpointLogFile.read( versioned ).records().size() );
+            assertTrue( saver.list( config ).isEmpty() );
+        }
+    }
+
+    @Test
+    public void legacyLayoutTest() throws Exception {
+        deleteFolder( folderOf( "legacyLayoutTest" ) );
+        var config = RunnableConfig.builder().threadId("legacy").build();
+
+        var flatSaver = newSaver( "legacyLayoutTest", 0 );
+        for( int step = 0; step < 5; ++step ) {
+            flatSaver.put( config, checkpointOf( step ) );
+        }
+        var legacyFile = flatSaver.getPath( config );
+        assertTrue( Files.exists( legacyFile ) );
+
+        // moved into its shard folder when loaded
+        var saver = newSaver( "legacyLayoutTest", 2 );
+        var checkpoints = List.copyOf( saver.list( config ) );
+        assertEquals( 5, checkpoints.size() );
+        assertEquals( Map.of( "step", 4 ), checkpoints.get(0).getState() );
+        assertFalse( Files.exists( legacyFile ) );
+        assertTrue( Files.exists( saver.getPath( config ) ) );
+
+        saver.put( config, checkpointOf( 5 ) );
+        assertEquals( 6, newSaver( "legacyLayoutTest", 2 ).list( config ).size() );
+
+        // delete removes a file not moved yet as well
+        flatSaver.put( RunnableConfig.builder().threadId("other").build(), checkpointOf( 0 ) );
+        assertTrue( saver.deleteFile( RunnableConfig.builder().threadId("other").build() ) );
+        assertFalse( Files.exists( flatSaver.getPath( RunnableConfig.builder().threadId("other").build() ) ) );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void releaseBenchmark() throws Exception {
+        final int threads = 2_000;
+        for( int shardLevels : new int[] { 0, 2 } ) {
+            final var name = "releaseBenchmark" + shardLevels;
+            deleteFolder( folderOf( name ) );
+            var saver = newSaver( name, shardLevels );
+            for( int thread = 0; thread < threads; ++thread ) {
+                saver.put( RunnableConfig.builder().threadId( "thread-" + thread ).build(), checkpointOf( 0 ) );
+            }
+            final long start = System.nanoTime();
+            for( int thread = 0; thread < threads; ++thread ) {
+                saver.release( RunnableConfig.builder().threadId( "thread-" + thread ).build() );
+            }
+            System.out.printf( "shardLevels %d: %d releases in %dms%n", shardLevels, threads, ( System.nanoTime() - start ) / 1_000_000 );
+            for( int thread = 0; thread < threads; thread += 499 ) {
+                assertTrue( Files.exists( saver.getVersionPath( RunnableConfig.builder().threadId( "thread-" + thread ).build(), 1 ) ) );
+            }
+            deleteFolder( folderOf( name ) );
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSystemSaverWriteBehindTest {
+
+    private static final int THREADS = 16;
+    private static final int STEPS = 50;
+
+    private static Map<String,Object> stateOf( int step ) {
+        return Map.of( "step", step, "messages", List.of( "message " + step ) );
+    }
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .id( "checkpoint-" + step )
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( stateOf( step ) )
+                .build();
+    }
+
+    private static Path folderOf( String name ) {
+        return Paths.get( "target", "checkpoint", name );
+    }
+
+    private static FileSystemSaver.Builder builderOf( String name ) {
+        return FileSystemSaver.builder()
+                .targetFolder( folderOf( name ) )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .keyframeInterval( 10 );
+    }
+
+    private static RunnableConfig configOf( int thread ) {
+        return RunnableConfig.builder().threadId( "writer-" + thread ).build();
+    }
+
+    /**
+     * puts {@link #STEPS} checkpoints on each of {@link #THREADS} threads concurrently
+     *
+     * @return the elapsed milliseconds
+     */
+    private static long putAll( FileSystemSaver saver ) throws Exception {
+        for( int thread = 0; thread < THREADS; ++thread ) {
+            saver.deleteFile( configOf( thread ) );
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try {
+            final long start = System.nanoTime();
+            final var futures = new ArrayList<Future<?>>();
+            for( int thread = 0; thread < THREADS; ++thread ) {
+                final var config = configOf( thread );
+                futures.add( executor.submit( () -> {
+                    for( int step = 0; step < STEPS; ++step ) {
+                        saver.put( config, checkpointOf( step ) );
+                    }
+                    return null;
+                } ) );
+            }
+            for( var future : futures ) {
+                future.get();
+            }
+            return ( System.nanoTime() - start ) / 1_000_000;
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertStored( String name ) throws Exception {
+        final var reader = builderOf( name ).build();
+        for( int thread = 0; thread < THREADS; ++thread ) {
+            final var checkpoints = List.copyOf( reader.list( configOf( thread ) ) );
+            assertEquals( STEPS, checkpoints.size() );
+            for( int i = 0; i < STEPS; ++i ) {
+                assertEquals( stateOf( STEPS - 1 - i ), checkpoints.get(i).getState() );
+            }
+        }
+    }
+
+    @Test
+    public void writeBehindTest() throws Exception {
+        try( var saver = builderOf( "writeBehindTest" ).writeBehind( true ).build() ) {
+            putAll( saver );
+            saver.flush( configOf( 0 ) );
+            assertStored( "writeBehindTest" );
+
+            // the thread is still readable from memory and from the file
+            assertEquals( stateOf( STEPS - 1 ), saver.get( configOf( 0 ) ).orElseThrow().getState() );
+        }
+    }
+
+    @Test
+    public void writeBehindEveryCommitTest() throws Exception {
+        try( var saver = builderOf( "writeBehindEveryCommitTest" )
+                .writeBehind( true )
+                .fsyncPolicy( FsyncPolicy.EVERY_COMMIT )
+                .build() ) {
+            putAll( saver );
+        }
+        // close flushes the pending writes
+        assertStored( "writeBehindEveryCommitTest" );
+    }
+
+    @Test
+    public void intervalTest() throws Exception {
+        try( var saver = builderOf( "intervalTest" )
+                .writeBehind( true )
+                .fsyncPolicy( FsyncPolicy.INTERVAL )
+                .fsyncInterval( Duration.ofMillis( 20 ) )
+                .build() ) {
+            putAll( saver );
+            saver.flush( configOf( 0 ) );
+            assertStored( "intervalTest" );
+        }
+
+        try( var saver = builderOf( "intervalTest" )
+                .fsyncPolicy( FsyncPolicy.INTERVAL )
+                .fsyncInterval( Duration.ofMillis( 20 ) )
+                .build() ) {
+            putAll( saver );
+            assertStored( "intervalTest" );
+        }
+    }
+
+    @Test
+    public void releaseFlushesTest() throws Exception {
+        final var name = "releaseFlushesTest";
+        try( var saver = builderOf( name ).writeBehind( true ).build() ) {
+            final var config = configOf( 0 );
+            saver.deleteFile( config );
+            for( int step = 0; step < STEPS; ++step ) {
+                saver.put( config, checkpointOf( step ) );
+            }
+            saver.release( config );
+
+            final var versioned = saver.getVersionPath( config, 1 );
+            assertTrue( Files.exists( versioned ) );
+            assertEquals( STEPS, CheckpointLogFile.read( versioned ).records().size() );
+            Files.delete( versioned );
+        }
+    }
+
+    @Test
+    public void closedWriterTest() throws Exception {
+        final var saver = builderOf( "closedWriterTest" ).writeBehind( true ).build();
+        final var config = configOf( 0 );
+        saver.deleteFile( config );
+        saver.put( config, checkpointOf( 0 ) );
+        saver.close();
+
+        assertThrows( IOException.class, () -> saver.put( config, checkpointOf( 1 ) ) );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void groupCommitBenchmark() throws Exception {
+        final long everyCommit;
+        try( var saver = builderOf( "groupCommitBenchmark" ).fsyncPolicy( FsyncPolicy.EVERY_COMMIT ).build() ) {
+            everyCommit = putAll( saver );
+        }
+        final long groupCommit;
+        try( var saver = builderOf( "groupCommitBenchmark" )
+                .fsyncPolicy( FsyncPolicy.EVERY_COMMIT )
+                .writeBehind( true )
+                .build() ) {
+            groupCommit = putAll( saver );
+            saver.flush( configOf( 0 ) );
+        }
+        assertStored( "groupCommitBenchmark" );
+        System.out.printf( "%d threads x %d checkpoints, fsync on every commit: synchronous %dms, write-behind group commit %dms%n",
+                THREADS, STEPS, everyCommit, groupCommit );
+    }
+}
@@ -17,7 +17,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class Issue105Test {
 
-    // Test using the following code in Memory Saver, since the '_checkpointsByThread' is private.
+    // Test using the following code in Memory Saver, since the '_slotsByThread' is private.
     @Test
     public void concurrentExceptionTest() throws Exception {
         var memorySaver = new MemorySaver();
@@ -53,7 +53,7 @@ public class Issue105Test {
             assertNull( future.get() );
         }
 
-        int size = memorySaver._checkpointsByThread.size();
+        int size = memorySaver._slotsByThread.size();
         // size must be equals to count
 
         assertEquals( count, size, "Checkpoint Lost during concurrency" );
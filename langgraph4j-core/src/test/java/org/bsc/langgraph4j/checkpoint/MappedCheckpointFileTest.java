@@ -0,0 +1,154 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedCheckpointFileTest {
+
+    private static Map<String,Object> stateOf( int step ) {
+        var messages = new ArrayList<String>();
+        for( int i = 0; i <= step; ++i ) {
+            messages.add( "message " + i );
+        }
+        return Map.of( "step", step, "messages", messages );
+    }
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .id( "checkpoint-" + step )
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( stateOf( step ) )
+                .build();
+    }
+
+    private FileSystemSaver newSaver( String name ) {
+        return FileSystemSaver.builder()
+                .targetFolder( Paths.get( "target", "checkpoint", name ) )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .keyframeInterval( 5 )
+                .build();
+    }
+
+    @Test
+    public void lazyStateTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("mapped").build();
+        var saver = newSaver( "mappedFileTest" );
+        saver.deleteFile( config );
+
+        for( int step = 0; step < 23; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+
+        var file = saver.getPath( config );
+        assertTrue( CheckpointLogFile.matches( file ) );
+        var records = CheckpointLogFile.read( file ).records();
+        assertEquals( 23, records.size() );
+        assertTrue( records.get(20).isKeyframe() );
+        assertEquals( "checkpoint-20", records.get(21).parentId() );
+
+        // headers only
+        var reloaded = newSaver( "mappedFileTest" );
+        var checkpoints = List.copyOf( reloaded.list( config ) );
+        assertEquals( 23, checkpoints.size() );
+        assertEquals( "checkpoint-22", checkpoints.get(0).getId() );
+        assertEquals( "node_22", checkpoints.get(0).getNodeId() );
+        assertTrue( checkpoints.stream().noneMatch( Checkpoint::isStateLoaded ) );
+
+        // latest state decodes only the chain back to its keyframe
+        assertEquals( stateOf( 22 ), reloaded.get( config ).orElseThrow().getState() );
+        assertEquals( 3, checkpoints.stream().filter( Checkpoint::isStateLoaded ).count() );
+        assertFalse( checkpoints.get(3).isStateLoaded() );
+
+        // appending doesn't decode the stored checkpoints
+        reloaded.put( config, checkpointOf( 23 ) );
+        assertEquals( 3, checkpoints.stream().filter( Checkpoint::isStateLoaded ).count() );
+
+        // update of a checkpoint doesn't change the state of its child
+        var updated = RunnableConfig.builder( config ).checkPointId( "checkpoint-12" ).build();
+        reloaded.put( updated, Checkpoint.builder()
+                .id( "checkpoint-12" )
+                .nodeId( "node_12" )
+                .nextNodeId( "node_13" )
+                .state( Map.of( "step", 12, "messages", List.of( "updated" ) ) )
+                .build() );
+
+        var result = List.copyOf( newSaver( "mappedFileTest" ).list( config ) );
+        assertEquals( 24, result.size() );
+        for( var checkpoint : result ) {
+            int step = Integer.parseInt( checkpoint.getId().substring( "checkpoint-".length() ) );
+            if( step == 12 ) {
+                assertEquals( Map.of( "step", 12, "messages", List.of( "updated" ) ), checkpoint.getState() );
+            }
+            else if( step == 13 ) {
+                assertEquals( 13, checkpoint.getState().get("step") );
+                assertEquals( stateOf( 13 ).get("messages"), checkpoint.getState().get("messages") );
+            }
+            else {
+                assertEquals( stateOf( step ), checkpoint.getState() );
+            }
+        }
+
+        saver.deleteFile( config );
+    }
+
+    @Test
+    public void legacyIndexedLayoutTest() throws Exception {
+        var config = RunnableConfig.builder().threadId("legacy").build();
+        var saver = newSaver( "legacyIndexedLayoutTest" );
+        saver.deleteFile( config );
+
+        // file written in the indexed layout
+        var stateSerializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var deltaSerializers = new CheckpointDeltaSerializers( stateSerializer, List.of() );
+        var entries = new ArrayList<MappedCheckpointFile.Entry>();
+        Checkpoint parent = null;
+        for( int step = 0; step < 7; ++step ) {
+            var checkpoint = checkpointOf( step );
+            var delta = CheckpointDelta.of( step, 5, parent, checkpoint );
+            var bytes = new ByteArrayOutputStream();
+            try( var oos = new ObjectOutputStream( bytes ) ) {
+                deltaSerializers.writer().write( delta, oos );
+            }
+            entries.add( new MappedCheckpointFile.Entry( checkpoint.getId(), checkpoint.getNodeId(), checkpoint.getNextNodeId(),
+                    delta.parentId(), ByteBuffer.wrap( bytes.toByteArray() ) ) );
+            parent = checkpoint;
+        }
+        // stored directly in the target folder, as by the previous versions
+        var legacyFile = Paths.get( "target", "checkpoint", "legacyIndexedLayoutTest", "thread-legacy.saver" );
+        MappedCheckpointFile.write( legacyFile, deltaSerializers.contentType(), entries );
+
+        var checkpoints = List.copyOf( saver.list( config ) );
+        assertEquals( 7, checkpoints.size() );
+        assertEquals( stateOf( 6 ), checkpoints.get(0).getState() );
+
+        // moved into its shard folder when loaded
+        var file = saver.getPath( config );
+        assertFalse( Files.exists( legacyFile ) );
+        assertTrue( Files.exists( file ) );
+
+        // rewritten as log on the next write
+        saver.put( config, checkpointOf( 7 ) );
+        assertTrue( CheckpointLogFile.matches( file ) );
+        var result = List.copyOf( newSaver( "legacyIndexedLayoutTest" ).list( config ) );
+        assertEquals( 8, result.size() );
+        for( int i = 0; i < 8; ++i ) {
+            assertEquals( stateOf( 7 - i ), result.get(i).getState() );
+        }
+
+        saver.deleteFile( config );
+    }
+}
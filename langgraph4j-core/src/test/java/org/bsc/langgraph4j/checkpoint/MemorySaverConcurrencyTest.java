@@ -0,0 +1,176 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency of the saver: 1,000 threads checkpointing their own conversation, and the
+ * independence of the conversations while the I/O of one of them is in progress
+ */
+public class MemorySaverConcurrencyTest {
+
+    static final int THREADS = 1_000;
+
+    static final long TIMEOUT_SECONDS = 30;
+
+    /**
+     * Saver whose insert hook blocks the given conversation until {@link #resume} is released,
+     * simulating a slow I/O
+     */
+    static class BlockingSaver extends MemorySaver {
+        final CountDownLatch blocked = new CountDownLatch( 1 );
+        final CountDownLatch resume = new CountDownLatch( 1 );
+        private final String blockedThreadId;
+
+        BlockingSaver( String blockedThreadId ) {
+            this.blockedThreadId = blockedThreadId;
+        }
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+            if( config.threadId().filter( blockedThreadId::equals ).isPresent() ) {
+                blocked.countDown();
+                assertTrue( resume.await( TIMEOUT_SECONDS, TimeUnit.SECONDS ) );
+            }
+        }
+    }
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( Map.of( "step", step ) )
+                .build();
+    }
+
+    /**
+     * Runs the given task on {@link #THREADS} threads started together
+     */
+    private void runConcurrently( TaskWithIndex task ) throws Exception {
+        final var ready = new CountDownLatch( THREADS );
+        final var start = new CountDownLatch( 1 );
+        final var done = new CountDownLatch( THREADS );
+        final var failure = new AtomicReference<Throwable>();
+        final var threads = new ArrayList<Thread>( THREADS );
+
+        for( int i = 0; i < THREADS; ++i ) {
+            final int index = i;
+            var thread = new Thread( () -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    task.run( index );
+                } catch( Throwable ex ) {
+                    failure.compareAndSet( null, ex );
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+            threads.add( thread );
+        }
+        ready.await();
+        start.countDown();
+        assertTrue( done.await( 60, TimeUnit.SECONDS ) );
+        for( var thread : threads ) {
+            thread.join();
+        }
+        if( failure.get() != null ) {
+            fail( failure.get() );
+        }
+    }
+
+    @FunctionalInterface
+    interface TaskWithIndex {
+        void run( int index ) throws Exception;
+    }
+
+    @Test
+    public void blockedThreadDoesNotBlockOthersTest() throws Exception {
+        var saver = new BlockingSaver( "A" );
+        var configA = RunnableConfig.builder().threadId( "A" ).build();
+        var configB = RunnableConfig.builder().threadId( "B" ).build();
+        var executor = Executors.newFixedThreadPool( 2 );
+        try {
+            var putA = executor.submit( () -> saver.put( configA, checkpointOf( 0 ) ) );
+            assertTrue( saver.blocked.await( TIMEOUT_SECONDS, TimeUnit.SECONDS ) );
+
+            // while the insert of A is in progress, B is written and read
+            var putB = executor.submit( () -> {
+                for( int step = 0; step < 3; ++step ) {
+                    var stored = saver.put( configB, checkpointOf( step ) );
+                    assertEquals( step, saver.get( stored ).orElseThrow().getState().get("step") );
+                }
+                return saver.list( configB ).size();
+            });
+            assertEquals( 3, putB.get( TIMEOUT_SECONDS, TimeUnit.SECONDS ) );
+            assertFalse( putA.isDone() );
+
+            saver.resume.countDown();
+            putA.get( TIMEOUT_SECONDS, TimeUnit.SECONDS );
+            assertEquals( 1, saver.list( configA ).size() );
+        }
+        finally {
+            saver.resume.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void threadsConsistencyTest() throws Exception {
+        final int puts = 3;
+
+        var saver = new MemorySaver();
+        runConcurrently( index -> {
+            var config = RunnableConfig.builder().threadId( "conversation-" + index ).build();
+            for( int step = 0; step < puts; ++step ) {
+                var stored = saver.put( config, checkpointOf( step ) );
+                assertEquals( step, saver.get( stored ).orElseThrow().getState().get("step") );
+            }
+        });
+
+        for( int i = 0; i < THREADS; ++i ) {
+            var config = RunnableConfig.builder().threadId( "conversation-" + i ).build();
+            assertEquals( puts, saver.list( config ).size() );
+        }
+    }
+
+    @Test
+    public void sameThreadConsistencyTest() throws Exception {
+        var saver = new MemorySaver();
+        var config = RunnableConfig.builder().threadId( "shared" ).build();
+
+        runConcurrently( index -> saver.put( config, checkpointOf( index ) ) );
+
+        var checkpoints = saver.list( config );
+        assertEquals( THREADS, checkpoints.size() );
+        assertEquals( THREADS, checkpoints.stream().map( c -> c.getState().get("step") ).distinct().count() );
+
+        // releases racing with puts never lose a checkpoint: each one is either released or still there
+        var released = new ArrayList<Checkpoint>();
+        runConcurrently( index -> {
+            if( index % 100 == 0 ) {
+                var tag = saver.release( config );
+                synchronized( released ) {
+                    released.addAll( tag.checkpoints() );
+                }
+            }
+            else {
+                saver.put( config, checkpointOf( THREADS + index ) );
+            }
+        });
+        List<Checkpoint> remaining = List.copyOf( saver.list( config ) );
+        assertEquals( THREADS + THREADS - THREADS / 100, released.size() + remaining.size() );
+    }
+}
@@ -0,0 +1,140 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemorySaverTest {
+
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( Map.of( "step", step ) )
+                .build();
+    }
+
+    @Test
+    public void lookupByIdTest() throws Exception {
+        var saver = new MemorySaver();
+        var config = RunnableConfig.builder().threadId( "thread" ).build();
+
+        var ids = new ArrayList<String>();
+        for( int step = 0; step < 10; ++step ) {
+            ids.add( saver.put( config, checkpointOf( step ) ).checkPointId().orElseThrow() );
+        }
+
+        for( int step = 0; step < 10; ++step ) {
+            var byId = RunnableConfig.builder( config ).checkPointId( ids.get( step ) ).build();
+            assertEquals( step, saver.get( byId ).orElseThrow().getState().get("step") );
+        }
+        assertEquals( 9, saver.get( config ).orElseThrow().getState().get("step") );
+        assertTrue( saver.get( RunnableConfig.builder( config ).checkPointId( "unknown" ).build() ).isEmpty() );
+
+        // replace keeps the order
+        var replaced = RunnableConfig.builder( config ).checkPointId( ids.get( 3 ) ).build();
+        var replacement = checkpointOf( 100 );
+        saver.put( replaced, replacement );
+
+        assertTrue( saver.get( replaced ).isEmpty() );
+        var byNewId = RunnableConfig.builder( config ).checkPointId( replacement.getId() ).build();
+        assertEquals( 100, saver.get( byNewId ).orElseThrow().getState().get("step") );
+        assertEquals( List.of( 9, 8, 7, 6, 5, 4, 100, 2, 1, 0 ),
+                saver.list( config ).stream().map( c -> c.getState().get("step") ).toList() );
+
+        assertThrows( NoSuchElementException.class,
+                () -> saver.put( RunnableConfig.builder( config ).checkPointId( "unknown" ).build(), checkpointOf( 0 ) ) );
+    }
+
+    @Test
+    public void lookupLoadedCheckpointsTest() throws Exception {
+        var stored = new LinkedList<Checkpoint>();
+        for( int step = 0; step < 5; ++step ) {
+            stored.push( checkpointOf( step ) );
+        }
+        // checkpoints loaded by a subclass are indexed as well
+        var saver = new MemorySaver() {
+            @Override
+            protected LinkedList<Checkpoint> loadedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints ) {
+                if( checkpoints.isEmpty() ) {
+                    checkpoints.addAll( stored );
+                }
+                return checkpoints;
+            }
+        };
+        var config = RunnableConfig.builder().threadId( "thread" ).build();
+
+        for( var checkpoint : stored ) {
+            var byId = RunnableConfig.builder( config ).checkPointId( checkpoint.getId() ).build();
+            assertSame( checkpoint, saver.get( byId ).orElseThrow() );
+        }
+
+        saver.release( config );
+        // reloaded after release
+        var byId = RunnableConfig.builder( config ).checkPointId( stored.getLast().getId() ).build();
+        assertSame( stored.getLast(), saver.get( byId ).orElseThrow() );
+    }
+
+    private static List<String> putAll( MemorySaver saver, RunnableConfig config, int size ) throws Exception {
+        var ids = new ArrayList<String>( size );
+        for( int step = 0; step < size; ++step ) {
+            ids.add( saver.put( config, checkpointOf( step ) ).checkPointId().orElseThrow() );
+        }
+        return ids;
+    }
+
+    @Test
+    public void longThreadTest() throws Exception {
+        final int size = 20_000;
+        var saver = new MemorySaver();
+        var config = RunnableConfig.builder().threadId( "thread" ).build();
+
+        var ids = putAll( saver, config, size );
+
+        for( int step = 0; step < size; ++step ) {
+            var byId = RunnableConfig.builder( config ).checkPointId( ids.get( step ) ).build();
+            assertEquals( step, saver.get( byId ).orElseThrow().getState().get("step") );
+        }
+
+        for( int step = size - 100; step < size; ++step ) { // update of the latest checkpoints, as on resume
+            var byId = RunnableConfig.builder( config ).checkPointId( ids.get( step ) ).build();
+            saver.put( byId, checkpointOf( step ) );
+        }
+
+        assertEquals( size, saver.list( config ).size() );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void longThreadBenchmark() throws Exception {
+        final int size = 20_000;
+        var saver = new MemorySaver();
+        var config = RunnableConfig.builder().threadId( "thread" ).build();
+
+        var ids = putAll( saver, config, size );
+
+        long start = System.nanoTime();
+        for( int step = 0; step < size; ++step ) {
+            saver.get( RunnableConfig.builder( config ).checkPointId( ids.get( step ) ).build() );
+        }
+        long lookup = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for( int step = size - 100; step < size; ++step ) {
+            saver.put( RunnableConfig.builder( config ).checkPointId( ids.get( step ) ).build(), checkpointOf( step ) );
+        }
+        long replace = System.nanoTime() - start;
+
+        System.out.printf( "%,d checkpoints: %,d lookups by id %d ms, 100 replacements %d ms%n",
+                size, size, TimeUnit.NANOSECONDS.toMillis( lookup ), TimeUnit.NANOSECONDS.toMillis( replace ) );
+    }
+}
@@ -0,0 +1,115 @@
+package org.bsc.langgraph4j.prebuilt;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
+import org.bsc.langgraph4j.action.Command;
+import org.bsc.langgraph4j.agent.AgentEx;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncCommandAction.command_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessagesWindowTest {
+
+    @Test
+    public void applyWindowTest() {
+        var window = MessagesWindow.<String>builder()
+                .tokenCounter( String::length )
+                .maxTokens( 10 )
+                .windowStart( message -> !message.startsWith("tool") )
+                .build();
+
+        assertEquals( List.of(), window.apply( List.of() ) );
+        assertEquals( List.of("a123", "b123"), window.apply( List.of("x123", "a123", "b123") ) );
+        // the newest message is always in the window
+        assertEquals( List.of("c12345678901"), window.apply( List.of("a123", "c12345678901") ) );
+        // the window doesn't start with a tool message
+        assertEquals( List.of("b1"), window.apply( List.of("x123", "tool1", "b1") ) );
+
+        assertThrows( IllegalArgumentException.class, () -> MessagesWindow.<String>builder()
+                .tokenCounter( String::length )
+                .maxTokens( 10 )
+                .retainTokens( 11 )
+                .build() );
+    }
+
+    @Test
+    public void archiveAndSummarizeTest() throws Exception {
+        var archive = new MessagesWindow.MemoryArchive<String>();
+        var window = MessagesWindow.<String>builder()
+                .tokenCounter( message -> 1 )
+                .maxTokens( 4 )
+                .retainTokens( 2 )
+                .summarizer( messages -> "summary of " + messages.size() )
+                .archive( archive )
+                .build();
+
+        var workflow = new StateGraph<MessagesState<String>>( MessagesState.SCHEMA, MessagesState::new )
+                .addNode( "window", window.action() )
+                .addNode( "agent", node_async( state -> Map.of( "messages", "answer " + state.messages().size() ) ) )
+                .addEdge( START, "window" )
+                .addEdge( "window", "agent" )
+                .addEdge( "agent", END );
+
+        var app = workflow.compile();
+        var config = RunnableConfig.builder().threadId("window").build();
+
+        var state = app.invoke( Map.of( "messages", List.of("m1", "m2", "m3") ), config ).orElseThrow();
+
+        assertEquals( List.of("m1", "m2", "m3", "answer 3"), state.messages() );
+        assertTrue( archive.archived(config).isEmpty() );
+
+        state = app.invoke( Map.of( "messages", List.of("m1", "m2", "m3", "m4", "m5") ), config ).orElseThrow();
+
+        assertEquals( List.of("summary of 3", "m4", "m5", "answer 3"), state.messages() );
+        assertEquals( List.of("m1", "m2", "m3"), archive.archived(config) );
+
+        archive.release( config );
+        assertTrue( archive.archived(config).isEmpty() );
+
+        // the archive is explicit
+        assertThrows( IllegalStateException.class, () -> MessagesWindow.<String>builder()
+                .tokenCounter( message -> 1 )
+                .maxTokens( 4 )
+                .build()
+                .action() );
+    }
+
+    @Test
+    public void agentExWindowTest() throws Exception {
+        var archive = new MessagesWindow.MemoryArchive<String>();
+        var window = MessagesWindow.<String>builder()
+                .tokenCounter( message -> 1 )
+                .maxTokens( 4 )
+                .retainTokens( 2 )
+                .archive( archive )
+                .build();
+
+        var workflow = AgentEx.<String, MessagesState<String>, String>builder()
+                .stateSerializer( new ObjectStreamStateSerializer<>( MessagesState::new ) )
+                .schema( MessagesState.SCHEMA )
+                .toolName( tool -> tool )
+                .messagesWindowAction( window.action() )
+                .callModelAction( AsyncNodeActionWithConfig.node_async( ( state, config ) -> Map.of( "messages", "answer " + state.messages().size() ) ) )
+                .dispatchToolsAction( AsyncNodeActionWithConfig.node_async( ( state, config ) -> Map.of() ) )
+                .executeToolFactory( tool -> AsyncNodeActionWithConfig.node_async( ( state, config ) -> Map.of() ) )
+                .shouldContinueEdge( command_async( ( state, config ) -> new Command( AgentEx.END_LABEL ) ) )
+                .dispatchActionEdge( command_async( ( state, config ) -> new Command( "model" ) ) )
+                .build( List.of( "tool" ), Map.of() );
+
+        var config = RunnableConfig.builder().threadId("agentEx").build();
+        var state = workflow.compile().invoke( Map.of( "messages", List.of("m1", "m2", "m3", "m4", "m5") ), config ).orElseThrow();
+
+        // the window runs before the model
+        assertEquals( List.of("m4", "m5", "answer 2"), state.messages() );
+        assertEquals( List.of("m1", "m2", "m3"), archive.archived(config) );
+    }
+}
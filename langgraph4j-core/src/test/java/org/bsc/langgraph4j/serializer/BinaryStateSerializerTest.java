@@ -0,0 +1,194 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.binary.BinaryCodec;
+import org.bsc.langgraph4j.serializer.binary.BinaryInput;
+import org.bsc.langgraph4j.serializer.binary.BinaryOutput;
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryStateSerializerTest {
+
+    record Point( int x, int y ) {}
+
+    static class PointCodec implements BinaryCodec<Point> {
+
+        @Override
+        public void write(Point value, BinaryOutput out) throws IOException {
+            out.writeSignedVarInt( value.x() );
+            out.writeSignedVarInt( value.y() );
+        }
+
+        @Override
+        public Point read(BinaryInput in) throws IOException {
+            return new Point( in.readSignedVarInt(), in.readSignedVarInt() );
+        }
+    }
+
+    static class JacksonSerializer extends JacksonStateSerializer<AgentState> {
+        JacksonSerializer() {
+            super(AgentState::new);
+        }
+    }
+
+    private Map<String,Object> sampleData( int messages ) {
+        var list = new ArrayList<Object>();
+        for( int i = 0; i < messages; ++i ) {
+            list.add( Map.of( "role", ( i % 2 == 0 ) ? "user" : "assistant",
+                              "content", "message number " + i,
+                              "index", i ) );
+        }
+        return Map.of( "messages", list,
+                "counter", 42,
+                "next", "agent" );
+    }
+
+    @Test
+    public void roundTripNativeTypes() throws Exception {
+        var serializer = new BinaryStateSerializer<>( AgentState::new );
+
+        var data = new HashMap<String,Object>();
+        data.put( "string", "value" );
+        data.put( "empty", "" );
+        data.put( "null", null );
+        data.put( "true", true );
+        data.put( "false", false );
+        data.put( "int", -12345 );
+        data.put( "intMax", Integer.MAX_VALUE );
+        data.put( "long", Long.MIN_VALUE );
+        data.put( "double", 3.14 );
+        data.put( "float", 2.5f );
+        data.put( "short", (short)-7 );
+        data.put( "byte", (byte)8 );
+        data.put( "char", 'x' );
+        data.put( "unicode", "àèìòù – 日本語" );
+        data.put( "list", List.of( 1, "two", List.of( 3L ), Map.of( "four", 4.0 ) ) );
+        data.put( "set", new LinkedHashSet<>( List.of( "a", "b" ) ) );
+        data.put( "map", Map.of( "nested", Map.of( "deep", List.of( "x" ) ) ) );
+        data.put( "serializable", new BigDecimal( "1.50" ) );
+
+        var result = serializer.dataFromBytes( serializer.dataToBytes( data ) );
+
+        assertEquals( data.keySet(), result.keySet() );
+        assertNull( result.get("null") );
+        for( var key : data.keySet() ) {
+            assertEquals( data.get(key), result.get(key), key );
+        }
+        assertInstanceOf( Short.class, result.get("short") );
+        assertInstanceOf( Set.class, result.get("set") );
+
+        var bytes = serializer.dataFromBytes( serializer.dataToBytes( Map.of( "bytes", new byte[] { 1, 2, 3 } ) ) );
+        assertArrayEquals( new byte[] { 1, 2, 3 }, (byte[])bytes.get("bytes") );
+    }
+
+    @Test
+    public void internedKeysAreWrittenOnce() throws Exception {
+        var serializer = new BinaryStateSerializer<>( AgentState::new );
+
+        var repeated = new ArrayList<Object>();
+        var unique = new ArrayList<Object>();
+        for( int i = 0; i < 100; ++i ) {
+            repeated.add( Map.of( "content", i ) );
+            unique.add( Map.of( "content" + ( 100 + i ), i ) );
+        }
+        var repeatedBytes = serializer.dataToBytes( Map.of( "messages", repeated ) );
+        var uniqueBytes = serializer.dataToBytes( Map.of( "messages", unique ) );
+
+        // a repeated key is written as a one byte back reference instead of its characters
+        assertTrue( uniqueBytes.length - repeatedBytes.length >= 99 * ( "content100".length() - 1 ),
+                () -> "repeated: " + repeatedBytes.length + " unique: " + uniqueBytes.length );
+        assertEquals( Map.of( "messages", repeated ), serializer.dataFromBytes( repeatedBytes ) );
+    }
+
+    @Test
+    public void customCodec() throws Exception {
+        var serializer = new BinaryStateSerializer<>( AgentState::new );
+
+        assertThrows( NotSerializableException.class,
+                () -> serializer.dataToBytes( Map.of( "point", new Point( 1, 2 ) ) ) );
+
+        serializer.registry().register( 40, Point.class, new PointCodec() );
+
+        var data = Map.<String,Object>of( "point", new Point( -1, 2 ), "points", List.of( new Point( 3, -4 ) ) );
+        assertEquals( data, serializer.dataFromBytes( serializer.dataToBytes( data ) ) );
+
+        assertThrows( IllegalArgumentException.class,
+                () -> serializer.registry().register( 1, Point.class, new PointCodec() ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> serializer.registry().register( 40, String.class, new BinaryCodec<String>() {
+                    @Override
+                    public void write(String value, BinaryOutput out) throws IOException {
+                        out.writeString( value );
+                    }
+
+                    @Override
+                    public String read(BinaryInput in) throws IOException {
+                        return in.readString();
+                    }
+                } ) );
+    }
+
+    private static List<StateSerializer<AgentState>> serializers() {
+        return List.of(
+                new BinaryStateSerializer<>( AgentState::new ),
+                new ObjectStreamStateSerializer<>( AgentState::new ),
+                new JacksonSerializer() );
+    }
+
+    @Test
+    public void compareWithOtherSerializers() throws Exception {
+        var data = sampleData( 200 );
+
+        var sizes = new HashMap<String,Integer>();
+        for( var serializer : serializers() ) {
+            var name = serializer.getClass().getSimpleName();
+            var bytes = serializer.dataToBytes( data );
+            assertEquals( data, serializer.dataFromBytes( bytes ), name );
+            sizes.put( name, bytes.length );
+        }
+
+        assertTrue( sizes.get("BinaryStateSerializer") < sizes.get("ObjectStreamStateSerializer") );
+        assertTrue( sizes.get("BinaryStateSerializer") < sizes.get("JacksonSerializer") );
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void roundTripBenchmark() throws Exception {
+        var data = sampleData( 200 );
+
+        for( var serializer : serializers() ) {
+            var bytes = serializer.dataToBytes( data );
+
+            final int iterations = 200;
+            IntStream.range( 0, 20 ).forEach( i -> roundTrip( serializer, data ) ); // warm up
+            long start = System.nanoTime();
+            for( int i = 0; i < iterations; ++i ) {
+                roundTrip( serializer, data );
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf( "%-30s size: %7d bytes, round trip: %8.1f µs%n",
+                    serializer.getClass().getSimpleName(), bytes.length, elapsed / 1_000.0 / iterations );
+        }
+    }
+
+    private static void roundTrip( StateSerializer<AgentState> serializer, Map<String,Object> data ) {
+        try {
+            serializer.dataFromBytes( serializer.dataToBytes( data ) );
+        }
+        catch( Exception ex ) {
+            throw new IllegalStateException( ex );
+        }
+    }
+}
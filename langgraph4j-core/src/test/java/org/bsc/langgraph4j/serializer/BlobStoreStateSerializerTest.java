@@ -0,0 +1,89 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.blob.BlobRef;
+import org.bsc.langgraph4j.serializer.blob.BlobStoreStateSerializer;
+import org.bsc.langgraph4j.serializer.blob.FileSystemBlobStore;
+import org.bsc.langgraph4j.serializer.blob.MemoryBlobStore;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlobStoreStateSerializerTest {
+
+    static class CountingBlobStore extends MemoryBlobStore {
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public Optional<byte[]> get(String hash) {
+            reads.incrementAndGet();
+            return super.get(hash);
+        }
+    }
+
+    @Test
+    public void offloadLargeValuesTest() throws Exception {
+        var blobStore = new CountingBlobStore();
+        var serializer = new BlobStoreStateSerializer<>( new ObjectStreamStateSerializer<>( AgentState::new ), blobStore, 1024 );
+
+        var image = "A".repeat( 10_000 );
+
+        var state1 = serializer.stateOf( Map.of( "image", image, "step", 1 ) );
+        var state2 = serializer.stateOf( Map.of( "image", image, "step", 2, "note", "small" ) );
+
+        var bytes1 = serializer.objectToBytes( state1 );
+        var bytes2 = serializer.objectToBytes( state2 );
+
+        assertTrue( bytes1.length < 1024 );
+        assertTrue( bytes2.length < 1024 );
+        assertEquals( 1, blobStore.size() );
+
+        var restored = serializer.bytesToObject( bytes2 );
+
+        assertInstanceOf( BlobRef.class, restored.data().get("image") );
+        assertEquals( 0, blobStore.reads.get() );
+        assertEquals( Optional.of(2), restored.value("step") );
+        assertEquals( Optional.of("small"), restored.value("note") );
+
+        // write back without loading
+        var cloned = serializer.cloneObject( restored );
+        assertEquals( 0, blobStore.reads.get() );
+        assertEquals( restored.data().get("image"), cloned.data().get("image") );
+
+        assertEquals( Optional.of(image), cloned.value("image") );
+        assertEquals( Optional.of(image), cloned.value("image") );
+        assertEquals( 1, blobStore.reads.get() );
+        assertEquals( 1, blobStore.size() );
+    }
+
+    @Test
+    public void fileSystemBlobStoreTest() throws Exception {
+        var folder = Paths.get( "target", "blobs", "fileSystemBlobStoreTest" );
+
+        var ser = new JacksonStateSerializer<AgentState>( AgentState::new ) {};
+        var serializer = new BlobStoreStateSerializer<>( ser, new FileSystemBlobStore( folder ) , 100 );
+
+        var document = "B".repeat( 1_000 );
+        var bytes = serializer.objectToBytes( serializer.stateOf( Map.of( "document", document, "query", "test" ) ) );
+
+        try( var files = Files.walk( folder ) ) {
+            assertEquals( 1, files.filter( Files::isRegularFile ).count() );
+        }
+
+        // read with a new store instance
+        var reader = new BlobStoreStateSerializer<>( ser, new FileSystemBlobStore( folder ) , 100 );
+        var restored = reader.bytesToObject( bytes );
+
+        assertEquals( Optional.of(document), restored.value("document") );
+        assertEquals( Optional.of("test"), restored.value("query") );
+    }
+
+}
@@ -0,0 +1,177 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.Channel;
+import org.bsc.langgraph4j.state.Channels;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelSerializerTest {
+
+    /**
+     * raw float vector
+     */
+    static class EmbeddingSerializer implements Serializer<float[]> {
+        @Override
+        public void write(float[] object, ObjectOutput out) throws IOException {
+            out.writeInt( object.length );
+            for( var value : object ) {
+                out.writeFloat( value );
+            }
+        }
+
+        @Override
+        public float[] read(ObjectInput in) throws IOException {
+            var result = new float[ in.readInt() ];
+            for( int i = 0; i < result.length; ++i ) {
+                result[i] = in.readFloat();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * compact list of strings
+     */
+    static class MessagesSerializer implements Serializer<List<String>> {
+        @Override
+        public void write(List<String> object, ObjectOutput out) throws IOException {
+            out.writeInt( object.size() );
+            for( var message : object ) {
+                Serializer.writeUTF( message, out );
+            }
+        }
+
+        @Override
+        public List<String> read(ObjectInput in) throws IOException {
+            int size = in.readInt();
+            var result = new ArrayList<String>( size );
+            for( int i = 0; i < size; ++i ) {
+                result.add( Serializer.readUTF( in ) );
+            }
+            return result;
+        }
+    }
+
+    static Map<String, Channel<?>> schema() {
+        return Map.of(
+                "messages", Channels.<String>appender( ArrayList::new ).withSerializer( new MessagesSerializer() ),
+                "embedding", Channels.<float[]>base( () -> new float[0] ).withSerializer( new EmbeddingSerializer() ) );
+    }
+
+    static Map<String,Object> data() {
+        return Map.of( "messages", List.of( "hello", "world" ),
+                "embedding", new float[] { 0.1f, 0.2f, 0.3f },
+                "step", 1 );
+    }
+
+    private void assertData( Map<String,Object> expected, Map<String,Object> actual ) {
+        assertEquals( expected.keySet(), actual.keySet() );
+        assertEquals( expected.get("messages"), actual.get("messages") );
+        assertArrayEquals( (float[])expected.get("embedding"), (float[])actual.get("embedding") );
+        assertEquals( expected.get("step"), actual.get("step") );
+    }
+
+    @Test
+    public void channelSerializerTest() throws Exception {
+        var schema = schema();
+        assertTrue( schema.get("embedding").getSerializer().isPresent() );
+        // channel behaviour is preserved
+        assertEquals( List.of( "a", "b" ), schema.get("messages").update( "messages", List.of("a"), List.of("b") ) );
+
+        for( StateSerializer<AgentState> plain : List.of(
+                new ObjectStreamStateSerializer<>( AgentState::new ),
+                new JacksonStateSerializer<AgentState>( AgentState::new ) {} ) ) {
+
+            var legacy = plain.dataToBytes( Map.of( "messages", List.of( "legacy" ), "step", 0 ) );
+
+            var serializer = plain.withChannels( schema );
+            assertNotSame( plain, serializer );
+            assertEquals( plain.contentType(), serializer.contentType() );
+            assertSame( plain.copiers(), serializer.copiers() );
+            // the source serializer is left unchanged
+            assertTrue( plain.channelSerializer( "embedding" ).isEmpty() );
+            assertSame( plain, plain.withChannels( Map.of() ) );
+
+            var bytes = serializer.dataToBytes( data() );
+            assertData( data(), serializer.dataFromBytes( bytes ) );
+
+            // a single channel is decoded without the others
+            assertArrayEquals( (float[])data().get("embedding"),
+                    (float[])serializer.channelFromBytes( bytes, "embedding" ).orElseThrow() );
+            assertTrue( serializer.channelFromBytes( bytes, "step" ).isEmpty() );
+
+            // data written before the registration of the channel serializers is still readable
+            assertEquals( Map.of( "messages", List.of( "legacy" ), "step", 0 ), serializer.dataFromBytes( legacy ) );
+            assertTrue( serializer.channelFromBytes( legacy, "messages" ).isEmpty() );
+
+            // state without values of channels with serializer
+            assertEquals( Map.of( "step", 2 ), serializer.dataFromBytes( serializer.dataToBytes( Map.of( "step", 2 ) ) ) );
+            assertEquals( Map.of( "step", 2 ), plain.dataFromBytes( serializer.dataToBytes( Map.of( "step", 2 ) ) ) );
+        }
+    }
+
+    @Test
+    public void shortStateTest() throws Exception {
+        // a state shorter than the channels marker
+        var serializer = new org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer<>( AgentState::new );
+        var bytes = serializer.dataToBytes( Map.of() );
+        assertEquals( Map.of(), serializer.dataFromBytes( bytes ) );
+        assertEquals( Map.of(), serializer.withChannels( schema() ).dataFromBytes( bytes ) );
+    }
+
+    @Test
+    public void stateGraphRegistrationTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var graph = new StateGraph<>( schema(), serializer )
+                .addNode( "agent", node_async( state -> Map.of( "messages", "done", "embedding", new float[] { 1f } ) ) )
+                .addEdge( START, "agent" )
+                .addEdge( "agent", END );
+
+        // the graph doesn't change a serializer that can be shared by other graphs
+        var other = new StateGraph<>( Map.of( "embedding", Channels.<String>base( () -> "" ) ), serializer );
+        assertSame( serializer, graph.getStateSerializer() );
+        assertSame( serializer, other.getStateSerializer() );
+        assertTrue( serializer.channelSerializer( "embedding" ).isEmpty() );
+
+        var channelsSerializer = serializer.withChannels( schema() );
+        assertTrue( channelsSerializer.channelSerializer( "embedding" ).isPresent() );
+        assertTrue( channelsSerializer.channelSerializer( "step" ).isEmpty() );
+
+        var folder = Paths.get( "target", "checkpoint", "channelSerializerTest" );
+        var saver = new FileSystemSaver( folder, channelsSerializer );
+        var config = RunnableConfig.builder().threadId( "channels" ).build();
+        saver.deleteFile( config );
+
+        saver.put( config, Checkpoint.builder().nodeId( "a" ).nextNodeId( "b" ).state( data() ).build() );
+        var next = new java.util.HashMap<>( data() );
+        next.put( "messages", List.of( "hello", "world", "again" ) );
+        next.put( "step", 2 );
+        saver.put( config, Checkpoint.builder().nodeId( "b" ).nextNodeId( "c" ).state( next ).build() );
+
+        var checkpoints = List.copyOf( new FileSystemSaver( folder, serializer.withChannels( schema() ) ).list( config ) );
+        assertData( next, checkpoints.get(0).getState() );
+        assertData( data(), checkpoints.get(1).getState() );
+
+        saver.deleteFile( config );
+        assertNotNull( graph.compile() );
+    }
+}
@@ -0,0 +1,113 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CopierRegistryTest {
+
+    record Point( int x, int y ) {}
+
+    enum Color { RED, GREEN { @Override public String toString() { return "green"; } } }
+
+    static class Counter implements Serializable {
+        int value;
+
+        Counter( int value ) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Counter other && other.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    @Test
+    public void structuralCopyTest() {
+        var registry = new CopierRegistry();
+
+        var nested = new ArrayList<Object>( List.of( "a", 1, new Point( 1, 2 ) ) );
+        var sorted = new TreeMap<String,Object>( Comparator.reverseOrder() );
+        sorted.put( "a", 1 );
+        sorted.put( "b", 2 );
+        var data = new HashMap<String,Object>();
+        data.put( "list", nested );
+        data.put( "set", new LinkedHashSet<>( List.of( "x", "y" ) ) );
+        data.put( "sorted", sorted );
+        data.put( "bytes", new byte[] { 1, 2, 3 } );
+        data.put( "date", LocalDate.of( 2024, 1, 1 ) );
+        data.put( "color", Color.GREEN );
+        data.put( "nothing", null );
+
+        var copy = registry.copyData( data ).orElseThrow();
+
+        assertEquals( nested, copy.get("list") );
+        assertNotSame( nested, copy.get("list") );
+        assertSame( nested.get(2), ((List<?>)copy.get("list")).get(2) );
+        assertEquals( Set.of( "x", "y" ), copy.get("set") );
+        assertInstanceOf( Set.class, copy.get("set") );
+        assertEquals( List.of( "b", "a" ), List.copyOf( ((SortedMap<?,?>)copy.get("sorted")).keySet() ) );
+        assertArrayEquals( (byte[])data.get("bytes"), (byte[])copy.get("bytes") );
+        assertNotSame( data.get("bytes"), copy.get("bytes") );
+        assertSame( data.get("date"), copy.get("date") );
+        assertSame( Color.GREEN, copy.get("color") );
+        assertTrue( copy.containsKey("nothing") );
+
+        nested.add( "changed" );
+        assertEquals( 3, ((List<?>)copy.get("list")).size() );
+    }
+
+    @Test
+    public void registrationTest() {
+        var registry = new CopierRegistry();
+        var data = Map.<String,Object>of( "counters", List.of( new Counter( 1 ) ) );
+
+        assertTrue( registry.copyData( data ).isEmpty() );
+        assertThrows( CopierRegistry.NotCopyableException.class, () -> registry.copy( new Counter( 1 ) ) );
+
+        registry.register( Counter.class, ( counter, r ) -> new Counter( counter.value ) );
+        var copy = registry.copyData( data ).orElseThrow();
+        assertEquals( data, copy );
+        assertNotSame( ((List<?>)data.get("counters")).get(0), ((List<?>)copy.get("counters")).get(0) );
+
+        assertTrue( registry.unregister( Counter.class ) );
+        assertFalse( registry.unregister( Counter.class ) );
+        registry.registerImmutable( Counter.class );
+        assertSame( ((List<?>)data.get("counters")).get(0),
+                ((List<?>)registry.copyData( data ).orElseThrow().get("counters")).get(0) );
+    }
+
+    @Test
+    public void stateSerializerCloneTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var counter = new Counter( 5 );
+        var list = new ArrayList<Object>( List.of( "a", "b" ) );
+
+        // copied by the copiers
+        var clone = serializer.cloneObject( Map.of( "list", list ) );
+        assertEquals( list, clone.data().get("list") );
+        assertNotSame( list, clone.data().get("list") );
+
+        // unknown type: falls back to the serialization round trip
+        clone = serializer.cloneObject( Map.of( "list", list, "counter", counter ) );
+        assertEquals( counter, clone.data().get("counter") );
+        assertNotSame( counter, clone.data().get("counter") );
+        assertEquals( list, clone.data().get("list") );
+
+        serializer.copiers().registerImmutable( Counter.class );
+        clone = serializer.cloneObject( Map.of( "counter", counter ) );
+        assertSame( counter, clone.data().get("counter") );
+    }
+}
@@ -7,7 +7,7 @@ import org.bsc.langgraph4j.serializer.plain_text.gson.GsonStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
-import java.io.IOException;
+import java.io.*;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -87,4 +87,29 @@ public class GSonSerializerTest {
     }
 
 
+
+    @Test
+    public void streamPayloadTest() throws Exception {
+
+        var serializer = new MyStateSerializer();
+
+        var first = Map.<String,Object>of( "prop1", "value1", "unicode", "àèìòù – 日本語" );
+        var second = Map.<String,Object>of( "prop2", "value2" );
+
+        var stream = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream( stream ) ) {
+            serializer.writeData( first, out );
+            Serializer.writeUTF( "{\"legacy\":\"value\"}", out );
+            serializer.writeData( second, out );
+        }
+
+        try( var in = new ObjectInputStream( new ByteArrayInputStream( stream.toByteArray() ) ) ) {
+            assertEquals( first, serializer.readData( in ) );
+            assertEquals( Map.of( "legacy", "value" ), serializer.readData( in ) );
+            assertEquals( second, serializer.readData( in ) );
+        }
+
+        var state = serializer.read( new StringReader( "{ \"prop1\": \"value1\" }" ) );
+        assertEquals( "value1", state.value( "prop1" ).orElseThrow() );
+    }
 }
@@ -3,12 +3,13 @@ package org.bsc.langgraph4j.serializer;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.MapperFeature;
 import org.bsc.langgraph4j.NodeOutput;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
-import java.io.IOException;
+import java.io.*;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.Objects;
@@ -154,5 +155,74 @@ public class JacksonSerializerTest {
 
 
 
+    }
+
+    @Test
+    public void streamPayloadTest() throws Exception {
+
+        var serializer = new MyStateSerializer();
+
+        var first = Map.<String,Object>of( "prop1", "value1", "unicode", "àèìòù – 日本語" );
+        var second = Map.<String,Object>of( "prop2", "value2" );
+
+        var stream = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream( stream ) ) {
+            serializer.writeData( first, out );
+            Serializer.writeUTF( "{\"legacy\":\"value\"}", out );
+            serializer.writeData( second, out );
+        }
+
+        try( var in = new ObjectInputStream( new ByteArrayInputStream( stream.toByteArray() ) ) ) {
+            assertEquals( first, serializer.readData( in ) );
+            assertEquals( Map.of( "legacy", "value" ), serializer.readData( in ) );
+            assertEquals( second, serializer.readData( in ) );
+        }
+
+        var state = serializer.read( new StringReader( "{ \"prop1\": \"value1\" }" ) );
+        assertEquals( "value1", state.value( "prop1" ).orElseThrow() );
+    }
+
+    @Test
+    public void textTest() throws Exception {
+
+        var serializer = new MyStateSerializer();
+
+        var data = Map.<String,Object>of( "prop1", "value1", "unicode", "àèìòù – 日本語" );
+
+        var text = serializer.writeText( data );
+        assertTrue( text.startsWith( "{" ) );
+        assertEquals( data, serializer.objectMapper().readValue( text, Map.class ) );
+        assertEquals( data, serializer.readText( text ) );
+    }
+
+    @Test
+    public void binaryFormatsTest() throws Exception {
+
+        var messages = new java.util.ArrayList<Object>();
+        for( int i = 0; i < 100; ++i ) {
+            messages.add( Map.of( "role", "user", "content", "message " + i ) );
+        }
+        var data = Map.<String,Object>of( "messages", messages, "next", "agent" );
+
+        var json = new MyStateSerializer();
+        assertEquals( JacksonFormat.JSON, json.format() );
+        assertTrue( json.isText() );
+        assertEquals( "application/json", json.contentType() );
+        var jsonBytes = json.dataToBytes( data );
+
+        for( var format : java.util.List.of( JacksonFormat.SMILE, JacksonFormat.CBOR ) ) {
+            var serializer = new JacksonStateSerializer<State>( State::new, format ) {};
+            assertEquals( format, serializer.format() );
+            assertEquals( format.contentType(), serializer.contentType() );
+
+            var bytes = serializer.dataToBytes( data );
+            assertEquals( data, serializer.dataFromBytes( bytes ) );
+            assertTrue( bytes.length < jsonBytes.length, () -> format + ": " + bytes.length + " json: " + jsonBytes.length );
+
+            assertFalse( serializer.isText() );
+            assertThrows( IllegalStateException.class, () -> serializer.writeText( data ) );
+            assertThrows( IllegalStateException.class, () -> serializer.readText( "{}" ) );
+            assertThrows( IllegalStateException.class, () -> serializer.read( new StringReader( "{}" ) ) );
+        }
     }
 }
@@ -0,0 +1,94 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PayloadCompressorTest {
+
+    private Map<String,Object> sampleData( int messages ) {
+        var list = new ArrayList<String>();
+        for( int i = 0; i < messages; ++i ) {
+            list.add( "this is the message number " + i + " of the conversation" );
+        }
+        return Map.of( "messages", list );
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var payload = serializer.dataToBytes( sampleData( 200 ) );
+
+        for( var codec : PayloadCompressor.Codec.values() ) {
+            var compressor = PayloadCompressor.builder()
+                    .codec( codec )
+                    .level( 9 )
+                    .build();
+
+            var compressed = compressor.compress( payload );
+            assertTrue( PayloadCompressor.isCompressed( compressed ) );
+            assertTrue( compressed.length < payload.length / 2, () -> codec + ": " + compressed.length );
+
+            assertArrayEquals( payload, compressor.decompress( compressed ) );
+            // the header is self-describing, so any compressor can decompress it
+            assertArrayEquals( payload, PayloadCompressor.disabled().decompress( compressed ) );
+            assertEquals( sampleData( 200 ), serializer.dataFromBytes( compressor.decompress( compressed ) ) );
+
+            var metrics = compressor.metrics();
+            assertEquals( 1, metrics.compressed() );
+            assertEquals( 2, metrics.decompressed() );
+            assertEquals( payload.length, metrics.uncompressedBytes() );
+            assertEquals( compressed.length, metrics.compressedBytes() );
+            assertTrue( metrics.ratio() < 0.5 );
+            assertTrue( metrics.compressNanos() > 0 );
+        }
+    }
+
+    @Test
+    public void uncompressedPayloadTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var compressor = PayloadCompressor.builder().build();
+
+        // below threshold
+        var small = serializer.dataToBytes( sampleData( 1 ) );
+        assertTrue( small.length < PayloadCompressor.DEFAULT_THRESHOLD );
+        assertSame( small, compressor.compress( small ) );
+        assertEquals( 1, compressor.metrics().skipped() );
+
+        // legacy payloads are returned as they are
+        var legacy = serializer.dataToBytes( sampleData( 200 ) );
+        assertFalse( PayloadCompressor.isCompressed( legacy ) );
+        assertSame( legacy, compressor.decompress( legacy ) );
+
+        var disabled = PayloadCompressor.disabled();
+        assertFalse( disabled.isEnabled() );
+        assertSame( legacy, disabled.compress( legacy ) );
+
+        // unknown codec
+        var corrupted = compressor.compress( legacy ).clone();
+        corrupted[3] = 99;
+        assertThrows( StreamCorruptedException.class, () -> compressor.decompress( corrupted ) );
+
+        // uncompressed length of the header beyond the maximum or the actual data
+        var compressed = compressor.compress( legacy );
+        var oversized = compressed.clone();
+        oversized[4] = 0x7F;
+        assertThrows( StreamCorruptedException.class, () -> compressor.decompress( oversized ) );
+        var bounded = PayloadCompressor.builder().maxLength( legacy.length - 1 ).build();
+        assertThrows( StreamCorruptedException.class, () -> bounded.decompress( compressed ) );
+        var longer = compressed.clone();
+        java.nio.ByteBuffer.wrap( longer ).putInt( 4, legacy.length + 1 );
+        assertThrows( StreamCorruptedException.class, () -> PayloadCompressor.builder().maxLength( Integer.MAX_VALUE ).build().decompress( longer ) );
+
+        assertThrows( IllegalArgumentException.class, () -> PayloadCompressor.builder().level( 10 ).build() );
+        assertThrows( IllegalArgumentException.class, () -> PayloadCompressor.builder().threshold( -1 ).build() );
+        assertThrows( IllegalArgumentException.class, () -> PayloadCompressor.builder().maxLength( -1 ).build() );
+    }
+}
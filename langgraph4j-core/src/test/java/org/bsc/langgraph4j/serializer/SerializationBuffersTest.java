@@ -0,0 +1,152 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerializationBuffersTest {
+
+    private Map<String,Object> sampleData( int messages ) {
+        var list = new ArrayList<String>();
+        for( int i = 0; i < messages; ++i ) {
+            list.add( "this is the message number " + i + " of the conversation" );
+        }
+        return Map.of( "messages", list, "step", messages );
+    }
+
+    private byte[] freshStreamBytes( StateSerializer<?> serializer, Map<String,Object> data ) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try( var oos = new ObjectOutputStream( bytes ) ) {
+            serializer.writeData( data, oos );
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void reusedStreamTest() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+
+        for( int i = 1; i <= 5; ++i ) {
+            var data = sampleData( i * 10 );
+            // the pooled stream must produce the same bytes of a fresh one
+            assertArrayEquals( freshStreamBytes( serializer, data ), serializer.dataToBytes( data ) );
+            assertEquals( data, serializer.dataFromBytes( serializer.dataToBytes( data ) ) );
+            assertEquals( data, serializer.cloneObject( data ).data() );
+        }
+        assertTrue( SerializationBuffers.available() > 0 );
+    }
+
+    @Test
+    public void leaseTest() throws Exception {
+        try( var outer = SerializationBuffers.acquire() ) {
+            outer.objectOutput().writeObject( "outer" );
+            // nested acquisition gets another buffer
+            try( var inner = SerializationBuffers.acquire() ) {
+                assertNotSame( outer, inner );
+                inner.objectOutput().writeObject( "inner" );
+                assertTrue( inner.size() > 0 );
+            }
+            assertEquals( "outer", new java.io.ObjectInputStream( outer.inputStream() ).readObject() );
+        }
+
+        var lease = SerializationBuffers.acquireRaw();
+        lease.outputStream().write( new byte[] { 1, 2, 3 } );
+        assertArrayEquals( new byte[] { 1, 2, 3 }, lease.toByteArray() );
+        lease.close();
+        assertThrows( IllegalStateException.class, lease::objectOutput );
+
+        // a failed serialization doesn't return the buffer to the pool
+        var failed = SerializationBuffers.acquire();
+        assertThrows( NotSerializableException.class, () -> failed.objectOutput().writeObject( List.of( new Object() ) ) );
+        failed.close();
+        try( var next = SerializationBuffers.acquire() ) {
+            assertNotSame( failed, next );
+            next.objectOutput().writeObject( "next" );
+            assertEquals( "next", new java.io.ObjectInputStream( next.inputStream() ).readObject() );
+        }
+    }
+
+    @Test
+    public void steadyStateAllocationTest() throws Exception {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        if( !( threadBean instanceof com.sun.management.ThreadMXBean bean ) || !bean.isThreadAllocatedMemorySupported() ) {
+            return;
+        }
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var data = Map.<String,Object>of( "payload", "x".repeat( 300 * 1024 ) );
+
+        var size = serializer.dataToBytes( data ).length;
+        for( int i = 0; i < 100; ++i ) { // warm up
+            serializer.dataToBytes( data );
+            freshStreamBytes( serializer, data );
+        }
+
+        final int iterations = 100;
+        long threadId = Thread.currentThread().getId();
+
+        long start = bean.getThreadAllocatedBytes( threadId );
+        for( int i = 0; i < iterations; ++i ) {
+            freshStreamBytes( serializer, data );
+        }
+        long fresh = ( bean.getThreadAllocatedBytes( threadId ) - start ) / iterations;
+
+        start = bean.getThreadAllocatedBytes( threadId );
+        for( int i = 0; i < iterations; ++i ) {
+            serializer.dataToBytes( data );
+        }
+        long pooled = ( bean.getThreadAllocatedBytes( threadId ) - start ) / iterations;
+
+        assertTrue( pooled < fresh );
+        // steady state allocates little more than the result
+        assertTrue( pooled < size + 16 * 1024 );
+    }
+
+    @Test
+    public void retainedBytesTest() throws Exception {
+        try {
+            // drop the idle buffers left by the other tests
+            SerializationBuffers.maxRetainedBytes( 0 );
+            assertEquals( 0, SerializationBuffers.retainedBytes() );
+            try( var lease = SerializationBuffers.acquire() ) {
+                lease.objectOutput().writeObject( "disabled" );
+                lease.size();
+            }
+            assertEquals( 0, SerializationBuffers.available() );
+
+            SerializationBuffers.maxRetainedBytes( 3 * SerializationBuffers.INITIAL_CAPACITY );
+            var leases = new ArrayList<SerializationBuffers.Lease>();
+            for( int i = 0; i < 4; ++i ) {
+                var lease = SerializationBuffers.acquire();
+                lease.objectOutput().writeObject( "lease " + i );
+                lease.size();
+                leases.add( lease );
+            }
+            leases.forEach( SerializationBuffers.Lease::close );
+            // the pool keeps the buffers fitting the max retained bytes only
+            assertEquals( 3, SerializationBuffers.available() );
+            assertEquals( 3L * SerializationBuffers.INITIAL_CAPACITY, SerializationBuffers.retainedBytes() );
+
+            // a buffer grown beyond the max retained capacity is discarded
+            try( var lease = SerializationBuffers.acquire() ) {
+                lease.outputStream().write( new byte[ SerializationBuffers.MAX_RETAINED_CAPACITY + 1 ] );
+                lease.size();
+            }
+            assertEquals( 2, SerializationBuffers.available() );
+            assertEquals( 2L * SerializationBuffers.INITIAL_CAPACITY, SerializationBuffers.retainedBytes() );
+        }
+        finally {
+            SerializationBuffers.maxRetainedBytes( SerializationBuffers.DEFAULT_MAX_RETAINED_BYTES );
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.bsc.langgraph4j.state;
+
+import org.bsc.langgraph4j.serializer.EmbeddingSerializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddingTest {
+
+    private static float[] randomVector( Random random, int dimension ) {
+        var result = new float[dimension];
+        for( int i = 0; i < dimension; ++i ) {
+            result[i] = random.nextFloat() * 2 - 1;
+        }
+        return result;
+    }
+
+    @Test
+    public void vectorOperationsTest() {
+        var a = Embedding.of( 1f, 2f, 2f );
+        var b = Embedding.offHeap( 2f, 0f, 0f );
+
+        assertFalse( a.isOffHeap() );
+        assertTrue( b.isOffHeap() );
+        assertEquals( 3, a.dimension() );
+        assertEquals( 3f, a.norm(), 1e-6 );
+        assertEquals( 2f, a.dot( b ), 1e-6 );
+        assertEquals( 1f / 3f, a.cosineSimilarity( b ), 1e-6 );
+        assertEquals( 1f, a.normalize().norm(), 1e-6 );
+        assertTrue( b.normalize().isOffHeap() );
+        assertEquals( 0f, a.cosineSimilarity( Embedding.of( 0f, 0f, 0f ) ) );
+        assertThrows( IllegalArgumentException.class, () -> a.dot( Embedding.of( 1f ) ) );
+
+        assertEquals( Embedding.of( 2f, 0f, 0f ), b );
+        assertEquals( Embedding.of( 2f, 0f, 0f ).hashCode(), b.hashCode() );
+        assertEquals( Embedding.of( 1f, 2f, 2f ), Embedding.of( List.of( 1.0, 2.0, 2.0 ) ) );
+        assertArrayEquals( new float[] { 1f, 2f, 2f }, a.toArray() );
+    }
+
+    @Test
+    public void batchTest() {
+        var random = new Random( 42 );
+        var embeddings = new ArrayList<Embedding>();
+        for( int i = 0; i < 100; ++i ) {
+            embeddings.add( Embedding.of( randomVector( random, 64 ) ) );
+        }
+        var query = embeddings.get( 17 );
+
+        for( var batch : List.of( EmbeddingBatch.of( embeddings ), EmbeddingBatch.of( embeddings, true ) ) ) {
+            assertEquals( 100, batch.size() );
+            assertEquals( 64, batch.dimension() );
+            assertEquals( embeddings.get( 5 ), batch.get( 5 ) );
+            assertEquals( embeddings, batch.toList() );
+
+            var similarities = batch.cosineSimilarity( query );
+            var dots = batch.dot( query );
+            for( int i = 0; i < embeddings.size(); ++i ) {
+                assertEquals( embeddings.get(i).cosineSimilarity( query ), similarities[i], 1e-5 );
+                assertEquals( embeddings.get(i).dot( query ), dots[i], 1e-4 );
+            }
+
+            var top = batch.topK( query, 3 );
+            assertEquals( 3, top.length );
+            assertEquals( 17, top[0] );
+            assertTrue( similarities[top[1]] >= similarities[top[2]] );
+        }
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        var random = new Random( 7 );
+        var vector = randomVector( random, 1536 );
+        var embedding = Embedding.of( vector );
+        var boxed = new ArrayList<Double>();
+        for( var value : vector ) {
+            boxed.add( (double)value );
+        }
+
+        var schema = Map.<String,Channel<?>>of(
+                "query", Channels.embedding(),
+                "documents", Channels.embeddings( true ) );
+
+        for( StateSerializer<AgentState> plain : List.of(
+                new ObjectStreamStateSerializer<>( AgentState::new ),
+                new JacksonStateSerializer<AgentState>( AgentState::new ) {} ) ) {
+
+            var boxedSize = plain.dataToBytes( Map.of( "query", boxed ) ).length;
+
+            var serializer = plain.withChannels( schema );
+
+            var data = Map.<String,Object>of( "query", embedding,
+                    "documents", List.of( embedding, Embedding.of( 1f, 2f ) ) );
+            var bytes = serializer.dataToBytes( data );
+            var result = serializer.dataFromBytes( bytes );
+
+            assertEquals( data, result );
+            assertFalse( ((Embedding)result.get("query")).isOffHeap() );
+            assertTrue( ((List<?>)result.get("documents")).stream().allMatch( e -> ((Embedding)e).isOffHeap() ) );
+
+            var rawSize = serializer.dataToBytes( Map.of( "query", embedding ) ).length;
+            assertTrue( rawSize < 1536 * Float.BYTES + 128 );
+            assertTrue( rawSize < boxedSize );
+        }
+
+        // java serialization fallback, without channel serializer
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        assertEquals( Map.of( "query", embedding ), serializer.dataFromBytes( serializer.dataToBytes( Map.of( "query", embedding ) ) ) );
+        // immutable: shared by the state copies
+        assertSame( embedding, serializer.cloneObject( Map.of( "query", embedding ) ).data().get("query") );
+
+        assertArrayEquals( vector, EmbeddingSerializer.offHeap().bytesToObject( EmbeddingSerializer.heap().objectToBytes( embedding ) ).toArray() );
+    }
+}
@@ -2,8 +2,10 @@ package org.bsc.langgraph4j.checkpoint;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
 
 import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 
@@ -30,13 +32,16 @@ import java.util.*;
  *          node_id VARCHAR(255),
  *          next_node_id VARCHAR(255),
  *          state_data JSON NOT NULL,
- *          saved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+ *          saved_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+ *          checkpoint_seq BIGINT,
  *
  *          CONSTRAINT LANGRAPH4J_FK_THREAD
  *              FOREIGN KEY(thread_id)
  *              REFERENCES LANGRAPH4J_THREAD(thread_id)
  *              ON DELETE CASCADE
  *     )
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ
+ *          ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq)
  * </pre>
  * </p>
  * <p>
@@ -46,6 +51,21 @@ import java.util.*;
  * to the database
  * - CreateOption : indicates whether the tables should be created or
  * existing tables should be used.
+ * - keyframeInterval : the number of checkpoints between two full keyframes,
+ * checkpoints in between store only the channels changed since the previous one.
+ * - statePageSize : the number of checkpoint states read by each query. Loading a thread
+ * reads only the checkpoint headers, while the states are read on demand.
+ * - writeDurability : when the checkpoints are committed. Unless {@link WriteDurability#SYNC},
+ * they are committed in batches by a writer thread, and the saver should be closed to commit the last ones.
+ * If a batch fails, the threads of its checkpoints are reloaded from the database on their next access,
+ * and the failure is reported by the next {@link #flush(RunnableConfig)} of each of them.
+ * </p>
+ * <p>
+ * The checkpoints of a thread are ordered by their {@code checkpoint_seq}, that the insert statement assigns
+ * as the next one of the thread, so that the order depends neither on the clock of the database nor on
+ * the precision of {@code saved_at}. Tables created by the previous versions get the column on
+ * {@link CreateOption#CREATE_IF_NOT_EXISTS}; their checkpoints have no sequence and are ordered before the new ones
+ * by {@code saved_at}, as before.
  * </p>
  * <p>
  * Ex:
@@ -58,7 +78,7 @@ import java.util.*;
  * </pre>
  * </p>
  */
-public class MysqlSaver extends MemorySaver {
+public class MysqlSaver extends MemorySaver implements AutoCloseable {
 
     // DDL statements
     private static final String CREATE_THREAD_TABLE = """
@@ -80,7 +100,8 @@ public class MysqlSaver extends MemorySaver {
                node_id VARCHAR(255),
                next_node_id VARCHAR(255),
                state_data JSON NOT NULL,
-               saved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+               saved_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+               checkpoint_seq BIGINT,
 
                CONSTRAINT LANGRAPH4J_FK_THREAD
                    FOREIGN KEY(thread_id)
@@ -88,6 +109,17 @@ public class MysqlSaver extends MemorySaver {
                    ON DELETE CASCADE
             )""";
     
+    private static final String INDEX_CHECKPOINT_TABLE = """
+            CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ
+              ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq)
+            """;
+
+    /**
+     * adds the sequence to the tables created by the previous versions
+     */
+    private static final String ADD_CHECKPOINT_SEQ = "ALTER TABLE LANGRAPH4J_CHECKPOINT ADD COLUMN checkpoint_seq BIGINT";
+    private static final String SELECT_CHECKPOINT_SEQ = "SELECT checkpoint_seq FROM LANGRAPH4J_CHECKPOINT WHERE 1 = 0";
+
     private static final String DROP_CHECKPOINT_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_CHECKPOINT";
     private static final String DROP_THREAD_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_THREAD";
 
@@ -99,10 +131,11 @@ public class MysqlSaver extends MemorySaver {
             """;
 
     private static final String INSERT_CHECKPOINT = """
-            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data)
-            SELECT ?, thread_id, ?, ?, ?
-            FROM LANGRAPH4J_THREAD
-            WHERE thread_name = ? AND is_released = FALSE
+            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data, checkpoint_seq)
+            SELECT ?, t.thread_id, ?, ?, ?,
+              (SELECT COALESCE(MAX(c.checkpoint_seq), 0) + 1 FROM LANGRAPH4J_CHECKPOINT c WHERE c.thread_id = t.thread_id)
+            FROM LANGRAPH4J_THREAD t
+            WHERE t.thread_name = ? AND t.is_released = FALSE
             """;
 
     private static final String UPDATE_CHECKPOINT = """
@@ -115,16 +148,36 @@ public class MysqlSaver extends MemorySaver {
             WHERE checkpoint_id = ?
             """;
 
+    private static final String UPDATE_CHECKPOINT_STATE = """
+            UPDATE LANGRAPH4J_CHECKPOINT
+            SET
+              state_data = ?
+            WHERE checkpoint_id = ?
+            """;
+
+    /**
+     * headers only, the states are read on demand by {@link #SELECT_STATES}
+     */
     private static final String SELECT_CHECKPOINTS = """
             SELECT
               c.checkpoint_id,
               c.node_id,
-              c.next_node_id,
-              c.state_data
+              c.next_node_id
             FROM LANGRAPH4J_CHECKPOINT c
               INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
             WHERE t.thread_name = ? AND t.is_released != TRUE
-            ORDER BY c.saved_at DESC
+            ORDER BY c.checkpoint_seq DESC, c.saved_at DESC
+            """;
+
+    /**
+     * reads the states of a page of checkpoints, formatted with a parameter for each checkpoint of the page
+     */
+    private static final String SELECT_STATES = """
+            SELECT
+              c.checkpoint_id,
+              c.state_data
+            FROM LANGRAPH4J_CHECKPOINT c
+            WHERE c.checkpoint_id IN (%s)
             """;
 
     private static final String DELETE_CHECKPOINTS = """
@@ -135,10 +188,45 @@ public class MysqlSaver extends MemorySaver {
             UPDATE LANGRAPH4J_THREAD SET is_released = TRUE WHERE thread_name = ? AND is_released = FALSE
             """;
 
+    /**
+     * tag of the state document that holds a delta instead of the full state.
+     * A tagged document is the JSON array {@code [tag, value]}, that cannot be mistaken for a state,
+     * always stored as JSON object
+     */
+    static final String DELTA_TAG = "delta";
+
+    /**
+     * tag of the state document that holds the compressed JSON document, base64 encoded
+     */
+    static final String COMPRESSED_TAG = "compressed";
+
     // Configuration
     private final DataSource dataSource;
     private final CreateOption createOption;
+    private final int keyframeInterval;
     private final ObjectMapper objectMapper;
+    private final PayloadCompressor compressor;
+    private final int statePageSize;
+    /**
+     * {@link #SELECT_STATES} with a parameter for each checkpoint of a page, so that the statement is kept constant
+     */
+    private final String selectStatesSql;
+    private final WriteDurability writeDurability;
+    /**
+     * writer of the checkpoints, null if {@link WriteDurability#SYNC}
+     */
+    private final CheckpointBatchWriter<PendingCheckpoint> writer;
+
+    /**
+     * Checkpoint to insert, encoded by the thread putting it
+     *
+     * @param threadName the name of the thread
+     * @param id the checkpoint id
+     * @param nodeId the checkpoint node id
+     * @param nextNodeId the checkpoint next node id
+     * @param state the state document
+     */
+    private record PendingCheckpoint(String threadName, String id, String nodeId, String nextNodeId, String state) {}
 
     /**
      * Private constructor used by the builder to create a new instance of
@@ -146,12 +234,30 @@ public class MysqlSaver extends MemorySaver {
      * 
      * @param dataSource   the data source
      * @param createOption the create options
+     * @param keyframeInterval the number of checkpoints between two full keyframes
+     * @param compressor the compressor of the state documents
+     * @param statePageSize the number of checkpoint states read by each query
+     * @param writeDurability when the checkpoints are committed
      */
-    private MysqlSaver(DataSource dataSource, CreateOption createOption) {
+    private MysqlSaver(DataSource dataSource, CreateOption createOption, int keyframeInterval, PayloadCompressor compressor, CheckpointRetention retention, int statePageSize, WriteDurability writeDurability) {
+        super(Objects.requireNonNull(retention, "retention cannot be null"));
         this.dataSource = dataSource;
         this.createOption = createOption;
+        this.keyframeInterval = CheckpointDelta.requireValidKeyframeInterval(keyframeInterval);
+        this.compressor = Objects.requireNonNull(compressor, "compressor cannot be null");
         this.objectMapper = new ObjectMapper();
+        this.statePageSize = CheckpointStatePager.requireValidPageSize(statePageSize);
+        this.selectStatesSql = SELECT_STATES.formatted(String.join(", ", Collections.nCopies(statePageSize, "?")));
+        this.writeDurability = Objects.requireNonNull(writeDurability, "writeDurability cannot be null");
         initTables();
+        this.writer = (writeDurability == WriteDurability.SYNC) ?
+                null :
+                new CheckpointBatchWriter<>("langgraph4j-mysql-writer", CheckpointBatchWriter.DEFAULT_MAX_BATCH_SIZE,
+                        PendingCheckpoint::threadName, this::commitCheckpoints);
+    }
+
+    public WriteDurability writeDurability() {
+        return writeDurability;
     }
 
     /**
@@ -164,8 +270,74 @@ public class MysqlSaver extends MemorySaver {
         return new Builder();
     }
 
+    /**
+     * Encodes the state as JSON document. A keyframe is stored as the full state, while a delta
+     * is tagged by {@link #DELTA_TAG}.
+     * If compressed, the document is tagged by {@link #COMPRESSED_TAG}
+     *
+     * @param delta the checkpoint state as delta from its parent
+     * @return the JSON document
+     * @throws Exception if an error occurs during serialization
+     */
+    private String encodeState(CheckpointDelta delta) throws Exception {
+        final byte[] json;
+        if (delta.isKeyframe()) {
+            json = objectMapper.writeValueAsBytes(delta.changed());
+        } else {
+            json = objectMapper.writeValueAsBytes(List.of(DELTA_TAG, Map.of(
+                    "parentId", delta.parentId(),
+                    "changed", delta.changed(),
+                    "appended", delta.appended(),
+                    "removed", delta.removed())));
+        }
+        final byte[] payload = compressor.compress(json);
+        if (payload == json) {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+        return objectMapper.writeValueAsString(List.of(COMPRESSED_TAG, Base64.getEncoder().encodeToString(payload)));
+    }
+
+    /**
+     * Decodes the state from JSON document
+     *
+     * @param jsonString the JSON document
+     * @return the checkpoint state as delta from its parent
+     * @throws Exception if an error occurs during deserialization
+     */
+    @SuppressWarnings("unchecked")
+    private CheckpointDelta decodeState(String jsonString) throws Exception {
+        Object document = objectMapper.readValue(jsonString, Object.class);
+
+        if (taggedValue(document, COMPRESSED_TAG) instanceof String compressed) {
+            document = objectMapper.readValue(compressor.decompress(Base64.getDecoder().decode(compressed)), Object.class);
+        }
+
+        if (taggedValue(document, DELTA_TAG) instanceof Map<?, ?> delta) {
+            return new CheckpointDelta(
+                    (String) delta.get("parentId"),
+                    (Map<String, Object>) delta.get("changed"),
+                    (Map<String, List<Object>>) delta.get("appended"),
+                    new HashSet<>((Collection<String>) delta.get("removed")));
+        }
+        if (document instanceof Map<?, ?> state) {
+            return CheckpointDelta.keyframe((Map<String, Object>) state);
+        }
+        throw new IllegalStateException("invalid state document, neither a state nor a tagged document");
+    }
+
+    /**
+     * @return the value of the document if it is tagged by the given tag, null otherwise
+     */
+    private static Object taggedValue(Object document, String tag) {
+        if (document instanceof List<?> tagged && tagged.size() == 2 && tag.equals(tagged.get(0))) {
+            return tagged.get(1);
+        }
+        return null;
+    }
+
     /**
      * If the list of checkpoints is empty, loads the checkpoints from the database.
+     * Only the checkpoint headers are read, while their states are read on demand, see {@link CheckpointStatePager}
      *
      * @param config      the configuration
      * @param checkpoints the list of checkpoints
@@ -176,29 +348,33 @@ public class MysqlSaver extends MemorySaver {
     @Override
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints)
             throws Exception {
+        final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        if (writer != null && writer.reset(threadName)) {
+            // a batch with checkpoints of the thread has failed, the thread is reloaded from the database
+            checkpoints.clear();
+        }
+
         if (!checkpoints.isEmpty()) {
             return checkpoints;
         }
 
-        final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+        // a thread evicted from memory could have checkpoints not committed yet
+        awaitPendingCheckpoints(threadName);
 
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CHECKPOINTS)) {
 
             preparedStatement.setString(1, threadName);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                var headers = new ArrayList<CheckpointStatePager.Header>();
                 while (resultSet.next()) {
-                    String jsonString = resultSet.getString(4);
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> state = objectMapper.readValue(jsonString, Map.class);
-                    Checkpoint checkpoint = Checkpoint.builder()
-                            .id(resultSet.getString(1))
-                            .nodeId(resultSet.getString(2))
-                            .nextNodeId(resultSet.getString(3))
-                            .state(state)
-                            .build();
-                    checkpoints.add(checkpoint);
+                    headers.add(new CheckpointStatePager.Header(
+                            resultSet.getString(1),
+                            resultSet.getString(2),
+                            resultSet.getString(3)));
                 }
+                checkpoints.addAll(CheckpointStatePager.lazyCheckpoints(headers, statePageSize, this::loadStates));
             }
         } catch (SQLException sqlException) {
             throw new Exception("Unable to load checkpoints", sqlException);
@@ -206,6 +382,33 @@ public class MysqlSaver extends MemorySaver {
         return checkpoints;
     }
 
+    /**
+     * Reads the states of a page of checkpoints
+     *
+     * @param ids the checkpoint ids, up to the page size
+     * @return the states indexed by checkpoint id
+     * @throws Exception if an error occurs while the states are being read from the database
+     */
+    private Map<String, CheckpointDelta> loadStates(List<String> ids) throws Exception {
+        var result = new HashMap<String, CheckpointDelta>(ids.size());
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(selectStatesSql)) {
+
+            // the unused parameters repeat the first id
+            for (int i = 0; i < statePageSize; ++i) {
+                preparedStatement.setString(i + 1, ids.get(i < ids.size() ? i : 0));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.put(resultSet.getString(1), decodeState(resultSet.getString(2)));
+                }
+            }
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to load checkpoint states", sqlException);
+        }
+        return result;
+    }
+
     /**
      * Inserts a checkpoint to the database
      * 
@@ -220,6 +423,24 @@ public class MysqlSaver extends MemorySaver {
             throws Exception {
 
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        // checkpoints are ordered from the newest, the parent is the previous newest one.
+        // The delta is computed before getting the connection, since the parent state could be read from the database
+        var parent = (checkpoints.size() > 1) ? checkpoints.get(1) : null;
+        var delta = CheckpointDelta.of(keyframeInterval, parent, checkpoint);
+        checkpoint.storedDelta(delta, parent);
+
+        var pending = new PendingCheckpoint(threadName,
+                checkpoint.getId(),
+                checkpoint.getNodeId(),
+                checkpoint.getNextNodeId(),
+                encodeState(delta));
+
+        if (writer != null) {
+            writer.submit(pending);
+            return;
+        }
+
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
                 PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
@@ -228,12 +449,7 @@ public class MysqlSaver extends MemorySaver {
             upsertStatement.setString(2, threadName);
             upsertStatement.execute();
 
-            insertCheckpointStatement.setString(1, checkpoint.getId());
-            insertCheckpointStatement.setString(2, checkpoint.getNodeId());
-            insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
-            insertCheckpointStatement.setString(4, objectMapper.writeValueAsString(checkpoint.getState()));
-            insertCheckpointStatement.setString(5, threadName);
-
+            bindCheckpoint(insertCheckpointStatement, pending);
             insertCheckpointStatement.execute();
         } catch (SQLException sqlException) {
             throw new RuntimeException("Unable to insert checkpoint", sqlException);
@@ -241,6 +457,90 @@ public class MysqlSaver extends MemorySaver {
 
     }
 
+    private static void bindCheckpoint(PreparedStatement insertCheckpointStatement, PendingCheckpoint pending) throws SQLException {
+        insertCheckpointStatement.setString(1, pending.id());
+        insertCheckpointStatement.setString(2, pending.nodeId());
+        insertCheckpointStatement.setString(3, pending.nextNodeId());
+        insertCheckpointStatement.setString(4, pending.state());
+        insertCheckpointStatement.setString(5, pending.threadName());
+    }
+
+    /**
+     * Commits a batch of checkpoints, put by any thread, in a single transaction.
+     * Each thread of the batch is created, unless it is already active, before inserting the checkpoints
+     * in submission order by a JDBC batch
+     *
+     * @param batch the checkpoints to insert
+     * @throws SQLException if the batch cannot be committed
+     */
+    private void commitCheckpoints(List<PendingCheckpoint> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
+                    PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
+
+                var threadNames = new LinkedHashSet<String>();
+                for (var pending : batch) {
+                    threadNames.add(pending.threadName());
+                }
+                for (var threadName : threadNames) {
+                    upsertStatement.setString(1, UUID.randomUUID().toString());
+                    upsertStatement.setString(2, threadName);
+                    upsertStatement.addBatch();
+                }
+                upsertStatement.executeBatch();
+
+                for (var pending : batch) {
+                    bindCheckpoint(insertCheckpointStatement, pending);
+                    insertCheckpointStatement.addBatch();
+                }
+                insertCheckpointStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException sqlException) {
+                connection.rollback();
+                throw sqlException;
+            }
+        }
+    }
+
+    /**
+     * Waits until the checkpoints put so far are committed
+     *
+     * @param threadName the thread whose failed checkpoints, if any, are reported
+     * @throws IllegalStateException if checkpoints of the thread have not been committed
+     */
+    private void awaitPendingCheckpoints(String threadName) throws InterruptedException {
+        if (writer != null) {
+            writer.flush(threadName);
+        }
+    }
+
+    /**
+     * Waits until the checkpoints put so far are committed, unless the {@link WriteDurability} is
+     * {@link WriteDurability#ASYNC}
+     *
+     * @param config the configuration of the thread, the pending checkpoints of all the threads are committed
+     * @throws Exception if the checkpoints of the thread cannot be committed
+     */
+    @Override
+    public void flush(RunnableConfig config) throws Exception {
+        if (writeDurability == WriteDurability.ON_RETURN) {
+            awaitPendingCheckpoints(config.threadId().orElse(THREAD_ID_DEFAULT));
+        }
+    }
+
+    /**
+     * Commits the pending checkpoints and stops the writer thread, if any
+     *
+     * @throws Exception if the checkpoints cannot be committed
+     */
+    @Override
+    public void close() throws Exception {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
     /**
      * Marks the checkpoints as released
      * 
@@ -255,6 +555,8 @@ public class MysqlSaver extends MemorySaver {
             throws Exception {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
 
+        awaitPendingCheckpoints(threadName);
+
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(RELEASE_THREAD)) {
             preparedStatement.setString(1, threadName);
@@ -266,6 +568,7 @@ public class MysqlSaver extends MemorySaver {
 
     /**
      * If the checkpoint exists, updates the checkpoint, otherwise it inserts it.
+     * The updated checkpoint and its child, that could refer to the replaced one, are stored as keyframes.
      * 
      * @param config      the configuration
      * @param checkpoints the list of checkpoints
@@ -277,14 +580,29 @@ public class MysqlSaver extends MemorySaver {
     protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint)
             throws Exception {
         if (config.checkPointId().isPresent()) {
+            // the state of the child is loaded before updating the replaced checkpoint, that could be its parent
+            var index = checkpoints.indexOf(checkpoint);
+            var child = (index > 0) ? checkpoints.get(index - 1) : null;
+            var childState = (child != null) ? child.getState() : null;
+
+            // the replaced checkpoint could be still pending
+            awaitPendingCheckpoints(config.threadId().orElse(THREAD_ID_DEFAULT));
+
             try (Connection connection = dataSource.getConnection();
-                    PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_CHECKPOINT)) {
+                    PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_CHECKPOINT);
+                    PreparedStatement updateStateStatement = connection.prepareStatement(UPDATE_CHECKPOINT_STATE)) {
                 preparedStatement.setString(1, checkpoint.getId());
                 preparedStatement.setString(2, checkpoint.getNodeId());
                 preparedStatement.setString(3, checkpoint.getNextNodeId());
-                preparedStatement.setString(4, objectMapper.writeValueAsString(checkpoint.getState()));
+                preparedStatement.setString(4, encodeState(CheckpointDelta.keyframe(checkpoint.getState())));
                 preparedStatement.setString(5, config.checkPointId().get());
                 preparedStatement.execute();
+
+                if (child != null) {
+                    updateStateStatement.setString(1, encodeState(CheckpointDelta.keyframe(childState)));
+                    updateStateStatement.setString(2, child.getId());
+                    updateStateStatement.execute();
+                }
             } catch (SQLException sqlException) {
                 throw new Exception("Unable to update checkpoint", sqlException);
             }
@@ -309,28 +627,57 @@ public class MysqlSaver extends MemorySaver {
                     createOption == CreateOption.CREATE_IF_NOT_EXISTS) {
                 statement.execute(CREATE_THREAD_TABLE);
                 statement.execute(CREATE_CHECKPOINT_TABLE);
-                
-                // Try to create index, ignore error if it already exists
-                try {
-                    statement.execute(INDEX_THREAD_TABLE);
-                } catch (SQLException e) {
-                    // Ignore "Duplicate key name" error (error code 1061)
-                    if (e.getErrorCode() != 1061) {
-                        throw e;
-                    }
-                }
+                addCheckpointSeq(statement);
+
+                createIndex(statement, INDEX_THREAD_TABLE);
+                createIndex(statement, INDEX_CHECKPOINT_TABLE);
             }
         } catch (SQLException sqlException) {
             throw new RuntimeException("Unable to create tables", sqlException);
         }
     }
 
+    /**
+     * Adds the {@code checkpoint_seq} column to a table created by the previous versions
+     */
+    private static void addCheckpointSeq(Statement statement) throws SQLException {
+        try {
+            statement.executeQuery(SELECT_CHECKPOINT_SEQ).close();
+        } catch (SQLException missingColumn) {
+            try {
+                statement.execute(ADD_CHECKPOINT_SEQ);
+            } catch (SQLException e) {
+                e.addSuppressed(missingColumn);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Tries to create an index, ignoring the error if it already exists
+     */
+    private static void createIndex(Statement statement, String sql) throws SQLException {
+        try {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            // Ignore "Duplicate key name" error (error code 1061)
+            if (e.getErrorCode() != 1061) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * A builder for MysqlSaver.
      */
     public static class Builder {
         private DataSource dataSource;
         private CreateOption createOption = CreateOption.CREATE_IF_NOT_EXISTS;
+        private int keyframeInterval = CheckpointDelta.DEFAULT_KEYFRAME_INTERVAL;
+        private PayloadCompressor compressor = PayloadCompressor.disabled();
+        private CheckpointRetention retention = CheckpointRetention.unbounded();
+        private int statePageSize = CheckpointStatePager.DEFAULT_PAGE_SIZE;
+        private WriteDurability writeDurability = WriteDurability.SYNC;
 
         /**
          * Sets the datasource
@@ -354,13 +701,77 @@ public class MysqlSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the number of checkpoints between two full keyframes (default {@link CheckpointDelta#DEFAULT_KEYFRAME_INTERVAL}).
+         * Checkpoints in between store only the changed channels.
+         * 
+         * @param keyframeInterval the keyframe interval, 1 means store full state for each checkpoint
+         * @return this builder
+         */
+        public Builder keyframeInterval(int keyframeInterval) {
+            this.keyframeInterval = keyframeInterval;
+            return this;
+        }
+
+        /**
+         * Sets the compressor of the state documents (default {@link PayloadCompressor#disabled()}).
+         * Documents stored before enabling it are still readable.
+         * The compressed document is stored base64 encoded in a JSON string, that is a third larger than
+         * the compressed bytes, so the compression pays off only for large states, see {@link PayloadCompressor.Builder#threshold(int)}.
+         * 
+         * @param compressor the compressor
+         * @return this builder
+         */
+        public Builder compressor(PayloadCompressor compressor) {
+            this.compressor = compressor;
+            return this;
+        }
+
+        /**
+         * Sets the retention of the checkpoints cached in memory (default {@link CheckpointRetention#unbounded()}).
+         * Evicted threads are loaded again from the database
+         * 
+         * @param retention the retention policy
+         * @return this builder
+         */
+        public Builder retention(CheckpointRetention retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoint states read by each query (default {@link CheckpointStatePager#DEFAULT_PAGE_SIZE}).
+         * Loading a thread reads only the checkpoint headers, while the states are read on demand from the requested
+         * checkpoint to the older ones
+         *
+         * @param statePageSize the number of states read by each query
+         * @return this builder
+         */
+        public Builder statePageSize(int statePageSize) {
+            this.statePageSize = statePageSize;
+            return this;
+        }
+
+        /**
+         * Sets when the checkpoints are committed (default {@link WriteDurability#SYNC}).
+         * Otherwise the checkpoints are committed in batches by a writer thread, and the saver
+         * should be {@link MysqlSaver#close() closed} to commit the last ones
+         *
+         * @param writeDurability the write durability
+         * @return this builder
+         */
+        public Builder writeDurability(WriteDurability writeDurability) {
+            this.writeDurability = writeDurability;
+            return this;
+        }
+
         /**
          * Creates a new instance of MysqlSaver
          * 
          * @return the new instance of MysqlSaver.
          */
         public MysqlSaver build() {
-            return new MysqlSaver(dataSource, createOption);
+            return new MysqlSaver(dataSource, createOption, keyframeInterval, compressor, retention, statePageSize, writeDurability);
         }
     }
 }
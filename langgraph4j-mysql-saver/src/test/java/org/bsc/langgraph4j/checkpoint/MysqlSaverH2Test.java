@@ -0,0 +1,406 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
+import org.bsc.langgraph4j.state.AgentState;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the saver against an embedded H2 database in MySQL compatibility mode, without a MySQL server
+ */
+public class MysqlSaverH2Test {
+
+    private static final int THREADS = 8;
+    private static final int STEPS = 50;
+
+    private static DataSource h2DataSourceOf(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    /**
+     * Creates the tables of the saver. H2 stores a string bound to a JSON column as a JSON string, instead of
+     * parsing it as MySQL does, so the state column is changed to text
+     */
+    private static DataSource dataSourceOf(String name) throws SQLException {
+        var dataSource = h2DataSourceOf(name);
+        MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .build();
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE LANGRAPH4J_CHECKPOINT MODIFY COLUMN state_data LONGTEXT NOT NULL");
+        }
+        return dataSource;
+    }
+
+    private static Checkpoint checkpointOf(int step) {
+        return Checkpoint.builder()
+                .nodeId("node_" + step)
+                .nextNodeId("node_" + (step + 1))
+                .state(Map.of("step", step, "messages", List.of("message " + step)))
+                .build();
+    }
+
+    private static RunnableConfig configOf(int thread) {
+        return RunnableConfig.builder().threadId("writer-" + thread).build();
+    }
+
+    /**
+     * puts {@link #STEPS} checkpoints on each of {@link #THREADS} threads concurrently
+     *
+     * @return the elapsed milliseconds
+     */
+    private static long putAll(MysqlSaver saver) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final long start = System.nanoTime();
+            final var futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < THREADS; ++thread) {
+                final var config = configOf(thread);
+                futures.add(executor.submit(() -> {
+                    for (int step = 0; step < STEPS; ++step) {
+                        saver.put(config, checkpointOf(step));
+                    }
+                    return null;
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertStored(DataSource dataSource) {
+        final var reader = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .build();
+        for (int thread = 0; thread < THREADS; ++thread) {
+            final var checkpoints = List.copyOf(reader.list(configOf(thread)));
+            assertEquals(STEPS, checkpoints.size());
+            for (int i = 0; i < STEPS; ++i) {
+                assertEquals(checkpointOf(STEPS - 1 - i).getState(), checkpoints.get(i).getState());
+            }
+        }
+    }
+
+    @Test
+    public void syncTest() throws Exception {
+        var dataSource = dataSourceOf("syncTest");
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .keyframeInterval(5)
+                .build()) {
+            assertEquals(WriteDurability.SYNC, saver.writeDurability());
+            putAll(saver);
+        }
+        assertStored(dataSource);
+    }
+
+    @Test
+    public void batchedWritesTest() throws Exception {
+        var dataSource = dataSourceOf("batchedWritesTest");
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .keyframeInterval(5)
+                .writeDurability(WriteDurability.ON_RETURN)
+                .build()) {
+            putAll(saver);
+            saver.flush(configOf(0));
+            assertStored(dataSource);
+
+            // the thread is readable from memory as well
+            assertEquals(checkpointOf(STEPS - 1).getState(), saver.get(configOf(0)).orElseThrow().getState());
+
+            // release commits the pending checkpoints first
+            saver.put(configOf(0), checkpointOf(STEPS));
+            saver.release(configOf(0));
+            assertTrue(saver.list(configOf(0)).isEmpty());
+        }
+    }
+
+    @Test
+    public void retentionKeyframesTest() throws Exception {
+        var dataSource = dataSourceOf("retentionKeyframesTest");
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .keyframeInterval(5)
+                .retention(CheckpointRetention.builder().maxCheckpointsPerThread(2).build())
+                .build()) {
+            for (int step = 0; step < STEPS; ++step) {
+                saver.put(configOf(0), checkpointOf(step));
+            }
+            assertEquals(2, saver.list(configOf(0)).size());
+        }
+
+        // the keyframes follow the interval, even if the thread held in memory doesn't grow
+        int keyframes = 0;
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement();
+             var rs = statement.executeQuery("SELECT state_data FROM LANGRAPH4J_CHECKPOINT")) {
+            while (rs.next()) {
+                if (rs.getString(1).startsWith("{")) {
+                    ++keyframes;
+                }
+            }
+        }
+        assertEquals(STEPS / 5, keyframes);
+
+        final var reader = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .build();
+        final var checkpoints = List.copyOf(reader.list(configOf(0)));
+        assertEquals(STEPS, checkpoints.size());
+        for (int i = 0; i < STEPS; ++i) {
+            assertEquals(checkpointOf(STEPS - 1 - i).getState(), checkpoints.get(i).getState());
+        }
+    }
+
+    @Test
+    public void failedBatchReloadsThreadsTest() throws Exception {
+        var h2 = dataSourceOf("failedBatchReloadsThreadsTest");
+        var failing = new AtomicBoolean();
+        var dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (failing.get() && method.getName().equals("getConnection")) {
+                        throw new SQLException("database unavailable");
+                    }
+                    try {
+                        return method.invoke(h2, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+        var threadA = configOf(0);
+        var threadB = configOf(1);
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .writeDurability(WriteDurability.ON_RETURN)
+                .build()) {
+            saver.put(threadA, checkpointOf(0));
+            saver.put(threadA, checkpointOf(1));
+            saver.put(threadB, checkpointOf(0));
+            saver.flush(threadA);
+
+            failing.set(true);
+            saver.put(threadA, checkpointOf(2));
+            saver.put(threadB, checkpointOf(1));
+            assertThrows(IllegalStateException.class, () -> saver.flush(threadA));
+            failing.set(false);
+
+            // the thread is reloaded from the database, without the checkpoint not committed
+            assertEquals(List.of(1, 0), saver.list(threadA).stream().map(c -> c.getState().get("step")).toList());
+            saver.put(threadA, checkpointOf(3));
+            saver.flush(threadA);
+
+            // the failure of the other thread is reported once, then it is reloaded as well
+            assertThrows(RuntimeException.class, () -> saver.list(threadB));
+            assertEquals(List.of(0), saver.list(threadB).stream().map(c -> c.getState().get("step")).toList());
+            saver.put(threadB, checkpointOf(2));
+            saver.flush(threadB);
+        }
+
+        final var reader = MysqlSaver.builder()
+                .dataSource(h2)
+                .createOption(CreateOption.CREATE_NONE)
+                .build();
+        assertEquals(List.of(3, 1, 0), reader.list(threadA).stream().map(c -> c.getState().get("step")).toList());
+        assertEquals(List.of(2, 0), reader.list(threadB).stream().map(c -> c.getState().get("step")).toList());
+    }
+
+    @Test
+    public void closeCommitsPendingCheckpointsTest() throws Exception {
+        var dataSource = dataSourceOf("closeCommitsPendingCheckpointsTest");
+        var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .writeDurability(WriteDurability.ASYNC)
+                .build();
+        putAll(saver);
+        // fire-and-forget: flush doesn't wait, close does
+        saver.flush(configOf(0));
+        saver.close();
+        assertStored(dataSource);
+
+        assertThrows(IllegalStateException.class, () -> saver.put(configOf(0), checkpointOf(STEPS)));
+    }
+
+    @Test
+    public void graphReturnTest() throws Exception {
+        var dataSource = dataSourceOf("graphReturnTest");
+        NodeAction<AgentState> agent_1 = state -> Map.of("agent_1:prop1", "agent_1:test");
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async(agent_1))
+                .addEdge(START, "agent_1")
+                .addEdge("agent_1", END);
+
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .writeDurability(WriteDurability.ON_RETURN)
+                .build()) {
+
+            var workflow = graph.compile(CompileConfig.builder()
+                    .checkpointSaver(saver)
+                    .releaseThread(false)
+                    .build());
+            var runnableConfig = RunnableConfig.builder().threadId("graph").build();
+
+            assertTrue(workflow.invoke(Map.of("input", "test1"), runnableConfig).isPresent());
+
+            // committed before the graph returned
+            var reader = MysqlSaver.builder()
+                    .dataSource(dataSource)
+                    .createOption(CreateOption.CREATE_NONE)
+                    .build();
+            var checkpoints = List.copyOf(reader.list(runnableConfig));
+            assertEquals(2, checkpoints.size());
+            assertEquals("agent_1", checkpoints.get(0).getNodeId());
+            assertEquals(END, checkpoints.get(0).getNextNodeId());
+            assertEquals("agent_1:test", checkpoints.get(0).getState().get("agent_1:prop1"));
+        }
+    }
+
+    @Test
+    public void taggedDocumentsTest() throws Exception {
+        // states looking like the documents of the previous versions
+        final var states = List.<Map<String, Object>>of(
+                Map.of("@compressed", "AAAA"),
+                Map.of("@delta", Map.of("parentId", "x")),
+                Map.of("compressed", "AAAA"),
+                Map.of("step", 1));
+
+        for (var compressor : List.of(PayloadCompressor.disabled(), PayloadCompressor.builder().threshold(0).build())) {
+            var dataSource = dataSourceOf("taggedDocumentsTest" + compressor.isEnabled());
+            try (var saver = MysqlSaver.builder()
+                    .dataSource(dataSource)
+                    .createOption(CreateOption.CREATE_NONE)
+                    .compressor(compressor)
+                    .keyframeInterval(2)
+                    .build()) {
+                for (var state : states) {
+                    saver.put(configOf(0), Checkpoint.builder().nodeId("node").nextNodeId("next").state(state).build());
+                }
+            }
+
+            final var reader = MysqlSaver.builder()
+                    .dataSource(dataSource)
+                    .createOption(CreateOption.CREATE_NONE)
+                    .build();
+            final var checkpoints = List.copyOf(reader.list(configOf(0)));
+            assertEquals(states.size(), checkpoints.size());
+            for (int i = 0; i < states.size(); ++i) {
+                assertEquals(states.get(states.size() - 1 - i), checkpoints.get(i).getState());
+            }
+        }
+    }
+
+    @Test
+    public void legacyTableTest() throws Exception {
+        var dataSource = h2DataSourceOf("legacyTableTest");
+        // tables of the previous versions, saved_at with second precision and without checkpoint_seq
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE LANGRAPH4J_THREAD (
+                       thread_id VARCHAR(36) PRIMARY KEY,
+                       thread_name VARCHAR(255),
+                       is_released BOOLEAN DEFAULT FALSE NOT NULL
+                    )""");
+            statement.execute("""
+                    CREATE TABLE LANGRAPH4J_CHECKPOINT (
+                       checkpoint_id VARCHAR(36) PRIMARY KEY,
+                       thread_id VARCHAR(36) NOT NULL,
+                       node_id VARCHAR(255),
+                       next_node_id VARCHAR(255),
+                       state_data LONGTEXT NOT NULL,
+                       saved_at TIMESTAMP(0) DEFAULT CURRENT_TIMESTAMP(0)
+                    )""");
+            statement.execute("INSERT INTO LANGRAPH4J_THREAD(thread_id, thread_name) VALUES ('legacy', 'writer-0')");
+            statement.execute("""
+                    INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data, saved_at)
+                    VALUES ('legacy-0', 'legacy', 'node_0', 'node_1', '{"step":0,"messages":["message 0"]}', TIMESTAMP '2020-01-01 00:00:00')""");
+        }
+
+        // the checkpoints put in the same second keep their order
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .keyframeInterval(5)
+                .writeDurability(WriteDurability.ON_RETURN)
+                .build()) {
+            for (int step = 1; step < STEPS; ++step) {
+                saver.put(configOf(0), checkpointOf(step));
+            }
+        }
+
+        final var reader = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .build();
+        final var checkpoints = List.copyOf(reader.list(configOf(0)));
+        assertEquals(STEPS, checkpoints.size());
+        for (int i = 0; i < STEPS; ++i) {
+            assertEquals(checkpointOf(STEPS - 1 - i).getState(), checkpoints.get(i).getState());
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void batchedWritesBenchmark() throws Exception {
+        final long sync;
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSourceOf("batchedWritesBenchmarkSync"))
+                .createOption(CreateOption.CREATE_NONE)
+                .build()) {
+            sync = putAll(saver);
+        }
+        final long batched;
+        var dataSource = dataSourceOf("batchedWritesBenchmark");
+        try (var saver = MysqlSaver.builder()
+                .dataSource(dataSource)
+                .createOption(CreateOption.CREATE_NONE)
+                .writeDurability(WriteDurability.ON_RETURN)
+                .build()) {
+            batched = putAll(saver);
+            saver.flush(configOf(0));
+        }
+        assertStored(dataSource);
+        System.out.printf("%d threads x %d checkpoints on H2: synchronous %dms, batched %dms%n",
+                THREADS, STEPS, sync, batched);
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.MySQLContainer;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.bsc.langgraph4j.StateGraph.END;
@@ -193,4 +194,35 @@ public class MysqlSaverTest {
 
     }
 
+    @Test
+    public void testLazyStatePaging() throws Exception {
+        var config = RunnableConfig.builder().threadId("lazy").build();
+        final int steps = 50;
+
+        var saver = MysqlSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .keyframeInterval(5)
+                .build();
+        for (int step = 0; step < steps; ++step) {
+            saver.put(config, Checkpoint.builder()
+                    .nodeId("node_" + step)
+                    .nextNodeId("node_" + (step + 1))
+                    .state(Map.of("step", step, "messages", List.of("message " + step)))
+                    .build());
+        }
+
+        var checkpoints = List.copyOf(MysqlSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .statePageSize(4)
+                .build()
+                .list(config));
+        assertEquals(steps, checkpoints.size());
+        assertTrue(checkpoints.stream().noneMatch(Checkpoint::isStateLoaded));
+
+        for (int i = 0; i < steps; ++i) {
+            assertEquals(steps - 1 - i, checkpoints.get(i).getState().get("step"));
+        }
+    }
+
 }
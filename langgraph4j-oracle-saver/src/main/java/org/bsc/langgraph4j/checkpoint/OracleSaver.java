@@ -1,6 +1,5 @@
 package org.bsc.langgraph4j.checkpoint;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import oracle.jdbc.OracleStatement;
 import oracle.jdbc.OracleType;
@@ -8,6 +7,7 @@ import oracle.jdbc.OracleTypes;
 import oracle.jdbc.provider.oson.OsonFactory;
 import oracle.sql.json.OracleJsonDatum;
 import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
 
 import javax.sql.DataSource;
 
@@ -53,6 +53,8 @@ import java.util.*;
  * to the database
  * - CreateOption : indicates whether the tables should be created or
  * existing tables should be used.
+ * - statePageSize : the number of checkpoint states read by each query. Loading a thread
+ * reads only the checkpoint headers, while the states are read on demand.
  * </p>
  * <p>
  * Ex:
@@ -124,18 +126,31 @@ public class OracleSaver extends MemorySaver {
             WHERE checkpoint_id = ?
             """;
 
+    /**
+     * headers only, the states are read on demand by {@link #SELECT_STATES}
+     */
     private static final String SELECT_CHECKPOINTS = """
             SELECT
               c.checkpoint_id,
               c.node_id,
-              c.next_node_id,
-              c.state_data
+              c.next_node_id
             FROM LANGRAPH4J_CHECKPOINT c
               INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
             WHERE t.thread_name = ? AND t.is_released != TRUE
             ORDER BY c.saved_at DESC
             """;
 
+    /**
+     * reads the states of a page of checkpoints, formatted with a parameter for each checkpoint of the page
+     */
+    private static final String SELECT_STATES = """
+            SELECT
+              c.checkpoint_id,
+              c.state_data
+            FROM LANGRAPH4J_CHECKPOINT c
+            WHERE c.checkpoint_id IN (%s)
+            """;
+
     private static final String DELETE_CHECKPOINTS = """
                 DELETE FROM LANGRAPH4J_CHECKPOINT WHERE checkpoint_id = ?
             """;
@@ -144,9 +159,24 @@ public class OracleSaver extends MemorySaver {
             UPDATE LANGRAPH4J_THREAD SET is_released = TRUE WHERE thread_name = ? AND is_released = FALSE
             """;
 
+    /**
+     * tag of the state document that holds the compressed JSON document, base64 encoded.
+     * A tagged document is the JSON array {@code [tag, value]}, that cannot be mistaken for a state,
+     * always stored as JSON object
+     */
+    static final String COMPRESSED_TAG = "compressed";
+
     // Configuration
     private final DataSource dataSource;
     private final CreateOption createOption;
+    private final PayloadCompressor compressor;
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper osonMapper = new ObjectMapper(new OsonFactory());
+    private final int statePageSize;
+    /**
+     * {@link #SELECT_STATES} with a parameter for each checkpoint of a page, so that the statement is kept constant
+     */
+    private final String selectStatesSql;
 
     /**
      * Private constructor used by the builder to create a new instance of
@@ -154,13 +184,58 @@ public class OracleSaver extends MemorySaver {
      * 
      * @param dataSource   the data source
      * @param createOption the create options
+     * @param compressor the compressor of the state documents
+     * @param statePageSize the number of checkpoint states read by each query
      */
-    private OracleSaver(DataSource dataSource, CreateOption createOption) {
+    private OracleSaver(DataSource dataSource, CreateOption createOption, PayloadCompressor compressor, CheckpointRetention retention, int statePageSize) {
+        super(Objects.requireNonNull(retention, "retention cannot be null"));
         this.dataSource = dataSource;
         this.createOption = createOption;
+        this.compressor = Objects.requireNonNull(compressor, "compressor cannot be null");
+        this.statePageSize = CheckpointStatePager.requireValidPageSize(statePageSize);
+        this.selectStatesSql = SELECT_STATES.formatted(String.join(", ", Collections.nCopies(statePageSize, "?")));
         initTables();
     }
 
+    /**
+     * Encodes the state to store. If compressed, the state is stored as JSON document
+     * tagged by {@link #COMPRESSED_TAG}
+     *
+     * @param state the checkpoint state
+     * @return the state document
+     * @throws Exception if an error occurs during serialization
+     */
+    private Object encodeState(Map<String, Object> state) throws Exception {
+        if (!compressor.isEnabled()) {
+            return state;
+        }
+        final byte[] json = jsonMapper.writeValueAsBytes(state);
+        final byte[] payload = compressor.compress(json);
+        if (payload == json) {
+            return state;
+        }
+        return List.of(COMPRESSED_TAG, Base64.getEncoder().encodeToString(payload));
+    }
+
+    /**
+     * Decodes the stored state document
+     *
+     * @param document the state document
+     * @return the checkpoint state
+     * @throws Exception if an error occurs during deserialization
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decodeState(Object document) throws Exception {
+        if (document instanceof List<?> tagged && tagged.size() == 2 && COMPRESSED_TAG.equals(tagged.get(0))
+                && tagged.get(1) instanceof String compressed) {
+            return jsonMapper.readValue(compressor.decompress(Base64.getDecoder().decode(compressed)), Map.class);
+        }
+        if (document instanceof Map<?, ?> state) {
+            return (Map<String, Object>) state;
+        }
+        throw new IllegalStateException("invalid state document, neither a state nor a tagged document");
+    }
+
     /**
      * Creates an instance of a builder that allows to configure and create a new
      * instace of OracleSaver.
@@ -173,6 +248,7 @@ public class OracleSaver extends MemorySaver {
 
     /**
      * If the list of checkpoints is empty, loads the checkpoints from the database.
+     * Only the checkpoint headers are read, while their states are read on demand, see {@link CheckpointStatePager}
      *
      * @param config      the configuration
      * @param checkpoints the list of checkpoints
@@ -188,12 +264,40 @@ public class OracleSaver extends MemorySaver {
         }
 
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
-        JsonFactory osonFactory = new OsonFactory();
-        ObjectMapper objectMapper = new ObjectMapper(osonFactory);
 
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CHECKPOINTS)) {
 
+            preparedStatement.setString(1, threadName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                var headers = new ArrayList<CheckpointStatePager.Header>();
+                while (resultSet.next()) {
+                    headers.add(new CheckpointStatePager.Header(
+                            resultSet.getString(1),
+                            resultSet.getString(2),
+                            resultSet.getString(3)));
+                }
+                checkpoints.addAll(CheckpointStatePager.lazyCheckpoints(headers, statePageSize, this::loadStates));
+            }
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to load checkpoints", sqlException);
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Reads the states of a page of checkpoints. Each state is stored in full, so it is read as keyframe
+     *
+     * @param ids the checkpoint ids, up to the page size
+     * @return the states indexed by checkpoint id
+     * @throws Exception if an error occurs while the states are being read from the database
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, CheckpointDelta> loadStates(List<String> ids) throws Exception {
+        var result = new HashMap<String, CheckpointDelta>(ids.size());
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(selectStatesSql)) {
+
             // Calls to defineColumnType reduce the number of network requests. When Oracle
             // JDBC knows that it is
             // fetching VECTOR, CLOB, and/or JSON columns, the first request it sends to the
@@ -206,28 +310,24 @@ public class OracleSaver extends MemorySaver {
             // Integer.MAX_VALUE.
             OracleStatement oracleStatement = preparedStatement.unwrap(OracleStatement.class);
             oracleStatement.defineColumnType(1, OracleTypes.VARCHAR); // checkpoint_id
-            oracleStatement.defineColumnType(2, OracleTypes.VARCHAR); // node_id
-            oracleStatement.defineColumnType(3, OracleTypes.VARCHAR); // next_node_id
-            oracleStatement.defineColumnType(4, OracleTypes.JSON, Integer.MAX_VALUE); // state_data
+            oracleStatement.defineColumnType(2, OracleTypes.JSON, Integer.MAX_VALUE); // state_data
             oracleStatement.setLobPrefetchSize(Integer.MAX_VALUE); // Workaround for Oracle JDBC bug 37030121
 
-            preparedStatement.setString(1, threadName);
+            // the unused parameters repeat the first id
+            for (int i = 0; i < statePageSize; ++i) {
+                preparedStatement.setString(i + 1, ids.get(i < ids.size() ? i : 0));
+            }
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    byte[] osonBytes = resultSet.getObject(4, OracleJsonDatum.class).shareBytes();
-                    Checkpoint checkpoint = Checkpoint.builder()
-                            .id(resultSet.getString(1))
-                            .nodeId(resultSet.getString(2))
-                            .nextNodeId(resultSet.getString(3))
-                            .state(objectMapper.readValue(osonBytes, Map.class))
-                            .build();
-                    checkpoints.add(checkpoint);
+                    byte[] osonBytes = resultSet.getObject(2, OracleJsonDatum.class).shareBytes();
+                    result.put(resultSet.getString(1),
+                            CheckpointDelta.keyframe(decodeState(osonMapper.readValue(osonBytes, Object.class))));
                 }
             }
         } catch (SQLException sqlException) {
-            throw new Exception("Unable to create tables", sqlException);
+            throw new Exception("Unable to load checkpoint states", sqlException);
         }
-        return checkpoints;
+        return result;
     }
 
     /**
@@ -255,7 +355,7 @@ public class OracleSaver extends MemorySaver {
             insertCheckpointStatement.setString(1, checkpoint.getId());
             insertCheckpointStatement.setString(2, checkpoint.getNodeId());
             insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
-            insertCheckpointStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
+            insertCheckpointStatement.setObject(4, encodeState(checkpoint.getState()), OracleType.JSON);
             insertCheckpointStatement.setString(5, threadName);
 
             insertCheckpointStatement.execute();
@@ -308,7 +408,7 @@ public class OracleSaver extends MemorySaver {
                 preparedStatement.setString(1, checkpoint.getId());
                 preparedStatement.setString(2, checkpoint.getNodeId());
                 preparedStatement.setString(3, checkpoint.getNextNodeId());
-                preparedStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
+                preparedStatement.setObject(4, encodeState(checkpoint.getState()), OracleType.JSON);
                 preparedStatement.setString(5, config.checkPointId().get());
                 preparedStatement.execute();
             } catch (SQLException sqlException) {
@@ -348,6 +448,9 @@ public class OracleSaver extends MemorySaver {
     public static class Builder {
         private DataSource dataSource;
         private CreateOption createOption = CreateOption.CREATE_IF_NOT_EXISTS;
+        private PayloadCompressor compressor = PayloadCompressor.disabled();
+        private CheckpointRetention retention = CheckpointRetention.unbounded();
+        private int statePageSize = CheckpointStatePager.DEFAULT_PAGE_SIZE;
 
         /**
          * Sets the datasource
@@ -371,13 +474,52 @@ public class OracleSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the compressor of the state documents (default {@link PayloadCompressor#disabled()}).
+         * Documents stored before enabling it are still readable.
+         * The compressed document is stored base64 encoded in a JSON string, that is a third larger than
+         * the compressed bytes, so the compression pays off only for large states, see {@link PayloadCompressor.Builder#threshold(int)}.
+         * 
+         * @param compressor the compressor
+         * @return this builder
+         */
+        public Builder compressor(PayloadCompressor compressor) {
+            this.compressor = compressor;
+            return this;
+        }
+
+        /**
+         * Sets the retention of the checkpoints cached in memory (default {@link CheckpointRetention#unbounded()}).
+         * Evicted threads are loaded again from the database
+         * 
+         * @param retention the retention policy
+         * @return this builder
+         */
+        public Builder retention(CheckpointRetention retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoint states read by each query (default {@link CheckpointStatePager#DEFAULT_PAGE_SIZE}).
+         * Loading a thread reads only the checkpoint headers, while the states are read on demand from the requested
+         * checkpoint to the older ones
+         *
+         * @param statePageSize the number of states read by each query
+         * @return this builder
+         */
+        public Builder statePageSize(int statePageSize) {
+            this.statePageSize = statePageSize;
+            return this;
+        }
+
         /**
          * Creates a new instance of OracleSaver
          * 
          * @return the new instance of OracleSaver.
          */
         public OracleSaver build() {
-            return new OracleSaver(dataSource, createOption);
+            return new OracleSaver(dataSource, createOption, compressor, retention, statePageSize);
         }
     }
 }
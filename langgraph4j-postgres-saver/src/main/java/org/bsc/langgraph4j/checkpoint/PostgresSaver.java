@@ -2,6 +2,8 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.PayloadCompressor;
+import org.bsc.langgraph4j.serializer.plain_text.PlainTextStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.slf4j.Logger;
@@ -10,24 +12,253 @@ import org.slf4j.LoggerFactory;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.sql.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
-public class PostgresSaver extends MemorySaver {
+/**
+ * A CheckpointSaver that stores Checkpoints in a PostgreSQL database.
+ * <p>
+ * The state of each checkpoint is stored according to the {@link StateStorage} of the saver.
+ * Rows written with a different storage, e.g. by a previous version, are still readable:
+ * the storage of a row is told by its {@code state_content_type} and by the column holding its state.
+ * </p>
+ * <p>
+ * The id of each active thread is cached, so that a checkpoint is inserted by a single statement that
+ * creates the thread only on its first checkpoint. The saver assumes to be the only one writing its threads:
+ * a thread released by another saver is seen only after it has been evicted or released here too.
+ * Use {@link Builder#datasource(DataSource)} to provide a connection pool.
+ * </p>
+ * <p>
+ * Loading a thread reads only the checkpoint headers, while their states are read on demand a page at a time,
+ * see {@link Builder#statePageSize(int)}.
+ * </p>
+ * <p>
+ * Unless the {@link WriteDurability} is {@link WriteDurability#SYNC}, the checkpoints are committed by a writer thread,
+ * that inserts the checkpoints put by all the threads with a JDBC batch in a single transaction,
+ * see {@link Builder#writeDurability(WriteDurability)}. The {@code saved_at} of each checkpoint is assigned by the saver,
+ * strictly increasing, so that the checkpoints inserted by the same transaction keep their order.
+ * If a transaction fails, the threads of its checkpoints are reloaded from the database on their next access,
+ * and the failure is reported by the next {@link #flush(RunnableConfig)} of each of them.
+ * </p>
+ */
+public class PostgresSaver extends MemorySaver implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(PostgresSaver.class);
+
+    /**
+     * Storage of the checkpoint state in the LG4JCheckpoint table
+     */
+    public enum StateStorage {
+        /**
+         * serialized state in the {@code state_bytes} BYTEA column. A keyframe stores the full state
+         * while the other checkpoints store only the changes from their parent
+         */
+        BYTEA,
+        /**
+         * JSON document of the state in the {@code state_data} JSONB column, so that it can be indexed and queried.
+         * It requires a JSON {@link PlainTextStateSerializer} and stores the full state of each checkpoint
+         */
+        JSONB,
+        /**
+         * serialized state encoded as base64 inside a JSON document of the {@code state_data} JSONB column,
+         * as written by the previous versions
+         */
+        JSONB_BASE64
+    }
+
+    /**
+     * suffix of the content type of the rows storing the JSON document of the state
+     */
+    static final String DOCUMENT_CONTENT_TYPE_SUFFIX = "; storage=jsonb";
+
+    // statements are kept constant, so that the driver can reuse them on pooled connections
+
+    private static final String SELECT_THREAD_SQL = """
+            SELECT thread_id
+            FROM LG4JThread
+            WHERE thread_name = ? AND is_released = FALSE
+            """;
+
+    /**
+     * headers only, the states are read on demand by {@link #SELECT_STATES_SQL}
+     */
+    private static final String SELECT_CHECKPOINTS_SQL = """
+            SELECT  c.checkpoint_id,
+                    c.node_id,
+                    c.next_node_id
+            FROM LG4JCheckpoint c
+            WHERE c.thread_id = ?
+            ORDER BY c.saved_at DESC
+            """;
+
+    private static final String SELECT_STATES_SQL = """
+            SELECT  c.checkpoint_id,
+                    c.state_bytes,
+                    c.state_content_type,
+                    c.parent_checkpoint_id,
+                    c.state_data->>'binaryPayload' AS base64_data,
+                    c.state_data->>'deltaPayload' AS base64_delta,
+                    CASE WHEN c.state_content_type LIKE '%%%s' THEN c.state_data::text END AS state_document
+            FROM LG4JCheckpoint c
+            WHERE c.checkpoint_id = ANY(?)
+            """.formatted( DOCUMENT_CONTENT_TYPE_SUFFIX );
+
+    private static final String INSERT_CHECKPOINT_SQL = """
+            INSERT INTO LG4JCheckpoint(
+            checkpoint_id,
+            parent_checkpoint_id,
+            thread_id,
+            node_id,
+            next_node_id,
+            state_data,
+            state_bytes,
+            state_content_type,
+            saved_at)
+            VALUES (?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?)
+            """;
+
+    private static final String UPSERT_THREAD_SQL = """
+            INSERT INTO LG4JThread (thread_id, thread_name, is_released)
+            VALUES (?, ?, FALSE)
+            ON CONFLICT (thread_name)
+            WHERE is_released = FALSE
+            DO NOTHING
+            """;
+
+    /**
+     * creates the thread, unless it is already active, and inserts the checkpoint in a single round trip
+     */
+    private static final String UPSERT_THREAD_AND_INSERT_CHECKPOINT_SQL = """
+            WITH inserted AS (
+                INSERT INTO LG4JThread (thread_id, thread_name, is_released)
+                VALUES (?, ?, FALSE)
+                ON CONFLICT (thread_name)
+                WHERE is_released = FALSE
+                DO NOTHING
+                RETURNING thread_id
+            ),
+            thread AS (
+                SELECT thread_id FROM inserted
+                UNION ALL
+                SELECT thread_id FROM LG4JThread
+                WHERE thread_name = ? AND is_released = FALSE
+                LIMIT 1
+            )
+            INSERT INTO LG4JCheckpoint(
+            checkpoint_id,
+            parent_checkpoint_id,
+            thread_id,
+            node_id,
+            next_node_id,
+            state_data,
+            state_bytes,
+            state_content_type,
+            saved_at)
+            SELECT ?::uuid, ?::uuid, thread.thread_id, ?, ?, ?::jsonb, ?::bytea, ?, ?::timestamptz
+            FROM thread
+            RETURNING thread_id
+            """;
+
+    private static final String RELEASE_THREAD_SQL = """
+            UPDATE LG4JThread
+            SET
+                is_released = TRUE
+            WHERE thread_name = ? AND is_released = FALSE
+            """;
     /**
      * Datasource used to create the store
      */
     protected final DataSource datasource;
 
-    private final StateSerializer<? extends AgentState> stateSerializer;
+    /**
+     * serializers of the checkpoints, selected by the stored content type
+     */
+    private final CheckpointDeltaSerializers deltaSerializers;
+
+    /**
+     * compressor of the state payloads, stored payloads are decompressed only if they have been compressed
+     */
+    private final PayloadCompressor compressor;
+
+    /**
+     * number of checkpoints between two full keyframes. Checkpoints in between store only changed channels
+     */
+    private final int keyframeInterval;
+
+    /**
+     * storage of the written checkpoints
+     */
+    private final StateStorage stateStorage;
+
+    /**
+     * number of checkpoint states read by each query, see {@link CheckpointStatePager}
+     */
+    private final int statePageSize;
+
+    /**
+     * ids of the active threads by name. An id is cached once the thread is loaded or its first checkpoint
+     * is committed, and it is dropped when the thread is released or evicted
+     */
+    private final Map<String,UUID> threadUUIDs = new ConcurrentHashMap<>();
+
+    /**
+     * when the checkpoints are committed
+     */
+    private final WriteDurability writeDurability;
+
+    /**
+     * writer of the checkpoints, null if {@link WriteDurability#SYNC}
+     */
+    private final CheckpointBatchWriter<StoredCheckpoint> writer;
+
+    /**
+     * last {@code saved_at} assigned, in microseconds
+     */
+    private final AtomicLong lastSavedAt = new AtomicLong();
 
     protected PostgresSaver( Builder builder ) throws SQLException {
+        super( requireNonNull( builder.retention, "retention cannot be null" ) );
         this.datasource = builder.datasource;
-        this.stateSerializer =  builder.stateSerializer;
+        this.deltaSerializers = new CheckpointDeltaSerializers( builder.stateSerializer, builder.readSerializers );
+        this.compressor = requireNonNull( builder.compressor, "compressor cannot be null" );
+        this.stateStorage = requireNonNull( builder.stateStorage, "stateStorage cannot be null" );
+        this.statePageSize = CheckpointStatePager.requireValidPageSize( builder.statePageSize );
+        if( stateStorage == StateStorage.JSONB ) {
+            requireDocumentSerializer( deltaSerializers.writer().stateSerializer() );
+            // each row holds the whole state document
+            this.keyframeInterval = 1;
+        }
+        else {
+            this.keyframeInterval = CheckpointDelta.requireValidKeyframeInterval( builder.keyframeInterval );
+        }
+        this.writeDurability = requireNonNull( builder.writeDurability, "writeDurability cannot be null" );
         initTable( builder.dropTablesFirst, builder.createTables);
+        this.writer = ( writeDurability == WriteDurability.SYNC ) ?
+                null :
+                new CheckpointBatchWriter<>( "langgraph4j-postgres-writer", CheckpointBatchWriter.DEFAULT_MAX_BATCH_SIZE,
+                        StoredCheckpoint::threadId, this::commitCheckpoints );
+    }
+
+    private static PlainTextStateSerializer<?> requireDocumentSerializer( StateSerializer<?> stateSerializer ) {
+        if( stateSerializer instanceof PlainTextStateSerializer<?> plainText && "application/json".equals( plainText.contentType() ) ) {
+            return plainText;
+        }
+        throw new IllegalArgumentException( format( "JSONB storage requires a JSON plain text serializer but '%s' writes '%s'",
+                stateSerializer.getClass().getName(),
+                stateSerializer.contentType() ) );
+    }
+
+    public WriteDurability writeDurability() {
+        return writeDurability;
+    }
+
+    public StateStorage stateStorage() {
+        return stateStorage;
     }
 
     public static Builder builder() {
@@ -50,24 +281,111 @@ public class PostgresSaver extends MemorySaver {
         }
     }
 
-    private String encodeState( Map<String,Object> data ) throws IOException {
-        var binaryData = stateSerializer.dataToBytes(data);
+    /**
+     * State of a checkpoint as stored in the state columns
+     *
+     * @param data the {@code state_data} JSON document, null for {@link StateStorage#BYTEA}
+     * @param bytes the {@code state_bytes} payload, null unless {@link StateStorage#BYTEA}
+     * @param contentType the {@code state_content_type}
+     */
+    private record StoredState( String data, byte[] bytes, String contentType ) {}
+
+    /**
+     * Encodes the state according to the {@link StateStorage}.
+     * A keyframe is stored as full state, while a delta stores only the changes from its parent.
+     * As JSONB_BASE64 they are stored in the 'binaryPayload' and 'deltaPayload' properties respectively
+     *
+     * @param delta the checkpoint state as delta from its parent
+     * @return the stored state
+     * @throws IOException if the serialization fails
+     */
+    private StoredState encodeState( CheckpointDelta delta ) throws IOException {
+        final var deltaSerializer = deltaSerializers.writer();
+        final var contentType = deltaSerializers.contentType();
+
+        if( stateStorage == StateStorage.JSONB ) {
+            if( !delta.isKeyframe() ) {
+                throw new IllegalStateException( "JSONB storage supports keyframes only" );
+            }
+            var document = requireDocumentSerializer( deltaSerializer.stateSerializer() ).writeText( delta.changed() );
+            return new StoredState( document, null, contentType + DOCUMENT_CONTENT_TYPE_SUFFIX );
+        }
+
+        final var binaryData = delta.isKeyframe() ?
+                compressor.compress( deltaSerializer.stateSerializer().dataToBytes(delta.changed()) ) :
+                compressor.compress( deltaSerializer.objectToBytes(delta) );
+
+        if( stateStorage == StateStorage.BYTEA ) {
+            return new StoredState( null, binaryData, contentType );
+        }
         var base64Data = Base64.getEncoder().encodeToString(binaryData);
-        return format("""
+        var document = delta.isKeyframe() ?
+                format("""
                      {"binaryPayload": "%s"}
+                     """, base64Data) :
+                format("""
+                     {"deltaPayload": "%s"}
                      """, base64Data);
+        return new StoredState( document, null, contentType );
     }
 
-    private Map<String,Object> decodeState( byte[] binaryPayload, String contentType ) throws IOException, ClassNotFoundException {
-        if( !Objects.equals(contentType, stateSerializer.contentType() )) {
-            throw new IllegalStateException(
-                    format( "Content Type used for store state '%s' is different from one '%s' used for deserialize it",
-                            contentType,
-                            stateSerializer.contentType() ));
+    /**
+     * Binds the state columns {@code state_data}, {@code state_bytes} and {@code state_content_type}
+     *
+     * @return the index of the last bound parameter
+     */
+    private static int bindState( PreparedStatement ps, int field, StoredState state ) throws SQLException {
+        ps.setString(++field, state.data());
+        if( state.bytes() != null ) {
+            ps.setBytes(++field, state.bytes());
+        }
+        else {
+            ps.setNull(++field, Types.BINARY);
+        }
+        ps.setString(++field, state.contentType());
+        return field;
+    }
+
+    /**
+     * Decodes the stored state, whatever the {@link StateStorage} used to write it
+     *
+     * @param stateBytes the {@code state_bytes} payload
+     * @param keyframe true if the checkpoint has no parent
+     * @param base64State the 'binaryPayload' property of {@code state_data}
+     * @param base64Delta the 'deltaPayload' property of {@code state_data}
+     * @param document the {@code state_data} document, if stored as JSONB
+     * @param contentType the {@code state_content_type}
+     */
+    private CheckpointDelta decodeState( byte[] stateBytes,
+                                         boolean keyframe,
+                                         String base64State,
+                                         String base64Delta,
+                                         String document,
+                                         String contentType ) throws IOException, ClassNotFoundException {
+
+        if( contentType.endsWith( DOCUMENT_CONTENT_TYPE_SUFFIX ) ) {
+            var stateSerializer = deltaSerializers.reader( contentType.substring( 0, contentType.length() - DOCUMENT_CONTENT_TYPE_SUFFIX.length() ) )
+                                        .stateSerializer();
+            if( !( stateSerializer instanceof PlainTextStateSerializer<?> plainText ) ) {
+                throw new IllegalStateException( format("state stored as '%s' requires a plain text serializer", contentType) );
+            }
+            return CheckpointDelta.keyframe( plainText.readText( requireNonNull(document, "state document cannot be null") ) );
         }
 
-        byte[] bytes = Base64.getDecoder().decode(binaryPayload);
-        return stateSerializer.dataFromBytes( bytes );
+        final var deltaSerializer = deltaSerializers.reader( contentType );
+
+        if( stateBytes != null ) {
+            byte[] bytes = compressor.decompress( stateBytes );
+            return keyframe ?
+                    CheckpointDelta.keyframe( deltaSerializer.stateSerializer().dataFromBytes( bytes ) ) :
+                    deltaSerializer.bytesToObject( bytes );
+        }
+        if( base64State != null ) {
+            byte[] bytes = compressor.decompress( Base64.getDecoder().decode(base64State) );
+            return CheckpointDelta.keyframe( deltaSerializer.stateSerializer().dataFromBytes( bytes ) );
+        }
+        byte[] bytes = compressor.decompress( Base64.getDecoder().decode( requireNonNull(base64Delta, "state payload cannot be null") ) );
+        return deltaSerializer.bytesToObject( bytes );
     }
 
     protected void initTable(boolean dropTablesFirst, boolean createTables) throws SQLException {
@@ -89,7 +407,8 @@ public class PostgresSaver extends MemorySaver {
                      thread_id UUID NOT NULL,
                      node_id VARCHAR(255),
                      next_node_id VARCHAR(255),
-                     state_data JSONB NOT NULL,
+                     state_data JSONB,
+                     state_bytes BYTEA,
                      state_content_type VARCHAR(100) NOT NULL, -- New field for content type
                      saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                 
@@ -99,10 +418,20 @@ public class PostgresSaver extends MemorySaver {
                          ON DELETE CASCADE
                  );
                 
-                 CREATE INDEX idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
-                 CREATE INDEX idx_lg4jcheckpoint_thread_id_saved_at_desc ON LG4JCheckpoint(thread_id, saved_at DESC);
-                 CREATE UNIQUE INDEX idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(thread_name) WHERE is_released = FALSE;
+                 -- tables created by the previous versions
+                 ALTER TABLE LG4JCheckpoint ADD COLUMN IF NOT EXISTS state_bytes BYTEA;
+                 ALTER TABLE LG4JCheckpoint ALTER COLUMN state_data DROP NOT NULL;
+
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_thread_id_saved_at_desc ON LG4JCheckpoint(thread_id, saved_at DESC);
+                 CREATE UNIQUE INDEX IF NOT EXISTS idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(thread_name) WHERE is_released = FALSE;
+                """;
+
+        if( stateStorage == StateStorage.JSONB ) {
+            sqlCreateTables += """
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_state_data ON LG4JCheckpoint USING GIN (state_data jsonb_path_ops);
                 """;
+        }
 
 
         String sqlCommand = null;
@@ -127,171 +456,323 @@ public class PostgresSaver extends MemorySaver {
     @Override
     protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
 
+        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        if( writer != null && writer.reset( threadId ) ) {
+            // a batch with checkpoints of the thread has failed, the thread is reloaded from the database
+            log.warn( "reloading thread {} after a failed commit of its checkpoints", threadId );
+            checkpoints.clear();
+            threadUUIDs.remove( threadId );
+        }
+
         if( !checkpoints.isEmpty() ) return checkpoints;
 
-        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+        // a thread evicted from memory could have checkpoints not committed yet
+        awaitPendingCheckpoints( threadId );
 
-        var sqlCheckThread = """
-                SELECT COUNT(*)
-                FROM LG4JThread
-                WHERE thread_name = ? AND is_released = FALSE
-                """;
-        var sqlQueryCheckpoints = """
-                WITH matched_thread AS (
-                    SELECT thread_id
-                    FROM LG4JThread
-                    WHERE thread_name = ? AND is_released = FALSE
-                )
-                SELECT  c.checkpoint_id,
-                        c.node_id,
-                        c.next_node_id,
-                        c.state_data->>'binaryPayload' AS base64_data,
-                        c.state_content_type,
-                        c.parent_checkpoint_id
-                FROM matched_thread t
-                JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
-                ORDER BY c.saved_at DESC
-                """;
         try( Connection conn = getConnection() ) {
 
-            try( PreparedStatement ps = conn.prepareStatement(sqlCheckThread) ) {
+            UUID threadUUID = null;
+            try( PreparedStatement ps = conn.prepareStatement(SELECT_THREAD_SQL) ) {
                 ps.setString(1, threadId);
-                var resultSet = ps.executeQuery();
-                resultSet.next();
-                var count = resultSet.getInt(1);
-
-                if( count == 0 ) {
-                    return checkpoints;
+                try( var rs = ps.executeQuery() ) {
+                    var rows = 0;
+                    while( rs.next() ) {
+                        threadUUID = rs.getObject(1, UUID.class);
+                        ++rows;
+                    }
+                    if( rows == 0 ) {
+                        threadUUIDs.remove( threadId );
+                        return checkpoints;
+                    }
+                    if( rows > 1 ) {
+                        throw new IllegalStateException( format("there are more than one Thread '%s' open (not released yet)", threadId));
+                    }
                 }
-                if( count > 1 ) {
-                    throw new IllegalStateException( format("there are more than one Thread '%s' open (not released yet)", threadId));
+            }
+            threadUUIDs.put( threadId, threadUUID );
+
+            log.trace( "Executing select checkpoints:\n---\n{}---", SELECT_CHECKPOINTS_SQL);
+            var headers = new ArrayList<CheckpointStatePager.Header>();
+            try( PreparedStatement ps = conn.prepareStatement(SELECT_CHECKPOINTS_SQL) ) {
+                ps.setObject(1, threadUUID, Types.OTHER);
+                try( var rs = ps.executeQuery() ) {
+                    while( rs.next() ) {
+                        headers.add( new CheckpointStatePager.Header( rs.getString(1), rs.getString(2), rs.getString(3) ) );
+                    }
                 }
             }
+            checkpoints.addAll( CheckpointStatePager.lazyCheckpoints( headers, statePageSize, this::loadStates ) );
+        }
 
-            log.trace( "Executing select checkpoints:\n---\n{}---", sqlQueryCheckpoints);
-            try( PreparedStatement ps = conn.prepareStatement(sqlQueryCheckpoints) ) {
-                ps.setString(1, threadId);
-                var rs = ps.executeQuery();
+        return checkpoints;
+    }
+
+    /**
+     * Reads the states of the given checkpoints, see {@link CheckpointStatePager}
+     *
+     * @param ids the checkpoint ids
+     * @return the stored states indexed by checkpoint id
+     */
+    private Map<String,CheckpointDelta> loadStates( List<String> ids ) throws Exception {
+        var result = new HashMap<String,CheckpointDelta>( ids.size() );
+
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(SELECT_STATES_SQL) ) {
+            var uuids = ids.stream().map( UUID::fromString ).toArray();
+            ps.setArray(1, conn.createArrayOf("uuid", uuids));
+
+            log.trace( "Executing select states:\n---\n{}---", SELECT_STATES_SQL);
+            try( var rs = ps.executeQuery() ) {
                 while( rs.next() ) {
-                    var checkpoint = Checkpoint.builder()
-                            .id( rs.getString(1) )
-                            .nodeId( rs.getString(2) )
-                            .nextNodeId( rs.getString(3) )
-                            .state( decodeState( rs.getBytes(4), rs.getString( 5) ) )
-                            .build();
-                    checkpoints.add( checkpoint );
+                    result.put( rs.getString(1), decodeState( rs.getBytes(2),
+                                                            rs.getString(4) == null,
+                                                            rs.getString(5),
+                                                            rs.getString(6),
+                                                            rs.getString(7),
+                                                            rs.getString(3) ) );
                 }
             }
-
         }
+        return result;
+    }
 
-        return checkpoints;
+    /**
+     * Checkpoint to insert, encoded by the thread putting it
+     *
+     * @param threadId the name of the thread
+     * @param id the checkpoint id
+     * @param parentId the id of the parent checkpoint, null for a keyframe
+     * @param nodeId the checkpoint node id
+     * @param nextNodeId the checkpoint next node id
+     * @param state the stored state
+     * @param savedAt the time the checkpoint has been put
+     */
+    private record StoredCheckpoint( String threadId, UUID id, UUID parentId, String nodeId, String nextNodeId, StoredState state, Timestamp savedAt ) {}
+
+    private StoredCheckpoint storedCheckpointOf( String threadId, Checkpoint checkpoint, CheckpointDelta delta ) throws IOException {
+        return new StoredCheckpoint( threadId,
+                UUID.fromString(checkpoint.getId()),
+                delta.isKeyframe() ? null : UUID.fromString(delta.parentId()),
+                checkpoint.getNodeId(),
+                checkpoint.getNextNodeId(),
+                encodeState(delta),
+                nextSavedAt() );
     }
 
-    private void insertCheckpoint( Connection conn, RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
-        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+    /**
+     * @return the {@code saved_at} of a new checkpoint, strictly increasing so that the checkpoints
+     * inserted by the same transaction keep their order
+     */
+    private Timestamp nextSavedAt() {
+        final long now = ChronoUnit.MICROS.between( Instant.EPOCH, Instant.now() );
+        final long micros = lastSavedAt.updateAndGet( last -> Math.max( last + 1, now ) );
+        return Timestamp.from( Instant.EPOCH.plus( micros, ChronoUnit.MICROS ) );
+    }
 
-        var upsertThreadSql = """
-            WITH inserted AS (
-                INSERT INTO LG4JThread (thread_id, thread_name, is_released)
-                VALUES (?, ?, FALSE)
-                ON CONFLICT (thread_name)
-                WHERE is_released = FALSE
-                DO NOTHING
-                RETURNING thread_id
-            )
-            SELECT thread_id FROM inserted
-            UNION ALL
-            SELECT thread_id FROM LG4JThread
-            WHERE thread_name = ? AND is_released = FALSE
-            LIMIT 1;
-            """;
+    /**
+     * Binds the columns of the checkpoint following the thread id
+     */
+    private static int bindCheckpoint( PreparedStatement ps, int field, StoredCheckpoint checkpoint ) throws SQLException {
+        // node_id
+        ps.setString(++field, checkpoint.nodeId());
+        // next_node_id
+        ps.setString(++field, checkpoint.nextNodeId());
+        // state_data, state_bytes, state_content_type
+        field = bindState(ps, field, checkpoint.state());
+        // saved_at
+        ps.setTimestamp(++field, checkpoint.savedAt());
+        return field;
+    }
 
-        var insertCheckpointSql = """
-                INSERT INTO LG4JCheckpoint(
-                checkpoint_id,
-                parent_checkpoint_id,
-                thread_id,
-                node_id,
-                next_node_id,
-                state_data,
-                state_content_type)
-                VALUES (?, ?, ?, ?, ?, ?::jsonb, ?)
-                """;
-        UUID threadUUID = null;
+    private static int bindInsertCheckpoint( PreparedStatement ps, UUID threadUUID, StoredCheckpoint checkpoint ) throws SQLException {
+        var field = 0;
+        // checkpoint_id
+        ps.setObject(++field, checkpoint.id(), Types.OTHER);
+        // parent_checkpoint_id
+        ps.setObject(++field, checkpoint.parentId(), Types.OTHER);
+        // thread_id
+        ps.setObject(++field, threadUUID, Types.OTHER);
+        return bindCheckpoint(ps, field, checkpoint);
+    }
+
+    /**
+     * Inserts the checkpoint with a single statement. The thread is created as well, unless its id is cached
+     *
+     * @return the id of the thread, to be cached once the transaction is committed
+     */
+    private UUID insertCheckpoint( Connection conn, StoredCheckpoint checkpoint ) throws Exception {
+        var threadId = checkpoint.threadId();
 
-        // 1. Upsert thread information
-        try (PreparedStatement ps = conn.prepareStatement(upsertThreadSql)) {
+        var threadUUID = threadUUIDs.get( threadId );
+
+        if( threadUUID != null ) {
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_CHECKPOINT_SQL)) {
+                bindInsertCheckpoint(ps, threadUUID, checkpoint);
+
+                log.trace( "Executing insert checkpoint:\n---\n{}---", INSERT_CHECKPOINT_SQL);
+                ps.executeUpdate();
+            }
+            return threadUUID;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_THREAD_AND_INSERT_CHECKPOINT_SQL)) {
             var field = 0;
+            // thread
             ps.setObject(++field, UUID.randomUUID(), Types.OTHER);
             ps.setString(++field, threadId);
             ps.setString(++field, threadId);
+            // checkpoint_id
+            ps.setObject(++field, checkpoint.id(), Types.OTHER);
+            // parent_checkpoint_id
+            ps.setObject(++field, checkpoint.parentId(), Types.OTHER);
+            bindCheckpoint(ps, field, checkpoint);
 
-            log.trace( "Executing upsert thread:\n---\n{}---", upsertThreadSql);
+            log.trace( "Executing upsert thread and insert checkpoint:\n---\n{}---", UPSERT_THREAD_AND_INSERT_CHECKPOINT_SQL);
 
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    threadUUID = rs.getObject("thread_id", UUID.class);
+                if (!rs.next()) {
+                    throw new IllegalStateException( format("active Thread '%s' not found", threadId) );
                 }
+                return rs.getObject(1, UUID.class);
             }
         }
-
-
-
-        // 2. Insert checkpoint data
-        try (PreparedStatement ps = conn.prepareStatement(insertCheckpointSql)) {
-            var field = 0;
-            // checkpoint_id
-            ps.setObject(++field,
-                    UUID.fromString(checkpoint.getId()),
-                    Types.OTHER);
-            // parent_checkpoint_id
-            ps.setNull(++field, java.sql.Types.OTHER);
-            // thread_id
-            ps.setObject(++field,
-                    requireNonNull(threadUUID, "threadUUID cannot be null"),
-                    Types.OTHER);
-            // node_id
-            ps.setString(++field, checkpoint.getNodeId());
-            // next_node_id
-            ps.setString(++field, checkpoint.getNextNodeId());
-            // state_data
-            ps.setString(++field, encodeState(checkpoint.getState()));
-            // state_content_type
-            ps.setString(++field, stateSerializer.contentType());
-
-            // DB schema has DEFAULT CURRENT_TIMESTAMP for saved_at.
-            // If checkpoint provides a specific time, use it. Otherwise, use current time from Java.
-            // To use DB default, one would typically omit the column or pass NULL if the column definition allows it to trigger default.
-            // OffsetDateTime savedAt = checkpoint.getSavedAt().orElse(OffsetDateTime.now());
-            // psCheckpoint.setObject(8, savedAt);
-            log.trace( "Executing insert checkpoint:\n---\n{}---", insertCheckpointSql);
-            ps.executeUpdate();
-        }
-
     }
 
     @Override
     protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
 
-        Connection conn = null;
-        try( Connection ignored = conn = getConnection() )  {
-            conn.setAutoCommit(false); // Start transaction
+        // checkpoints are ordered from the newest, the parent is the previous newest one.
+        // The delta is computed before getting the connection, since the parent state could be read from the database
+        var parent = ( checkpoints.size() > 1 ) ? checkpoints.get(1) : null;
+        var delta = CheckpointDelta.of( keyframeInterval, parent, checkpoint );
+        checkpoint.storedDelta( delta, parent );
 
-            insertCheckpoint( conn, config, checkpoints, checkpoint );
+        var stored = storedCheckpointOf( threadId, checkpoint, delta );
+
+        if( writer != null ) {
+            writer.submit( stored );
+            return;
+        }
+
+        // a single statement, committed on its own
+        try( Connection conn = getConnection() )  {
+
+            threadUUIDs.put( threadId, insertCheckpoint( conn, stored ) );
 
-            conn.commit();
             log.debug("Checkpoint {} for thread {} inserted successfully.", checkpoint.getId(), threadId);
 
-        } catch (SQLException | IOException e) { // IOException from convertStateToJson
+        } catch (SQLException e) {
             log.error("Error inserting checkpoint with id {} in thread {}", checkpoint.getId(), threadId, e);
-            rollback( conn, checkpoint, threadId );
+            threadUUIDs.remove( threadId );
             throw e;
         }
 
     }
 
+    /**
+     * Commits a batch of checkpoints, put by any thread, in a single transaction.
+     * The threads whose id is not cached are created, unless they are already active, then the checkpoints
+     * are inserted in submission order by a JDBC batch
+     *
+     * @param batch the checkpoints to insert
+     * @throws SQLException if the batch cannot be committed
+     */
+    private void commitCheckpoints( List<StoredCheckpoint> batch ) throws SQLException {
+        var resolved = new HashMap<String,UUID>();
+
+        try( Connection conn = getConnection() ) {
+            conn.setAutoCommit(false); // Start transaction
+            try {
+                try( PreparedStatement upsertThread = conn.prepareStatement(UPSERT_THREAD_SQL);
+                     PreparedStatement selectThread = conn.prepareStatement(SELECT_THREAD_SQL);
+                     PreparedStatement insertCheckpoint = conn.prepareStatement(INSERT_CHECKPOINT_SQL) ) {
+
+                    for( var checkpoint : batch ) {
+                        var threadUUID = resolved.get( checkpoint.threadId() );
+                        if( threadUUID == null ) {
+                            threadUUID = threadUUIDs.get( checkpoint.threadId() );
+                        }
+                        if( threadUUID == null ) {
+                            threadUUID = upsertThread( upsertThread, selectThread, checkpoint.threadId() );
+                        }
+                        resolved.put( checkpoint.threadId(), threadUUID );
+
+                        bindInsertCheckpoint( insertCheckpoint, threadUUID, checkpoint );
+                        insertCheckpoint.addBatch();
+                    }
+                    log.trace( "Executing batch of {} insert checkpoint:\n---\n{}---", batch.size(), INSERT_CHECKPOINT_SQL);
+                    insertCheckpoint.executeBatch();
+                }
+                conn.commit();
+            }
+            catch( SQLException e ) {
+                log.error("Error inserting batch of {} checkpoints", batch.size(), e);
+                conn.rollback();
+                resolved.keySet().forEach( threadUUIDs::remove );
+                throw e;
+            }
+        }
+        threadUUIDs.putAll( resolved );
+    }
+
+    /**
+     * Creates the thread, unless it is already active
+     *
+     * @return the id of the active thread
+     */
+    private static UUID upsertThread( PreparedStatement upsertThread, PreparedStatement selectThread, String threadId ) throws SQLException {
+        upsertThread.setObject(1, UUID.randomUUID(), Types.OTHER);
+        upsertThread.setString(2, threadId);
+        upsertThread.executeUpdate();
+
+        selectThread.setString(1, threadId);
+        try( var rs = selectThread.executeQuery() ) {
+            if( !rs.next() ) {
+                throw new IllegalStateException( format("active Thread '%s' not found", threadId) );
+            }
+            return rs.getObject(1, UUID.class);
+        }
+    }
+
+    /**
+     * Waits until the checkpoints put so far are committed
+     *
+     * @param threadId the thread whose failed checkpoints, if any, are reported
+     * @throws IllegalStateException if checkpoints of the thread have not been committed
+     */
+    private void awaitPendingCheckpoints( String threadId ) throws InterruptedException {
+        if( writer != null ) {
+            writer.flush( threadId );
+        }
+    }
+
+    /**
+     * Waits until the checkpoints put so far are committed, unless the {@link WriteDurability} is
+     * {@link WriteDurability#ASYNC}
+     *
+     * @param config the configuration of the thread, the pending checkpoints of all the threads are committed
+     * @throws Exception if the checkpoints of the thread cannot be committed
+     */
+    @Override
+    public void flush(RunnableConfig config) throws Exception {
+        if( writeDurability == WriteDurability.ON_RETURN ) {
+            awaitPendingCheckpoints( config.threadId().orElse( THREAD_ID_DEFAULT ) );
+        }
+    }
+
+    /**
+     * Commits the pending checkpoints and stops the writer thread, if any
+     *
+     * @throws Exception if the checkpoints cannot be committed
+     */
+    @Override
+    public void close() throws Exception {
+        if( writer != null ) {
+            writer.close();
+        }
+    }
+
     @Override
     protected void updatedCheckpoint( RunnableConfig config,
                                       LinkedList<Checkpoint> checkpoints,
@@ -304,6 +785,27 @@ public class PostgresSaver extends MemorySaver {
                 WHERE checkpoint_id = ?;
                 """;
 
+        var updateChildAsKeyframeSql = """
+                UPDATE LG4JCheckpoint
+                SET state_data = ?::jsonb,
+                    state_bytes = ?,
+                    state_content_type = ?,
+                    parent_checkpoint_id = NULL
+                WHERE checkpoint_id = ?;
+                """;
+
+        // the child of replaced checkpoint could refer to it as parent, so it is stored as keyframe too.
+        // Its state is loaded before opening the transaction, since it could be read from the database
+        var index = checkpoints.indexOf(checkpoint);
+        var child = ( index > 0 ) ? checkpoints.get(index - 1) : null;
+        var childState = ( child != null ) ? child.getState() : null;
+
+        // the replacement is stored as keyframe
+        var stored = storedCheckpointOf( threadId, checkpoint, CheckpointDelta.keyframe(checkpoint.getState()) );
+
+        // the replaced checkpoint could be still pending
+        awaitPendingCheckpoints( threadId );
+
         Connection conn = null;
 
         try( Connection ignored = conn = getConnection()  )  {
@@ -324,9 +826,23 @@ public class PostgresSaver extends MemorySaver {
                 }
             }
 
-            insertCheckpoint( conn, config, checkpoints, checkpoint);
+            var threadUUID = insertCheckpoint( conn, stored );
+
+            if( child != null ) {
+                try (PreparedStatement ps = conn.prepareStatement(updateChildAsKeyframeSql)) {
+                    var field = 0;
+                    field = bindState(ps, field, encodeState(CheckpointDelta.keyframe(childState)));
+                    ps.setObject(++field, UUID.fromString(child.getId()), Types.OTHER);
+                    log.trace( "Executing update child checkpoint with id {} as keyframe in thread {}:\n---\n{}---",
+                            child.getId(),
+                            threadId,
+                            updateChildAsKeyframeSql);
+                    ps.executeUpdate();
+                }
+            }
 
             conn.commit();
+            threadUUIDs.put( threadId, threadUUID );
 
             log.debug("Checkpoint with id {} for thread {} inserted successfully.",
                         checkpoint.getId(),
@@ -338,6 +854,7 @@ public class PostgresSaver extends MemorySaver {
                     threadId,
                     e);
             rollback( conn, checkpoint, threadId );
+            threadUUIDs.remove( threadId );
             throw e;
         }
     }
@@ -346,49 +863,70 @@ public class PostgresSaver extends MemorySaver {
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
 
-        var selectThreadSql = """
-               SELECT thread_id FROM LG4JThread
-               WHERE thread_name = ? AND is_released = FALSE
-               """;
-        var releaseThreadSql = """
-                UPDATE LG4JThread
-                SET
-                    is_released = TRUE
-                WHERE thread_id = ?;
-                """;
-        try( Connection conn = getConnection()  )  {
+        awaitPendingCheckpoints( threadId );
+        threadUUIDs.remove( threadId );
 
-            UUID threadUUID = null;
-            try (PreparedStatement ps = conn.prepareStatement(selectThreadSql)) {
-                var field = 0;
-                ps.setString(++field, threadId);
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(RELEASE_THREAD_SQL) )  {
+            ps.setString(1, threadId);
 
-                try (ResultSet rs = ps.executeQuery()) {
-                    var rows = 0;
-                    while( rs.next() ) {
-                        threadUUID = rs.getObject("thread_id", UUID.class);
-                        ++rows;
-                    }
-                    if( rows == 0 ) {
-                        throw new IllegalStateException( format("active Thread '%s' not found",threadId) );
-                    }
-                    if( rows > 1 ) {
-                        throw new IllegalStateException( format("duplicate active Thread '%s' found",threadId) );
-                    }
-                }
+            log.trace( "Executing release Thread:\n---\n{}---", RELEASE_THREAD_SQL);
+            var rows = ps.executeUpdate();
+            if( rows == 0 ) {
+                throw new IllegalStateException( format("active Thread '%s' not found",threadId) );
             }
+            if( rows > 1 ) {
+                throw new IllegalStateException( format("duplicate active Thread '%s' found",threadId) );
+            }
+        }
 
-            log.trace( "Executing release Thread:\n---\n{}---", releaseThreadSql);
-            try (PreparedStatement ps = conn.prepareStatement(releaseThreadSql)) {
-                var field = 0;
-                ps.setObject(++field,
-                        Objects.requireNonNull(threadUUID,"threadUUID cannot be null"),
-                        Types.OTHER); // nullable
-                ps.executeUpdate();
+    }
+
+    @Override
+    protected void evictedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        threadUUIDs.remove( config.threadId().orElse( THREAD_ID_DEFAULT ) );
+    }
 
+    /**
+     * Moves the states stored as base64 inside the {@code state_data} JSONB column ( {@link StateStorage#JSONB_BASE64} )
+     * into the {@code state_bytes} BYTEA column, as they are written with {@link StateStorage#BYTEA}.
+     * The rows are converted in the database, without decoding them, one transaction every {@code batchSize} rows.
+     * Rows already converted are skipped, so the migration can be stopped and resumed
+     *
+     * @param batchSize the number of rows converted by each transaction
+     * @return the number of converted rows
+     * @throws SQLException if a batch cannot be converted
+     */
+    public long migrateToBytea( int batchSize ) throws SQLException {
+        if( batchSize <= 0 ) {
+            throw new IllegalArgumentException( format("batchSize must be greater than 0 but is %d", batchSize) );
+        }
+        var migrateSql = """
+                UPDATE LG4JCheckpoint
+                SET state_bytes = decode( COALESCE( state_data->>'binaryPayload', state_data->>'deltaPayload' ), 'base64' ),
+                    state_data = NULL
+                WHERE checkpoint_id IN (
+                    SELECT checkpoint_id
+                    FROM LG4JCheckpoint
+                    WHERE state_bytes IS NULL
+                      AND ( state_data->>'binaryPayload' IS NOT NULL OR state_data->>'deltaPayload' IS NOT NULL )
+                      AND state_content_type NOT LIKE '%%%s'
+                    LIMIT ?
+                )
+                """.formatted( DOCUMENT_CONTENT_TYPE_SUFFIX );
+
+        long result = 0;
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(migrateSql) ) {
+            log.trace( "Executing migrate state storage:\n---\n{}---", migrateSql);
+            int rows;
+            do {
+                ps.setInt(1, batchSize);
+                rows = ps.executeUpdate();
+                result += rows;
+                log.debug( "{} checkpoints migrated to bytea", result );
             }
+            while( rows == batchSize );
         }
-
+        return result;
     }
 
     /**
@@ -412,6 +950,13 @@ public class PostgresSaver extends MemorySaver {
         private String database;
         private boolean createTables;
         private boolean dropTablesFirst;
+        private int keyframeInterval = CheckpointDelta.DEFAULT_KEYFRAME_INTERVAL;
+        private final List<StateSerializer<? extends AgentState>> readSerializers = new ArrayList<>();
+        private PayloadCompressor compressor = PayloadCompressor.disabled();
+        private CheckpointRetention retention = CheckpointRetention.unbounded();
+        private StateStorage stateStorage = StateStorage.BYTEA;
+        private int statePageSize = CheckpointStatePager.DEFAULT_PAGE_SIZE;
+        private WriteDurability writeDurability = WriteDurability.SYNC;
         private DataSource datasource;
 
         public <State extends AgentState> Builder stateSerializer(StateSerializer<State> stateSerializer) {
@@ -419,6 +964,18 @@ public class PostgresSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the datasource of the store, e.g. a connection pool, in place of the connection properties
+         * ( host, port, user, password and database ). Without it each operation opens a new connection.
+         *
+         * @param datasource the datasource
+         * @return this builder
+         */
+        public Builder datasource(DataSource datasource) {
+            this.datasource = datasource;
+            return this;
+        }
+
         public Builder host(String host) {
             this.host = host;
             return this;
@@ -454,6 +1011,93 @@ public class PostgresSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the number of checkpoints between two full keyframes. Checkpoints in between store only changed channels.
+         *
+         * @param keyframeInterval the keyframe interval, 1 means store full state for each checkpoint
+         * @return this builder
+         */
+        public Builder keyframeInterval(int keyframeInterval) {
+            this.keyframeInterval = keyframeInterval;
+            return this;
+        }
+
+        /**
+         * Adds a serializer used to read the checkpoints stored with its content type,
+         * e.g. the previous serializer after switching to a different format
+         *
+         * @param readSerializer the serializer
+         * @return this builder
+         */
+        public <State extends AgentState> Builder readSerializer(StateSerializer<State> readSerializer) {
+            this.readSerializers.add( requireNonNull(readSerializer, "readSerializer cannot be null") );
+            return this;
+        }
+
+        /**
+         * Sets the compressor of the state payloads (default {@link PayloadCompressor#disabled()}).
+         * Payloads stored before enabling it are still readable.
+         *
+         * @param compressor the compressor
+         * @return this builder
+         */
+        public Builder compressor(PayloadCompressor compressor) {
+            this.compressor = compressor;
+            return this;
+        }
+
+        /**
+         * Sets the retention of the checkpoints cached in memory (default {@link CheckpointRetention#unbounded()}).
+         * Evicted threads are loaded again from the database
+         *
+         * @param retention the retention policy
+         * @return this builder
+         */
+        public Builder retention(CheckpointRetention retention) {
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * Sets the storage of the checkpoint state (default {@link StateStorage#BYTEA}).
+         * Rows written with a different storage are still readable. Tables created by the previous versions
+         * get the {@code state_bytes} column through {@link #createTables(boolean)}, while their rows can be converted
+         * by {@link PostgresSaver#migrateToBytea(int)}
+         *
+         * @param stateStorage the state storage
+         * @return this builder
+         */
+        public Builder stateStorage(StateStorage stateStorage) {
+            this.stateStorage = stateStorage;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoint states read by each query (default {@link CheckpointStatePager#DEFAULT_PAGE_SIZE}).
+         * Loading a thread reads only the checkpoint headers, while the states are read on demand from the requested
+         * checkpoint to the older ones
+         *
+         * @param statePageSize the number of states read by each query
+         * @return this builder
+         */
+        public Builder statePageSize(int statePageSize) {
+            this.statePageSize = statePageSize;
+            return this;
+        }
+
+        /**
+         * Sets when the checkpoints are committed (default {@link WriteDurability#SYNC}).
+         * Otherwise the checkpoints are committed in batches by a writer thread, and the saver
+         * should be {@link PostgresSaver#close() closed} to commit the last ones
+         *
+         * @param writeDurability the write durability
+         * @return this builder
+         */
+        public Builder writeDurability(WriteDurability writeDurability) {
+            this.writeDurability = writeDurability;
+            return this;
+        }
+
         private String requireNotBlank( String value, String name ) {
             if( requireNonNull(value, format("'%s' cannot be null", name) ).isBlank() ) {
                 throw new IllegalArgumentException(format("'%s' cannot be blank", name));
@@ -463,17 +1107,19 @@ public class PostgresSaver extends MemorySaver {
 
         public PostgresSaver build() throws SQLException {
             requireNonNull( stateSerializer, "stateSerializer cannot be null");
-            if( port <=0 ) {
-                throw new IllegalArgumentException("port must be greater than 0");
+            if( datasource == null ) {
+                if( port == null || port <=0 ) {
+                    throw new IllegalArgumentException("port must be greater than 0");
+                }
+                var ds = new PGSimpleDataSource();
+                ds.setDatabaseName( requireNotBlank(database, "database"));
+                ds.setUser(requireNotBlank(user, "user"));
+                ds.setPassword(requireNonNull(password, "password cannot be null"));
+                ds.setPortNumbers( new int[] {port} );
+                ds.setServerNames( new String[] { requireNotBlank(host, "host") } );
+
+                datasource = ds;
             }
-            var ds = new PGSimpleDataSource();
-            ds.setDatabaseName( requireNotBlank(database, "database"));
-            ds.setUser(requireNotBlank(user, "user"));
-            ds.setPassword(requireNonNull(password, "password cannot be null"));
-            ds.setPortNumbers( new int[] {port} );
-            ds.setServerNames( new String[] { requireNotBlank(host, "host") } );
-
-            datasource = ds;
             createTables = createTables || dropTablesFirst;
 
             return new PostgresSaver( this );
@@ -4,16 +4,20 @@ import org.bsc.langgraph4j.CompileConfig;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.StateGraph;
 import org.bsc.langgraph4j.action.NodeAction;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.io.IOException;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.LogManager;
 
@@ -192,4 +196,197 @@ public class PostgresSaverTest {
 
     }
 
+    private static Checkpoint checkpointOf( int step ) {
+        return Checkpoint.builder()
+                .nodeId( "node_" + step )
+                .nextNodeId( "node_" + ( step + 1 ) )
+                .state( Map.of( "step", step, "messages", List.of( "message " + step ) ) )
+                .build();
+    }
+
+    private static long countRows( String where ) throws SQLException {
+        try( var conn = DriverManager.getConnection( postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword() );
+             var rs = conn.createStatement().executeQuery( "SELECT COUNT(*) FROM LG4JCheckpoint WHERE " + where ) ) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testByteaStorageAndMigration() throws Exception {
+        var config = RunnableConfig.builder().threadId("bytea").build();
+
+        // rows written as base64 inside JSONB, as by the previous versions
+        var legacySaver = buildPostgresSaver()
+                .dropTablesFirst(true)
+                .keyframeInterval(3)
+                .stateStorage(PostgresSaver.StateStorage.JSONB_BASE64)
+                .build();
+        for( int step = 0; step < 5; ++step ) {
+            legacySaver.put( config, checkpointOf( step ) );
+        }
+        assertEquals( 5, countRows( "state_bytes IS NULL" ) );
+
+        // mixed rows are readable
+        var saver = buildPostgresSaver().keyframeInterval(3).build();
+        assertEquals( PostgresSaver.StateStorage.BYTEA, saver.stateStorage() );
+        saver.put( config, checkpointOf( 5 ) );
+        assertEquals( 1, countRows( "state_bytes IS NOT NULL AND state_data IS NULL" ) );
+
+        var checkpoints = List.copyOf( buildPostgresSaver().build().list( config ) );
+        assertEquals( 6, checkpoints.size() );
+        for( int i = 0; i < 6; ++i ) {
+            assertEquals( checkpointOf( 5 - i ).getState(), checkpoints.get(i).getState() );
+        }
+
+        // converted in batches
+        assertEquals( 5, saver.migrateToBytea( 2 ) );
+        assertEquals( 0, saver.migrateToBytea( 2 ) );
+        assertEquals( 6, countRows( "state_bytes IS NOT NULL AND state_data IS NULL" ) );
+
+        checkpoints = List.copyOf( buildPostgresSaver().build().list( config ) );
+        assertEquals( 6, checkpoints.size() );
+        for( int i = 0; i < 6; ++i ) {
+            assertEquals( checkpointOf( 5 - i ).getState(), checkpoints.get(i).getState() );
+        }
+    }
+
+    @Test
+    public void testJsonbStorage() throws Exception {
+        var config = RunnableConfig.builder().threadId("jsonb").build();
+        var jsonSerializer = new JacksonStateSerializer<AgentState>( AgentState::new ) {};
+
+        var saver = buildPostgresSaver()
+                .dropTablesFirst(true)
+                .stateSerializer( jsonSerializer )
+                .stateStorage(PostgresSaver.StateStorage.JSONB)
+                .build();
+        for( int step = 0; step < 3; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+
+        // the state document can be queried
+        assertEquals( 1, countRows( "state_data @> '{\"step\": 1}'" ) );
+        assertEquals( 3, countRows( "parent_checkpoint_id IS NULL" ) );
+
+        var checkpoints = List.copyOf( buildPostgresSaver()
+                .stateSerializer( jsonSerializer )
+                .build()
+                .list( config ) );
+        assertEquals( 3, checkpoints.size() );
+        assertEquals( checkpointOf( 2 ).getState(), checkpoints.get(0).getState() );
+
+        // a binary serializer cannot write documents
+        assertThrows( IllegalArgumentException.class, () -> buildPostgresSaver()
+                .stateStorage(PostgresSaver.StateStorage.JSONB)
+                .build() );
+    }
+
+    @Test
+    public void testDataSourceAndThreadCache() throws Exception {
+        var datasource = new PGSimpleDataSource();
+        datasource.setUrl( postgres.getJdbcUrl() );
+        datasource.setUser( postgres.getUsername() );
+        datasource.setPassword( postgres.getPassword() );
+
+        var saver = PostgresSaver.builder()
+                .datasource( datasource )
+                .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                .dropTablesFirst( true )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("cached").build();
+        final int steps = 200;
+        for( int step = 0; step < steps; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+        assertEquals( steps, countRows( "TRUE" ) );
+
+        // a released thread is not reused
+        saver.release( config );
+        saver.put( config, checkpointOf( 0 ) );
+        assertEquals( 1, saver.list( config ).size() );
+        assertEquals( 1, buildPostgresSaver().build().list( config ).size() );
+        assertEquals( steps, countRows( "thread_id IN ( SELECT thread_id FROM LG4JThread WHERE is_released )" ) );
+
+        assertThrows( IllegalStateException.class, () -> saver.release( RunnableConfig.builder().threadId("unknown").build() ) );
+    }
+
+    @Test
+    public void testLazyStatePaging() throws Exception {
+        var config = RunnableConfig.builder().threadId("lazy").build();
+        final int steps = 1_000;
+
+        var saver = buildPostgresSaver()
+                .dropTablesFirst(true)
+                .build();
+        for( int step = 0; step < steps; ++step ) {
+            saver.put( config, checkpointOf( step ) );
+        }
+
+        // cold resume reads the headers and the latest state only
+        var latest = buildPostgresSaver().statePageSize(10).build().get( config ).orElseThrow();
+        assertEquals( checkpointOf( steps - 1 ).getState(), latest.getState() );
+
+        var checkpoints = List.copyOf( buildPostgresSaver().statePageSize(10).build().list( config ) );
+        assertEquals( steps, checkpoints.size() );
+        assertEquals( "node_" + ( steps - 1 ), checkpoints.get(0).getNodeId() );
+        assertTrue( checkpoints.stream().noneMatch( Checkpoint::isStateLoaded ) );
+
+        assertEquals( checkpointOf( 500 ).getState(), checkpoints.get( steps - 1 - 500 ).getState() );
+        assertEquals( 1, checkpoints.stream().filter( Checkpoint::isStateLoaded ).count() );
+
+        // browsing the whole history
+        for( int i = 0; i < steps; ++i ) {
+            assertEquals( checkpointOf( steps - 1 - i ).getState(), checkpoints.get(i).getState() );
+        }
+
+        assertThrows( IllegalArgumentException.class, () -> buildPostgresSaver().statePageSize(0).build() );
+    }
+
+    @Test
+    public void testBatchedWrites() throws Exception {
+        final int threads = 8;
+        final int steps = 50;
+
+        for( var writeDurability : List.of( WriteDurability.SYNC, WriteDurability.ON_RETURN ) ) {
+            try( var saver = buildPostgresSaver()
+                    .dropTablesFirst(true)
+                    .writeDurability( writeDurability )
+                    .build() ) {
+                assertEquals( writeDurability, saver.writeDurability() );
+
+                var executor = java.util.concurrent.Executors.newFixedThreadPool( threads );
+                try {
+                    var futures = new java.util.ArrayList<java.util.concurrent.Future<?>>();
+                    for( int thread = 0; thread < threads; ++thread ) {
+                        var config = RunnableConfig.builder().threadId( "batched-" + thread ).build();
+                        futures.add( executor.submit( () -> {
+                            for( int step = 0; step < steps; ++step ) {
+                                saver.put( config, checkpointOf( step ) );
+                            }
+                            return null;
+                        } ) );
+                    }
+                    for( var future : futures ) {
+                        future.get();
+                    }
+                    saver.flush( RunnableConfig.builder().build() );
+                }
+                finally {
+                    executor.shutdown();
+                }
+            }
+            // each thread keeps the order of its checkpoints
+            var reader = buildPostgresSaver().build();
+            for( int thread = 0; thread < threads; ++thread ) {
+                var checkpoints = List.copyOf( reader.list( RunnableConfig.builder().threadId( "batched-" + thread ).build() ) );
+                assertEquals( steps, checkpoints.size() );
+                for( int i = 0; i < steps; ++i ) {
+                    assertEquals( checkpointOf( steps - 1 - i ).getState(), checkpoints.get(i).getState() );
+                }
+            }
+        }
+    }
+
 }
@@ -3,6 +3,7 @@ package org.bsc.langgraph4j.spring.ai.agent;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.action.AsyncNodeActionWithConfig;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesWindow;
 import org.bsc.langgraph4j.spring.ai.generators.StreamingChatGenerator;
 import org.springframework.ai.chat.messages.Message;
 
@@ -16,10 +17,21 @@ public class CallModelAction<State extends MessagesState<Message>> implements As
 
     private final ReactAgent.ChatService chatService;
     private final boolean streaming;
+    private final MessagesWindow<Message> messagesWindow;
 
     public CallModelAction(ReactAgent.ChatService chatService, boolean streaming) {
+        this( chatService, streaming, null );
+    }
+
+    /**
+     * @param chatService the chat service
+     * @param streaming true to stream the model response
+     * @param messagesWindow the window of messages sent to the model, {@code null} to send all of them
+     */
+    public CallModelAction(ReactAgent.ChatService chatService, boolean streaming, MessagesWindow<Message> messagesWindow) {
         this.chatService = chatService;
         this.streaming = streaming;
+        this.messagesWindow = messagesWindow;
     }
 
     /**
@@ -37,6 +49,10 @@ public class CallModelAction<State extends MessagesState<Message>> implements As
             return failedFuture( new IllegalArgumentException("no input provided!") );
         }
 
+        if (messagesWindow != null) {
+            messages = messagesWindow.apply(messages);
+        }
+
         if (streaming && !config.isRunningInStudio() ) {
             var flux = chatService.streamingExecute(messages);
 
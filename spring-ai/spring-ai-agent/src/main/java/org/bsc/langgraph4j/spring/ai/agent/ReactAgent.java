@@ -57,7 +57,7 @@ public interface ReactAgent {
 
             final var chatService = requireNonNull(chatServiceFactory, "chatServiceFactory cannot be null!").apply(this);
 
-            final var callModelAction = new CallModelAction<State>( chatService, streaming );
+            final var callModelAction = new CallModelAction<State>( chatService, streaming, messagesWindow );
 
             final var executeToolsAction = new ExecuteToolsAction<State>( tools() );
 
@@ -66,6 +66,7 @@ public interface ReactAgent {
                     .schema( ofNullable(schema).orElse( MessagesState.SCHEMA) )
                     .callModelAction( callModelAction )
                     .executeToolsAction( executeToolsAction )
+                    .messagesWindowAction( messagesWindow != null && messagesWindow.archive().isPresent() ? messagesWindow.action() : null )
                     .build();
 
         }
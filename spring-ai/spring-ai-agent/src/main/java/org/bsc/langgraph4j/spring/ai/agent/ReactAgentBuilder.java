@@ -3,6 +3,7 @@ package org.bsc.langgraph4j.spring.ai.agent;
 import org.bsc.langgraph4j.GraphStateException;
 import org.bsc.langgraph4j.StateGraph;
 import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.prebuilt.MessagesWindow;
 import org.bsc.langgraph4j.serializer.StateSerializer;
 import org.bsc.langgraph4j.state.Channel;
 import org.springframework.ai.chat.messages.Message;
@@ -28,6 +29,7 @@ public abstract class ReactAgentBuilder<B extends ReactAgentBuilder<B,State>, St
     protected boolean streaming = false;
     protected final List<ToolCallback> tools = new ArrayList<>();
     protected Map<String, Channel<?>> schema;
+    protected MessagesWindow<Message> messagesWindow;
 
     public Optional<String> systemMessage() {
         return ofNullable(systemMessage);
@@ -68,6 +70,20 @@ public abstract class ReactAgentBuilder<B extends ReactAgentBuilder<B,State>, St
         return chatModel( chatModel, false );
     }
 
+    /**
+     * Sets the token-budgeted window of messages sent to the model.
+     * Use {@code windowStart( m -> m.getMessageType() != MessageType.TOOL )} to avoid
+     * a window starting with a tool response detached from its request.
+     * If the window has an archive, older messages are also moved out of the state before each model call.
+     *
+     * @param messagesWindow the messages window
+     * @return the current instance of GraphBuilder for method chaining
+     */
+    public B messagesWindow(MessagesWindow<Message> messagesWindow) {
+        this.messagesWindow = messagesWindow;
+        return result();
+    }
+
     public B defaultSystem(String systemMessage) {
         this.systemMessage = systemMessage;
         return result();
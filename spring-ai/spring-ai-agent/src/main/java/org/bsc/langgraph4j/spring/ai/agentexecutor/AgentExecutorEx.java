@@ -142,13 +142,14 @@ public interface AgentExecutorEx {
             // verify approval
             final var toolService = new SpringAIToolService(tools());
 
-            final var callModelAction = new CallModelAction<State>( chatService, streaming );
+            final var callModelAction = new CallModelAction<State>( chatService, streaming, messagesWindow );
 
             return AgentEx.<Message, State, ToolCallback>builder()
                     .stateSerializer( stateSerializer )
                     .schema( State.SCHEMA )
                     .toolName( tool -> tool.getToolDefinition().name() )
                     .callModelAction( callModelAction )
+                    .messagesWindowAction( messagesWindow != null && messagesWindow.archive().isPresent() ? messagesWindow.action() : null )
                     .dispatchToolsAction( dispatchTools( approvals.keySet() ) )
                     .executeToolFactory( ( toolName ) -> executeTool( toolService, toolName ) )
                     .shouldContinueEdge( shouldContinue() )
@@ -0,0 +1,105 @@
+package org.bsc.langgraph4j.spring.ai.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.binary.BinaryCodec;
+import org.bsc.langgraph4j.serializer.binary.BinaryInput;
+import org.bsc.langgraph4j.serializer.binary.BinaryOutput;
+import org.springframework.ai.chat.messages.*;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Codec of Spring AI {@link Message}: the message type ordinal followed by its fields
+ */
+class MessageCodec implements BinaryCodec<Message> {
+
+    private static final int USER = 0;
+    private static final int ASSISTANT = 1;
+    private static final int SYSTEM = 2;
+    private static final int TOOL = 3;
+
+    @Override
+    public void write(Message value, BinaryOutput out) throws IOException {
+        switch (value.getMessageType()) {
+            case USER -> {
+                out.writeVarInt( USER );
+                out.writeString( Objects.requireNonNull( value.getText(), "text cannot be null" ) );
+                out.writeMap( value.getMetadata() );
+            }
+            case ASSISTANT -> {
+                var message = (AssistantMessage) value;
+                out.writeVarInt( ASSISTANT );
+                out.writeNullableString( message.getText() );
+                out.writeMap( message.getMetadata() );
+                out.writeVarInt( message.getToolCalls().size() );
+                for( var toolCall : message.getToolCalls() ) {
+                    out.writeNullableString( toolCall.id() );
+                    out.writeNullableString( toolCall.type() );
+                    out.writeNullableString( toolCall.name() );
+                    out.writeNullableString( toolCall.arguments() );
+                }
+            }
+            case SYSTEM -> {
+                out.writeVarInt( SYSTEM );
+                out.writeString( Objects.requireNonNull( value.getText(), "text cannot be null" ) );
+            }
+            case TOOL -> {
+                var message = (ToolResponseMessage) value;
+                out.writeVarInt( TOOL );
+                out.writeVarInt( message.getResponses().size() );
+                for( var response : message.getResponses() ) {
+                    out.writeNullableString( response.id() );
+                    out.writeNullableString( response.name() );
+                    out.writeNullableString( response.responseData() );
+                }
+                out.writeMap( message.getMetadata() );
+            }
+            default -> throw new IllegalArgumentException( "Unsupported message type: " + value.getMessageType() );
+        }
+    }
+
+    @Override
+    public Message read(BinaryInput in) throws IOException, ClassNotFoundException {
+        final int type = in.readVarInt();
+        return switch (type) {
+            case USER -> {
+                var text = in.readString();
+                Map<String,Object> metadata = in.readMap();
+                yield UserMessage.builder().text(text).metadata(metadata).build();
+            }
+            case ASSISTANT -> {
+                var text = in.readNullableString();
+                Map<String,Object> metadata = in.readMap();
+                int size = in.readVarInt();
+                var toolCalls = new ArrayList<AssistantMessage.ToolCall>( size );
+                for( int i = 0; i < size; ++i ) {
+                    toolCalls.add( new AssistantMessage.ToolCall(
+                            in.readNullableString(),
+                            in.readNullableString(),
+                            in.readNullableString(),
+                            in.readNullableString() ) );
+                }
+                yield new AssistantMessage( text, metadata, toolCalls );
+            }
+            case SYSTEM -> new SystemMessage( in.readString() );
+            case TOOL -> {
+                int size = in.readVarInt();
+                var responses = new ArrayList<ToolResponseMessage.ToolResponse>( size );
+                for( int i = 0; i < size; ++i ) {
+                    responses.add( new ToolResponseMessage.ToolResponse(
+                            in.readNullableString(),
+                            in.readNullableString(),
+                            in.readNullableString() ) );
+                }
+                Map<String,Object> metadata = in.readMap();
+                yield new ToolResponseMessage( responses, metadata );
+            }
+            default -> throw new StreamCorruptedException( format("Unsupported message type: %d", type) );
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package org.bsc.langgraph4j.spring.ai.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.AgentStateFactory;
+import org.springframework.ai.chat.messages.Message;
+
+/**
+ * Compact binary serializer of states holding Spring AI messages
+ *
+ * @param <State> the type of the agent state
+ */
+public class SpringAIBinaryStateSerializer<State extends AgentState> extends BinaryStateSerializer<State> {
+
+    public static final int MESSAGE_TAG = 32;
+
+    public SpringAIBinaryStateSerializer( AgentStateFactory<State> stateFactory ) {
+        super(stateFactory);
+
+        registry().register( MESSAGE_TAG, Message.class, new MessageCodec() );
+    }
+}
@@ -1,6 +1,7 @@
 package org.bsc.langgraph4j.spring.ai.serializer.jackson;
 
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
 import org.bsc.langgraph4j.state.AgentState;
@@ -45,7 +46,17 @@ public class SpringAIJacksonStateSerializer<State extends AgentState>  extends J
     }
 
     public SpringAIJacksonStateSerializer(AgentStateFactory<State> stateFactory) {
-        super(stateFactory);
+        this(stateFactory, JacksonFormat.JSON);
+    }
+
+    /**
+     * Creates a serializer writing the given data format ( e.g. Smile or CBOR ) with the same message handlers
+     *
+     * @param stateFactory the state factory
+     * @param format the data format
+     */
+    public SpringAIJacksonStateSerializer(AgentStateFactory<State> stateFactory, JacksonFormat format) {
+        super(stateFactory, format);
 
         var module = new SimpleModule();
 
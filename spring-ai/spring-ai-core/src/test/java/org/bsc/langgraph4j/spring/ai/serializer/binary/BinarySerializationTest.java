@@ -0,0 +1,44 @@
+package org.bsc.langgraph4j.spring.ai.serializer.binary;
+
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySerializationTest {
+
+    @Test
+    public void messagesTest() throws Exception {
+
+        var serializer = new SpringAIBinaryStateSerializer<>( AgentState::new );
+
+        Map<String,Object> metadata = Map.of( "key1", "value1", "key2", 100 );
+
+        var toolCall = new AssistantMessage.ToolCall( "t1", "function", "test1", "{}" );
+
+        var messages = List.<Message>of(
+                new SystemMessage( "Buddy" ),
+                UserMessage.builder().text( "Hello" ).metadata( metadata ).build(),
+                new AssistantMessage( null, metadata, List.of( toolCall ) ),
+                new ToolResponseMessage( List.of( new ToolResponseMessage.ToolResponse( "t1", "test1", "{ result: 'OK'}" ) ), metadata ),
+                new AssistantMessage( "done" ) );
+
+        var state = serializer.cloneObject( Map.of( "messages", messages ) );
+
+        var result = state.<List<Message>>value( "messages" ).orElseThrow();
+        assertEquals( messages.size(), result.size() );
+        for( int i = 0; i < messages.size(); ++i ) {
+            var expected = messages.get(i);
+            var actual = result.get(i);
+            assertEquals( expected.getMessageType(), actual.getMessageType() );
+            assertEquals( expected.getText(), actual.getText() );
+            assertEquals( expected.getMetadata(), actual.getMetadata() );
+        }
+        assertEquals( List.of( toolCall ), ((AssistantMessage)result.get(2)).getToolCalls() );
+        assertEquals( ((ToolResponseMessage)messages.get(3)).getResponses(), ((ToolResponseMessage)result.get(3)).getResponses() );
+    }
+}
@@ -1,5 +1,6 @@
 package org.bsc.langgraph4j.spring.ai.serializer.jackson;
 
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonFormat;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 import org.springframework.ai.chat.messages.AssistantMessage;
@@ -99,4 +100,21 @@ public class AssistantMessageSerializeTest {
         assertEquals( toolCalls, stateValue.getToolCalls() );
     }
 
+
+    @Test
+    public void smileTest() throws Exception {
+
+        var serializer = new SpringAIJacksonStateSerializer<>( AgentState::new, JacksonFormat.SMILE );
+
+        assertEquals( "application/x-jackson-smile", serializer.contentType() );
+
+        var toolCall = new AssistantMessage.ToolCall( "t1", "function", "test1", "{}" );
+        var message = new AssistantMessage( "Hello world", Map.of( "key1", "value1" ), List.of( toolCall ) );
+        var state = serializer.cloneObject( Map.of( "assistant1", message) );
+
+        var stateValue = state.<AssistantMessage>value( "assistant1").orElseThrow();
+        assertEquals( "Hello world", stateValue.getText() );
+        assertEquals( "value1", stateValue.getMetadata().get("key1") );
+        assertEquals( List.of( toolCall ), stateValue.getToolCalls() );
+    }
 }
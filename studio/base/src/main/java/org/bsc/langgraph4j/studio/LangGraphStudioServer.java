@@ -582,7 +582,7 @@ public interface LangGraphStudioServer {
                 var cacheEntry = instance.cache().get(persistentConfig);
 
                 final Map<String, Object> candidateDataMap;
-                if ( /*resume && */ instance.graph().getStateSerializer() instanceof PlainTextStateSerializer<? extends AgentState> textSerializer) {
+                if ( /*resume && */ instance.graph().getStateSerializer() instanceof PlainTextStateSerializer<? extends AgentState> textSerializer && textSerializer.isText()) {
                     candidateDataMap = textSerializer.read(new InputStreamReader(req.getInputStream())).data();
                 } else {
                     candidateDataMap = instance.objectMapper().readValue(req.getInputStream(), new TypeReference<>() {});